@@ -0,0 +1,440 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Time of every visit of every member
+ *
+ * Each member's visits are kept as a series of local wall-clock times, in
+ * seconds, stored as the difference to the previous visit and packed as
+ * variable-length integers in a byte array. A visit a day or a week after
+ * the last one takes three bytes, so years of daily visits for every member
+ * fit comfortably in memory.
+ *
+ * Every MARK_INTERVAL visits the series also remembers where it is in the
+ * byte array, so a date range query seeks to the nearest mark with a binary
+ * search and decodes only the visits around the range. The last visit is
+ * kept unpacked and answered in O(1).
+ *
+ * Visits are recorded with the wall-clock time of the gym's time zone, so
+ * weekday and hour-of-day queries need no time zone lookups. If the clock
+ * moves backwards, a visit is recorded at the time of the previous one.
+ *
+ * History is keyed by member ID and outlives the members themselves: removing
+ * members or loading a member file does not erase the visits already made.
+ * Recording and queries are safe from any thread.
+ */
+public class AttendanceHistory {
+
+    private static final int MARK_INTERVAL = 64;
+
+    private static final long FILE_MAGIC = 0x47594d5649534954L; // "GYMVISIT"
+
+    private static final int FILE_VERSION = 1;
+
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    private final ConcurrentHashMap<String, Series> series = new ConcurrentHashMap<>();
+
+    private final ZoneRules zoneRules;
+
+    public AttendanceHistory() {
+        this(ZoneId.systemDefault());
+    }
+
+    public AttendanceHistory(ZoneId zone) {
+        this(zone.getRules());
+    }
+
+    private AttendanceHistory(ZoneRules zoneRules) {
+        this.zoneRules = zoneRules;
+    }
+
+    /**
+     * The visits of one member
+     *
+     * Guarded by its own monitor; recording for one member never waits on
+     * another member's series.
+     */
+    private static class Series {
+        byte[] data = new byte[16];
+        int length;
+        int count;
+        long last;
+
+        // Time of the visit before mark i, and the offset where mark i's visit starts
+        long[] markPrevious;
+        int[] markOffsets;
+
+        synchronized void add(long seconds) {
+            if (count > 0 && seconds < last) {
+                seconds = last;
+            }
+            long previous = count > 0 ? last : 0;
+            if (count % MARK_INTERVAL == 0 && count > 0) {
+                addMark(previous);
+            }
+            if (length + 10 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length + (data.length >> 1), length + 10));
+            }
+            length = writeVarLong(data, length, seconds - previous);
+            last = seconds;
+            count++;
+        }
+
+        private void addMark(long previous) {
+            int mark = count / MARK_INTERVAL;
+            if (markPrevious == null) {
+                markPrevious = new long[4];
+                markOffsets = new int[4];
+            } else if (mark == markPrevious.length) {
+                markPrevious = Arrays.copyOf(markPrevious, mark * 2);
+                markOffsets = Arrays.copyOf(markOffsets, mark * 2);
+            }
+            markPrevious[mark] = previous;
+            markOffsets[mark] = length;
+        }
+
+        /**
+         * Finds the last mark whose preceding visit is before a time
+         *
+         * Every visit before that mark is before the time too, so decoding
+         * can start there.
+         */
+        int markBefore(long seconds) {
+            int marks = markPrevious == null ? 1 : (count - 1) / MARK_INTERVAL + 1;
+            int low = 1;
+            int high = marks - 1;
+            int found = 0;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (markPrevious[mid] < seconds) {
+                    found = mid;
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Decodes the visits in [from, to) and passes each to a visitor
+         */
+        synchronized void forEach(long from, long to, VisitVisitor visitor) {
+            if (count == 0 || last < from) {
+                return;
+            }
+            int mark = markBefore(from);
+            long time = mark == 0 ? 0 : markPrevious[mark];
+            int position = mark == 0 ? 0 : markOffsets[mark];
+            for (int i = mark * MARK_INTERVAL; i < count; i++) {
+                long delta = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = data[position++];
+                    delta |= (long) (b & 0x7F) << shift;
+                    shift += 7;
+                } while (b < 0);
+                time += delta;
+                if (time >= to) {
+                    return;
+                }
+                if (time >= from) {
+                    visitor.visit(time);
+                }
+            }
+        }
+
+        synchronized Series copy() {
+            Series copy = new Series();
+            copy.data = Arrays.copyOf(data, length);
+            copy.length = length;
+            copy.count = count;
+            copy.last = last;
+            if (markPrevious != null) {
+                copy.markPrevious = markPrevious.clone();
+                copy.markOffsets = markOffsets.clone();
+            }
+            return copy;
+        }
+
+        long footprintBytes() {
+            long bytes = 16 + 4 + 4 + 8 + 8 + 8 + 16 + data.length;
+            if (markPrevious != null) {
+                bytes += 32 + markPrevious.length * 12L;
+            }
+            return bytes;
+        }
+    }
+
+    private interface VisitVisitor {
+        void visit(long localSeconds);
+    }
+
+    /**
+     * Records a visit
+     *
+     * @param id The member ID
+     * @param epochMillis When the visit happened
+     */
+    public void record(String id, long epochMillis) {
+        long epochSeconds = Math.floorDiv(epochMillis, 1000L);
+        long local = epochSeconds + zoneRules.getOffset(Instant.ofEpochSecond(epochSeconds)).getTotalSeconds();
+        series.computeIfAbsent(id, key -> new Series()).add(local);
+    }
+
+    /**
+     * Returns the total number of visits recorded for a member
+     */
+    public int getVisitCount(String id) {
+        Series visits = series.get(id);
+        if (visits == null) {
+            return 0;
+        }
+        synchronized (visits) {
+            return visits.count;
+        }
+    }
+
+    /**
+     * Returns the time of a member's last visit
+     *
+     * @return The last visit, or null if the member has none recorded
+     */
+    public LocalDateTime getLastVisit(String id) {
+        Series visits = series.get(id);
+        if (visits == null) {
+            return null;
+        }
+        synchronized (visits) {
+            return visits.count > 0 ? toDateTime(visits.last) : null;
+        }
+    }
+
+    /**
+     * Counts a member's visits between two dates, both inclusive
+     */
+    public int countVisits(String id, LocalDate from, LocalDate to) {
+        Series visits = series.get(id);
+        if (visits == null) {
+            return 0;
+        }
+        int[] count = new int[1];
+        visits.forEach(startOf(from), startOf(to.plusDays(1)), time -> count[0]++);
+        return count[0];
+    }
+
+    /**
+     * Returns the times of a member's visits between two dates, both inclusive
+     *
+     * @return The visits in the order they were made
+     */
+    public LocalDateTime[] getVisits(String id, LocalDate from, LocalDate to) {
+        Series visits = series.get(id);
+        if (visits == null) {
+            return new LocalDateTime[0];
+        }
+        long[][] holder = {new long[16]};
+        int[] size = new int[1];
+        visits.forEach(startOf(from), startOf(to.plusDays(1)), time -> {
+            if (size[0] == holder[0].length) {
+                holder[0] = Arrays.copyOf(holder[0], size[0] * 2);
+            }
+            holder[0][size[0]++] = time;
+        });
+        LocalDateTime[] result = new LocalDateTime[size[0]];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = toDateTime(holder[0][i]);
+        }
+        return result;
+    }
+
+    /**
+     * Counts a member's visits on each day of the week
+     *
+     * @return Seven counts, Monday first (index DayOfWeek.getValue() - 1)
+     */
+    public int[] getVisitsByWeekday(String id) {
+        int[] weekdays = new int[7];
+        Series visits = series.get(id);
+        if (visits != null) {
+            visits.forEach(Long.MIN_VALUE, Long.MAX_VALUE, time -> weekdays[weekdayIndex(time)]++);
+        }
+        return weekdays;
+    }
+
+    /**
+     * Counts the visits of all members in each hour of the day, to find peak hours
+     *
+     * @param from The first day counted
+     * @param to The last day counted, inclusive
+     * @return 24 counts, one per hour starting at midnight
+     */
+    public int[] getVisitsByHour(LocalDate from, LocalDate to) {
+        int[] hours = new int[24];
+        long start = startOf(from);
+        long end = startOf(to.plusDays(1));
+        for (Series visits : series.values()) {
+            visits.forEach(start, end, time -> hours[Math.floorMod(time, SECONDS_PER_DAY) / 3600]++);
+        }
+        return hours;
+    }
+
+    /**
+     * Returns the number of visits recorded for all members
+     */
+    public long getTotalVisits() {
+        long total = 0;
+        for (Series visits : series.values()) {
+            synchronized (visits) {
+                total += visits.count;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Estimates the heap used by the series, excluding the member ID keys
+     */
+    public long getFootprintBytes() {
+        long bytes = 0;
+        for (Series visits : series.values()) {
+            synchronized (visits) {
+                bytes += visits.footprintBytes();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Copies the history of every member
+     *
+     * Each series is copied under its own lock. For a copy consistent with a
+     * journal sequence, see MemberRegistry.snapshotHistory.
+     */
+    public AttendanceHistory copy() {
+        AttendanceHistory copy = new AttendanceHistory(zoneRules);
+        for (Map.Entry<String, Series> entry : series.entrySet()) {
+            copy.series.put(entry.getKey(), entry.getValue().copy());
+        }
+        return copy;
+    }
+
+    /**
+     * Writes the history to a file, replacing it atomically
+     *
+     * @param file The file to write
+     * @param journalSequence The last journal sequence reflected in the history
+     */
+    public void write(Path file, long journalSequence) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 64 * 1024))) {
+            out.writeLong(FILE_MAGIC);
+            out.writeInt(FILE_VERSION);
+            out.writeLong(journalSequence);
+            out.writeInt(series.size());
+            for (Map.Entry<String, Series> entry : series.entrySet()) {
+                Series visits = entry.getValue();
+                byte[] id = entry.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeShort(id.length);
+                out.write(id);
+                synchronized (visits) {
+                    out.writeInt(visits.count);
+                    out.writeInt(visits.length);
+                    out.write(visits.data, 0, visits.length);
+                }
+            }
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Adds the history stored in a file to this one
+     *
+     * @param file The file written by write(), which need not exist
+     * @return The journal sequence the file reflects, or 0 if there is no file
+     * @throws IOException if the file cannot be read or is not a history file
+     */
+    public long read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (in.readLong() != FILE_MAGIC) {
+                throw new IOException("Not an attendance history file: " + file);
+            }
+            int version = in.readInt();
+            if (version != FILE_VERSION) {
+                throw new IOException("Unsupported attendance history version " + version);
+            }
+            long journalSequence = in.readLong();
+            int seriesCount = in.readInt();
+            for (int s = 0; s < seriesCount; s++) {
+                byte[] id = new byte[in.readUnsignedShort()];
+                in.readFully(id);
+                int count = in.readInt();
+                byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+
+                // Re-adding rebuilds the marks; the deltas decode to the same times
+                Series visits = series.computeIfAbsent(new String(id, StandardCharsets.UTF_8), key -> new Series());
+                int position = 0;
+                long time = 0;
+                for (int i = 0; i < count; i++) {
+                    long delta = 0;
+                    int shift = 0;
+                    byte b;
+                    do {
+                        b = data[position++];
+                        delta |= (long) (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0);
+                    time += delta;
+                    visits.add(time);
+                }
+            }
+            return journalSequence;
+        }
+    }
+
+    private static long startOf(LocalDate date) {
+        return date.toEpochDay() * SECONDS_PER_DAY;
+    }
+
+    private static LocalDateTime toDateTime(long localSeconds) {
+        return LocalDateTime.ofEpochSecond(localSeconds, 0, ZoneOffset.UTC);
+    }
+
+    private static int weekdayIndex(long localSeconds) {
+        // 1970-01-01 was a Thursday
+        long day = Math.floorDiv(localSeconds, SECONDS_PER_DAY);
+        return (int) Math.floorMod(day + DayOfWeek.THURSDAY.ordinal(), 7L);
+    }
+
+    private static int writeVarLong(byte[] data, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            data[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[position++] = (byte) value;
+        return position;
+    }
+}
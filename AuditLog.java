@@ -0,0 +1,425 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous audit log of member operations, written as JSON lines
+ *
+ * The member classes record what each operation did (an attendance marked,
+ * a payment received or rejected, a plan upgraded) as a structured event
+ * instead of printing a message; EdtWatchdog records stalls of the Event
+ * Dispatch Thread the same way, without a member. record() copies the event
+ * type, the member's ID and name and up to two numbers and one text value
+ * into a slot of a bounded ring buffer and returns; it takes no lock,
+ * allocates nothing and never waits. When the buffer is full the event is
+ * dropped and counted in the audit.dropped counter of MetricsRegistry.DEFAULT.
+ *
+ * The ring buffer is a bounded multi-producer queue: each slot has a
+ * sequence number telling producers whether it is free for the position
+ * they claimed and telling the writer whether it has been filled. A single
+ * daemon writer thread drains it every DRAIN_INTERVAL_MILLIS into the log
+ * file, one JSON object per line, for example
+ *   {"time":"2026-10-17T09:15:02.114Z","event":"ATTENDANCE_MARKED","id":"1001","name":"Asha Rai","attendance":12}
+ * When the file reaches its size limit it is renamed to file.1, earlier
+ * files move up one number and the oldest is deleted.
+ *
+ * DEFAULT records nothing until start() is called, so members used by
+ * benchmarks and tools without a log cost one volatile read per operation.
+ */
+public class AuditLog {
+
+    /**
+     * What a member operation did
+     *
+     * Each type names the JSON fields its numbers and text are written
+     * under; null means the type does not use that value.
+     */
+    public enum Event {
+        MEMBERSHIP_ACTIVATED(null, null, null),
+        MEMBERSHIP_DEACTIVATED(null, null, null),
+        ALREADY_INACTIVE(null, null, null),
+        MEMBER_RESET(null, null, null),
+        ATTENDANCE_MARKED("attendance", null, null),
+        ATTENDANCE_REJECTED(null, null, null),
+        UPGRADE_ELIGIBLE("attendance", null, null),
+        PLAN_UPGRADED(null, null, "plan"),
+        UPGRADE_REJECTED(null, null, "plan"),
+        REGULAR_REVERTED(null, null, "reason"),
+        PAYMENT_REJECTED("cents", null, "reason"),
+        PAYMENT_ADJUSTED("requestedCents", "acceptedCents", null),
+        PAYMENT_RECEIVED("cents", "remainingCents", null),
+        PAYMENT_COMPLETED("cents", null, null),
+        DISCOUNT_APPLIED("cents", null, null),
+        DISCOUNT_REJECTED(null, null, null),
+        PREMIUM_REVERTED(null, null, null),
+        EDT_STALL("blockedMillis", "budgetMillis", "report"),
+        EDT_STALL_ENDED("blockedMillis", null, null);
+
+        private final String firstField;
+
+        private final String secondField;
+
+        private final String textField;
+
+        Event(String firstField, String secondField, String textField) {
+            this.firstField = firstField;
+            this.secondField = secondField;
+            this.textField = textField;
+        }
+    }
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    public static final long DEFAULT_MAX_FILE_BYTES = 8L * 1024 * 1024;
+
+    public static final int DEFAULT_KEEP_FILES = 5;
+
+    static final long DRAIN_INTERVAL_MILLIS = 10;
+
+    public static final AuditLog DEFAULT = new AuditLog(DEFAULT_CAPACITY);
+
+    private final int mask;
+
+    // Per slot: position + 1 once filled, position + capacity once drained and free again
+    private final AtomicLongArray sequences;
+
+    // Slot contents, written by the producer that claimed the slot before it publishes the sequence
+    private final long[] times;
+    private final Event[] events;
+    private final String[] ids;
+    private final String[] names;
+    private final long[] firstValues;
+    private final long[] secondValues;
+    private final String[] texts;
+
+    // Next position producers claim
+    private final AtomicLong tail = new AtomicLong();
+
+    // Next position the writer drains; only the writer thread touches it
+    private long head;
+
+    private final MetricsRegistry.Counter written = MetricsRegistry.DEFAULT.counter("audit.written");
+
+    private final MetricsRegistry.Counter dropped = MetricsRegistry.DEFAULT.counter("audit.dropped");
+
+    private volatile boolean running;
+
+    private Thread writer;
+
+    /**
+     * @param capacity Number of events the buffer holds; rounded up to a power of two
+     */
+    public AuditLog(int capacity) {
+        if (capacity < 2 || capacity > 1 << 24) {
+            throw new IllegalArgumentException("Capacity must be between 2 and 2^24: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.times = new long[size];
+        this.events = new Event[size];
+        this.ids = new String[size];
+        this.names = new String[size];
+        this.firstValues = new long[size];
+        this.secondValues = new long[size];
+        this.texts = new String[size];
+    }
+
+    /**
+     * Starts writing recorded events to a file on a daemon thread
+     *
+     * Events are appended to an existing file. A shutdown hook writes what is
+     * still buffered when the JVM exits.
+     *
+     * @param file The log file
+     * @param maxFileBytes Size at which the file is rolled over
+     * @param keepFiles How many rolled files to keep besides the current one
+     * @param errorHandler Told once if the log cannot be written; events are
+     *        dropped from then on
+     * @throws IOException if the file cannot be opened
+     */
+    public synchronized void start(Path file, long maxFileBytes, int keepFiles,
+                                   Consumer<IOException> errorHandler) throws IOException {
+        if (writer != null) {
+            throw new IllegalStateException("Audit log already started");
+        }
+        RollingFile out = new RollingFile(file, maxFileBytes, keepFiles);
+        running = true;
+        writer = new Thread(() -> writeLoop(out, errorHandler), "audit-log-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "audit-log-shutdown"));
+    }
+
+    /**
+     * Stops recording, writes the events still buffered and closes the file
+     */
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            running = false;
+            thread = writer;
+        }
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public void record(Event event, GymMember member) {
+        record(event, member, 0, 0, null);
+    }
+
+    public void record(Event event, GymMember member, String text) {
+        record(event, member, 0, 0, text);
+    }
+
+    /**
+     * Records one event without waiting
+     *
+     * Does nothing while the log is not running; counts the event as dropped
+     * if the buffer is full.
+     *
+     * @param event What happened
+     * @param member The member it happened to
+     * @param first The first number of the event, if its type has one
+     * @param second The second number of the event, if its type has one
+     * @param text The text of the event, if its type has one
+     */
+    public void record(Event event, GymMember member, long first, long second, String text) {
+        if (running) {
+            append(event, member.getId(), member.getName(), first, second, text);
+        }
+    }
+
+    /**
+     * Records an event that concerns no member, such as an EDT stall
+     *
+     * The line is written without the id and name fields.
+     */
+    public void record(Event event, long first, long second, String text) {
+        if (running) {
+            append(event, null, null, first, second, text);
+        }
+    }
+
+    private void append(Event event, String id, String name, long first, long second, String text) {
+        long position;
+        int index;
+        while (true) {
+            position = tail.get();
+            index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    break;
+                }
+            } else if (available < 0) {
+                // The writer has not drained this slot since the last lap
+                dropped.increment();
+                return;
+            }
+            // Another producer claimed the position first; try the next one
+        }
+        times[index] = System.currentTimeMillis();
+        events[index] = event;
+        ids[index] = id;
+        names[index] = name;
+        firstValues[index] = first;
+        secondValues[index] = second;
+        texts[index] = text;
+        sequences.lazySet(index, position + 1);
+    }
+
+    private void writeLoop(RollingFile out, Consumer<IOException> errorHandler) {
+        StringBuilder line = new StringBuilder(256);
+        boolean failed = false;
+        while (true) {
+            // Read before draining, so the last pass gets everything recorded before close();
+            // a producer that saw the log running just as it closed may still lose its event
+            boolean stopping = !running;
+            int drained = 0;
+            while (true) {
+                int index = (int) head & mask;
+                if (sequences.get(index) != head + 1) {
+                    break;
+                }
+                if (failed) {
+                    dropped.increment();
+                } else {
+                    line.setLength(0);
+                    appendJson(line, index);
+                    try {
+                        out.writeLine(line);
+                        written.increment();
+                    } catch (IOException e) {
+                        failed = true;
+                        dropped.increment();
+                        errorHandler.accept(e);
+                    }
+                }
+                // Let go of the strings and hand the slot back to producers for the next lap
+                ids[index] = null;
+                names[index] = null;
+                texts[index] = null;
+                sequences.lazySet(index, head + mask + 1);
+                head++;
+                drained++;
+            }
+            if (drained > 0 && !failed) {
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    failed = true;
+                    errorHandler.accept(e);
+                }
+            }
+            if (stopping) {
+                break;
+            }
+            LockSupport.parkNanos(DRAIN_INTERVAL_MILLIS * 1_000_000L);
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            if (!failed) {
+                errorHandler.accept(e);
+            }
+        }
+    }
+
+    private void appendJson(StringBuilder line, int index) {
+        Event event = events[index];
+        line.append("{\"time\":\"");
+        DateTimeFormatter.ISO_INSTANT.formatTo(Instant.ofEpochMilli(times[index]), line);
+        line.append("\",\"event\":\"").append(event.name()).append('"');
+        if (ids[index] != null) {
+            appendString(line, "id", ids[index]);
+            appendString(line, "name", names[index]);
+        }
+        if (event.firstField != null) {
+            line.append(",\"").append(event.firstField).append("\":").append(firstValues[index]);
+        }
+        if (event.secondField != null) {
+            line.append(",\"").append(event.secondField).append("\":").append(secondValues[index]);
+        }
+        if (event.textField != null) {
+            appendString(line, event.textField, texts[index]);
+        }
+        line.append('}');
+    }
+
+    private static void appendString(StringBuilder line, String field, String value) {
+        line.append(",\"").append(field).append("\":");
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append(String.format("\\u%04x", (int) c));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    /**
+     * The log file and its rolled-over predecessors
+     */
+    private static final class RollingFile {
+
+        private final Path file;
+
+        private final long maxBytes;
+
+        private final int keepFiles;
+
+        private BufferedWriter out;
+
+        // Characters rather than bytes; the same for the ASCII most lines are made of
+        private long size;
+
+        RollingFile(Path file, long maxBytes, int keepFiles) throws IOException {
+            this.file = file;
+            this.maxBytes = maxBytes;
+            this.keepFiles = keepFiles;
+            open();
+        }
+
+        void writeLine(CharSequence line) throws IOException {
+            if (size > 0 && size + line.length() + 1 > maxBytes) {
+                roll();
+            }
+            out.append(line).append('\n');
+            size += line.length() + 1;
+        }
+
+        void flush() throws IOException {
+            out.flush();
+        }
+
+        void close() throws IOException {
+            out.close();
+        }
+
+        private void open() throws IOException {
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            size = Files.size(file);
+        }
+
+        private void roll() throws IOException {
+            out.close();
+            if (keepFiles < 1) {
+                Files.delete(file);
+            } else {
+                Files.deleteIfExists(rolled(keepFiles));
+                for (int i = keepFiles - 1; i >= 1; i--) {
+                    if (Files.exists(rolled(i))) {
+                        Files.move(rolled(i), rolled(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+                Files.move(file, rolled(1), StandardCopyOption.REPLACE_EXISTING);
+            }
+            open();
+        }
+
+        private Path rolled(int number) {
+            return file.resolveSibling(file.getFileName() + "." + number);
+        }
+    }
+}
@@ -0,0 +1,395 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Headless HTTP server for turnstiles and other check-in terminals
+ *
+ * Runs on the JDK's built-in HTTP server against a shared MemberRegistry, so
+ * every request goes through the same member logic and journal as the GUI.
+ * All responses are JSON.
+ *
+ *   POST /checkin?id=ID              mark attendance (404 unknown, 409 inactive)
+ *   GET  /members?id=ID              look up a member
+ *   GET  /members?phone=&email=&trainer=&plan=&status=
+ *                                    find members matching all given values (JSON array)
+ *   POST /activate?id=ID             activate a membership
+ *   POST /deactivate?id=ID           deactivate a membership
+ *   POST /pay?id=ID&amount=AMOUNT    pay towards a premium membership (409 if rejected)
+ *   GET  /stats                      request count and latency percentiles
+ *
+ * Each request runs on its own virtual thread when the JDK provides them
+ * (Java 21 and later); otherwise requests run on a fixed pool whose size is
+ * set with the gym.server.threads system property. Server-side latency of
+ * every request is recorded in a LatencyHistogram.
+ */
+public class CheckInServer {
+
+    public static final int DEFAULT_PORT = 8085;
+
+    static {
+        // The JDK server writes headers and body separately; without TCP_NODELAY
+        // the body waits on the client's delayed ACK, about 40 ms per request
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final MemberRegistry members;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final boolean virtualThreads;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    /**
+     * Creates a server bound to an address; call start() to accept requests
+     *
+     * @param members The registry the requests operate on
+     * @param address The address to listen on
+     */
+    public CheckInServer(MemberRegistry members, InetSocketAddress address) throws IOException {
+        this.members = members;
+        this.server = HttpServer.create(address, 1024);
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newPlatformThreadPool();
+
+        server.createContext("/checkin", exchange -> handle(exchange, "POST", this::checkIn));
+        server.createContext("/members", exchange -> handle(exchange, "GET", this::lookup));
+        server.createContext("/activate", exchange -> handle(exchange, "POST", this::activate));
+        server.createContext("/deactivate", exchange -> handle(exchange, "POST", this::deactivate));
+        server.createContext("/pay", exchange -> handle(exchange, "POST", this::pay));
+        server.createContext("/stats", exchange -> handle(exchange, "GET", query -> stats()));
+        server.setExecutor(executor);
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService newPlatformThreadPool() {
+        int threads = Integer.getInteger("gym.server.threads", 64);
+        AtomicInteger created = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "check-in-" + created.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops accepting requests and waits briefly for requests in progress
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * A response: HTTP status and JSON body
+     */
+    private static class Response {
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    private interface Handler {
+        Response handle(Map<String, String> query);
+    }
+
+    private void handle(HttpExchange exchange, String method, Handler handler) throws IOException {
+        long started = System.nanoTime();
+        try {
+            Response response;
+            if (!method.equals(exchange.getRequestMethod())) {
+                response = error(405, "Use " + method);
+            } else {
+                try {
+                    response = handler.handle(parseQuery(exchange.getRequestURI().getRawQuery()));
+                } catch (RuntimeException e) {
+                    response = error(500, String.valueOf(e.getMessage()));
+                }
+            }
+            byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(response.status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+            latency.record(System.nanoTime() - started);
+        }
+    }
+
+    private Response checkIn(Map<String, String> query) {
+        GymMember member = requireMember(query);
+        if (member == null) {
+            return notFound(query);
+        }
+        if (!members.markAttendance(member.getId())) {
+            return error(409, "Membership is not active");
+        }
+        return ok(member);
+    }
+
+    private Response lookup(Map<String, String> query) {
+        if (query.containsKey("id")) {
+            GymMember member = requireMember(query);
+            return member != null ? ok(member) : notFound(query);
+        }
+        String status = query.get("status");
+        Boolean active = null;
+        if ("active".equalsIgnoreCase(status)) {
+            active = Boolean.TRUE;
+        } else if ("inactive".equalsIgnoreCase(status)) {
+            active = Boolean.FALSE;
+        } else if (status != null) {
+            return error(400, "Status must be active or inactive");
+        }
+        String phone = query.get("phone");
+        String email = query.get("email");
+        String trainer = query.get("trainer");
+        String plan = query.get("plan");
+        if (phone == null && email == null && trainer == null && plan == null && active == null) {
+            return error(400, "Give an id, phone, email, trainer, plan or status");
+        }
+        List<GymMember> found = members.getIndexes().find(phone, email, trainer, plan, active);
+        StringBuilder json = new StringBuilder(16 + found.size() * 192).append('[');
+        for (int i = 0; i < found.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendMember(json, found.get(i));
+        }
+        return new Response(200, json.append(']').toString());
+    }
+
+    private Response activate(Map<String, String> query) {
+        GymMember member = requireMember(query);
+        if (member == null || !members.activateMembership(member.getId())) {
+            return notFound(query);
+        }
+        return ok(member);
+    }
+
+    private Response deactivate(Map<String, String> query) {
+        GymMember member = requireMember(query);
+        if (member == null || !members.deactivateMembership(member.getId())) {
+            return notFound(query);
+        }
+        return ok(member);
+    }
+
+    private Response pay(Map<String, String> query) {
+        GymMember member = requireMember(query);
+        if (member == null) {
+            return notFound(query);
+        }
+        double amount;
+        try {
+            amount = Double.parseDouble(query.getOrDefault("amount", ""));
+        } catch (NumberFormatException e) {
+            return error(400, "Invalid amount");
+        }
+        if (!(amount > 0) || Double.isInfinite(amount)) {
+            return error(400, "Invalid amount");
+        }
+        if (!members.payDueAmount(member.getId(), amount)) {
+            return error(409, "Payment rejected");
+        }
+        return ok(member);
+    }
+
+    private Response stats() {
+        return new Response(200, "{\"requests\":" + latency.getCount()
+            + ",\"p50Micros\":" + latency.getPercentileNanos(50) / 1000
+            + ",\"p99Micros\":" + latency.getPercentileNanos(99) / 1000
+            + ",\"p999Micros\":" + latency.getPercentileNanos(99.9) / 1000
+            + ",\"maxMicros\":" + latency.getMaxNanos() / 1000
+            + ",\"virtualThreads\":" + virtualThreads + "}");
+    }
+
+    private GymMember requireMember(Map<String, String> query) {
+        String id = query.get("id");
+        return id != null ? members.findById(id) : null;
+    }
+
+    private static Response notFound(Map<String, String> query) {
+        return error(404, "Member not found: " + query.getOrDefault("id", ""));
+    }
+
+    private Response ok(GymMember member) {
+        StringBuilder json = new StringBuilder(192);
+        appendMember(json, member);
+        return new Response(200, json.toString());
+    }
+
+    private void appendMember(StringBuilder json, GymMember member) {
+        json.append("{\"id\":");
+        appendString(json, member.getId());
+        json.append(",\"name\":");
+        appendString(json, member.getName());
+        json.append(",\"type\":\"").append(member instanceof RegularMember ? "Regular" : "Premium").append('"')
+            .append(",\"active\":").append(member.isActiveStatus())
+            .append(",\"attendance\":").append(member.getAttendanceCount())
+            .append(",\"loyaltyPoints\":").append(member.getLoyaltyPoints());
+        LocalDateTime lastVisit = members.getAttendanceHistory().getLastVisit(member.getId());
+        json.append(",\"lastVisit\":");
+        appendString(json, lastVisit != null ? lastVisit.toString() : null);
+        if (member instanceof RegularMember) {
+            RegularMember regular = (RegularMember) member;
+            json.append(",\"plan\":");
+            appendString(json, regular.getMembershipPlan());
+        } else {
+            PremiumMember premium = (PremiumMember) member;
+            json.append(",\"trainer\":");
+            appendString(json, premium.getPersonalTrainer());
+            json.append(",\"paidAmount\":").append(premium.getPaidAmount())
+                .append(",\"paymentComplete\":").append(premium.isPaymentComplete());
+        }
+        json.append('}');
+    }
+
+    private static Response error(int status, String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message);
+        return new Response(status, json.append('}').toString());
+    }
+
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return query;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals >= 0 ? pair.substring(0, equals) : pair;
+            String value = equals >= 0 ? pair.substring(equals + 1) : "";
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    /**
+     * Runs the server without the GUI
+     *
+     * Recovers members from the snapshot and journal in the working directory
+     * and serves them on the loopback interface until the process is stopped.
+     * A checkpoint is written every gym.checkpoint.seconds (300 by default, 0
+     * to disable), so the journal does not grow without bound while the
+     * server runs. Member operations are logged to audit.log, as in the GUI.
+     * Do not run the GUI on the same files at the same time.
+     *
+     * Usage: java CheckInServer [port]   (or java GymGUI --headless [port])
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+
+        MemberRegistry members = new MemberRegistry();
+        MemberStore store = new MemberStore(members);
+        int replayed = store.recover(e -> System.err.println("Error writing journal: " + e.getMessage()));
+        AuditLog.DEFAULT.start(Paths.get("audit.log"), AuditLog.DEFAULT_MAX_FILE_BYTES, AuditLog.DEFAULT_KEEP_FILES,
+            e -> System.err.println("Error writing audit log: " + e.getMessage()));
+
+        long checkpointSeconds = Long.getLong("gym.checkpoint.seconds", 300);
+        ScheduledExecutorService checkpoints = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "member-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (checkpointSeconds > 0) {
+            checkpoints.scheduleWithFixedDelay(() -> {
+                try {
+                    store.checkpoint();
+                } catch (IOException | RuntimeException e) {
+                    System.err.println("Error writing checkpoint: " + e.getMessage());
+                }
+            }, checkpointSeconds, checkpointSeconds, TimeUnit.SECONDS);
+        }
+
+        CheckInServer server = new CheckInServer(members, new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            // A checkpoint in progress finishes before the store is closed
+            checkpoints.shutdown();
+            try {
+                store.close();
+            } catch (IOException e) {
+                System.err.println("Error closing journal: " + e.getMessage());
+            }
+            System.err.println("Check-in server stopped: " + server.getLatency().summary());
+        }, "check-in-server-shutdown"));
+        server.start();
+
+        System.err.println("Recovered " + members.size() + " members (" + replayed + " journal entries replayed)");
+        System.err.println("Check-in server listening on http://" + server.getAddress().getHostString() + ":"
+            + server.getAddress().getPort() + (server.usesVirtualThreads() ? " (virtual threads)" : " (thread pool)"));
+    }
+}
@@ -0,0 +1,147 @@
+import java.awt.EventQueue;
+
+/**
+ * Detects when the Event Dispatch Thread is blocked for longer than a budget
+ *
+ * A daemon thread posts a heartbeat to the event queue and checks every
+ * half budget whether it has run. If a heartbeat has waited longer than the
+ * budget, the EDT is stuck in a handler: the watchdog samples the EDT's
+ * stack at that moment and records it in the audit log as an EDT_STALL
+ * event with the name of the GUI action that is running, then records how
+ * long the stall lasted as EDT_STALL_ENDED once the heartbeat gets through.
+ * Each stall is reported once, however long it lasts.
+ *
+ * Each heartbeat notes the thread it ran on, so the stack sampled is that
+ * of the current EDT even after AWT has replaced one that died.
+ *
+ * GUI actions report their name with enter() and exit(). Stalls are also
+ * counted and timed in MetricsRegistry.DEFAULT as edt.stall.
+ *
+ * The budget defaults to DEFAULT_BUDGET_MILLIS and can be set with the
+ * gym.edt.budgetMillis system property.
+ */
+public class EdtWatchdog {
+
+    public static final long DEFAULT_BUDGET_MILLIS = 50;
+
+    private static final int MAX_STACK_FRAMES = 40;
+
+    private final long budgetNanos;
+
+    private final AuditLog log;
+
+    private final MetricsRegistry.Timer stalls = MetricsRegistry.DEFAULT.timer("edt.stall");
+
+    private volatile String currentAction;
+
+    // The thread the last heartbeat ran on
+    private volatile Thread edt;
+
+    // Time the pending heartbeat was posted, or -1 when none is pending
+    private volatile long heartbeatPosted = -1;
+
+    private volatile boolean stallReported;
+
+    /**
+     * @param budgetMillis How long the EDT may be blocked before a stall is logged
+     * @param log The audit log that receives each stall report, from the watchdog thread or the EDT
+     */
+    public EdtWatchdog(long budgetMillis, AuditLog log) {
+        if (budgetMillis < 1) {
+            throw new IllegalArgumentException("Budget must be at least 1 ms");
+        }
+        this.budgetNanos = budgetMillis * 1_000_000L;
+        this.log = log;
+    }
+
+    /**
+     * Returns the budget from the gym.edt.budgetMillis system property, or the default
+     */
+    public static long configuredBudgetMillis() {
+        return Long.getLong("gym.edt.budgetMillis", DEFAULT_BUDGET_MILLIS);
+    }
+
+    /**
+     * Starts watching the EDT on a daemon thread
+     */
+    public void start() {
+        Thread watcher = new Thread(this::watch, "edt-watchdog");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Records that a GUI action started on the EDT
+     *
+     * @param action The action name
+     * @return The action that was running before, to pass to exit()
+     */
+    public String enter(String action) {
+        String previous = currentAction;
+        currentAction = action;
+        return previous;
+    }
+
+    /**
+     * Records that a GUI action finished
+     *
+     * @param previous The value enter() returned
+     */
+    public void exit(String previous) {
+        currentAction = previous;
+    }
+
+    private void watch() {
+        long intervalMillis = Math.max(1, budgetNanos / 2_000_000);
+        while (true) {
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long posted = heartbeatPosted;
+            long now = System.nanoTime();
+            if (posted < 0) {
+                heartbeatPosted = now;
+                EventQueue.invokeLater(() -> heartbeat(now));
+            } else if (now - posted > budgetNanos && !stallReported) {
+                stallReported = true;
+                reportStall(now - posted);
+            }
+        }
+    }
+
+    private void heartbeat(long posted) {
+        long waited = System.nanoTime() - posted;
+        edt = Thread.currentThread();
+        heartbeatPosted = -1;
+        if (stallReported) {
+            stallReported = false;
+            stalls.record(waited);
+            log.record(AuditLog.Event.EDT_STALL_ENDED, waited / 1_000_000, 0, null);
+        } else if (waited > budgetNanos) {
+            // Blocked for longer than the budget between two checks
+            stalls.record(waited);
+            String action = currentAction;
+            log.record(AuditLog.Event.EDT_STALL, waited / 1_000_000, budgetNanos / 1_000_000,
+                (action != null ? "action " + action : "no GUI action") + ", no stack sampled");
+        }
+    }
+
+    private void reportStall(long blockedNanos) {
+        Thread thread = edt;
+        String action = currentAction;
+        StringBuilder report = new StringBuilder(1024);
+        report.append(action != null ? "action " + action : "no GUI action");
+        if (thread != null) {
+            StackTraceElement[] stack = thread.getStackTrace();
+            for (int i = 0; i < stack.length && i < MAX_STACK_FRAMES; i++) {
+                report.append("\n\tat ").append(stack[i]);
+            }
+            if (stack.length > MAX_STACK_FRAMES) {
+                report.append("\n\t... ").append(stack.length - MAX_STACK_FRAMES).append(" more");
+            }
+        }
+        log.record(AuditLog.Event.EDT_STALL, blockedNanos / 1_000_000, budgetNanos / 1_000_000, report.toString());
+    }
+}
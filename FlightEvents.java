@@ -0,0 +1,155 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the slow steps of the application
+ *
+ * Each event is timed with begin() and commit() around one step and carries
+ * the member, row and byte counts of that step, so a recording shows which
+ * step stalled and how much work it had. The events are enabled whenever a
+ * recording is running, either one started from the Help menu (see
+ * FlightRecording) or one started with -XX:StartFlightRecording, and cost
+ * next to nothing otherwise. Fields are only filled in when shouldCommit()
+ * is true.
+ *
+ * All events are in the "Gym Management" category under gym.*.
+ */
+public final class FlightEvents {
+
+    private FlightEvents() {
+    }
+
+    @Name("gym.FileWrite")
+    @Label("Member File Write")
+    @Category({"Gym Management", "Persistence"})
+    @Description("Writing a whole member file")
+    public static final class FileWrite extends Event {
+
+        @Label("Path")
+        public String path;
+
+        @Label("Members")
+        public int members;
+
+        @Label("Size")
+        @DataAmount(DataAmount.BYTES)
+        public long bytes;
+    }
+
+    @Name("gym.FileWriteChunk")
+    @Label("Member File Write Chunk")
+    @Category({"Gym Management", "Persistence"})
+    @Description("Writing one buffered chunk of member lines")
+    @StackTrace(false)
+    public static final class FileWriteChunk extends Event {
+
+        @Label("Members")
+        public int members;
+
+        @Label("Characters")
+        public int characters;
+    }
+
+    @Name("gym.FileRead")
+    @Label("Member File Read")
+    @Category({"Gym Management", "Persistence"})
+    @Description("Reading a whole member file")
+    public static final class FileRead extends Event {
+
+        @Label("Path")
+        public String path;
+
+        @Label("Members")
+        public int members;
+
+        @Label("Line Errors")
+        public long errors;
+
+        @Label("Size")
+        @DataAmount(DataAmount.BYTES)
+        public long bytes;
+    }
+
+    @Name("gym.FileReadChunk")
+    @Label("Member File Read Chunk")
+    @Category({"Gym Management", "Persistence"})
+    @Description("Parsing one chunk of a member file")
+    @StackTrace(false)
+    public static final class FileReadChunk extends Event {
+
+        @Label("Offset")
+        @DataAmount(DataAmount.BYTES)
+        public long offset;
+
+        @Label("Size")
+        @DataAmount(DataAmount.BYTES)
+        public long bytes;
+
+        @Label("Members")
+        public int members;
+
+        @Label("Line Errors")
+        public int errors;
+    }
+
+    @Name("gym.TableRefresh")
+    @Label("Member Table Refresh")
+    @Category({"Gym Management", "User Interface"})
+    @Description("Reloading every row of the Member List table")
+    public static final class TableRefresh extends Event {
+
+        @Label("Rows")
+        public int rows;
+    }
+
+    @Name("gym.DropdownUpdate")
+    @Label("Member Dropdown Update")
+    @Category({"Gym Management", "User Interface"})
+    @Description("Reloading the member dropdown after the members changed")
+    public static final class DropdownUpdate extends Event {
+
+        @Label("Members")
+        public int members;
+
+        @Label("Items")
+        public int items;
+    }
+
+    @Name("gym.Report")
+    @Label("Member Report")
+    @Category({"Gym Management", "User Interface"})
+    @Description("Generating the all-members report, from start to the last chunk shown")
+    public static final class Report extends Event {
+
+        @Label("Members")
+        public int members;
+
+        @Label("Characters")
+        public long characters;
+
+        @Label("Cancelled")
+        public boolean cancelled;
+    }
+
+    @Name("gym.MemberOperation")
+    @Label("Member Operation")
+    @Category({"Gym Management", "Members"})
+    @Description("One registry operation changing a member, including waiting for its lock")
+    @StackTrace(false)
+    public static final class MemberOperation extends Event {
+
+        @Label("Operation")
+        public String operation;
+
+        @Label("Member ID")
+        public String memberId;
+
+        @Label("Member Found")
+        public boolean found;
+    }
+}
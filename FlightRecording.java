@@ -0,0 +1,83 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+
+/**
+ * Starts and stops an in-process Java Flight Recorder recording
+ *
+ * The recording uses the JDK's "profile" settings (method sampling, lock
+ * contention, GC and I/O) plus every FlightEvents event, so a capture
+ * taken while the front desk sees the application stall shows both the
+ * JVM's view and which step of the application was running. It is kept
+ * on disk until stop() writes it to a .jfr file, which JDK Mission
+ * Control or "jfr print" can open.
+ *
+ * Only one recording started here runs at a time. Methods are synchronized
+ * and may be called from any thread.
+ */
+public final class FlightRecording {
+
+    private static final String SETTINGS = "profile";
+
+    private static Recording recording;
+
+    private FlightRecording() {
+    }
+
+    /**
+     * Starts a recording
+     *
+     * @return false if a recording is already running
+     * @throws IOException if the recording settings cannot be loaded
+     */
+    public static synchronized boolean start() throws IOException {
+        if (recording != null) {
+            return false;
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(SETTINGS);
+        } catch (ParseException e) {
+            throw new IOException("Cannot read the " + SETTINGS + " recording settings: " + e.getMessage(), e);
+        }
+        Recording started = new Recording(configuration);
+        started.setName("Fitness Club Management System");
+        started.setToDisk(true);
+        for (Class<?> event : FlightEvents.class.getDeclaredClasses()) {
+            started.enable(event.asSubclass(Event.class)).withoutThreshold();
+        }
+        started.start();
+        recording = started;
+        return true;
+    }
+
+    public static synchronized boolean isRecording() {
+        return recording != null;
+    }
+
+    /**
+     * Stops the recording and writes it to a file
+     *
+     * @param file The .jfr file to write
+     * @return false if no recording was running
+     * @throws IOException if the file cannot be written; the recording is
+     *         stopped and discarded either way
+     */
+    public static synchronized boolean stop(Path file) throws IOException {
+        if (recording == null) {
+            return false;
+        }
+        Recording stopped = recording;
+        recording = null;
+        try {
+            stopped.stop();
+            stopped.dump(file);
+        } finally {
+            stopped.close();
+        }
+        return true;
+    }
+}
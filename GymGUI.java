@@ -18,8 +18,17 @@ import javax.swing.SwingUtilities;
 import javax.swing.BorderFactory;
 import javax.swing.ListSelectionModel;
 import javax.swing.Box;
+import javax.swing.JProgressBar;
+import javax.swing.JComponent;
+import javax.swing.JMenuItem;
+import javax.swing.JPopupMenu;
+import javax.swing.KeyStroke;
+import javax.swing.Timer;
+import javax.swing.SwingWorker;
 import javax.swing.border.TitledBorder;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.plaf.basic.ComboPopup;
 import java.awt.BorderLayout;
 import java.awt.GridBagLayout;
 import java.awt.GridBagConstraints;
@@ -31,20 +40,31 @@ import java.awt.Font;
 import java.awt.Color;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.FileWriter;
-import java.io.FileReader;
 import java.io.BufferedWriter;
-import java.io.BufferedReader;
 import java.io.PrintWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Fitness Club Management System GUI Application
@@ -55,14 +75,28 @@ import java.util.ArrayList;
  * operations for data persistence.
  */
 public class GymGUI {
-    private static ArrayList<GymMember> members = new ArrayList<>();
+    private static final MemberRegistry members = new MemberRegistry();
     
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
+    private static final DateTimeFormatter VISIT_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    
     private static final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
     private static final String MEMBERS_FILE = "members.txt";
     
+    private static final String TABLE_EXPORT_FILE = "members_table.txt";
+    
+    private static final String AUDIT_LOG_FILE = "audit.log";
+    
+    // Members formatted per chunk published by the report worker
+    private static final int REPORT_CHUNK_MEMBERS = 500;
+    
+    // Times a second the dashboard is redrawn while it is shown
+    private static final int DASHBOARD_FPS = 4;
+    
+    private static final MemberStore store = new MemberStore(members);
+    
     private static JFrame mainFrame;
     
     private static JFrame displayFrame;
@@ -81,7 +115,9 @@ public class GymGUI {
     private static JComboBox<String> dobYearComboBox, dobMonthComboBox, dobDayComboBox;
     private static JComboBox<String> msYearComboBox, msMonthComboBox, msDayComboBox;
     private static JComboBox<String> cbMembershipPlan;
-    private static JComboBox<String> cbMemberSelect;
+    private static JComboBox<GymMember> cbMemberSelect;
+    private static MemberComboBoxModel memberSelectModel;
+    private static JTextField txtMemberFilter;
     
     private static JRadioButton rbMale, rbFemale;
     
@@ -89,14 +125,54 @@ public class GymGUI {
     
     private static JButton btnAddRegular, btnAddPremium, btnActivate, btnDeactivate;
     private static JButton btnMarkAttendance, btnUpgradePlan, btnRevertRegular, btnRevertPremium;
-    private static JButton btnPayDue, btnCalculateDiscount, btnDisplay, btnSaveToFile, btnReadFromFile, btnClear;
+    private static JButton btnPayDue, btnCalculateDiscount, btnDisplay, btnSaveToFile, btnReadFromFile, btnExportTable, btnCancelReport, btnClear;
     
     private static JTable tblMembers;
     
-    private static DefaultTableModel tableModel;
+    private static MemberTableModel tableModel;
     
     private static JTextArea txtAreaDisplay;
     
+    private static JProgressBar progressBar;
+    
+    private static SwingWorker<Integer, String> reportWorker;
+    
+    private static JTextArea reportTarget;
+    
+    private static final MetricsRegistry metrics = MetricsRegistry.DEFAULT;
+    
+    private static JPanel performancePanel;
+    
+    private static PerformanceTableModel performanceModel;
+    
+    private static Timer performanceRefresh;
+    
+    private static JPanel dashboardPanel;
+    
+    private static JLabel lblTotalMembers, lblActiveMembers, lblPremiumMembers, lblRegularMembers;
+    private static JLabel lblEligibleMembers, lblCheckInsToday, lblOutstandingDues;
+    
+    private static JPanel revenuePanel;
+    
+    private static final Map<String, JLabel> revenueLabels = new LinkedHashMap<>();
+    
+    private static Timer dashboardRefresh;
+    
+    private static final EdtWatchdog watchdog = new EdtWatchdog(EdtWatchdog.configuredBudgetMillis(), AuditLog.DEFAULT);
+    
+    // Shared by every action that does file I/O or other long work, so it never blocks the EDT
+    private static final ExecutorService backgroundExecutor = Executors.newFixedThreadPool(2, task -> {
+        Thread thread = new Thread(task, "gym-background");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private static int backgroundTasks;
+    
+    private static JLabel lblBusy;
+    
+    private static JProgressBar busyIndicator;
+    
     private static final Color PRIMARY_COLOR = new Color(41, 128, 185);
     private static final Color SECONDARY_COLOR = new Color(52, 152, 219);
     private static final Color SUCCESS_COLOR = new Color(46, 204, 113);
@@ -110,7 +186,12 @@ public class GymGUI {
      * 
      * Sets the system look and feel and initializes the GUI on the Event Dispatch Thread
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--headless")) {
+            CheckInServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        
     try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
         } catch (Exception e) {
@@ -142,15 +223,24 @@ public class GymGUI {
         createMemberManagementTab();
         createMemberListTab();
         createReportsTab();
+        createDashboardTab();
+        createPerformanceTab();
         
         mainFrame.add(tabbedPane, BorderLayout.CENTER);
         
         createStatusBar();
         
+        recoverMembers();
+        startAuditLog();
+        dashboardRefresh.start();
+        
         updateMemberDropdown();
+        refreshMemberTable();
         
         mainFrame.setLocationRelativeTo(null);
         mainFrame.setVisible(true);
+        
+        watchdog.start();
     }
     
     /**
@@ -176,7 +266,7 @@ public class GymGUI {
         JButton helpButton = new JButton("Help");
         styleButton(helpButton, SECONDARY_COLOR);
         helpButton.setForeground(Color.WHITE);
-        helpButton.addActionListener(e -> showHelp());
+        helpButton.addActionListener(e -> showHelpMenu(helpButton));
         
         rightPanel.add(helpButton);
         headerPanel.add(rightPanel, BorderLayout.EAST);
@@ -255,14 +345,49 @@ public class GymGUI {
         gbc.gridwidth = 1;
         panel.add(lblMemberSelect, gbc);
         
-        cbMemberSelect = new JComboBox<>();
+        memberSelectModel = new MemberComboBoxModel(members);
+        cbMemberSelect = new JComboBox<>(memberSelectModel);
         cbMemberSelect.setFont(new Font("Arial", Font.PLAIN, 12));
+        cbMemberSelect.setRenderer(new MemberListCellRenderer());
+        configureMemberSelectSizing();
+        cbMemberSelect.setKeySelectionManager((key, model) -> -1);
         cbMemberSelect.addActionListener(e -> handleMemberSelection());
         gbc.gridx = 1;
         gbc.gridy = 0;
-        gbc.gridwidth = 3;
+        gbc.gridwidth = 2;
         panel.add(cbMemberSelect, gbc);
         
+        txtMemberFilter = new JTextField();
+        txtMemberFilter.setFont(new Font("Arial", Font.PLAIN, 12));
+        txtMemberFilter.setToolTipText("Search by name, ID, phone number or email, or trainer:, plan: or status: followed by a value; Enter picks the best match");
+        txtMemberFilter.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                searchMembers();
+            }
+            
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                searchMembers();
+            }
+            
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                searchMembers();
+            }
+        });
+        // Enter picks the best match
+        txtMemberFilter.addActionListener(e -> {
+            if (memberSelectModel.getSize() > 1) {
+                cbMemberSelect.setSelectedIndex(1);
+                cbMemberSelect.hidePopup();
+            }
+        });
+        gbc.gridx = 3;
+        gbc.gridy = 0;
+        gbc.gridwidth = 1;
+        panel.add(txtMemberFilter, gbc);
+        
         lblId = new JLabel("Member ID* (numbers only):");
         lblId.setFont(new Font("Arial", Font.BOLD, 12));
         gbc.gridx = 0;
@@ -523,7 +648,7 @@ public class GymGUI {
         btnAddRegular = new JButton("Add Regular Member");
         btnAddRegular.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnAddRegular, SUCCESS_COLOR);
-        btnAddRegular.addActionListener(e -> addRegularMember());
+        btnAddRegular.addActionListener(timed("addRegularMember", GymGUI::addRegularMember));
         gbc.gridx = 0;
         gbc.gridy = 3;
         gbc.gridwidth = 2;
@@ -624,7 +749,7 @@ public class GymGUI {
         btnAddPremium = new JButton("Add Premium Member");
         btnAddPremium.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnAddPremium, SUCCESS_COLOR);
-        btnAddPremium.addActionListener(e -> addPremiumMember());
+        btnAddPremium.addActionListener(timed("addPremiumMember", GymGUI::addPremiumMember));
         gbc.gridx = 0;
         gbc.gridy = 4;
         gbc.gridwidth = 2;
@@ -661,62 +786,62 @@ public class GymGUI {
         btnActivate = new JButton("Activate Membership");
         btnActivate.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnActivate, SUCCESS_COLOR);
-        btnActivate.addActionListener(e -> activateMembership());
+        btnActivate.addActionListener(timed("activateMembership", GymGUI::activateMembership));
         panel.add(btnActivate);
         
         btnDeactivate = new JButton("Deactivate Membership");
         btnDeactivate.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnDeactivate, DANGER_COLOR);
-        btnDeactivate.addActionListener(e -> deactivateMembership());
+        btnDeactivate.addActionListener(timed("deactivateMembership", GymGUI::deactivateMembership));
         panel.add(btnDeactivate);
         
         btnMarkAttendance = new JButton("Mark Attendance");
         btnMarkAttendance.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnMarkAttendance, SUCCESS_COLOR);
-        btnMarkAttendance.addActionListener(e -> markAttendance());
+        btnMarkAttendance.addActionListener(timed("markAttendance", GymGUI::markAttendance));
         panel.add(btnMarkAttendance);
         
         btnUpgradePlan = new JButton("Upgrade Plan");
         btnUpgradePlan.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnUpgradePlan, SECONDARY_COLOR);
-        btnUpgradePlan.addActionListener(e -> upgradePlan());
+        btnUpgradePlan.addActionListener(timed("upgradePlan", GymGUI::upgradePlan));
         panel.add(btnUpgradePlan);
         
         btnClear = new JButton("Clear Fields");
         btnClear.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnClear, Color.LIGHT_GRAY);
         btnClear.setForeground(DARK_TEXT_COLOR);
-        btnClear.addActionListener(e -> clearFields());
+        btnClear.addActionListener(timed("clearFields", GymGUI::clearFields));
         panel.add(btnClear);
         
         btnRevertRegular = new JButton("Revert Regular Member");
         btnRevertRegular.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnRevertRegular, DANGER_COLOR);
-        btnRevertRegular.addActionListener(e -> revertRegularMember());
+        btnRevertRegular.addActionListener(timed("revertRegularMember", GymGUI::revertRegularMember));
         panel.add(btnRevertRegular);
         
         btnRevertPremium = new JButton("Revert Premium Member");
         btnRevertPremium.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnRevertPremium, DANGER_COLOR);
-        btnRevertPremium.addActionListener(e -> revertPremiumMember());
+        btnRevertPremium.addActionListener(timed("revertPremiumMember", GymGUI::revertPremiumMember));
         panel.add(btnRevertPremium);
         
         btnPayDue = new JButton("Pay Due Amount");
         btnPayDue.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnPayDue, SECONDARY_COLOR);
-        btnPayDue.addActionListener(e -> payDueAmount());
+        btnPayDue.addActionListener(timed("payDueAmount", GymGUI::payDueAmount));
         panel.add(btnPayDue);
         
         btnCalculateDiscount = new JButton("Calculate Discount");
         btnCalculateDiscount.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnCalculateDiscount, SECONDARY_COLOR);
-        btnCalculateDiscount.addActionListener(e -> calculateDiscount());
+        btnCalculateDiscount.addActionListener(timed("calculateDiscount", GymGUI::calculateDiscount));
         panel.add(btnCalculateDiscount);
         
         btnDisplay = new JButton("Display Members");
         btnDisplay.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnDisplay, WARNING_COLOR);
-        btnDisplay.addActionListener(e -> displayAllMembers());
+        btnDisplay.addActionListener(timed("displayAllMembers", GymGUI::displayAllMembers));
         panel.add(btnDisplay);
         
         return panel;
@@ -733,13 +858,7 @@ public class GymGUI {
         listPanel.setBackground(LIGHT_BG_COLOR);
         listPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         
-        String[] columnNames = {"ID", "Name", "Type", "Plan/Trainer", "Status", "Attendance", "Loyalty Points"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new MemberTableModel(members);
         
         tblMembers = new JTable(tableModel);
         tblMembers.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
@@ -769,15 +888,21 @@ public class GymGUI {
         btnSaveToFile = new JButton("Save to File");
         btnSaveToFile.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnSaveToFile, WARNING_COLOR);
-        btnSaveToFile.addActionListener(e -> saveToFile());
+        btnSaveToFile.addActionListener(timed("saveToFile", GymGUI::saveToFile));
         
         btnReadFromFile = new JButton("Read from File");
         btnReadFromFile.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(btnReadFromFile, WARNING_COLOR);
-        btnReadFromFile.addActionListener(e -> readFromFile());
+        btnReadFromFile.addActionListener(timed("readFromFile", GymGUI::readFromFile));
+        
+        btnExportTable = new JButton("Export Table");
+        btnExportTable.setFont(new Font("Arial", Font.BOLD, 12));
+        styleButton(btnExportTable, WARNING_COLOR);
+        btnExportTable.addActionListener(timed("exportMemberTable", GymGUI::exportMemberTable));
         
         buttonPanel.add(btnSaveToFile);
         buttonPanel.add(btnReadFromFile);
+        buttonPanel.add(btnExportTable);
         
         listPanel.add(buttonPanel, BorderLayout.SOUTH);
         
@@ -822,9 +947,16 @@ public class GymGUI {
         JButton generateReportBtn = new JButton("Generate Report");
         generateReportBtn.setFont(new Font("Arial", Font.BOLD, 12));
         styleButton(generateReportBtn, WARNING_COLOR);
-        generateReportBtn.addActionListener(e -> displayAllMembers());
+        generateReportBtn.addActionListener(timed("displayAllMembers", GymGUI::displayAllMembers));
+        
+        btnCancelReport = new JButton("Cancel Report");
+        btnCancelReport.setFont(new Font("Arial", Font.BOLD, 12));
+        styleButton(btnCancelReport, DANGER_COLOR);
+        btnCancelReport.setEnabled(false);
+        btnCancelReport.addActionListener(e -> cancelReport());
         
         buttonPanel.add(generateReportBtn);
+        buttonPanel.add(btnCancelReport);
         
         reportsPanel.add(buttonPanel, BorderLayout.SOUTH);
         
@@ -832,6 +964,207 @@ public class GymGUI {
         tabbedPane.setMnemonicAt(2, KeyEvent.VK_3);
     }
     
+    /**
+     * Creates the dashboard tab
+     * 
+     * Shows the running totals of MemberAggregates, which every member change
+     * keeps up to date, so a redraw reads a few counters and never scans the
+     * members. The values are redrawn DASHBOARD_FPS times a second while the
+     * tab is shown.
+     */
+    private static void createDashboardTab() {
+        dashboardPanel = new JPanel(new BorderLayout());
+        dashboardPanel.setBackground(LIGHT_BG_COLOR);
+        dashboardPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        
+        JPanel totalsPanel = new JPanel(new GridLayout(0, 2, 10, 8));
+        totalsPanel.setBackground(Color.WHITE);
+        totalsPanel.setBorder(dashboardBorder("Members"));
+        lblTotalMembers = addDashboardRow(totalsPanel, "Total Members:");
+        lblActiveMembers = addDashboardRow(totalsPanel, "Active Members:");
+        lblRegularMembers = addDashboardRow(totalsPanel, "Regular Members:");
+        lblPremiumMembers = addDashboardRow(totalsPanel, "Premium Members:");
+        lblEligibleMembers = addDashboardRow(totalsPanel, "Eligible for Upgrade:");
+        lblCheckInsToday = addDashboardRow(totalsPanel, "Check-ins Today:");
+        lblOutstandingDues = addDashboardRow(totalsPanel, "Outstanding Premium Dues:");
+        
+        revenuePanel = new JPanel(new GridLayout(0, 2, 10, 8));
+        revenuePanel.setBackground(Color.WHITE);
+        revenuePanel.setBorder(dashboardBorder("Revenue by Plan"));
+        
+        JPanel contentPanel = new JPanel(new GridLayout(1, 2, 10, 0));
+        contentPanel.setBackground(LIGHT_BG_COLOR);
+        contentPanel.add(totalsPanel);
+        contentPanel.add(revenuePanel);
+        dashboardPanel.add(contentPanel, BorderLayout.NORTH);
+        
+        tabbedPane.addTab("Dashboard", null, dashboardPanel, "Live member totals");
+        tabbedPane.setMnemonicAt(3, KeyEvent.VK_4);
+        
+        dashboardRefresh = new Timer(1000 / DASHBOARD_FPS, e -> refreshDashboard());
+    }
+    
+    private static TitledBorder dashboardBorder(String title) {
+        return BorderFactory.createTitledBorder(
+            BorderFactory.createLineBorder(PRIMARY_COLOR, 1),
+            title,
+            TitledBorder.LEFT,
+            TitledBorder.TOP,
+            new Font("Arial", Font.BOLD, 14),
+            PRIMARY_COLOR
+        );
+    }
+    
+    /**
+     * Adds a caption and a value label to a dashboard panel
+     * 
+     * @return The value label
+     */
+    private static JLabel addDashboardRow(JPanel panel, String caption) {
+        JLabel lblCaption = new JLabel(caption);
+        lblCaption.setFont(new Font("Arial", Font.BOLD, 13));
+        lblCaption.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
+        JLabel lblValue = new JLabel("0");
+        lblValue.setFont(new Font("Monospaced", Font.BOLD, 16));
+        lblValue.setForeground(PRIMARY_COLOR);
+        panel.add(lblCaption);
+        panel.add(lblValue);
+        return lblValue;
+    }
+    
+    /**
+     * Redraws the dashboard from the running totals, if it is shown
+     */
+    private static void refreshDashboard() {
+        if (!dashboardPanel.isShowing()) {
+            return;
+        }
+        MemberAggregates totals = members.getAggregates();
+        lblTotalMembers.setText(String.format("%,d", totals.getMembers()));
+        lblActiveMembers.setText(String.format("%,d", totals.getActiveMembers()));
+        lblRegularMembers.setText(String.format("%,d", totals.getRegularMembers()));
+        lblPremiumMembers.setText(String.format("%,d", totals.getPremiumMembers()));
+        lblEligibleMembers.setText(String.format("%,d", totals.getEligibleForUpgrade()));
+        lblCheckInsToday.setText(String.format("%,d", totals.getCheckInsToday()));
+        lblOutstandingDues.setText(formatCents(totals.getOutstandingDuesCents()));
+        
+        Map<String, Long> revenue = totals.getRevenueByPlanCents();
+        if (!revenue.keySet().equals(revenueLabels.keySet())) {
+            // A plan was added or emptied; lay the rows out again
+            revenuePanel.removeAll();
+            revenueLabels.clear();
+            for (String plan : revenue.keySet()) {
+                revenueLabels.put(plan, addDashboardRow(revenuePanel, plan + ":"));
+            }
+            revenuePanel.revalidate();
+            revenuePanel.repaint();
+        }
+        revenue.forEach((plan, cents) -> revenueLabels.get(plan).setText(formatCents(cents)));
+    }
+    
+    private static String formatCents(long cents) {
+        return String.format("%,.2f", cents / 100.0);
+    }
+    
+    /**
+     * Creates the hidden performance tab
+     * 
+     * The tab lists the latency and call rate of every GUI action and member
+     * operation recorded in MetricsRegistry.DEFAULT. It is not shown until
+     * Ctrl+Shift+P is pressed, which shows or hides it; the table refreshes
+     * every second while the tab is shown.
+     */
+    private static void createPerformanceTab() {
+        performancePanel = new JPanel(new BorderLayout());
+        performancePanel.setBackground(LIGHT_BG_COLOR);
+        performancePanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        
+        performanceModel = new PerformanceTableModel(metrics);
+        JTable tblMetrics = new JTable(performanceModel);
+        tblMetrics.getTableHeader().setReorderingAllowed(false);
+        tblMetrics.setFont(new Font("Monospaced", Font.PLAIN, 12));
+        tblMetrics.getTableHeader().setFont(new Font("Arial", Font.BOLD, 12));
+        tblMetrics.setRowHeight(22);
+        tblMetrics.getColumnModel().getColumn(0).setPreferredWidth(300);
+        
+        JScrollPane scrollPane = new JScrollPane(tblMetrics);
+        scrollPane.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createTitledBorder(
+                BorderFactory.createLineBorder(PRIMARY_COLOR, 1),
+                "Action Latency",
+                TitledBorder.LEFT,
+                TitledBorder.TOP,
+                new Font("Arial", Font.BOLD, 14),
+                PRIMARY_COLOR
+            ),
+            BorderFactory.createEmptyBorder(10, 10, 10, 10)
+        ));
+        performancePanel.add(scrollPane, BorderLayout.CENTER);
+        
+        JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+        buttonPanel.setBackground(LIGHT_BG_COLOR);
+        
+        JButton btnDumpMetrics = new JButton("Dump to File");
+        btnDumpMetrics.setFont(new Font("Arial", Font.BOLD, 12));
+        styleButton(btnDumpMetrics, WARNING_COLOR);
+        btnDumpMetrics.addActionListener(e -> dumpMetrics());
+        
+        JButton btnResetMetrics = new JButton("Reset");
+        btnResetMetrics.setFont(new Font("Arial", Font.BOLD, 12));
+        styleButton(btnResetMetrics, DANGER_COLOR);
+        btnResetMetrics.addActionListener(e -> {
+            metrics.reset();
+            performanceModel.refresh();
+        });
+        
+        buttonPanel.add(btnDumpMetrics);
+        buttonPanel.add(btnResetMetrics);
+        performancePanel.add(buttonPanel, BorderLayout.SOUTH);
+        
+        performanceRefresh = new Timer(1000, e -> performanceModel.refresh());
+        
+        mainFrame.getRootPane().registerKeyboardAction(e -> togglePerformanceTab(),
+            KeyStroke.getKeyStroke(KeyEvent.VK_P, InputEvent.CTRL_DOWN_MASK | InputEvent.SHIFT_DOWN_MASK),
+            JComponent.WHEN_IN_FOCUSED_WINDOW);
+    }
+    
+    /**
+     * Shows the performance tab if it is hidden, or hides it
+     */
+    private static void togglePerformanceTab() {
+        int index = tabbedPane.indexOfComponent(performancePanel);
+        if (index >= 0) {
+            performanceRefresh.stop();
+            tabbedPane.removeTabAt(index);
+            return;
+        }
+        tabbedPane.addTab("Performance", null, performancePanel, "Action latency and call rates");
+        tabbedPane.setSelectedComponent(performancePanel);
+        performanceModel.refresh();
+        performanceRefresh.start();
+    }
+    
+    /**
+     * Writes the current metrics to a text file chosen by the user
+     */
+    private static void dumpMetrics() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Dump Metrics");
+        fileChooser.setSelectedFile(new File("metrics.txt"));
+        if (fileChooser.showSaveDialog(mainFrame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        try {
+            metrics.dump(file.toPath());
+            highlightSuccess("Metrics written to " + file.getName());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(mainFrame, "Error writing metrics: " + e.getMessage(),
+                                          "Error", JOptionPane.ERROR_MESSAGE);
+            highlightError("Error writing metrics: " + e.getMessage());
+        }
+    }
+    
     /**
      * Creates the status bar at the bottom of the application
      * 
@@ -847,6 +1180,22 @@ public class GymGUI {
         lblStatus.setBorder(BorderFactory.createEmptyBorder(0, 10, 0, 0));
         statusPanel.add(lblStatus, BorderLayout.WEST);
         
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        progressBar.setPreferredSize(new Dimension(200, 18));
+        progressBar.setVisible(false);
+        lblBusy = new JLabel();
+        lblBusy.setFont(new Font("Arial", Font.ITALIC, 12));
+        busyIndicator = new JProgressBar();
+        busyIndicator.setIndeterminate(true);
+        busyIndicator.setPreferredSize(new Dimension(60, 12));
+        busyIndicator.setVisible(false);
+        JPanel progressPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 2));
+        progressPanel.add(lblBusy);
+        progressPanel.add(busyIndicator);
+        progressPanel.add(progressBar);
+        statusPanel.add(progressPanel, BorderLayout.CENTER);
+        
         JLabel versionLabel = new JLabel("v2.0.0");
         versionLabel.setFont(new Font("Arial", Font.PLAIN, 12));
         versionLabel.setBorder(BorderFactory.createEmptyBorder(0, 0, 0, 10));
@@ -855,6 +1204,56 @@ public class GymGUI {
         mainFrame.add(statusPanel, BorderLayout.SOUTH);
     }
     
+    /**
+     * Wraps a GUI action so each run is timed in the metrics as gui.NAME
+     * 
+     * The action name is also given to the EDT watchdog, which logs it with
+     * any stall. Actions that continue in the background record that part
+     * separately when it finishes.
+     * 
+     * @param name The action name
+     * @param action The action to run on the Event Dispatch Thread
+     * @return A listener running the action
+     */
+    private static ActionListener timed(String name, Runnable action) {
+        MetricsRegistry.Timer timer = metrics.timer("gui." + name);
+        return e -> {
+            String previous = watchdog.enter(name);
+            long started = System.nanoTime();
+            try {
+                action.run();
+            } finally {
+                timer.recordSince(started);
+                watchdog.exit(previous);
+            }
+        };
+    }
+    
+    /**
+     * Runs a SwingWorker on the shared background executor
+     * 
+     * The status bar shows a busy indicator and the task's description
+     * until every background task has finished.
+     * 
+     * @param description What the task is doing, for the status bar
+     * @param worker The task; its done() still runs on the EDT
+     */
+    private static void runInBackground(String description, SwingWorker<?, ?> worker) {
+        backgroundTasks++;
+        lblBusy.setText(description + "...");
+        busyIndicator.setVisible(true);
+        worker.addPropertyChangeListener(e -> {
+            if ("state".equals(e.getPropertyName()) && e.getNewValue() == SwingWorker.StateValue.DONE) {
+                backgroundTasks--;
+                if (backgroundTasks == 0) {
+                    lblBusy.setText("");
+                    busyIndicator.setVisible(false);
+                }
+            }
+        });
+        backgroundExecutor.execute(worker);
+    }
+    
     /**
      * Applies consistent styling to buttons
      * 
@@ -881,6 +1280,74 @@ public class GymGUI {
         });
     }
     
+    /**
+     * Shows the Help menu below the Help button
+     * 
+     * The menu opens the help dialog and starts or stops a flight recording
+     * (see FlightRecording) to capture what the application is doing while
+     * it feels slow.
+     * 
+     * @param helpButton The button the menu drops down from
+     */
+    private static void showHelpMenu(JButton helpButton) {
+        JPopupMenu helpMenu = new JPopupMenu();
+        
+        JMenuItem helpItem = new JMenuItem("Help Contents");
+        helpItem.addActionListener(e -> showHelp());
+        helpMenu.add(helpItem);
+        helpMenu.addSeparator();
+        
+        JMenuItem startRecordingItem = new JMenuItem("Start Flight Recording");
+        startRecordingItem.setEnabled(!FlightRecording.isRecording());
+        startRecordingItem.addActionListener(e -> startFlightRecording());
+        helpMenu.add(startRecordingItem);
+        
+        JMenuItem stopRecordingItem = new JMenuItem("Stop Flight Recording...");
+        stopRecordingItem.setEnabled(FlightRecording.isRecording());
+        stopRecordingItem.addActionListener(e -> stopFlightRecording());
+        helpMenu.add(stopRecordingItem);
+        
+        helpMenu.show(helpButton, 0, helpButton.getHeight());
+    }
+    
+    /**
+     * Starts a flight recording of the running application
+     */
+    private static void startFlightRecording() {
+        try {
+            FlightRecording.start();
+            highlightSuccess("Flight recording started. Stop it from the Help menu to save it.");
+        } catch (IOException | RuntimeException e) {
+            JOptionPane.showMessageDialog(mainFrame, "Cannot start flight recording: " + e.getMessage(),
+                                          "Error", JOptionPane.ERROR_MESSAGE);
+            highlightError("Cannot start flight recording: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Stops the flight recording and saves it to a .jfr file chosen by the user
+     * 
+     * If the user cancels the file chooser the recording keeps running.
+     */
+    private static void stopFlightRecording() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Save Flight Recording");
+        fileChooser.setSelectedFile(new File("gym-" + LocalDateTime.now().format(
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".jfr"));
+        if (fileChooser.showSaveDialog(mainFrame) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        File file = fileChooser.getSelectedFile();
+        try {
+            FlightRecording.stop(file.toPath());
+            highlightSuccess("Flight recording saved to " + file.getName());
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(mainFrame, "Error saving flight recording: " + e.getMessage(),
+                                          "Error", JOptionPane.ERROR_MESSAGE);
+            highlightError("Error saving flight recording: " + e.getMessage());
+        }
+    }
+    
     /**
      * Displays the help dialog with application usage information
      * 
@@ -904,6 +1371,9 @@ public class GymGUI {
         helpText.setText("Fitness Club Management System Help\n\n" +
                 "Member Management Tab:\n" +
                 "- Add new regular or premium members\n" +
+                "- Search the member list by name as you type, or by ID, phone number or email;\n" +
+                "  press Enter to pick the best match. Filter with\n" +
+                "  trainer:NAME, plan:PLAN or status:active|inactive\n" +
                 "- All fields marked with * are required\n" +
                 "- Member ID must be numbers only\n" +
                 "- Phone number must be numbers only\n" +
@@ -915,9 +1385,14 @@ public class GymGUI {
                 "Member List Tab:\n" +
                 "- View all members in a table format\n" +
                 "- Save member data to a text file\n" +
-                "- Load member data from a text file\n\n" +
+                "- Load member data from a text file\n" +
+                "- Export the member table as a formatted text file\n\n" +
                 "Reports Tab:\n" +
-                "- Generate detailed reports of all members\n\n" +
+                "- Generate detailed reports of all members\n" +
+                "- Cancel a report that is still being generated\n\n" +
+                "Help Menu:\n" +
+                "- Start Flight Recording captures what the application is doing;\n" +
+                "  Stop Flight Recording saves it as a .jfr file for support\n\n" +
                 "For more information, please contact support.");
         
         JScrollPane scrollPane = new JScrollPane(helpText);
@@ -936,6 +1411,83 @@ public class GymGUI {
         helpDialog.setVisible(true);
     }
 
+    /**
+     * Restores members from the last snapshot and the journal tail
+     * 
+     * See MemberStore for the files involved and the journal settings.
+     */
+    private static void recoverMembers() {
+        try {
+            long started = System.nanoTime();
+            int replayed = store.recover(GymGUI::reportJournalError);
+            mainFrame.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent e) {
+                    closeStore();
+                }
+            });
+            // For exits that do not close the window; does nothing once closeStore() has run
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    store.close();
+                } catch (IOException e) {
+                    reportJournalError(new UncheckedIOException(e));
+                }
+            }, "member-journal-shutdown"));
+            
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            updateStatus("Recovered " + members.size() + " members (" + replayed
+                + " journal entries replayed) in " + elapsedMillis + " ms");
+        } catch (IOException | RuntimeException e) {
+            JOptionPane.showMessageDialog(mainFrame, "Error recovering members: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+            highlightError("Journal unavailable, changes will only be kept on Save to File");
+        }
+    }
+    
+    /**
+     * Starts the audit log of member operations
+     * 
+     * Started after recovery, so replaying the journal is not logged again.
+     */
+    private static void startAuditLog() {
+        try {
+            AuditLog.DEFAULT.start(Paths.get(AUDIT_LOG_FILE), AuditLog.DEFAULT_MAX_FILE_BYTES,
+                                   AuditLog.DEFAULT_KEEP_FILES, GymGUI::reportAuditLogError);
+        } catch (IOException e) {
+            highlightError("Audit log unavailable: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Reports that the audit log stopped writing; called on its writer thread
+     */
+    private static void reportAuditLogError(IOException e) {
+        SwingUtilities.invokeLater(() -> highlightError("Error writing audit log: " + e.getMessage()));
+    }
+    
+    /**
+     * Reports a change that was applied but could not be written to the journal
+     * 
+     * Called on whichever thread made the change.
+     */
+    private static void reportJournalError(RuntimeException e) {
+        SwingUtilities.invokeLater(() -> highlightError("Error writing journal: " + e.getMessage()));
+    }
+    
+    /**
+     * Flushes and closes the journal when the main window is closed
+     * 
+     * The application exits right after, so a failure is reported in a
+     * dialog, as on recovery, rather than in the status bar.
+     */
+    private static void closeStore() {
+        try {
+            store.close();
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(mainFrame, "Error closing journal: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
     /**
      * Generates an array of year strings for combo box population
      * 
@@ -993,15 +1545,9 @@ public class GymGUI {
      * all form fields with the selected member's information.
      */
     private static void handleMemberSelection() {
-        int selectedIndex = cbMemberSelect.getSelectedIndex();
-        if (selectedIndex > 0) {
-            String selectedItem = (String) cbMemberSelect.getSelectedItem();
-            String memberId = selectedItem.split(" - ")[0];
-            GymMember selectedMember = findMemberById(memberId);
-            
-            if (selectedMember != null) {
-                populateFieldsFromMember(selectedMember);
-            }
+        GymMember selectedMember = memberSelectModel.getSelectedMember();
+        if (selectedMember != null) {
+            populateFieldsFromMember(selectedMember);
         }
     }
 
@@ -1057,74 +1603,91 @@ public class GymGUI {
         }
     }
 
+    /**
+     * Narrows the member dropdown to the search box text as it is typed
+     * 
+     * The dropdown's list is opened while there is text in the focused
+     * search box, so the matches show up without a click.
+     */
+    private static void searchMembers() {
+        String text = txtMemberFilter.getText();
+        memberSelectModel.setFilter(text);
+        if (txtMemberFilter.isFocusOwner() && cbMemberSelect.isShowing()) {
+            if (text.trim().isEmpty()) {
+                cbMemberSelect.hidePopup();
+            } else {
+                cbMemberSelect.showPopup();
+                txtMemberFilter.requestFocusInWindow();
+            }
+        }
+    }
+
     /**
      * Updates the member selection dropdown with current members
      * 
-     * Refreshes the dropdown list to include all currently registered members
-     * with their ID, name, and membership type.
+     * Used after the whole registry changes, such as a load from file. The
+     * dropdown reads members straight from the registry, so this only tells
+     * it that the list changed and clears the selection.
      */
     private static void updateMemberDropdown() {
-        cbMemberSelect.removeAllItems();
-        cbMemberSelect.addItem("-- Select Member --");
-        
-        for (GymMember member : members) {
-            String memberType = member instanceof RegularMember ? "Regular" : "Premium";
-            cbMemberSelect.addItem(member.getId() + " - " + member.getName() + " (" + memberType + ")");
+        FlightEvents.DropdownUpdate event = new FlightEvents.DropdownUpdate();
+        event.begin();
+        memberSelectModel.contentsChanged();
+        if (event.shouldCommit()) {
+            event.members = members.size();
+            event.items = memberSelectModel.getSize();
+            event.commit();
+        }
+    }
+    
+    /**
+     * Gives the member dropdown and its popup list a fixed cell size
+     * 
+     * Without a prototype value, Swing measures every member's label to size
+     * the combo box and its popup, which grows with the number of members.
+     */
+    private static void configureMemberSelectSizing() {
+        GymMember prototype = new PremiumMember("0000000000", "Prototype Member Name", "", "", "Male",
+            LocalDate.now(), LocalDate.now(), "");
+        cbMemberSelect.setPrototypeDisplayValue(prototype);
+        Object popup = cbMemberSelect.getUI().getAccessibleChild(cbMemberSelect, 0);
+        if (popup instanceof ComboPopup) {
+            ((ComboPopup) popup).getList().setPrototypeCellValue(prototype);
         }
     }
 
     /**
      * Refreshes the member table with current data
      * 
-     * Clears the table and repopulates it with all current members,
-     * displaying their key information in a tabular format.
+     * Used after the whole registry changes, such as a load from file. The
+     * table model reads members straight from the registry, so this only
+     * tells the table that every row may have changed; single-member actions
+     * update their own row through the table model instead.
      */
     private static void refreshMemberTable() {
-        tableModel.setRowCount(0);
-        
-        for (GymMember member : members) {
-            String memberType = member instanceof RegularMember ? "Regular" : "Premium";
-            String planOrTrainer;
-            
-            if (member instanceof RegularMember) {
-                planOrTrainer = ((RegularMember) member).getMembershipPlan();
-            } else {
-                planOrTrainer = ((PremiumMember) member).getPersonalTrainer();
-            }
-            
-            String status = member.isActiveStatus() ? "Active" : "Inactive";
-            
-            Object[] row = {
-                member.getId(),
-                member.getName(),
-                memberType,
-                planOrTrainer,
-                status,
-                member.getAttendanceCount(),
-                member.getLoyaltyPoints()
-            };
-            
-            tableModel.addRow(row);
+        long started = System.nanoTime();
+        FlightEvents.TableRefresh event = new FlightEvents.TableRefresh();
+        event.begin();
+        tableModel.contentsChanged();
+        if (event.shouldCommit()) {
+            event.rows = tableModel.getRowCount();
+            event.commit();
         }
         
         updateStatus("Member table refreshed. Total members: " + members.size());
+        metrics.timer("gui.refreshMemberTable").recordSince(started);
     }
 
     /**
      * Finds a member by their ID
      * 
-     * Searches through the members list to find a member with the specified ID.
+     * Looks the member up in the registry's hash index on the member ID.
      * 
      * @param id The member ID to search for
      * @return The GymMember object if found, null otherwise
      */
     private static GymMember findMemberById(String id) {
-        for (GymMember member : members) {
-            if (member.getId().equals(id)) {
-                return member;
-            }
-        }
-        return null;
+        return members.findById(id);
     }
 
     /**
@@ -1157,7 +1720,7 @@ public class GymGUI {
         txtPaidAmount.setText("");
         txtDiscountAmount.setText("");
         txtRemovalReason.setText("");
-        cbMemberSelect.setSelectedIndex(0);
+        cbMemberSelect.setSelectedItem(null);
         
         updateStatus("Fields cleared");
     }
@@ -1310,8 +1873,8 @@ public class GymGUI {
             RegularMember member = new RegularMember(id, name, phone, email, gender, dob, startDate, plan, referralSource);
             members.add(member);
             
-            updateMemberDropdown();
-            refreshMemberTable();
+            memberSelectModel.memberAdded(member);
+            tableModel.memberAdded(member);
             
             JOptionPane.showMessageDialog(mainFrame, "Regular member added successfully!\nEmail: " + email, "Success", JOptionPane.INFORMATION_MESSAGE);
             
@@ -1361,8 +1924,8 @@ public class GymGUI {
             PremiumMember member = new PremiumMember(id, name, phone, email, gender, dob, startDate, trainer);
             members.add(member);
             
-            updateMemberDropdown();
-            refreshMemberTable();
+            memberSelectModel.memberAdded(member);
+            tableModel.memberAdded(member);
             
             JOptionPane.showMessageDialog(mainFrame, "Premium member added successfully!\nEmail: " + email, "Success", JOptionPane.INFORMATION_MESSAGE);
             
@@ -1383,19 +1946,13 @@ public class GymGUI {
      * Sets the selected member's status to active and updates the display.
      */
     private static void activateMembership() {
-        int selectedIndex = cbMemberSelect.getSelectedIndex();
-        if (selectedIndex > 0) {
-            String selectedItem = (String) cbMemberSelect.getSelectedItem();
-            String memberId = selectedItem.split(" - ")[0];
-            GymMember selectedMember = findMemberById(memberId);
+        GymMember selectedMember = memberSelectModel.getSelectedMember();
+        if (selectedMember != null) {
+            members.activateMembership(selectedMember.getId());
+            JOptionPane.showMessageDialog(mainFrame, "Membership activated successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
+            tableModel.memberUpdated(selectedMember);
             
-            if (selectedMember != null) {
-                selectedMember.activateMembership();
-                JOptionPane.showMessageDialog(mainFrame, "Membership activated successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
-                refreshMemberTable();
-                
-                updateStatus("Membership activated for: " + selectedMember.getName());
-            }
+            updateStatus("Membership activated for: " + selectedMember.getName());
         } else {
             JOptionPane.showMessageDialog(mainFrame, "Please select a member", "Error", JOptionPane.ERROR_MESSAGE);
         }
@@ -1407,19 +1964,13 @@ public class GymGUI {
      * Sets the selected member's status to inactive and updates the display.
      */
     private static void deactivateMembership() {
-        int selectedIndex = cbMemberSelect.getSelectedIndex();
-        if (selectedIndex > 0) {
-            String selectedItem = (String) cbMemberSelect.getSelectedItem();
-            String memberId = selectedItem.split(" - ")[0];
-            GymMember selectedMember = findMemberById(memberId);
+        GymMember selectedMember = memberSelectModel.getSelectedMember();
+        if (selectedMember != null) {
+            members.deactivateMembership(selectedMember.getId());
+            JOptionPane.showMessageDialog(mainFrame, "Membership deactivated successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
+            tableModel.memberUpdated(selectedMember);
             
-            if (selectedMember != null) {
-                selectedMember.deactivateMembership();
-                JOptionPane.showMessageDialog(mainFrame, "Membership deactivated successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
-                refreshMemberTable();
-                
-                updateStatus("Membership deactivated for: " + selectedMember.getName());
-            }
+            updateStatus("Membership deactivated for: " + selectedMember.getName());
         } else {
             JOptionPane.showMessageDialog(mainFrame, "Please select a member", "Error", JOptionPane.ERROR_MESSAGE);
         }
@@ -1432,22 +1983,15 @@ public class GymGUI {
      * Only active members can have their attendance marked.
      */
     private static void markAttendance() {
-        int selectedIndex = cbMemberSelect.getSelectedIndex();
-        if (selectedIndex > 0) {
-            String selectedItem = (String) cbMemberSelect.getSelectedItem();
-            String memberId = selectedItem.split(" - ")[0];
-            GymMember selectedMember = findMemberById(memberId);
-            
-            if (selectedMember != null) {
-                if (selectedMember.isActiveStatus()) {
-                    selectedMember.markAttendance();
-                    JOptionPane.showMessageDialog(mainFrame, "Attendance marked successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
-                    refreshMemberTable();
-                    
-                    updateStatus("Attendance marked for: " + selectedMember.getName());
-                } else {
-                    JOptionPane.showMessageDialog(mainFrame, "Cannot mark attendance. Membership is not active", "Error", JOptionPane.ERROR_MESSAGE);
-                }
+        GymMember selectedMember = memberSelectModel.getSelectedMember();
+        if (selectedMember != null) {
+            if (members.markAttendance(selectedMember.getId())) {
+                JOptionPane.showMessageDialog(mainFrame, "Attendance marked successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
+                tableModel.memberUpdated(selectedMember);
+                
+                updateStatus("Attendance marked for: " + selectedMember.getName());
+            } else {
+                JOptionPane.showMessageDialog(mainFrame, "Cannot mark attendance. Membership is not active", "Error", JOptionPane.ERROR_MESSAGE);
             }
         } else {
             JOptionPane.showMessageDialog(mainFrame, "Please select a member", "Error", JOptionPane.ERROR_MESSAGE);
@@ -1461,13 +2005,9 @@ public class GymGUI {
      * Only regular members can have their plans upgraded.
      */
     private static void upgradePlan() {
-        int selectedIndex = cbMemberSelect.getSelectedIndex();
-        if (selectedIndex > 0) {
-            String selectedItem = (String) cbMemberSelect.getSelectedItem();
-            String memberId = selectedItem.split(" - ")[0];
-            GymMember selectedMember = findMemberById(memberId);
-            
-            if (selectedMember != null && selectedMember instanceof RegularMember) {
+        GymMember selectedMember = memberSelectModel.getSelectedMember();
+        if (selectedMember != null) {
+            if (selectedMember instanceof RegularMember) {
                 RegularMember regularMember = (RegularMember) selectedMember;
                 
                 String[] options = {"Standard", "Deluxe"};
@@ -1476,10 +2016,10 @@ public class GymGUI {
                      JOptionPane.QUESTION_MESSAGE, null, options, options[0]);
                 
                 if (newPlan != null) {
-                    boolean upgraded = regularMember.upgradePlan(newPlan);
+                    boolean upgraded = members.upgradePlan(regularMember.getId(), newPlan);
                     if (upgraded) {
                         JOptionPane.showMessageDialog(mainFrame, "Plan upgraded successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
-                        refreshMemberTable();
+                        tableModel.memberUpdated(regularMember);
                         
                         updateStatus("Plan upgraded for: " + regularMember.getName());
                     } else {
@@ -1501,13 +2041,9 @@ public class GymGUI {
      * Requires a removal reason to be entered in the form.
      */
     private static void revertRegularMember() {
-        int selectedIndex = cbMemberSelect.getSelectedIndex();
-        if (selectedIndex > 0) {
-            String selectedItem = (String) cbMemberSelect.getSelectedItem();
-            String memberId = selectedItem.split(" - ")[0];
-            GymMember selectedMember = findMemberById(memberId);
-            
-            if (selectedMember != null && selectedMember instanceof RegularMember) {
+        GymMember selectedMember = memberSelectModel.getSelectedMember();
+        if (selectedMember != null) {
+            if (selectedMember instanceof RegularMember) {
                 RegularMember regularMember = (RegularMember) selectedMember;
                 
                 String reason = txtRemovalReason.getText().trim();
@@ -1516,9 +2052,9 @@ public class GymGUI {
                     return;
                 }
                 
-                regularMember.revertRegularMember(reason);
+                members.revertRegularMember(regularMember.getId(), reason);
                 JOptionPane.showMessageDialog(mainFrame, "Regular member reverted successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
-                refreshMemberTable();
+                tableModel.memberUpdated(regularMember);
                 
                 updateStatus("Regular member reverted: " + regularMember.getName());
             } else {
@@ -1536,18 +2072,14 @@ public class GymGUI {
      * Only premium members can be reverted using this method.
      */
     private static void revertPremiumMember() {
-        int selectedIndex = cbMemberSelect.getSelectedIndex();
-        if (selectedIndex > 0) {
-            String selectedItem = (String) cbMemberSelect.getSelectedItem();
-            String memberId = selectedItem.split(" - ")[0];
-            GymMember selectedMember = findMemberById(memberId);
-            
-            if (selectedMember != null && selectedMember instanceof PremiumMember) {
+        GymMember selectedMember = memberSelectModel.getSelectedMember();
+        if (selectedMember != null) {
+            if (selectedMember instanceof PremiumMember) {
                 PremiumMember premiumMember = (PremiumMember) selectedMember;
                 
-                premiumMember.revertPremiumMember();
+                members.revertPremiumMember(premiumMember.getId());
                 JOptionPane.showMessageDialog(mainFrame, "Premium member reverted successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
-                refreshMemberTable();
+                tableModel.memberUpdated(premiumMember);
                 
                 updateStatus("Premium member reverted: " + premiumMember.getName());
             } else {
@@ -1565,13 +2097,9 @@ public class GymGUI {
      * Only premium members can make payments through this method.
      */
     private static void payDueAmount() {
-        int selectedIndex = cbMemberSelect.getSelectedIndex();
-        if (selectedIndex > 0) {
-            String selectedItem = (String) cbMemberSelect.getSelectedItem();
-            String memberId = selectedItem.split(" - ")[0];
-            GymMember selectedMember = findMemberById(memberId);
-            
-            if (selectedMember != null && selectedMember instanceof PremiumMember) {
+        GymMember selectedMember = memberSelectModel.getSelectedMember();
+        if (selectedMember != null) {
+            if (selectedMember instanceof PremiumMember) {
                 PremiumMember premiumMember = (PremiumMember) selectedMember;
                 
                 try {
@@ -1582,11 +2110,11 @@ public class GymGUI {
                     }
                     
                     double amount = Double.parseDouble(amountStr);
-                    boolean paid = premiumMember.payDueAmount(amount);
+                    boolean paid = members.payDueAmount(premiumMember.getId(), amount);
                     
                     if (paid) {
                         JOptionPane.showMessageDialog(mainFrame, "Payment processed successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
-                        refreshMemberTable();
+                        tableModel.memberUpdated(premiumMember);
                         
                         updateStatus("Payment processed for: " + premiumMember.getName());
                     } else {
@@ -1610,16 +2138,12 @@ public class GymGUI {
      * based on their payment status and other criteria.
      */
     private static void calculateDiscount() {
-        int selectedIndex = cbMemberSelect.getSelectedIndex();
-        if (selectedIndex > 0) {
-            String selectedItem = (String) cbMemberSelect.getSelectedItem();
-            String memberId = selectedItem.split(" - ")[0];
-            GymMember selectedMember = findMemberById(memberId);
-            
-            if (selectedMember != null && selectedMember instanceof PremiumMember) {
+        GymMember selectedMember = memberSelectModel.getSelectedMember();
+        if (selectedMember != null) {
+            if (selectedMember instanceof PremiumMember) {
                 PremiumMember premiumMember = (PremiumMember) selectedMember;
                 
-                double discount = premiumMember.calculateDiscount();
+                double discount = members.calculateDiscount(premiumMember.getId());
                 if (discount > 0) {
                     txtDiscountAmount.setText(String.valueOf(discount));
                     JOptionPane.showMessageDialog(mainFrame, "Discount calculated successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
@@ -1642,6 +2166,7 @@ public class GymGUI {
      * Shows comprehensive information about all registered members.
      * If called from the Reports tab, displays in the text area.
      * Otherwise, opens a new window with the member information.
+     * The report itself is generated in the background by startReport.
      */
     private static void displayAllMembers() {
         if (members.isEmpty()) {
@@ -1650,53 +2175,7 @@ public class GymGUI {
         }
         
         if (tabbedPane.getSelectedIndex() == 2) {
-            StringBuilder sb = new StringBuilder();
-            sb.append("=== ALL GYM MEMBERS ===\n\n");
-            
-            for (GymMember member : members) {
-                sb.append("ID: ").append(member.getId()).append("\n");
-                sb.append("Name: ").append(member.getName()).append("\n");
-                sb.append("Phone: ").append(member.getPhoneNumber()).append("\n");
-                sb.append("Email: ").append(member.getEmail()).append("\n");
-                sb.append("Gender: ").append(member.getGender()).append("\n");
-                sb.append("Date of Birth: ").append(member.getDateOfBirth().format(DATE_FORMATTER)).append("\n");
-                sb.append("Membership Start Date: ").append(member.getMembershipStartDate().format(DATE_FORMATTER)).append("\n");
-                sb.append("Attendance Count: ").append(member.getAttendanceCount()).append("\n");
-                sb.append("Loyalty Points: ").append(member.getLoyaltyPoints()).append("\n");
-                sb.append("Active Status: ").append(member.isActiveStatus() ? "Active" : "Inactive").append("\n");
-                
-                if (member instanceof RegularMember) {
-                    RegularMember regularMember = (RegularMember) member;
-                    sb.append("Member Type: Regular\n");
-                    sb.append("Membership Plan: ").append(regularMember.getMembershipPlan()).append("\n");
-                    sb.append("Price: ").append(regularMember.getPrice()).append("\n");
-                    sb.append("Referral Source: ").append(regularMember.getReferralSource()).append("\n");
-                    sb.append("Eligible for Upgrade: ").append(regularMember.isEligibleForUpgrade() ? "Yes" : "No").append("\n");
-                    if (!regularMember.getRemovalReason().isEmpty()) {
-                        sb.append("Removal Reason: ").append(regularMember.getRemovalReason()).append("\n");
-                    }
-                } else if (member instanceof PremiumMember) {
-                    PremiumMember premiumMember = (PremiumMember) member;
-                    sb.append("Member Type: Premium\n");
-                    sb.append("Premium Charge: ").append(PremiumMember.getPremiumCharge()).append("\n");
-                    sb.append("Personal Trainer: ").append(premiumMember.getPersonalTrainer()).append("\n");
-                    sb.append("Payment Status: ").append(premiumMember.isPaymentComplete() ? "Complete" : "Incomplete").append("\n");
-                    sb.append("Paid Amount: ").append(premiumMember.getPaidAmount()).append("\n");
-                    sb.append("Remaining Amount: ").append(PremiumMember.getPremiumCharge() - premiumMember.getPaidAmount()).append("\n");
-                    if (premiumMember.getDiscountAmount() > 0) {
-                        sb.append("Discount Amount: ").append(premiumMember.getDiscountAmount()).append("\n");
-                        sb.append("Final Amount After Discount: ").append(PremiumMember.getPremiumCharge() - premiumMember.getDiscountAmount()).append("\n");
-                    }
-                }
-                
-                sb.append("\n-----------------------------------------\n\n");
-            }
-            
-            txtAreaDisplay.setText(sb.toString());
-            txtAreaDisplay.setCaretPosition(0);
-            
-            updateStatus("Displaying all members in report. Total: " + members.size());
-            
+            startReport(txtAreaDisplay);
             return;
         }
         
@@ -1707,54 +2186,20 @@ public class GymGUI {
         displayFrame = new JFrame("All Gym Members");
         displayFrame.setSize(800, 600);
         displayFrame.setLayout(new BorderLayout());
+        displayFrame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         
         JTextArea displayArea = new JTextArea();
         displayArea.setEditable(false);
         displayArea.setFont(new Font("Monospaced", Font.PLAIN, 12));
         
-        StringBuilder sb = new StringBuilder();
-        sb.append("=== ALL GYM MEMBERS ===\n\n");
-        
-        for (GymMember member : members) {
-            sb.append("ID: ").append(member.getId()).append("\n");
-            sb.append("Name: ").append(member.getName()).append("\n");
-            sb.append("Phone: ").append(member.getPhoneNumber()).append("\n");
-            sb.append("Email: ").append(member.getEmail()).append("\n");
-            sb.append("Gender: ").append(member.getGender()).append("\n");
-            sb.append("Date of Birth: ").append(member.getDateOfBirth().format(DATE_FORMATTER)).append("\n");
-            sb.append("Membership Start Date: ").append(member.getMembershipStartDate().format(DATE_FORMATTER)).append("\n");
-            sb.append("Attendance Count: ").append(member.getAttendanceCount()).append("\n");
-            sb.append("Loyalty Points: ").append(member.getLoyaltyPoints()).append("\n");
-            sb.append("Active Status: ").append(member.isActiveStatus() ? "Active" : "Inactive").append("\n");
-            
-            if (member instanceof RegularMember) {
-                RegularMember regularMember = (RegularMember) member;
-                sb.append("Member Type: Regular\n");
-                sb.append("Membership Plan: ").append(regularMember.getMembershipPlan()).append("\n");
-                sb.append("Price: ").append(regularMember.getPrice()).append("\n");
-                sb.append("Referral Source: ").append(regularMember.getReferralSource()).append("\n");
-                sb.append("Eligible for Upgrade: ").append(regularMember.isEligibleForUpgrade() ? "Yes" : "No").append("\n");
-                if (!regularMember.getRemovalReason().isEmpty()) {
-                    sb.append("Removal Reason: ").append(regularMember.getRemovalReason()).append("\n");
-                }
-            } else if (member instanceof PremiumMember) {
-                PremiumMember premiumMember = (PremiumMember) member;
-                sb.append("Member Type: Premium\n");
-                sb.append("Premium Charge: ").append(PremiumMember.getPremiumCharge()).append("\n");
-                sb.append("Personal Trainer: ").append(premiumMember.getPersonalTrainer()).append("\n");
-                sb.append("Payment Status: ").append(premiumMember.isPaymentComplete() ? "Complete" : "Incomplete").append("\n");
-                sb.append("Paid Amount: ").append(premiumMember.getPaidAmount()).append("\n");
-                sb.append("Remaining Amount: ").append(PremiumMember.getPremiumCharge() - premiumMember.getPaidAmount()).append("\n");
-                if (premiumMember.getDiscountAmount() > 0) {
-                    sb.append("Discount Amount: ").append(premiumMember.getDiscountAmount()).append("\n");
-                    sb.append("Final Amount After Discount: ").append(PremiumMember.getPremiumCharge() - premiumMember.getDiscountAmount()).append("\n");
+        displayFrame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                if (reportTarget == displayArea) {
+                    cancelReport();
                 }
             }
-            
-            sb.append("\n-----------------------------------------\n\n");
-        }
-        
-        displayArea.setText(sb.toString());
+        });
         
         JScrollPane scrollPane = new JScrollPane(displayArea);
         displayFrame.add(scrollPane, BorderLayout.CENTER);
@@ -1771,88 +2216,392 @@ public class GymGUI {
         displayFrame.setLocationRelativeTo(mainFrame);
         displayFrame.setVisible(true);
         
-        updateStatus("Displaying all members. Total: " + members.size());
+        startReport(displayArea);
+    }
+    
+    /**
+     * Generates the member report into a text area in the background
+     * 
+     * Members are formatted on a SwingWorker thread and published in chunks
+     * of REPORT_CHUNK_MEMBERS, which the Event Dispatch Thread appends to the
+     * text area as they arrive, so the report fills in progressively and the
+     * full text is never held in a second buffer. A report already running is
+     * cancelled first. The report covers the members registered when it was
+     * started: the worker's first step is to take a snapshot of them, so the
+     * copy is not made on the Event Dispatch Thread.
+     * 
+     * @param target The text area to fill
+     */
+    private static void startReport(JTextArea target) {
+        cancelReport();
+        
+        PaymentLedger ledger = members.getPaymentLedger();
+        MemberColumns columns = members.getColumns();
+        LocalDate today = LocalDate.now();
+        target.setText("=== ALL GYM MEMBERS ===\n\n"
+            + "Active Members: " + columns.count(null, Boolean.TRUE) + " of " + columns.size()
+            + " (" + columns.count(Boolean.TRUE, Boolean.TRUE) + " premium)\n"
+            + "Loyalty Points (active premium): " + columns.sumLoyaltyPoints(Boolean.TRUE, Boolean.TRUE) + "\n"
+            + "Eligible for Upgrade: " + columns.countEligibleForUpgrade() + "\n"
+            + "Active Members per Plan: " + formatCounts(columns.countByPlan(Boolean.TRUE)) + "\n"
+            + "Collected Today: " + PremiumMember.toAmount(ledger.getCollectedCents(today)) + "\n"
+            + "Collected This Month: " + PremiumMember.toAmount(ledger.getCollectedCents(YearMonth.from(today))) + "\n\n");
+        target.setCaretPosition(0);
+        btnCancelReport.setEnabled(true);
+        reportTarget = target;
+        long started = System.nanoTime();
+        FlightEvents.Report event = new FlightEvents.Report();
+        event.begin();
+        
+        SwingWorker<Integer, String> worker = new SwingWorker<Integer, String>() {
+            // Members in the snapshot; volatile, as done() runs as soon as the report is cancelled
+            private volatile int total;
+            
+            @Override
+            protected Integer doInBackground() {
+                List<GymMember> reportMembers = members.snapshot().getMembers().asList();
+                total = reportMembers.size();
+                StringBuilder chunk = new StringBuilder(64 * 1024);
+                int count = 0;
+                for (GymMember member : reportMembers) {
+                    if (isCancelled()) {
+                        break;
+                    }
+                    appendMemberReport(chunk, member);
+                    count++;
+                    if (count % REPORT_CHUNK_MEMBERS == 0) {
+                        publish(chunk.toString());
+                        chunk.setLength(0);
+                        setProgress(count * 100 / reportMembers.size());
+                    }
+                }
+                if (chunk.length() > 0 && !isCancelled()) {
+                    publish(chunk.toString());
+                }
+                return count;
+            }
+            
+            @Override
+            protected void process(List<String> chunks) {
+                if (isCancelled()) {
+                    return;
+                }
+                for (String text : chunks) {
+                    target.append(text);
+                }
+                updateStatus("Generating report: " + getProgress() + "% (" + elapsedMillis(started) + " ms)");
+            }
+            
+            @Override
+            protected void done() {
+                if (reportWorker == this) {
+                    reportWorker = null;
+                    reportTarget = null;
+                    btnCancelReport.setEnabled(false);
+                }
+                if (event.shouldCommit()) {
+                    event.members = total;
+                    event.characters = target.getDocument().getLength();
+                    event.cancelled = isCancelled();
+                    event.commit();
+                }
+                if (isCancelled()) {
+                    updateStatus("Report cancelled after " + elapsedMillis(started) + " ms");
+                    return;
+                }
+                metrics.timer("gui.displayAllMembers.report").recordSince(started);
+                updateStatus("Report generated for " + total + " members in "
+                    + elapsedMillis(started) + " ms");
+            }
+        };
+        reportWorker = worker;
+        runInBackground("Generating report", worker);
+    }
+    
+    /**
+     * Formats counts per value as "Basic 12, Standard 3"
+     */
+    private static String formatCounts(Map<String, Integer> counts) {
+        if (counts.isEmpty()) {
+            return "None";
+        }
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(entry.getKey()).append(' ').append(entry.getValue());
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Cancels the report being generated, if any
+     */
+    private static void cancelReport() {
+        if (reportWorker != null) {
+            reportWorker.cancel(false);
+            reportWorker = null;
+            reportTarget = null;
+            btnCancelReport.setEnabled(false);
+        }
+    }
+    
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+    
+    /**
+     * Appends the report entry of one member
+     * 
+     * @param sb The report being built
+     * @param member The member to describe
+     */
+    private static void appendMemberReport(StringBuilder sb, GymMember member) {
+        sb.append("ID: ").append(member.getId()).append("\n");
+        sb.append("Name: ").append(member.getName()).append("\n");
+        sb.append("Phone: ").append(member.getPhoneNumber()).append("\n");
+        sb.append("Email: ").append(member.getEmail()).append("\n");
+        sb.append("Gender: ").append(member.getGender()).append("\n");
+        sb.append("Date of Birth: ");
+        DATE_FORMATTER.formatTo(member.getDateOfBirth(), sb);
+        sb.append("\n");
+        sb.append("Membership Start Date: ");
+        DATE_FORMATTER.formatTo(member.getMembershipStartDate(), sb);
+        sb.append("\n");
+        sb.append("Attendance Count: ").append(member.getAttendanceCount()).append("\n");
+        LocalDateTime lastVisit = members.getAttendanceHistory().getLastVisit(member.getId());
+        sb.append("Last Visit: ");
+        if (lastVisit != null) {
+            VISIT_FORMATTER.formatTo(lastVisit, sb);
+        } else {
+            sb.append("None");
+        }
+        sb.append("\n");
+        sb.append("Loyalty Points: ").append(member.getLoyaltyPoints()).append("\n");
+        sb.append("Active Status: ").append(member.isActiveStatus() ? "Active" : "Inactive").append("\n");
+        
+        if (member instanceof RegularMember) {
+            RegularMember regularMember = (RegularMember) member;
+            sb.append("Member Type: Regular\n");
+            sb.append("Membership Plan: ").append(regularMember.getMembershipPlan()).append("\n");
+            sb.append("Price: ").append(regularMember.getPrice()).append("\n");
+            sb.append("Referral Source: ").append(regularMember.getReferralSource()).append("\n");
+            sb.append("Eligible for Upgrade: ").append(regularMember.isEligibleForUpgrade() ? "Yes" : "No").append("\n");
+            if (!regularMember.getRemovalReason().isEmpty()) {
+                sb.append("Removal Reason: ").append(regularMember.getRemovalReason()).append("\n");
+            }
+        } else if (member instanceof PremiumMember) {
+            PremiumMember premiumMember = (PremiumMember) member;
+            sb.append("Member Type: Premium\n");
+            sb.append("Premium Charge: ").append(PremiumMember.getPremiumCharge()).append("\n");
+            sb.append("Personal Trainer: ").append(premiumMember.getPersonalTrainer()).append("\n");
+            sb.append("Payment Status: ").append(premiumMember.isPaymentComplete() ? "Complete" : "Incomplete").append("\n");
+            sb.append("Paid Amount: ").append(premiumMember.getPaidAmount()).append("\n");
+            sb.append("Remaining Amount: ").append(PremiumMember.toAmount(PremiumMember.getPremiumChargeCents() - premiumMember.getPaidCents())).append("\n");
+            if (premiumMember.getDiscountAmount() > 0) {
+                sb.append("Discount Amount: ").append(premiumMember.getDiscountAmount()).append("\n");
+                sb.append("Final Amount After Discount: ").append(PremiumMember.toAmount(PremiumMember.getPremiumChargeCents() - premiumMember.getDiscountCents())).append("\n");
+            }
+        }
+        
+        sb.append("\n-----------------------------------------\n\n");
     }
 
     /**
-     * Saves all member data to a text file
+     * Saves all member data to the members file
      * 
-     * Creates a formatted text file containing all member information
-     * in a tabular format with headers and borders for easy reading.
+     * Writes every member in the versioned line format of MemberFileFormat,
+     * which Read from File loads back without loss. Saving also checkpoints
+     * the journal. The file is written on the background executor from a
+     * snapshot taken there, so each line shows its member at one point in
+     * time however members change meanwhile; Save to File and Read from
+     * File stay disabled until it is done.
      */
     private static void saveToFile() {
-        try {
-            if (members.isEmpty()) {
-                JOptionPane.showMessageDialog(mainFrame, "No members to save",
-                                              "Empty List", JOptionPane.INFORMATION_MESSAGE);
-                return;
+        if (members.isEmpty()) {
+            JOptionPane.showMessageDialog(mainFrame, "No members to save",
+                                          "Empty List", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        setFileActionsEnabled(false);
+        long started = System.nanoTime();
+        SwingWorker<Integer, Void> saver = new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws IOException {
+                int saved = MemberFileFormat.write(Paths.get(MEMBERS_FILE), members.snapshot().getMembers(), -1);
+                store.checkpoint();
+                return saved;
+            }
+            
+            @Override
+            protected void done() {
+                setFileActionsEnabled(true);
+                metrics.timer("gui.saveToFile.write").recordSince(started);
+                try {
+                    int saved = get();
+                    JOptionPane.showMessageDialog(mainFrame, saved + " members saved to file successfully",
+                                                  "Success", JOptionPane.INFORMATION_MESSAGE);
+                    highlightSuccess(saved + " members saved to file successfully");
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(mainFrame, "Error saving to file: " + cause.getMessage(),
+                                                  "Error", JOptionPane.ERROR_MESSAGE);
+                    highlightError("Error saving to file: " + cause.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        runInBackground("Saving members", saver);
+    }
+
+    /**
+     * Enables or disables Save to File and Read from File together
+     * 
+     * Both write a checkpoint of the member store, so neither may start
+     * while the other is still running.
+     */
+    private static void setFileActionsEnabled(boolean enabled) {
+        btnSaveToFile.setEnabled(enabled);
+        btnReadFromFile.setEnabled(enabled);
+    }
+
+    /**
+     * Enables or disables every action that adds or changes a member
+     * 
+     * Read from File disables them while it replaces the members, since a
+     * change made between the swap and its checkpoint would be replayed onto
+     * the previous members after a crash.
+     */
+    private static void setMemberActionsEnabled(boolean enabled) {
+        for (JButton button : new JButton[] {
+            btnAddRegular, btnAddPremium, btnActivate, btnDeactivate, btnMarkAttendance,
+            btnUpgradePlan, btnRevertRegular, btnRevertPremium, btnPayDue, btnCalculateDiscount
+        }) {
+            button.setEnabled(enabled);
+        }
+    }
+
+    /**
+     * Exports all member data as a formatted table
+     * 
+     * Creates a text file containing all member information in a tabular
+     * format with headers and borders for easy reading. The table is for
+     * people to read and cannot be loaded back with Read from File. The
+     * file is written on the background executor from a snapshot of the
+     * members taken there.
+     */
+    private static void exportMemberTable() {
+        if (members.isEmpty()) {
+            JOptionPane.showMessageDialog(mainFrame, "No members to export",
+                                          "Empty List", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        // Read on the EDT; the worker must not touch Swing components
+        String location = txtLocation.getText();
+        btnExportTable.setEnabled(false);
+        SwingWorker<Integer, Void> exporter = new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws IOException {
+                return writeMemberTable(new File(TABLE_EXPORT_FILE), location);
             }
             
-            File file = new File(MEMBERS_FILE);
-            try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
-                writer.println("+---------+--------------------+--------------------+---------------+-------------------------+------------+------------+--------+------------+---------------+----------+------------+--------------------+---------------+");
-                writer.println("| ID      | Name               | Location/Type      | Phone         | Email                   | Start Date | Plan       | Gender | Attendance | Loyalty Points| Status   | DOB        | Trainer            | Paid Amount   |");
-                writer.println("+---------+--------------------+--------------------+---------------+-------------------------+------------+------------+--------+------------+---------------+----------+------------+--------------------+---------------+");
+            @Override
+            protected void done() {
+                btnExportTable.setEnabled(true);
+                try {
+                    int exported = get();
+                    JOptionPane.showMessageDialog(mainFrame, exported + " members exported to " + TABLE_EXPORT_FILE,
+                                                  "Success", JOptionPane.INFORMATION_MESSAGE);
+                    highlightSuccess(exported + " members exported to " + TABLE_EXPORT_FILE);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause() != null ? e.getCause() : e;
+                    JOptionPane.showMessageDialog(mainFrame, "Error exporting table: " + cause.getMessage(),
+                                                  "Error", JOptionPane.ERROR_MESSAGE);
+                    highlightError("Error exporting table: " + cause.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+        runInBackground("Exporting table", exporter);
+    }
+    
+    /**
+     * Writes the member table export file
+     * 
+     * @param file The file to write
+     * @param location The location field text, shown for regular members when not empty
+     * @return The number of members written
+     */
+    private static int writeMemberTable(File file, String location) throws IOException {
+        MemberRegistry snapshot = members.snapshot().getMembers();
+        int count = 0;
+        try (PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(file)))) {
+            writer.println("+---------+--------------------+--------------------+---------------+-------------------------+------------+------------+--------+------------+---------------+----------+------------+--------------------+---------------+");
+            writer.println("| ID      | Name               | Location/Type      | Phone         | Email                   | Start Date | Plan       | Gender | Attendance | Loyalty Points| Status   | DOB        | Trainer            | Paid Amount   |");
+            writer.println("+---------+--------------------+--------------------+---------------+-------------------------+------------+------------+--------+------------+---------------+----------+------------+--------------------+---------------+");
+            
+            for (GymMember member : snapshot) {
+                StringBuilder line = new StringBuilder();
+                line.append(String.format("| %-7s | %-18s | ", member.getId(), member.getName()));
                 
-                for (GymMember member : members) {
-                    StringBuilder line = new StringBuilder();
-                    line.append(String.format("| %-7s | %-18s | ", member.getId(), member.getName()));
-                    
-                    if (member instanceof RegularMember) {
-                        RegularMember regularMember = (RegularMember) member;
-                        line.append(String.format("%-18s | %-13s | %-23s | %-10s | %-10s | %-6s | %-10d | %-13d | %-8s | %-10s | %-18s | %-13s |",
-                            txtLocation.getText().isEmpty() ? regularMember.getMembershipPlan() : txtLocation.getText(),
-                            member.getPhoneNumber(),
-                            member.getEmail(),
-                            member.getMembershipStartDate().format(dateFormatter),
-                            regularMember.getMembershipPlan(),
-                            member.getGender(),
-                            member.getAttendanceCount(),
-                            regularMember.getLoyaltyPoints(),
-                            member.isActiveStatus() ? "Active" : "Inactive",
-                            member.getDateOfBirth().format(dateFormatter),
-                            "N/A",
-                            "N/A"
-                        ));
-                    } else if (member instanceof PremiumMember) {
-                        PremiumMember premiumMember = (PremiumMember) member;
-                        line.append(String.format("%-18s | %-13s | %-23s | %-10s | %-10s | %-6s | %-10d | %-13d | %-8s | %-10s | %-18s | %-13.2f |",
-                            "Premium",
-                            member.getPhoneNumber(),
-                            member.getEmail(),
-                            member.getMembershipStartDate().format(dateFormatter),
-                            "Premium",
-                            member.getGender(),
-                            member.getAttendanceCount(),
-                            premiumMember.getLoyaltyPoints(),
-                            member.isActiveStatus() ? "Active" : "Inactive",
-                            member.getDateOfBirth().format(dateFormatter),
-                            premiumMember.getPersonalTrainer(),
-                            premiumMember.getPaidAmount()
-                        ));
-                    }
-                    
-                    writer.println(line.toString());
+                if (member instanceof RegularMember) {
+                    RegularMember regularMember = (RegularMember) member;
+                    line.append(String.format("%-18s | %-13s | %-23s | %-10s | %-10s | %-6s | %-10d | %-13d | %-8s | %-10s | %-18s | %-13s |",
+                        location.isEmpty() ? regularMember.getMembershipPlan() : location,
+                        member.getPhoneNumber(),
+                        member.getEmail(),
+                        member.getMembershipStartDate().format(dateFormatter),
+                        regularMember.getMembershipPlan(),
+                        member.getGender(),
+                        member.getAttendanceCount(),
+                        regularMember.getLoyaltyPoints(),
+                        member.isActiveStatus() ? "Active" : "Inactive",
+                        member.getDateOfBirth().format(dateFormatter),
+                        "N/A",
+                        "N/A"
+                    ));
+                } else if (member instanceof PremiumMember) {
+                    PremiumMember premiumMember = (PremiumMember) member;
+                    line.append(String.format("%-18s | %-13s | %-23s | %-10s | %-10s | %-6s | %-10d | %-13d | %-8s | %-10s | %-18s | %-13.2f |",
+                        "Premium",
+                        member.getPhoneNumber(),
+                        member.getEmail(),
+                        member.getMembershipStartDate().format(dateFormatter),
+                        "Premium",
+                        member.getGender(),
+                        member.getAttendanceCount(),
+                        premiumMember.getLoyaltyPoints(),
+                        member.isActiveStatus() ? "Active" : "Inactive",
+                        member.getDateOfBirth().format(dateFormatter),
+                        premiumMember.getPersonalTrainer(),
+                        premiumMember.getPaidAmount()
+                    ));
                 }
                 
-                writer.println("+---------+--------------------+--------------------+---------------+-------------------------+------------+------------+--------+------------+---------------+----------+------------+--------------------+---------------+");
+                writer.println(line.toString());
+                count++;
             }
             
-            JOptionPane.showMessageDialog(mainFrame, members.size() + " members saved to file successfully",
-                                          "Success", JOptionPane.INFORMATION_MESSAGE);
-            highlightSuccess(members.size() + " members saved to file successfully");
-        } catch (IOException e) {
-            JOptionPane.showMessageDialog(mainFrame, "Error saving to file: " + e.getMessage(),
-                                          "Error", JOptionPane.ERROR_MESSAGE);
-            highlightError("Error saving to file: " + e.getMessage());
+            writer.println("+---------+--------------------+--------------------+---------------+-------------------------+------------+------------+--------+------------+---------------+----------+------------+--------------------+---------------+");
         }
+        return count;
     }
-
+    
     /**
      * Reads member data from a selected text file
      * 
-     * Opens a file chooser dialog to select a file and loads member data
-     * from the selected file, parsing both regular and premium member information.
+     * Opens a file chooser dialog to select a file and loads it in the
+     * background with ParallelMemberLoader. The status bar shows progress
+     * while the window stays responsive; lines that cannot be parsed are
+     * listed afterwards instead of aborting the load. The loaded members then
+     * replace the current ones and their checkpoint is written, still in the
+     * background; the member actions stay disabled until then, so no change
+     * falls between the swap and its snapshot.
      */
     private static void readFromFile() {
         JFileChooser fileChooser = new JFileChooser();
@@ -1863,86 +2612,93 @@ public class GymGUI {
         if (userSelection == JFileChooser.APPROVE_OPTION) {
             File fileToOpen = fileChooser.getSelectedFile();
             
-            try (BufferedReader reader = new BufferedReader(new FileReader(fileToOpen))) {
-                members.clear();
+            setFileActionsEnabled(false);
+            setMemberActionsEnabled(false);
+            progressBar.setValue(0);
+            progressBar.setVisible(true);
+            updateStatus("Loading members from " + fileToOpen.getName() + "...");
+            long started = System.nanoTime();
+            
+            SwingWorker<ParallelMemberLoader.Result, Void> loader = new SwingWorker<ParallelMemberLoader.Result, Void>() {
+                // Set once the members may have been replaced; read in done() after get()
+                private boolean replacing;
                 
-                String line;
-                int count = 0;
+                @Override
+                protected ParallelMemberLoader.Result doInBackground() throws Exception {
+                    ParallelMemberLoader.Result result = new ParallelMemberLoader().load(fileToOpen.toPath(),
+                        percent -> setProgress((int) Math.min(100, percent)));
+                    replacing = true;
+                    store.replaceContents(result.getRegistry());
+                    return result;
+                }
                 
-                while ((line = reader.readLine()) != null) {
-                    String[] parts = line.split(",");
-                    
-                    if (parts.length > 0) {
-                        String memberType = parts[0];
+                @Override
+                protected void done() {
+                    setFileActionsEnabled(true);
+                    setMemberActionsEnabled(true);
+                    progressBar.setVisible(false);
+                    try {
+                        ParallelMemberLoader.Result result = get();
+                        int count = members.size();
+                        
+                        updateMemberDropdown();
+                        refreshMemberTable();
+                        metrics.timer("gui.readFromFile.load").recordSince(started);
                         
-                        if (memberType.equals("REGULAR") && parts.length >= 15) {
-                            String id = parts[1];
-                            String name = parts[2];
-                            String phone = parts[3];
-                            String email = parts[4];
-                            String gender = parts[5];
-                            LocalDate dob = LocalDate.parse(parts[6], DATE_FORMATTER);
-                            LocalDate startDate = LocalDate.parse(parts[7], DATE_FORMATTER);
-                            int attendance = Integer.parseInt(parts[8]);
-                            int loyalty = Integer.parseInt(parts[9]);
-                            boolean active = Boolean.parseBoolean(parts[10]);
-                            String plan = parts[11];
-                            String referral = parts[13];
-                            boolean eligible = Boolean.parseBoolean(parts[14]);
-                            
-                            RegularMember member = new RegularMember(id, name, phone, email, gender, dob, startDate, plan, referral);
-                            member.setAttendanceCount(attendance);
-                            member.setLoyaltyPoints(loyalty);
-                            member.setActiveStatus(active);
-                            member.setEligibleForUpgrade(eligible);
-                            
-                            if (parts.length > 15) {
-                                member.setRemovalReason(parts[15]);
-                            }
-                            
-                            members.add(member);
-                            count++;
-                            
-                        } else if (memberType.equals("PREMIUM") && parts.length >= 15) {
-                            String id = parts[1];
-                            String name = parts[2];
-                            String phone = parts[3];
-                            String email = parts[4];
-                            String gender = parts[5];
-                            LocalDate dob = LocalDate.parse(parts[6], DATE_FORMATTER);
-                            LocalDate startDate = LocalDate.parse(parts[7], DATE_FORMATTER);
-                            int attendance = Integer.parseInt(parts[8]);
-                            int loyalty = Integer.parseInt(parts[9]);
-                            boolean active = Boolean.parseBoolean(parts[10]);
-                            String trainer = parts[11];
-                            boolean paymentComplete = Boolean.parseBoolean(parts[12]);
-                            double paidAmount = Double.parseDouble(parts[13]);
-                            double discountAmount = Double.parseDouble(parts[14]);
-                            
-                            PremiumMember member = new PremiumMember(id, name, phone, email, gender, dob, startDate, trainer);
-                            member.setAttendanceCount(attendance);
-                            member.setLoyaltyPoints(loyalty);
-                            member.setActiveStatus(active);
-                            member.setPaymentComplete(paymentComplete);
-                            member.setPaidAmount(paidAmount);
-                            member.setDiscountAmount(discountAmount);
-                            
-                            members.add(member);
-                            count++;
+                        if (result.getErrorCount() == 0) {
+                            JOptionPane.showMessageDialog(mainFrame, count + " members loaded successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
+                        } else {
+                            showLoadErrors(count, result);
                         }
+                        
+                        updateStatus("Members loaded from file: " + fileToOpen.getName() + ". Total: " + count);
+                        
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause() != null ? e.getCause() : e;
+                        if (replacing) {
+                            // The members may have been replaced but their snapshot was not written
+                            refreshMemberTable();
+                            updateMemberDropdown();
+                            JOptionPane.showMessageDialog(mainFrame, "Error writing checkpoint: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                            highlightError("Error writing checkpoint: " + cause.getMessage());
+                            return;
+                        }
+                        JOptionPane.showMessageDialog(mainFrame, "Error reading file: " + cause.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                        highlightError("Error reading file: " + cause.getMessage());
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
                     }
                 }
-                
-                updateMemberDropdown();
-                refreshMemberTable();
-                
-                JOptionPane.showMessageDialog(mainFrame, count + " members loaded successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
-                
-                updateStatus("Members loaded from file: " + fileToOpen.getName() + ". Total: " + count);
-                
-            } catch (IOException | DateTimeParseException | NumberFormatException e) {
-                JOptionPane.showMessageDialog(mainFrame, "Error reading file: " + e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-            }
+            };
+            loader.addPropertyChangeListener(e -> {
+                if ("progress".equals(e.getPropertyName())) {
+                    progressBar.setValue((Integer) e.getNewValue());
+                }
+            });
+            runInBackground("Loading " + fileToOpen.getName(), loader);
+        }
+    }
+    
+    /**
+     * Shows the lines that could not be loaded
+     * 
+     * @param loaded The number of members that were loaded
+     * @param result The load result holding the line errors
+     */
+    private static void showLoadErrors(int loaded, ParallelMemberLoader.Result result) {
+        StringBuilder message = new StringBuilder();
+        message.append(loaded).append(" members loaded, ")
+               .append(result.getErrorCount()).append(" lines skipped:\n\n");
+        List<ParallelMemberLoader.LineError> errors = result.getErrors();
+        for (int i = 0; i < errors.size() && i < 20; i++) {
+            message.append(errors.get(i)).append("\n");
+        }
+        if (result.getErrorCount() > 20) {
+            message.append("...\n");
         }
+        
+        JTextArea errorText = new JTextArea(message.toString(), 15, 60);
+        errorText.setEditable(false);
+        JOptionPane.showMessageDialog(mainFrame, new JScrollPane(errorText), "Loaded With Errors", JOptionPane.WARNING_MESSAGE);
     }
-}
\ No newline at end of file
+}
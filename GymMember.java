@@ -1,5 +1,6 @@
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.Objects;
 
 /**
  * Abstract base class representing a gym member in the Fitness Club Management System
@@ -12,7 +13,7 @@ import java.time.format.DateTimeFormatter;
  * status, attendance tracking, and loyalty points management. It provides methods
      * for membership activation/deactivation and member data management.
  */
-public abstract class GymMember {
+public abstract class GymMember implements MemberView {
     
     protected String id;
     
@@ -22,19 +23,33 @@ public abstract class GymMember {
     
     protected String email;
     
-    protected String gender;
+    // Code in MemberDictionary.GENDERS
+    private int genderCode;
     
     protected LocalDate dateOfBirth;
     protected LocalDate membershipStartDate;
     
-    protected int attendanceCount;
+    // Volatile so readers outside the registry's member locks see current values
+    protected volatile int attendanceCount;
     
-    protected int loyaltyPoints;
+    protected volatile int loyaltyPoints;
     
-    protected boolean activeStatus;
+    protected volatile boolean activeStatus;
+    
+    // Set by the registry holding this member; not copied
+    private volatile MemberChangeListener changeListener;
     
     protected static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
+    // Changes to registered members, timed per field, in MetricsRegistry.DEFAULT
+    private static final MetricsRegistry.Timer[] CHANGE_TIMERS = new MetricsRegistry.Timer[MemberField.values().length];
+    
+    static {
+        for (MemberField field : MemberField.values()) {
+            CHANGE_TIMERS[field.ordinal()] = MetricsRegistry.DEFAULT.timer("change." + field.name());
+        }
+    }
+    
     /**
      * Constructor for creating a new gym member
      * 
@@ -48,7 +63,7 @@ public abstract class GymMember {
         this.name = name;
         this.phoneNumber = phoneNumber;
         this.email = email;
-        this.gender = gender;
+        this.genderCode = MemberDictionary.GENDERS.encode(gender);
         this.dateOfBirth = dateOfBirth;
         this.membershipStartDate = membershipStartDate;
         this.attendanceCount = 0;
@@ -56,6 +71,72 @@ public abstract class GymMember {
         this.activeStatus = false;
     }
     
+    /**
+     * Copy constructor used by copy()
+     * 
+     * @param other The member whose fields are copied
+     */
+    protected GymMember(GymMember other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.phoneNumber = other.phoneNumber;
+        this.email = other.email;
+        this.genderCode = other.genderCode;
+        this.dateOfBirth = other.dateOfBirth;
+        this.membershipStartDate = other.membershipStartDate;
+        this.attendanceCount = other.attendanceCount;
+        this.loyaltyPoints = other.loyaltyPoints;
+        this.activeStatus = other.activeStatus;
+    }
+    
+    /**
+     * Creates an independent copy of this member
+     * 
+     * Used by MemberRegistry.snapshot to give reports and saves a view that
+     * later changes do not affect.
+     */
+    public abstract GymMember copy();
+    
+    /**
+     * Sets the listener told about every change to this member
+     * 
+     * Used by MemberRegistry when the member is added or removed.
+     * 
+     * @param changeListener The listener, or null for none
+     */
+    public void setChangeListener(MemberChangeListener changeListener) {
+        this.changeListener = changeListener;
+    }
+    
+    /**
+     * Reports a changed field to the change listener, if any
+     * 
+     * Changes to members with a listener (registered members) are also
+     * timed per field in MetricsRegistry.DEFAULT, as the time the listener
+     * takes to update the registry's indexes, totals and journal.
+     * 
+     * @param field The field that changed
+     * @param oldValue The previous value
+     */
+    protected void fireChange(MemberField field, Object oldValue) {
+        MemberChangeListener listener = changeListener;
+        if (listener != null) {
+            long started = System.nanoTime();
+            listener.memberChanged(this, field, oldValue);
+            CHANGE_TIMERS[field.ordinal()].recordSince(started);
+        }
+    }
+    
+    /**
+     * Reports the attendance and loyalty points changed by markAttendance
+     */
+    protected void fireAttendanceChange(int oldAttendance, int oldLoyaltyPoints) {
+        if (changeListener != null) {
+            fireChange(MemberField.ATTENDANCE_COUNT, oldAttendance);
+            fireChange(MemberField.LOYALTY_POINTS, oldLoyaltyPoints);
+        }
+    }
+    
     /**
      * Abstract method for marking attendance
      * 
@@ -66,34 +147,83 @@ public abstract class GymMember {
      */
     public abstract void markAttendance();
     
+    /**
+     * Converts this member to a single line for file storage
+     * 
+     * The line starts with the member type ("REGULAR" or "PREMIUM") and is
+     * read back by MemberFileFormat.parseLine.
+     */
+    public String toFileString() {
+        StringBuilder line = new StringBuilder(160);
+        appendFileString(line);
+        return line.toString();
+    }
+    
+    /**
+     * Appends the file storage line for this member to a buffer
+     * 
+     * Text fields go through MemberFileFormat.appendField, which quotes them
+     * when they contain commas or quotes, so that names and removal reasons
+     * survive a save and reload unchanged. Writers reuse one buffer for all
+     * members instead of building a new String per line.
+     */
+    public abstract void appendFileString(StringBuilder line);
+    
+    /**
+     * Appends the fields shared by all member types, from ID to active status
+     */
+    protected void appendCommonFields(StringBuilder line) {
+        MemberFileFormat.appendField(line, id);
+        line.append(',');
+        MemberFileFormat.appendField(line, name);
+        line.append(',');
+        MemberFileFormat.appendField(line, phoneNumber);
+        line.append(',');
+        MemberFileFormat.appendField(line, email);
+        line.append(',');
+        MemberFileFormat.appendField(line, getGender());
+        line.append(',');
+        DATE_FORMATTER.formatTo(dateOfBirth, line);
+        line.append(',');
+        DATE_FORMATTER.formatTo(membershipStartDate, line);
+        line.append(',').append(attendanceCount)
+            .append(',').append(loyaltyPoints)
+            .append(',').append(activeStatus);
+    }
+    
     /**
      * Activates the membership for this member
      * 
      * Sets the membership status to active, allowing the member to
-     * access gym facilities and services. Prints a confirmation message
-     * to the console.
+     * access gym facilities and services. Records the activation in the
+     * audit log.
      */
     public void activateMembership() {
+        boolean wasActive = this.activeStatus;
         this.activeStatus = true;
-        System.out.println("Membership activated for " + name);
+        if (!wasActive) {
+            fireChange(MemberField.ACTIVE_STATUS, false);
+        }
+        AuditLog.DEFAULT.record(AuditLog.Event.MEMBERSHIP_ACTIVATED, this);
     }
     
     
     public void deactivateMembership() {
         if (this.activeStatus) {
             this.activeStatus = false;
-            System.out.println("Membership deactivated for " + name);
+            fireChange(MemberField.ACTIVE_STATUS, true);
+            AuditLog.DEFAULT.record(AuditLog.Event.MEMBERSHIP_DEACTIVATED, this);
         } else {
-            System.out.println("Membership is already inactive for " + name);
+            AuditLog.DEFAULT.record(AuditLog.Event.ALREADY_INACTIVE, this);
         }
     }
     
     
     public void resetMember() {
-        this.attendanceCount = 0;
-        this.loyaltyPoints = 0;
-        this.activeStatus = false;
-        System.out.println("Member details reset for " + name);
+        setAttendanceCount(0);
+        setLoyaltyPoints(0);
+        setActiveStatus(false);
+        AuditLog.DEFAULT.record(AuditLog.Event.MEMBER_RESET, this);
     }
     
     public void display() {
@@ -101,7 +231,7 @@ public abstract class GymMember {
         System.out.println("Name: " + name);
         System.out.println("Phone Number: " + phoneNumber);
         System.out.println("Email: " + email);
-        System.out.println("Gender: " + gender);
+        System.out.println("Gender: " + getGender());
         System.out.println("Date of Birth: " + dateOfBirth.format(DATE_FORMATTER));
         System.out.println("Membership Start Date: " + membershipStartDate.format(DATE_FORMATTER));
         System.out.println("Attendance Count: " + attendanceCount);
@@ -129,7 +259,11 @@ public abstract class GymMember {
     }
     
     public String getGender() {
-        return gender;
+        return MemberDictionary.GENDERS.decode(genderCode);
+    }
+
+    int getGenderCode() {
+        return genderCode;
     }
     
     public LocalDate getDateOfBirth() {
@@ -163,39 +297,71 @@ public abstract class GymMember {
     
     
     public void setName(String name) {
+        String old = this.name;
         this.name = name;
+        if (!Objects.equals(old, name)) {
+            fireChange(MemberField.NAME, old);
+        }
     }
     
     
     public void setPhoneNumber(String phoneNumber) {
+        String old = this.phoneNumber;
         this.phoneNumber = phoneNumber;
+        if (!Objects.equals(old, phoneNumber)) {
+            fireChange(MemberField.PHONE_NUMBER, old);
+        }
     }
     
 
     public void setEmail(String email) {
+        String old = this.email;
         this.email = email;
+        if (!Objects.equals(old, email)) {
+            fireChange(MemberField.EMAIL, old);
+        }
     }
     
     public void setGender(String gender) {
-        this.gender = gender;
+        int old = this.genderCode;
+        this.genderCode = MemberDictionary.GENDERS.encode(gender);
+        if (old != genderCode) {
+            fireChange(MemberField.GENDER, MemberDictionary.GENDERS.decode(old));
+        }
     }
     
     public void setDateOfBirth(LocalDate dateOfBirth) {
+        LocalDate old = this.dateOfBirth;
         this.dateOfBirth = dateOfBirth;
+        if (!Objects.equals(old, dateOfBirth)) {
+            fireChange(MemberField.DATE_OF_BIRTH, old);
+        }
     }
     
 
     public void setMembershipStartDate(LocalDate membershipStartDate) {
+        LocalDate old = this.membershipStartDate;
         this.membershipStartDate = membershipStartDate;
+        if (!Objects.equals(old, membershipStartDate)) {
+            fireChange(MemberField.MEMBERSHIP_START_DATE, old);
+        }
     }
     
     public void setAttendanceCount(int attendanceCount) {
+        int old = this.attendanceCount;
         this.attendanceCount = attendanceCount;
+        if (old != attendanceCount) {
+            fireChange(MemberField.ATTENDANCE_COUNT, old);
+        }
     }
     
     
     public void setLoyaltyPoints(int loyaltyPoints) {
+        int old = this.loyaltyPoints;
         this.loyaltyPoints = loyaltyPoints;
+        if (old != loyaltyPoints) {
+            fireChange(MemberField.LOYALTY_POINTS, old);
+        }
     }
     
     /**
@@ -203,9 +369,13 @@ public abstract class GymMember {
      * 
      * This method allows direct setting of the membership status,
      * typically used when loading data from files or programmatically
-     * changing status without console output.
+     * changing status without an audit log entry.
      */
     public void setActiveStatus(boolean activeStatus) {
+        boolean old = this.activeStatus;
         this.activeStatus = activeStatus;
+        if (old != activeStatus) {
+            fireChange(MemberField.ACTIVE_STATUS, old);
+        }
     }
 }
\ No newline at end of file
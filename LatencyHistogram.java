@@ -0,0 +1,117 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds
+ *
+ * Values are counted in log-linear buckets: each power of two is split into
+ * SUB_BUCKETS equal buckets, so a reported percentile is within about 3% of
+ * the true value while the whole histogram is a fixed array of counters.
+ * Recording is one atomic increment and may be called from any thread.
+ * Values above MAX_NANOS (about 2.4 hours) are counted in the top bucket.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int MAX_EXPONENT = 43;
+
+    private static final long MAX_NANOS = (1L << (MAX_EXPONENT + 1)) - 1;
+
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one latency
+     *
+     * @param nanos The latency in nanoseconds; negative values count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_NANOS));
+        counts.incrementAndGet(bucketOf(value));
+        total.incrementAndGet();
+        long currentMax = max.get();
+        while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+            currentMax = max.get();
+        }
+    }
+
+    public long getCount() {
+        return total.get();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Returns a latency that the given fraction of recorded values do not exceed
+     *
+     * @param percentile The percentile, from 0 to 100
+     * @return The upper bound of the bucket holding that percentile, or 0 if
+     *         nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(upperBound(bucket), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    /**
+     * Clears all recorded values
+     *
+     * Values recorded while the reset is in progress may be partly lost.
+     */
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            counts.set(bucket, 0);
+        }
+        total.set(0);
+        max.set(0);
+    }
+
+    /**
+     * Summarizes the histogram as count, p50, p99, p99.9 and max in microseconds
+     */
+    public String summary() {
+        return String.format("count=%d p50=%.1fus p99=%.1fus p99.9=%.1fus max=%.1fus",
+            getCount(), getPercentileNanos(50) / 1e3, getPercentileNanos(99) / 1e3,
+            getPercentileNanos(99.9) / 1e3, getMaxNanos() / 1e3);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+}
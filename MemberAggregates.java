@@ -0,0 +1,243 @@
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals over the registry's members for the dashboard
+ *
+ * Keeps the member, active, premium, regular and upgrade-eligible counts,
+ * the premium amounts paid, the check-ins of the current day and the number
+ * of regular members on each plan as counters that every change adjusts by
+ * its difference, so reading a total never visits the members. Each
+ * callback is O(1) and takes no lock: the counters are LongAdders, which
+ * the registry's member operations on different stripes can update in
+ * parallel without contending.
+ *
+ * A regular member's price follows from its plan, so revenue by plan is the
+ * number of members on the plan times the plan's price, as last reported by
+ * one of its members. Premium revenue is the amount paid so far, and the
+ * outstanding dues are the premium charge of every premium member less that.
+ *
+ * Check-ins are the visits the registry records in its AttendanceHistory,
+ * reported through checkInRecorded(), and restart at zero at midnight; an
+ * attendance count set directly, as a loaded file does, is not a check-in.
+ * The registry builds the totals on first use while it holds every member
+ * lock, adding each member and the day's check-ins from its
+ * AttendanceHistory, so they start from one point in time and each later
+ * change is counted exactly once. The totals are read without locking, so
+ * a reader may see one that is a moment behind the members.
+ */
+public class MemberAggregates implements MemberChangeListener {
+
+    /**
+     * Plan name under which premium revenue is reported
+     */
+    public static final String PREMIUM_PLAN = "Premium";
+
+    private final ZoneId zone;
+
+    private final LongAdder members = new LongAdder();
+
+    private final LongAdder active = new LongAdder();
+
+    private final LongAdder premium = new LongAdder();
+
+    private final LongAdder regular = new LongAdder();
+
+    private final LongAdder eligibleForUpgrade = new LongAdder();
+
+    private final LongAdder premiumPaidCents = new LongAdder();
+
+    private final LongAdder checkInsToday = new LongAdder();
+
+    // Start of the day checkInsToday counts
+    private volatile long dayStartMillis;
+
+    // Start of the day after the one checkInsToday counts
+    private volatile long dayEndMillis;
+
+    private final ConcurrentHashMap<String, LongAdder> planMembers = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Long> planPriceCents = new ConcurrentHashMap<>();
+
+    public MemberAggregates() {
+        this(ZoneId.systemDefault());
+    }
+
+    /**
+     * @param zone The time zone whose midnight starts a new day of check-ins
+     */
+    public MemberAggregates(ZoneId zone) {
+        this.zone = zone;
+        long now = System.currentTimeMillis();
+        this.dayStartMillis = dayStart(now);
+        this.dayEndMillis = nextDayStart(now);
+    }
+
+    /**
+     * Adds check-ins made today before the totals started counting
+     *
+     * @param history The visits recorded so far
+     */
+    void seedCheckIns(AttendanceHistory history) {
+        LocalDate today = LocalDate.now(zone);
+        long visits = 0;
+        for (int count : history.getVisitsByHour(today, today)) {
+            visits += count;
+        }
+        checkInsToday.add(visits);
+    }
+
+    /**
+     * Counts a visit recorded in the registry's AttendanceHistory
+     *
+     * @param epochMillis The time of the visit; only visits made today are counted
+     */
+    void checkInRecorded(long epochMillis) {
+        rollOverDay();
+        if (epochMillis >= dayStartMillis && epochMillis < dayEndMillis) {
+            checkInsToday.increment();
+        }
+    }
+
+    @Override
+    public void memberAdded(GymMember member) {
+        count(member, 1);
+    }
+
+    @Override
+    public void memberRemoved(GymMember member) {
+        count(member, -1);
+    }
+
+    @Override
+    public void memberChanged(GymMember member, MemberField field, Object oldValue) {
+        switch (field) {
+            case ACTIVE_STATUS:
+                active.add((Boolean) oldValue ? -1 : 1);
+                break;
+            case ELIGIBLE_FOR_UPGRADE:
+                eligibleForUpgrade.add((Boolean) oldValue ? -1 : 1);
+                break;
+            case PAID_AMOUNT:
+                premiumPaidCents.add(((PremiumMember) member).getPaidCents() - (Long) oldValue);
+                break;
+            case MEMBERSHIP_PLAN:
+                plan((String) oldValue).decrement();
+                addToPlan((RegularMember) member, 1);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void count(GymMember member, int sign) {
+        members.add(sign);
+        if (member.isActiveStatus()) {
+            active.add(sign);
+        }
+        if (member instanceof PremiumMember) {
+            premium.add(sign);
+            premiumPaidCents.add(sign * ((PremiumMember) member).getPaidCents());
+        } else if (member instanceof RegularMember) {
+            RegularMember regularMember = (RegularMember) member;
+            regular.add(sign);
+            if (regularMember.isEligibleForUpgrade()) {
+                eligibleForUpgrade.add(sign);
+            }
+            addToPlan(regularMember, sign);
+        }
+    }
+
+    private void addToPlan(RegularMember member, int sign) {
+        String plan = member.getMembershipPlan();
+        plan(plan).add(sign);
+        Long cents = PremiumMember.toCents(member.getPrice());
+        if (!Objects.equals(planPriceCents.get(plan), cents)) {
+            planPriceCents.put(plan, cents);
+        }
+    }
+
+    private LongAdder plan(String plan) {
+        LongAdder count = planMembers.get(plan);
+        return count != null ? count : planMembers.computeIfAbsent(plan, key -> new LongAdder());
+    }
+
+    // Restarts the check-in count at the first change or read after midnight
+    private void rollOverDay() {
+        long now = System.currentTimeMillis();
+        if (now >= dayEndMillis) {
+            synchronized (this) {
+                if (now >= dayEndMillis) {
+                    checkInsToday.reset();
+                    dayStartMillis = dayStart(now);
+                    dayEndMillis = nextDayStart(now);
+                }
+            }
+        }
+    }
+
+    private long dayStart(long millis) {
+        LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(millis), zone);
+        return day.atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    private long nextDayStart(long millis) {
+        LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(millis), zone);
+        return day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    public long getMembers() {
+        return members.sum();
+    }
+
+    public long getActiveMembers() {
+        return active.sum();
+    }
+
+    public long getPremiumMembers() {
+        return premium.sum();
+    }
+
+    public long getRegularMembers() {
+        return regular.sum();
+    }
+
+    public long getEligibleForUpgrade() {
+        return eligibleForUpgrade.sum();
+    }
+
+    public long getCheckInsToday() {
+        rollOverDay();
+        return checkInsToday.sum();
+    }
+
+    /**
+     * Returns the premium charges not yet paid, in cents
+     */
+    public long getOutstandingDuesCents() {
+        return premium.sum() * PremiumMember.getPremiumChargeCents() - premiumPaidCents.sum();
+    }
+
+    /**
+     * Returns the revenue of each regular plan and of premium memberships, in cents
+     *
+     * @return Plan name to cents, sorted by plan name, with premium payments under PREMIUM_PLAN
+     */
+    public Map<String, Long> getRevenueByPlanCents() {
+        Map<String, Long> revenue = new TreeMap<>();
+        planMembers.forEach((plan, count) -> {
+            long planCount = count.sum();
+            if (planCount > 0) {
+                revenue.put(plan, planCount * planPriceCents.getOrDefault(plan, 0L));
+            }
+        });
+        revenue.put(PREMIUM_PLAN, premiumPaidCents.sum());
+        return revenue;
+    }
+}
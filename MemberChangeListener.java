@@ -0,0 +1,35 @@
+/**
+ * Receives changes to the members of a registry
+ *
+ * The registry attaches itself to every member it holds, and each setter and
+ * mutation method of GymMember, RegularMember and PremiumMember reports the
+ * fields it changed, so listeners such as MemberIndexes stay up to date
+ * however a member is changed.
+ *
+ * Callbacks run on the thread making the change, usually while the registry
+ * holds that member's lock, so they must be quick and must not call back
+ * into the registry to add or remove members.
+ */
+public interface MemberChangeListener {
+
+    /**
+     * Called after a field of a member changed
+     *
+     * @param member The member, already holding the new value
+     * @param field The field that changed
+     * @param oldValue The previous value, boxed (amounts and prices in cents as a Long)
+     */
+    void memberChanged(GymMember member, MemberField field, Object oldValue);
+
+    /**
+     * Called after a member was added to the registry
+     */
+    default void memberAdded(GymMember member) {
+    }
+
+    /**
+     * Called after a member was removed from the registry
+     */
+    default void memberRemoved(GymMember member) {
+    }
+}
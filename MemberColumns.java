@@ -0,0 +1,448 @@
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Columnar mirror of the registry's members for reports and aggregates
+ *
+ * Keeps one primitive array per field instead of one object per member:
+ * attendance and loyalty points as int[], membership start and birth dates
+ * as int[] epoch days, regular plan prices and premium paid amounts as long[]
+ * whole cents, gender, plan and trainer as int[] MemberDictionary codes, and
+ * member type, active status, upgrade eligibility and payment completion as
+ * bitsets of one bit per member. A scan such as "total
+ * loyalty points of active premium members" then reads a few contiguous
+ * arrays instead of following a reference to every member and its fields.
+ *
+ * Scans combine the bitsets 64 members at a time. A word in which every
+ * member is selected is summed with a plain indexed loop the JIT can unroll
+ * and vectorize; other words visit only their set bits.
+ *
+ * Members occupy rows 0 to size() - 1. A removed member's row is filled
+ * with the last row, so rows stay dense and scans need no liveness check.
+ *
+ * The registry builds the columns on first use and keeps them in sync as a
+ * MemberChangeListener; a change always copies the member's current value,
+ * so events arriving out of order cannot leave a stale value behind. All
+ * methods are synchronized.
+ */
+public class MemberColumns implements MemberChangeListener {
+
+    /**
+     * Epoch day stored for a missing date
+     */
+    public static final int NO_DATE = Integer.MIN_VALUE;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<GymMember, Integer> rows = new IdentityHashMap<>();
+
+    private GymMember[] members = new GymMember[INITIAL_CAPACITY];
+
+    private int size;
+
+    private int[] attendance = new int[INITIAL_CAPACITY];
+
+    private int[] loyaltyPoints = new int[INITIAL_CAPACITY];
+
+    private int[] startDays = new int[INITIAL_CAPACITY];
+
+    private int[] birthDays = new int[INITIAL_CAPACITY];
+
+    // Regular plan price, or the premium charge, in cents
+    private long[] priceCents = new long[INITIAL_CAPACITY];
+
+    // Amount paid by premium members in cents; 0 for regular members
+    private long[] paidCents = new long[INITIAL_CAPACITY];
+
+    private int[] genderCodes = new int[INITIAL_CAPACITY];
+
+    // Plan code of regular members; NONE for premium members
+    private int[] planCodes = new int[INITIAL_CAPACITY];
+
+    // Trainer code of premium members; NONE for regular members
+    private int[] trainerCodes = new int[INITIAL_CAPACITY];
+
+    private long[] premium = new long[INITIAL_CAPACITY >>> 6];
+
+    private long[] active = new long[INITIAL_CAPACITY >>> 6];
+
+    private long[] eligibleForUpgrade = new long[INITIAL_CAPACITY >>> 6];
+
+    private long[] paymentComplete = new long[INITIAL_CAPACITY >>> 6];
+
+    @Override
+    public synchronized void memberAdded(GymMember member) {
+        Integer row = rows.get(member);
+        if (row == null) {
+            if (size == members.length) {
+                grow();
+            }
+            row = size++;
+            rows.put(member, row);
+            members[row] = member;
+        }
+        copyRow(row, member);
+    }
+
+    @Override
+    public synchronized void memberRemoved(GymMember member) {
+        Integer row = rows.remove(member);
+        if (row == null) {
+            return;
+        }
+        int last = --size;
+        if (row != last) {
+            GymMember moved = members[last];
+            members[row] = moved;
+            rows.put(moved, row);
+            copyRow(row, moved);
+        }
+        members[last] = null;
+        setBit(premium, last, false);
+        setBit(active, last, false);
+        setBit(eligibleForUpgrade, last, false);
+        setBit(paymentComplete, last, false);
+    }
+
+    @Override
+    public synchronized void memberChanged(GymMember member, MemberField field, Object oldValue) {
+        Integer row = rows.get(member);
+        if (row == null) {
+            return;
+        }
+        int r = row;
+        switch (field) {
+            case ATTENDANCE_COUNT:
+                attendance[r] = member.getAttendanceCount();
+                break;
+            case LOYALTY_POINTS:
+                loyaltyPoints[r] = member.getLoyaltyPoints();
+                break;
+            case ACTIVE_STATUS:
+                setBit(active, r, member.isActiveStatus());
+                break;
+            case MEMBERSHIP_START_DATE:
+                startDays[r] = epochDay(member.getMembershipStartDate());
+                break;
+            case DATE_OF_BIRTH:
+                birthDays[r] = epochDay(member.getDateOfBirth());
+                break;
+            case GENDER:
+                genderCodes[r] = member.getGenderCode();
+                break;
+            case MEMBERSHIP_PLAN:
+                planCodes[r] = ((RegularMember) member).getMembershipPlanCode();
+                break;
+            case PERSONAL_TRAINER:
+                trainerCodes[r] = ((PremiumMember) member).getPersonalTrainerCode();
+                break;
+            case PRICE:
+                priceCents[r] = PremiumMember.toCents(((RegularMember) member).getPrice());
+                break;
+            case ELIGIBLE_FOR_UPGRADE:
+                setBit(eligibleForUpgrade, r, ((RegularMember) member).isEligibleForUpgrade());
+                break;
+            case PAID_AMOUNT:
+                paidCents[r] = ((PremiumMember) member).getPaidCents();
+                break;
+            case PAYMENT_COMPLETE:
+                setBit(paymentComplete, r, ((PremiumMember) member).isPaymentComplete());
+                break;
+            default:
+                break;
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Counts the members of a type and status
+     *
+     * @param premiumMembers True for premium, false for regular, null for both
+     * @param activeMembers True for active, false for inactive, null for both
+     */
+    public synchronized int count(Boolean premiumMembers, Boolean activeMembers) {
+        int count = 0;
+        int words = wordCount();
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(select(w, premiumMembers, activeMembers));
+        }
+        return count;
+    }
+
+    /**
+     * Totals the loyalty points of the members of a type and status
+     *
+     * @param premiumMembers True for premium, false for regular, null for both
+     * @param activeMembers True for active, false for inactive, null for both
+     */
+    public synchronized long sumLoyaltyPoints(Boolean premiumMembers, Boolean activeMembers) {
+        return sum(loyaltyPoints, premiumMembers, activeMembers);
+    }
+
+    /**
+     * Totals the visits of the members of a type and status
+     *
+     * @param premiumMembers True for premium, false for regular, null for both
+     * @param activeMembers True for active, false for inactive, null for both
+     */
+    public synchronized long sumAttendance(Boolean premiumMembers, Boolean activeMembers) {
+        return sum(attendance, premiumMembers, activeMembers);
+    }
+
+    /**
+     * Totals the plan prices of the members of a type and status, in cents
+     *
+     * A premium member's price is the premium charge.
+     */
+    public synchronized long sumPriceCents(Boolean premiumMembers, Boolean activeMembers) {
+        return sum(priceCents, premiumMembers, activeMembers);
+    }
+
+    /**
+     * Totals the amounts paid by premium members of a status, in cents
+     *
+     * @param activeMembers True for active, false for inactive, null for both
+     */
+    public synchronized long sumPaidCents(Boolean activeMembers) {
+        return sum(paidCents, Boolean.TRUE, activeMembers);
+    }
+
+    /**
+     * Counts the regular members of a status on each membership plan
+     *
+     * @param activeMembers True for active, false for inactive, null for both
+     * @return The number of members per plan, in MemberDictionary.PLANS order;
+     *         plans without members are left out
+     */
+    public synchronized Map<String, Integer> countByPlan(Boolean activeMembers) {
+        return countByCode(planCodes, MemberDictionary.PLANS, Boolean.FALSE, activeMembers);
+    }
+
+    /**
+     * Counts the premium members of a status assigned to each personal trainer
+     *
+     * @param activeMembers True for active, false for inactive, null for both
+     * @return The number of members per trainer; trainers without members are left out
+     */
+    public synchronized Map<String, Integer> countByTrainer(Boolean activeMembers) {
+        return countByCode(trainerCodes, MemberDictionary.TRAINERS, Boolean.TRUE, activeMembers);
+    }
+
+    /**
+     * Counts the members of a type and status of each gender
+     */
+    public synchronized Map<String, Integer> countByGender(Boolean premiumMembers, Boolean activeMembers) {
+        return countByCode(genderCodes, MemberDictionary.GENDERS, premiumMembers, activeMembers);
+    }
+
+    /**
+     * Counts the regular members eligible for a plan upgrade
+     */
+    public synchronized int countEligibleForUpgrade() {
+        return countBits(eligibleForUpgrade);
+    }
+
+    /**
+     * Counts the premium members who have paid in full
+     */
+    public synchronized int countPaymentComplete() {
+        return countBits(paymentComplete);
+    }
+
+    /**
+     * Counts the members whose membership started within a date range
+     *
+     * @param from The first day, inclusive
+     * @param to The last day, inclusive
+     */
+    public synchronized int countStartedBetween(LocalDate from, LocalDate to) {
+        int first = (int) from.toEpochDay();
+        int last = (int) to.toEpochDay();
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int day = startDays[i];
+            // Branch-free, so the loop compiles to compares and adds
+            count += (day >= first ? 1 : 0) & (day <= last ? 1 : 0);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the average age in whole years on a date of the members with a date of birth
+     *
+     * @return The average age, or 0 when no member has a date of birth
+     */
+    public synchronized double getAverageAge(LocalDate on) {
+        long today = on.toEpochDay();
+        long totalDays = 0;
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            int day = birthDays[i];
+            if (day != NO_DATE) {
+                totalDays += today - day;
+                count++;
+            }
+        }
+        return count == 0 ? 0 : totalDays / 365.2425 / count;
+    }
+
+    private void copyRow(int row, GymMember member) {
+        genderCodes[row] = member.getGenderCode();
+        attendance[row] = member.getAttendanceCount();
+        loyaltyPoints[row] = member.getLoyaltyPoints();
+        startDays[row] = epochDay(member.getMembershipStartDate());
+        birthDays[row] = epochDay(member.getDateOfBirth());
+        setBit(active, row, member.isActiveStatus());
+        if (member instanceof PremiumMember) {
+            PremiumMember premiumMember = (PremiumMember) member;
+            setBit(premium, row, true);
+            priceCents[row] = PremiumMember.getPremiumChargeCents();
+            paidCents[row] = premiumMember.getPaidCents();
+            setBit(eligibleForUpgrade, row, false);
+            setBit(paymentComplete, row, premiumMember.isPaymentComplete());
+            planCodes[row] = MemberDictionary.NONE;
+            trainerCodes[row] = premiumMember.getPersonalTrainerCode();
+        } else {
+            RegularMember regularMember = (RegularMember) member;
+            setBit(premium, row, false);
+            priceCents[row] = PremiumMember.toCents(regularMember.getPrice());
+            paidCents[row] = 0;
+            setBit(eligibleForUpgrade, row, regularMember.isEligibleForUpgrade());
+            setBit(paymentComplete, row, false);
+            planCodes[row] = regularMember.getMembershipPlanCode();
+            trainerCodes[row] = MemberDictionary.NONE;
+        }
+    }
+
+    /**
+     * Counts the selected rows per code, indexed directly by code
+     */
+    private Map<String, Integer> countByCode(int[] codes, MemberDictionary dictionary,
+                                             Boolean premiumMembers, Boolean activeMembers) {
+        // Every stored code was encoded before it was stored, so it is below the current size
+        int[] counts = new int[dictionary.size()];
+        int words = wordCount();
+        for (int w = 0; w < words; w++) {
+            long bits = select(w, premiumMembers, activeMembers);
+            int base = w << 6;
+            while (bits != 0) {
+                int code = codes[base + Long.numberOfTrailingZeros(bits)];
+                if (code != MemberDictionary.NONE) {
+                    counts[code]++;
+                }
+                bits &= bits - 1;
+            }
+        }
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int code = 0; code < counts.length; code++) {
+            if (counts[code] > 0) {
+                result.put(dictionary.decode(code), counts[code]);
+            }
+        }
+        return result;
+    }
+
+    private long sum(int[] column, Boolean premiumMembers, Boolean activeMembers) {
+        long total = 0;
+        int words = wordCount();
+        for (int w = 0; w < words; w++) {
+            long bits = select(w, premiumMembers, activeMembers);
+            int base = w << 6;
+            if (bits == -1L) {
+                for (int i = base; i < base + 64; i++) {
+                    total += column[i];
+                }
+            } else {
+                while (bits != 0) {
+                    total += column[base + Long.numberOfTrailingZeros(bits)];
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return total;
+    }
+
+    private long sum(long[] column, Boolean premiumMembers, Boolean activeMembers) {
+        long total = 0;
+        int words = wordCount();
+        for (int w = 0; w < words; w++) {
+            long bits = select(w, premiumMembers, activeMembers);
+            int base = w << 6;
+            if (bits == -1L) {
+                for (int i = base; i < base + 64; i++) {
+                    total += column[i];
+                }
+            } else {
+                while (bits != 0) {
+                    total += column[base + Long.numberOfTrailingZeros(bits)];
+                    bits &= bits - 1;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the rows of one 64-member word selected by type and status
+     */
+    private long select(int word, Boolean premiumMembers, Boolean activeMembers) {
+        int remaining = size - (word << 6);
+        long bits = remaining >= 64 ? -1L : (1L << remaining) - 1;
+        if (premiumMembers != null) {
+            bits &= premiumMembers ? premium[word] : ~premium[word];
+        }
+        if (activeMembers != null) {
+            bits &= activeMembers ? active[word] : ~active[word];
+        }
+        return bits;
+    }
+
+    private int countBits(long[] bitset) {
+        int count = 0;
+        int words = wordCount();
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(bitset[w]);
+        }
+        return count;
+    }
+
+    private int wordCount() {
+        return (size + 63) >>> 6;
+    }
+
+    private void grow() {
+        int capacity = members.length * 2;
+        members = Arrays.copyOf(members, capacity);
+        attendance = Arrays.copyOf(attendance, capacity);
+        loyaltyPoints = Arrays.copyOf(loyaltyPoints, capacity);
+        startDays = Arrays.copyOf(startDays, capacity);
+        birthDays = Arrays.copyOf(birthDays, capacity);
+        priceCents = Arrays.copyOf(priceCents, capacity);
+        paidCents = Arrays.copyOf(paidCents, capacity);
+        genderCodes = Arrays.copyOf(genderCodes, capacity);
+        planCodes = Arrays.copyOf(planCodes, capacity);
+        trainerCodes = Arrays.copyOf(trainerCodes, capacity);
+        premium = Arrays.copyOf(premium, capacity >>> 6);
+        active = Arrays.copyOf(active, capacity >>> 6);
+        eligibleForUpgrade = Arrays.copyOf(eligibleForUpgrade, capacity >>> 6);
+        paymentComplete = Arrays.copyOf(paymentComplete, capacity >>> 6);
+    }
+
+    private static void setBit(long[] bitset, int row, boolean value) {
+        if (value) {
+            bitset[row >>> 6] |= 1L << row;
+        } else {
+            bitset[row >>> 6] &= ~(1L << row);
+        }
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date != null ? (int) date.toEpochDay() : NO_DATE;
+    }
+}
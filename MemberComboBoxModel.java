@@ -0,0 +1,257 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import javax.swing.AbstractListModel;
+import javax.swing.ComboBoxModel;
+
+/**
+ * Combo box model for member selection, backed directly by the member registry
+ *
+ * Element 0 is null and stands for the "-- Select Member --" placeholder;
+ * the remaining elements are the registry's members, read on demand, so no
+ * labels or item lists are built when members are added or loaded. The
+ * selection is kept as a GymMember reference, so actions on the selected
+ * member need no ID parsing or lookup.
+ *
+ * A filter narrows the list. A number lists the members whose phone number
+ * it is, then up to ID_MATCH_LIMIT members whose ID starts with it, from the
+ * registry's sorted ID index. Other text is a name search: the
+ * registry's NameIndex lists up to NAME_MATCH_LIMIT members whose names
+ * start with, have a word starting with, or contain the text, best matches
+ * first. Text containing '@' finds members by email, and "trainer:", "plan:"
+ * and "status:" followed by a value find members by personal trainer,
+ * membership plan or active/inactive status, from the registry's
+ * MemberIndexes. Only the filtered positions are kept, as registry indexes.
+ *
+ * All methods are called on the Event Dispatch Thread.
+ */
+public class MemberComboBoxModel extends AbstractListModel<GymMember> implements ComboBoxModel<GymMember> {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Most name matches listed for a search
+     */
+    public static final int NAME_MATCH_LIMIT = 50;
+
+    /**
+     * Most ID prefix matches listed for a number
+     */
+    public static final int ID_MATCH_LIMIT = 50;
+
+    private final MemberRegistry members;
+
+    private GymMember selected;
+
+    private String filter = "";
+
+    // Registry indexes matching the filter, or null when there is no filter
+    private int[] matches;
+
+    private int matchCount;
+
+    // True when the matches are in rank order rather than registry order
+    private boolean ranked;
+
+    public MemberComboBoxModel(MemberRegistry members) {
+        this.members = members;
+    }
+
+    @Override
+    public int getSize() {
+        return 1 + (matches == null ? members.size() : matchCount);
+    }
+
+    @Override
+    public GymMember getElementAt(int index) {
+        if (index == 0) {
+            return null;
+        }
+        // Null, shown as the placeholder, for a position the registry no longer has after a load
+        return members.getOrNull(matches == null ? index - 1 : matches[index - 1]);
+    }
+
+    @Override
+    public void setSelectedItem(Object item) {
+        if (item != selected) {
+            selected = (GymMember) item;
+            fireContentsChanged(this, -1, -1);
+        }
+    }
+
+    @Override
+    public Object getSelectedItem() {
+        return selected;
+    }
+
+    /**
+     * Returns the selected member
+     *
+     * @return The member, or null when the placeholder is selected
+     */
+    public GymMember getSelectedMember() {
+        return selected;
+    }
+
+    /**
+     * Restricts the list to members matching some text
+     *
+     * @param text The start of an ID, a phone number, part of a name, an email,
+     *             or a "trainer:", "plan:" or "status:" term; empty shows all members
+     */
+    public void setFilter(String text) {
+        String newFilter = text == null ? "" : text.trim();
+        if (newFilter.equals(filter)) {
+            return;
+        }
+        filter = newFilter;
+        applyFilter();
+        fireContentsChanged(this, 0, getSize() - 1);
+    }
+
+    private void applyFilter() {
+        matchCount = 0;
+        if (filter.isEmpty()) {
+            matches = null;
+            return;
+        }
+        matches = new int[16];
+        // A member both with the phone number and an ID starting with it is listed once
+        Set<GymMember> found = new LinkedHashSet<>(lookupIndexed());
+        for (GymMember member : found) {
+            int registryIndex = members.indexOf(member.getId());
+            if (registryIndex >= 0) {
+                addMatch(registryIndex);
+            }
+        }
+        if (!ranked) {
+            // Keep registry order, as the unfiltered list does
+            Arrays.sort(matches, 0, matchCount);
+        }
+    }
+
+    /**
+     * Looks up the members the filter names through the registry's indexes
+     *
+     * Names are searched in the NameIndex, which returns the best matches
+     * first, and numbers in the phone and ID indexes, exact phone matches
+     * first; ranked is set so that their order is kept.
+     */
+    private List<GymMember> lookupIndexed() {
+        MemberIndexes indexes = members.getIndexes();
+        if (isNumber(filter)) {
+            // IDs are numeric, so only numbers can match an ID prefix
+            ranked = true;
+            List<GymMember> found = indexes.findByPhone(filter);
+            found.addAll(indexes.findByIdPrefix(filter, ID_MATCH_LIMIT));
+            return found;
+        }
+        ranked = false;
+        int colon = filter.indexOf(':');
+        if (colon > 0) {
+            String key = filter.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = filter.substring(colon + 1).trim();
+            switch (key) {
+                case "trainer":
+                    return indexes.findByTrainer(value);
+                case "plan":
+                    return indexes.findByPlan(value);
+                case "status":
+                    if (value.equalsIgnoreCase("active") || value.equalsIgnoreCase("inactive")) {
+                        return indexes.findByStatus(value.equalsIgnoreCase("active"));
+                    }
+                    return Collections.emptyList();
+                default:
+                    break;
+            }
+        }
+        if (filter.indexOf('@') >= 0) {
+            return indexes.findByEmail(filter);
+        }
+        ranked = true;
+        return members.getNameIndex().search(filter, NAME_MATCH_LIMIT);
+    }
+
+    private static boolean isNumber(String text) {
+        boolean digits = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = true;
+            } else if (c != ' ' && c != '-' && c != '+' && c != '(' && c != ')') {
+                return false;
+            }
+        }
+        return digits;
+    }
+
+    private void addMatch(int registryIndex) {
+        if (matchCount == matches.length) {
+            int[] grown = new int[Math.max(16, matchCount * 2)];
+            System.arraycopy(matches, 0, grown, 0, matchCount);
+            matches = grown;
+        }
+        matches[matchCount++] = registryIndex;
+    }
+
+    /**
+     * Shows a member that was just added to the end of the registry
+     *
+     * @param member The added member
+     */
+    public void memberAdded(GymMember member) {
+        int registryIndex = members.indexOf(member.getId());
+        if (registryIndex < 0) {
+            return;
+        }
+        if (matches == null) {
+            fireIntervalAdded(this, registryIndex + 1, registryIndex + 1);
+        } else {
+            // The registry has already indexed the new member; look it up again to rank it
+            applyFilter();
+            fireContentsChanged(this, 0, getSize() - 1);
+        }
+    }
+
+    /**
+     * Updates the list after a member was removed from the registry
+     *
+     * The registry moves its last member into the removed member's position,
+     * so a filtered list is rebuilt from its indexes; otherwise that element
+     * changes and the last one goes away. The selection is cleared if it was
+     * the removed member.
+     *
+     * @param member The removed member
+     * @param position The registry position it held
+     */
+    public void memberRemoved(GymMember member, int position) {
+        if (matches == null) {
+            int last = members.size() + 1;
+            fireIntervalRemoved(this, last, last);
+            if (position + 1 < last) {
+                fireContentsChanged(this, position + 1, position + 1);
+            }
+        } else {
+            applyFilter();
+            fireContentsChanged(this, 0, getSize() - 1);
+        }
+        if (member == selected) {
+            setSelectedItem(null);
+        }
+    }
+
+    /**
+     * Reloads the list after the registry contents were replaced
+     *
+     * The selection is cleared, since the selected member is no longer
+     * registered, and the filter is applied to the new members.
+     */
+    public void contentsChanged() {
+        applyFilter();
+        fireContentsChanged(this, 0, getSize() - 1);
+        setSelectedItem(null);
+    }
+}
@@ -0,0 +1,108 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared dictionary of the values of one low-cardinality member field
+ *
+ * Gender, membership plan, referral source and personal trainer take only a
+ * handful of distinct values across all members. Members store these fields
+ * as int codes into one dictionary per field and decode them on read, so a
+ * value is held once however many members share it, and strings split out
+ * of a loaded file become garbage as soon as they are encoded.
+ *
+ * Codes are assigned in order of first use, starting at 0, and never reused;
+ * the known values of a field are registered first, so they have fixed codes
+ * (Basic is always 0 in PLANS). NONE stands for a null value. Values are
+ * compared exactly, including case.
+ *
+ * encode() is safe from any thread: known values are a single concurrent map
+ * lookup, and a new value is added under a lock. decode() takes no lock.
+ * Dictionaries only grow, so a field with truly unbounded values should not
+ * be encoded.
+ */
+public final class MemberDictionary {
+
+    /**
+     * Code stored for a null value
+     */
+    public static final int NONE = -1;
+
+    public static final MemberDictionary GENDERS = new MemberDictionary("Male", "Female");
+
+    public static final MemberDictionary PLANS = new MemberDictionary("Basic", "Standard", "Deluxe");
+
+    public static final MemberDictionary REFERRAL_SOURCES = new MemberDictionary();
+
+    public static final MemberDictionary TRAINERS = new MemberDictionary();
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+
+    // Grown under the lock; a code is published through the map only after its value is stored
+    private volatile String[] values = new String[16];
+
+    private volatile int size;
+
+    private MemberDictionary(String... knownValues) {
+        for (String value : knownValues) {
+            encode(value);
+        }
+    }
+
+    /**
+     * Returns the code of a value, adding the value if it is new
+     *
+     * @param value The value, or null
+     * @return The code, or NONE for null
+     */
+    public int encode(String value) {
+        if (value == null) {
+            return NONE;
+        }
+        Integer code = codes.get(value);
+        return code != null ? code : add(value);
+    }
+
+    /**
+     * Returns the code of a value already in the dictionary
+     *
+     * @return The code, or NONE if the value has never been encoded
+     */
+    public int find(String value) {
+        Integer code = value != null ? codes.get(value) : null;
+        return code != null ? code : NONE;
+    }
+
+    /**
+     * Returns the value of a code
+     *
+     * @param code A code returned by encode(), or NONE
+     * @return The shared value, or null for NONE
+     */
+    public String decode(int code) {
+        return code == NONE ? null : values[code];
+    }
+
+    /**
+     * Returns the number of distinct values; codes run from 0 to size() - 1
+     */
+    public int size() {
+        return size;
+    }
+
+    private synchronized int add(String value) {
+        Integer existing = codes.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        int code = size;
+        String[] current = values;
+        if (code == current.length) {
+            current = Arrays.copyOf(current, code * 2);
+        }
+        current[code] = value;
+        values = current;
+        size = code + 1;
+        codes.put(value, code);
+        return code;
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * The fields of a member that can change after it is created
+ *
+ * Passed to MemberChangeListener so that listeners only react to the fields
+ * they keep track of.
+ */
+public enum MemberField {
+    NAME,
+    PHONE_NUMBER,
+    EMAIL,
+    GENDER,
+    DATE_OF_BIRTH,
+    MEMBERSHIP_START_DATE,
+    ATTENDANCE_COUNT,
+    LOYALTY_POINTS,
+    ACTIVE_STATUS,
+
+    // Regular members
+    MEMBERSHIP_PLAN,
+    PRICE,
+    REFERRAL_SOURCE,
+    ELIGIBLE_FOR_UPGRADE,
+    REMOVAL_REASON,
+
+    // Premium members
+    PERSONAL_TRAINER,
+    PAYMENT_COMPLETE,
+    PAID_AMOUNT,
+    DISCOUNT_AMOUNT
+}
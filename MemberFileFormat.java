@@ -0,0 +1,362 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads and writes the versioned member file format
+ *
+ * A member file starts with the header line "#gym-members v1", optionally
+ * followed by "#journal-sequence=N" when the file is a journal snapshot.
+ * Every other line holds one member as written by GymMember.appendFileString:
+ *
+ *   REGULAR,id,name,phone,email,gender,dob,start,attendance,loyalty,active,plan,price,referral,eligible,removalReason
+ *   PREMIUM,id,name,phone,email,gender,dob,start,attendance,loyalty,active,trainer,paymentComplete,paidAmount,discountAmount
+ *
+ * A text field containing a comma, a double quote or leading/trailing spaces
+ * is wrapped in double quotes, with embedded quotes doubled. Line breaks are
+ * written as spaces, so a record never spans more than one line. Files
+ * without a header are read as the unquoted format of earlier versions.
+ *
+ * Files are written and read as a stream through a buffered FileChannel, so
+ * memory use does not grow with the number of members in the file. Writes
+ * and reads are reported as FlightEvents for flight recordings.
+ */
+public class MemberFileFormat {
+
+    public static final int VERSION = 1;
+
+    public static final String HEADER = "#gym-members v" + VERSION;
+
+    private static final String HEADER_PREFIX = "#gym-members v";
+
+    private static final String SEQUENCE_PREFIX = "#journal-sequence=";
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private MemberFileFormat() {
+    }
+
+    /**
+     * Appends a text field, quoting it when needed
+     *
+     * @param line The line being built
+     * @param value The field value, written as an empty field when null
+     */
+    public static void appendField(StringBuilder line, String value) {
+        if (value == null) {
+            return;
+        }
+        if (!needsQuoting(value)) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append("\"\"");
+            } else if (c == '\n' || c == '\r') {
+                line.append(' ');
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    private static boolean needsQuoting(String value) {
+        int length = value.length();
+        if (length > 0 && (value.charAt(0) == ' ' || value.charAt(length - 1) == ' ')) {
+            return true;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Splits a member line into its fields, removing quoting
+     *
+     * @param line A line written by appendFileString
+     * @return The unquoted field values
+     */
+    public static List<String> splitFields(String line) {
+        List<String> fields = new ArrayList<>(16);
+        int length = line.length();
+        int pos = 0;
+        while (true) {
+            if (pos < length && line.charAt(pos) == '"') {
+                StringBuilder field = new StringBuilder();
+                pos++;
+                while (pos < length) {
+                    char c = line.charAt(pos++);
+                    if (c == '"') {
+                        if (pos < length && line.charAt(pos) == '"') {
+                            field.append('"');
+                            pos++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                }
+                fields.add(field.toString());
+                int comma = line.indexOf(',', pos);
+                if (comma < 0) {
+                    return fields;
+                }
+                pos = comma + 1;
+            } else {
+                int comma = line.indexOf(',', pos);
+                if (comma < 0) {
+                    fields.add(line.substring(pos));
+                    return fields;
+                }
+                fields.add(line.substring(pos, comma));
+                pos = comma + 1;
+            }
+        }
+    }
+
+    /**
+     * Parses one member line
+     *
+     * @param line A line written by appendFileString
+     * @return The parsed member, or null if the line is not a member record
+     * @throws NumberFormatException if a numeric field is malformed
+     * @throws DateTimeParseException if a date field is malformed
+     */
+    public static GymMember parseLine(String line) {
+        if (line.isEmpty() || line.charAt(0) == '#') {
+            return null;
+        }
+        List<String> parts = splitFields(line);
+        String memberType = parts.get(0);
+
+        if (memberType.equals("REGULAR") && parts.size() >= 15) {
+            String id = parts.get(1);
+            String name = parts.get(2);
+            String phone = parts.get(3);
+            String email = parts.get(4);
+            String gender = parts.get(5);
+            LocalDate dob = LocalDate.parse(parts.get(6), DATE_FORMATTER);
+            LocalDate startDate = LocalDate.parse(parts.get(7), DATE_FORMATTER);
+            int attendance = Integer.parseInt(parts.get(8));
+            int loyalty = Integer.parseInt(parts.get(9));
+            boolean active = Boolean.parseBoolean(parts.get(10));
+            String plan = parts.get(11);
+            String referral = parts.get(13);
+            boolean eligible = Boolean.parseBoolean(parts.get(14));
+
+            RegularMember member = new RegularMember(id, name, phone, email, gender, dob, startDate, plan, referral);
+            member.setAttendanceCount(attendance);
+            member.setLoyaltyPoints(loyalty);
+            member.setActiveStatus(active);
+            member.setEligibleForUpgrade(eligible);
+
+            if (parts.size() > 15) {
+                member.setRemovalReason(parts.get(15));
+            }
+            return member;
+
+        } else if (memberType.equals("PREMIUM") && parts.size() >= 15) {
+            String id = parts.get(1);
+            String name = parts.get(2);
+            String phone = parts.get(3);
+            String email = parts.get(4);
+            String gender = parts.get(5);
+            LocalDate dob = LocalDate.parse(parts.get(6), DATE_FORMATTER);
+            LocalDate startDate = LocalDate.parse(parts.get(7), DATE_FORMATTER);
+            int attendance = Integer.parseInt(parts.get(8));
+            int loyalty = Integer.parseInt(parts.get(9));
+            boolean active = Boolean.parseBoolean(parts.get(10));
+            String trainer = parts.get(11);
+            boolean paymentComplete = Boolean.parseBoolean(parts.get(12));
+            double paidAmount = Double.parseDouble(parts.get(13));
+            double discountAmount = Double.parseDouble(parts.get(14));
+
+            PremiumMember member = new PremiumMember(id, name, phone, email, gender, dob, startDate, trainer);
+            member.setAttendanceCount(attendance);
+            member.setLoyaltyPoints(loyalty);
+            member.setActiveStatus(active);
+            member.setPaymentComplete(paymentComplete);
+            member.setPaidAmount(paidAmount);
+            member.setDiscountAmount(discountAmount);
+            return member;
+        }
+        return null;
+    }
+
+    /**
+     * Writes all members to a file
+     *
+     * The file is written to a temporary sibling and moved over the target,
+     * so a crash while saving never leaves a half-written file behind.
+     *
+     * @param file The file to write
+     * @param members The members to write
+     * @param journalSequence The last journal sequence reflected in the members,
+     *                        or a negative value to leave it out
+     * @return The number of members written
+     */
+    public static int write(Path file, Iterable<GymMember> members, long journalSequence) throws IOException {
+        FlightEvents.FileWrite event = new FlightEvents.FileWrite();
+        event.begin();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             Writer writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), BUFFER_SIZE)) {
+            StringBuilder line = new StringBuilder(256);
+            line.append(HEADER).append('\n');
+            if (journalSequence >= 0) {
+                line.append(SEQUENCE_PREFIX).append(journalSequence).append('\n');
+            }
+            int chunkStart = 0;
+            for (GymMember member : members) {
+                member.appendFileString(line);
+                line.append('\n');
+                count++;
+                if (line.length() >= BUFFER_SIZE / 2) {
+                    writeChunk(writer, line, count - chunkStart);
+                    chunkStart = count;
+                }
+            }
+            writeChunk(writer, line, count - chunkStart);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        if (event.shouldCommit()) {
+            event.path = file.toString();
+            event.members = count;
+            event.bytes = Files.size(file);
+            event.commit();
+        }
+        return count;
+    }
+
+    // Writes and clears the buffered lines, as a flight recorder FileWriteChunk event
+    private static void writeChunk(Writer writer, StringBuilder lines, int members) throws IOException {
+        FlightEvents.FileWriteChunk event = new FlightEvents.FileWriteChunk();
+        event.begin();
+        writer.append(lines);
+        if (event.shouldCommit()) {
+            event.members = members;
+            event.characters = lines.length();
+            event.commit();
+        }
+        lines.setLength(0);
+    }
+
+    /**
+     * Streams all members of a file to a consumer
+     *
+     * @param file The file to read
+     * @param sink Receives each member in file order
+     * @return The journal sequence recorded in the file, or 0 if there is none
+     * @throws IOException if the file cannot be read, has an unsupported version,
+     *                     or contains a malformed member line
+     */
+    public static long read(Path file, Consumer<GymMember> sink) throws IOException {
+        FlightEvents.FileRead event = new FlightEvents.FileRead();
+        event.begin();
+        long sequence = 0;
+        int count = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(
+                 Channels.newReader(channel, StandardCharsets.UTF_8.newDecoder(), BUFFER_SIZE), BUFFER_SIZE)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.startsWith(HEADER_PREFIX)) {
+                    checkVersion(line);
+                    continue;
+                }
+                if (line.startsWith(SEQUENCE_PREFIX)) {
+                    sequence = Long.parseLong(line.substring(SEQUENCE_PREFIX.length()).trim());
+                    continue;
+                }
+                GymMember member;
+                try {
+                    member = parseLine(line);
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+                }
+                if (member != null) {
+                    sink.accept(member);
+                    count++;
+                }
+            }
+            if (event.shouldCommit()) {
+                event.path = file.toString();
+                event.members = count;
+                event.bytes = channel.size();
+                event.commit();
+            }
+        }
+        return sequence;
+    }
+
+    /**
+     * Checks that a header line names a version this code can read
+     *
+     * @param header The "#gym-members v" line
+     * @throws IOException if the version is newer than VERSION
+     */
+    static void checkVersion(String header) throws IOException {
+        int version;
+        try {
+            version = Integer.parseInt(header.substring(HEADER_PREFIX.length()).trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Unrecognised member file header: " + header);
+        }
+        if (version > VERSION) {
+            throw new IOException("Member file version " + version + " is newer than supported version " + VERSION);
+        }
+    }
+
+    /**
+     * Writes a journal snapshot of all members
+     *
+     * @param file The snapshot file
+     * @param members The members to write
+     * @param journalSequence The last journal sequence reflected in the members
+     */
+    public static void writeSnapshot(Path file, Iterable<GymMember> members, long journalSequence) throws IOException {
+        write(file, members, journalSequence);
+    }
+
+    /**
+     * Loads a journal snapshot into the registry
+     *
+     * @param file The snapshot file
+     * @param registry The registry to add the members to
+     * @return The journal sequence recorded in the snapshot, or 0 if there is no snapshot
+     */
+    public static long readSnapshot(Path file, MemberRegistry registry) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        return read(file, registry::add);
+    }
+}
@@ -0,0 +1,288 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Secondary indexes over the members of a registry
+ *
+ * Maps phone number, email, personal trainer and membership plan to the
+ * members holding them, keeps the active and inactive members apart, and
+ * keeps the member IDs sorted, so that front desk lookups and manager
+ * filters are hash lookups, and typed ID prefixes range lookups, instead of
+ * scans over every member. Lookups ignore case, surrounding spaces and, for
+ * phone numbers, anything that is not a digit.
+ *
+ * The registry keeps the indexes up to date as a MemberChangeListener: every
+ * member it holds reports changes to these fields through its setters and
+ * mutation methods. The maps are concurrent, so lookups are safe from any
+ * thread; a member being changed at the same moment may briefly appear under
+ * neither its old nor its new value.
+ */
+public class MemberIndexes implements MemberChangeListener {
+
+    private final ConcurrentHashMap<String, Set<GymMember>> byPhone = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Set<GymMember>> byEmail = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Set<GymMember>> byTrainer = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Set<GymMember>> byPlan = new ConcurrentHashMap<>();
+
+    // Member IDs never change, so this is only updated as members come and go
+    private final ConcurrentSkipListMap<String, GymMember> byId = new ConcurrentSkipListMap<>();
+
+    private final Set<GymMember> active = ConcurrentHashMap.newKeySet();
+
+    private final Set<GymMember> inactive = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void memberAdded(GymMember member) {
+        put(byPhone, phoneKey(member.getPhoneNumber()), member);
+        put(byEmail, textKey(member.getEmail()), member);
+        if (member instanceof PremiumMember) {
+            put(byTrainer, textKey(((PremiumMember) member).getPersonalTrainer()), member);
+        } else if (member instanceof RegularMember) {
+            put(byPlan, textKey(((RegularMember) member).getMembershipPlan()), member);
+        }
+        byId.put(member.getId(), member);
+        (member.isActiveStatus() ? active : inactive).add(member);
+    }
+
+    @Override
+    public void memberRemoved(GymMember member) {
+        remove(byPhone, phoneKey(member.getPhoneNumber()), member);
+        remove(byEmail, textKey(member.getEmail()), member);
+        if (member instanceof PremiumMember) {
+            remove(byTrainer, textKey(((PremiumMember) member).getPersonalTrainer()), member);
+        } else if (member instanceof RegularMember) {
+            remove(byPlan, textKey(((RegularMember) member).getMembershipPlan()), member);
+        }
+        byId.remove(member.getId(), member);
+        active.remove(member);
+        inactive.remove(member);
+    }
+
+    @Override
+    public void memberChanged(GymMember member, MemberField field, Object oldValue) {
+        switch (field) {
+            case PHONE_NUMBER:
+                move(byPhone, phoneKey((String) oldValue), phoneKey(member.getPhoneNumber()), member);
+                break;
+            case EMAIL:
+                move(byEmail, textKey((String) oldValue), textKey(member.getEmail()), member);
+                break;
+            case PERSONAL_TRAINER:
+                move(byTrainer, textKey((String) oldValue), textKey(((PremiumMember) member).getPersonalTrainer()), member);
+                break;
+            case MEMBERSHIP_PLAN:
+                move(byPlan, textKey((String) oldValue), textKey(((RegularMember) member).getMembershipPlan()), member);
+                break;
+            case ACTIVE_STATUS:
+                if (member.isActiveStatus()) {
+                    inactive.remove(member);
+                    active.add(member);
+                } else {
+                    active.remove(member);
+                    inactive.add(member);
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Finds the members with a phone number, ignoring spaces and punctuation
+     */
+    public List<GymMember> findByPhone(String phoneNumber) {
+        return lookup(byPhone, phoneKey(phoneNumber));
+    }
+
+    /**
+     * Finds the members with an email address, ignoring case
+     */
+    public List<GymMember> findByEmail(String email) {
+        return lookup(byEmail, textKey(email));
+    }
+
+    /**
+     * Finds the premium members assigned to a personal trainer, ignoring case
+     */
+    public List<GymMember> findByTrainer(String personalTrainer) {
+        return lookup(byTrainer, textKey(personalTrainer));
+    }
+
+    /**
+     * Finds the regular members on a membership plan, ignoring case
+     */
+    public List<GymMember> findByPlan(String membershipPlan) {
+        return lookup(byPlan, textKey(membershipPlan));
+    }
+
+    /**
+     * Finds the members whose ID starts with some text
+     *
+     * @param prefix The start of an ID
+     * @param limit The most members to return
+     * @return The members in ID order, compared as text
+     */
+    public List<GymMember> findByIdPrefix(String prefix, int limit) {
+        List<GymMember> result = new ArrayList<>();
+        for (Map.Entry<String, GymMember> entry : byId.tailMap(prefix, true).entrySet()) {
+            if (result.size() >= limit || !entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+
+    /**
+     * Finds the active or inactive members
+     */
+    public List<GymMember> findByStatus(boolean activeStatus) {
+        return new ArrayList<>(activeStatus ? active : inactive);
+    }
+
+    public int countByStatus(boolean activeStatus) {
+        return (activeStatus ? active : inactive).size();
+    }
+
+    /**
+     * Finds the members matching every given criterion
+     *
+     * Starts from the smallest of the matching index entries and checks the
+     * other criteria against each of its members.
+     *
+     * @param phoneNumber The phone number, or null for any
+     * @param email The email address, or null for any
+     * @param personalTrainer The personal trainer, or null for any
+     * @param membershipPlan The membership plan, or null for any
+     * @param activeStatus The status, or null for any
+     * @return The matching members; empty if no criterion is given
+     */
+    public List<GymMember> find(String phoneNumber, String email, String personalTrainer,
+                                String membershipPlan, Boolean activeStatus) {
+        List<Set<GymMember>> candidates = new ArrayList<>(5);
+        if (phoneNumber != null) {
+            candidates.add(entry(byPhone, phoneKey(phoneNumber)));
+        }
+        if (email != null) {
+            candidates.add(entry(byEmail, textKey(email)));
+        }
+        if (personalTrainer != null) {
+            candidates.add(entry(byTrainer, textKey(personalTrainer)));
+        }
+        if (membershipPlan != null) {
+            candidates.add(entry(byPlan, textKey(membershipPlan)));
+        }
+        if (activeStatus != null) {
+            candidates.add(activeStatus ? active : inactive);
+        }
+        if (candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<GymMember> smallest = candidates.get(0);
+        for (Set<GymMember> candidate : candidates) {
+            if (candidate.size() < smallest.size()) {
+                smallest = candidate;
+            }
+        }
+        List<GymMember> result = new ArrayList<>();
+        for (GymMember member : smallest) {
+            boolean matches = true;
+            for (Set<GymMember> candidate : candidates) {
+                if (candidate != smallest && !candidate.contains(member)) {
+                    matches = false;
+                    break;
+                }
+            }
+            if (matches) {
+                result.add(member);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Removes every member from the indexes
+     */
+    public void clear() {
+        byPhone.clear();
+        byEmail.clear();
+        byTrainer.clear();
+        byPlan.clear();
+        byId.clear();
+        active.clear();
+        inactive.clear();
+    }
+
+    private static String phoneKey(String phoneNumber) {
+        if (phoneNumber == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phoneNumber.length());
+        for (int i = 0; i < phoneNumber.length(); i++) {
+            char c = phoneNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.length() > 0 ? digits.toString() : null;
+    }
+
+    private static String textKey(String text) {
+        if (text == null) {
+            return null;
+        }
+        String key = text.trim().toLowerCase(Locale.ROOT);
+        return key.isEmpty() ? null : key;
+    }
+
+    private static void put(ConcurrentHashMap<String, Set<GymMember>> index, String key, GymMember member) {
+        if (key == null) {
+            return;
+        }
+        // Added inside compute so that a concurrent remove cannot drop the set being added to
+        index.compute(key, (k, members) -> {
+            Set<GymMember> entry = members != null ? members : ConcurrentHashMap.<GymMember>newKeySet();
+            entry.add(member);
+            return entry;
+        });
+    }
+
+    private static void remove(ConcurrentHashMap<String, Set<GymMember>> index, String key, GymMember member) {
+        if (key == null) {
+            return;
+        }
+        // computeIfPresent drops the entry atomically once its last member is gone
+        index.computeIfPresent(key, (k, members) -> {
+            members.remove(member);
+            return members.isEmpty() ? null : members;
+        });
+    }
+
+    private static void move(ConcurrentHashMap<String, Set<GymMember>> index, String oldKey, String newKey,
+                             GymMember member) {
+        if (oldKey != null && oldKey.equals(newKey)) {
+            return;
+        }
+        remove(index, oldKey, member);
+        put(index, newKey, member);
+    }
+
+    private static Set<GymMember> entry(ConcurrentHashMap<String, Set<GymMember>> index, String key) {
+        Set<GymMember> members = key != null ? index.get(key) : null;
+        return members != null ? members : Collections.emptySet();
+    }
+
+    private static List<GymMember> lookup(ConcurrentHashMap<String, Set<GymMember>> index, String key) {
+        return new ArrayList<>(entry(index, key));
+    }
+}
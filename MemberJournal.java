@@ -0,0 +1,630 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only write-ahead journal of member mutations
+ *
+ * Every state change made through the GUI is appended as a compact binary
+ * entry instead of rewriting the whole member file. Entries are collected by
+ * a background writer thread and written in groups, so a burst of check-ins
+ * costs one write (and at most one fsync) rather than one per click.
+ *
+ * Each entry is laid out as
+ *   int length | int crc32 | long sequence | long timeMillis | byte type | id | payload
+ * where the CRC covers everything after itself. A torn entry at the end of the
+ * file, left behind by a crash mid-write, fails the length or CRC check and
+ * is cut off when the journal is opened.
+ *
+ * A checkpoint calls rotate() before copying the members, which renames the
+ * current file to a segment named after its last sequence number, such as
+ * members.journal.1042, and starts a new file. Once the snapshot is written,
+ * dropSegments() deletes the segments it covers. The journal is therefore
+ * emptied on every checkpoint even while entries keep arriving.
+ *
+ * On startup the last snapshot is loaded and replay() re-applies only the
+ * entries with a sequence number above the one stored in that snapshot,
+ * reading any segments left by an interrupted checkpoint before the current
+ * file.
+ * Attendance entries carry the time of the visit, which replay() adds to the
+ * registry's AttendanceHistory unless the history file already contains it;
+ * payment, discount and revert entries likewise go to the PaymentLedger.
+ */
+public class MemberJournal implements Closeable {
+
+    /**
+     * When the journal forces written entries to the storage device
+     */
+    public enum FsyncPolicy {
+        /** Every group commit is forced before the appending call returns */
+        ALWAYS,
+        /** Written entries are forced at most once per fsync interval */
+        INTERVAL,
+        /** Forcing is left to the operating system */
+        NEVER
+    }
+
+    private static final byte NEW_MEMBER = 1;
+    private static final byte ATTENDANCE = 2;
+    private static final byte ACTIVATE = 3;
+    private static final byte DEACTIVATE = 4;
+    private static final byte UPGRADE = 5;
+    private static final byte REVERT_REGULAR = 6;
+    private static final byte REVERT_PREMIUM = 7;
+    private static final byte PAYMENT = 8;
+    private static final byte DISCOUNT = 9;
+    private static final byte REMOVE = 10;
+
+    private static final int HEADER_BYTES = 8;
+
+    private static final int MAX_ENTRY_BYTES = 1 << 20;
+
+    // A group is written early once this many bytes are waiting
+    private static final int GROUP_COMMIT_BYTES = 64 * 1024;
+
+    private final Path file;
+
+    // Replaced by rotate() while no group is being written
+    private FileChannel channel;
+
+    private final FsyncPolicy fsyncPolicy;
+
+    private final long commitIntervalMillis;
+
+    private final long fsyncIntervalMillis;
+
+    private final Object lock = new Object();
+
+    private final CRC32 crc = new CRC32();
+
+    private ByteBuffer pending = ByteBuffer.allocate(16 * 1024);
+
+    private ByteBuffer writing = ByteBuffer.allocate(16 * 1024);
+
+    private long lastSequence;
+
+    private long writtenSequence;
+
+    private long durableSequence;
+
+    private long lastForceMillis;
+
+    // Set while the writer writes a group outside the lock
+    private boolean flushing;
+
+    private IOException failure;
+
+    private boolean closed;
+
+    private final Thread writer;
+
+    // Entries applied by replay()
+    private int replayed;
+
+    /**
+     * Opens or creates a journal file
+     *
+     * @param file The journal file
+     * @param fsyncPolicy When written entries are forced to disk
+     * @param commitIntervalMillis How long the writer waits to gather a group of entries
+     * @param fsyncIntervalMillis Minimum time between forces under the INTERVAL policy
+     */
+    public MemberJournal(Path file, FsyncPolicy fsyncPolicy, long commitIntervalMillis, long fsyncIntervalMillis) throws IOException {
+        this.file = file;
+        this.channel = open(file);
+        this.fsyncPolicy = fsyncPolicy;
+        this.commitIntervalMillis = commitIntervalMillis;
+        this.fsyncIntervalMillis = fsyncIntervalMillis;
+        this.lastForceMillis = System.currentTimeMillis();
+
+        this.writer = new Thread(this::writeLoop, "member-journal-writer");
+        this.writer.setDaemon(true);
+    }
+
+    /**
+     * Replays journal entries on top of a loaded snapshot
+     *
+     * Must be called once, before any entry is appended. Segments are read
+     * in sequence order before the current file; those the snapshot covers
+     * are skipped, as are entries at or below the snapshot sequence.
+     * Anything after the last intact entry of the current file is truncated
+     * away.
+     *
+     * @param registry The registry holding the snapshot members
+     * @param snapshotSequence The sequence number stored in the snapshot
+     * @param historySequence The sequence number stored in the attendance
+     *        history file; visits up to it are already in the history
+     * @param ledgerSequence The sequence number of the last commit in the
+     *        payment ledger file; payments up to it are already in the ledger
+     * @return The number of entries applied
+     */
+    public int replay(MemberRegistry registry, long snapshotSequence, long historySequence,
+                      long ledgerSequence) throws IOException {
+        synchronized (lock) {
+            lastSequence = snapshotSequence;
+            replayed = 0;
+            for (Path segment : segments()) {
+                if (segmentSequence(segment) > snapshotSequence) {
+                    try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+                        // Segments were forced before they were renamed, so there is no torn tail to cut off
+                        replayEntries(in, registry, historySequence, ledgerSequence);
+                    }
+                }
+            }
+            long position = replayEntries(channel, registry, historySequence, ledgerSequence);
+            if (position < channel.size()) {
+                channel.truncate(position);
+            }
+            channel.position(position);
+
+            writtenSequence = lastSequence;
+            durableSequence = lastSequence;
+        }
+        writer.start();
+        return replayed;
+    }
+
+    /**
+     * Applies the entries of one file that are newer than lastSequence
+     *
+     * @return The position after the last intact entry
+     */
+    private long replayEntries(FileChannel in, MemberRegistry registry, long historySequence,
+                               long ledgerSequence) throws IOException {
+        long size = in.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+
+        while (position + HEADER_BYTES <= size) {
+            header.clear();
+            readFully(in, header, position);
+            header.flip();
+            int length = header.getInt();
+            int checksum = header.getInt();
+            if (length <= 0 || length > MAX_ENTRY_BYTES || position + HEADER_BYTES + length > size) {
+                break;
+            }
+            ByteBuffer body = ByteBuffer.allocate(length);
+            readFully(in, body, position + HEADER_BYTES);
+            crc.reset();
+            crc.update(body.array(), 0, length);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            body.flip();
+            long entrySequence = body.getLong();
+            if (entrySequence > lastSequence) {
+                apply(registry, body, entrySequence > historySequence, entrySequence > ledgerSequence);
+                lastSequence = entrySequence;
+                replayed++;
+            }
+            position += HEADER_BYTES + length;
+        }
+        return position;
+    }
+
+    public void logNewMember(GymMember member) {
+        append(NEW_MEMBER, member.getId(), member.toFileString(), 0);
+    }
+
+    /**
+     * @param timeMillis The time of the visit, as recorded in the attendance history
+     */
+    public void logAttendance(String id, long timeMillis) {
+        append(ATTENDANCE, id, null, 0, timeMillis);
+    }
+
+    public void logActivate(String id) {
+        append(ACTIVATE, id, null, 0);
+    }
+
+    public void logDeactivate(String id) {
+        append(DEACTIVATE, id, null, 0);
+    }
+
+    public void logUpgrade(String id, String newPlan) {
+        append(UPGRADE, id, newPlan, 0);
+    }
+
+    public void logRevertRegular(String id, String reason) {
+        append(REVERT_REGULAR, id, reason, 0);
+    }
+
+    public void logRevertPremium(String id, long timeMillis) {
+        append(REVERT_PREMIUM, id, null, 0, timeMillis);
+    }
+
+    /**
+     * @param timeMillis The time of the payment, as recorded in the payment ledger
+     */
+    public void logPayment(String id, double amount, long timeMillis) {
+        append(PAYMENT, id, null, amount, timeMillis);
+    }
+
+    public void logDiscount(String id, long timeMillis) {
+        append(DISCOUNT, id, null, 0, timeMillis);
+    }
+
+    public void logRemove(String id) {
+        append(REMOVE, id, null, 0);
+    }
+
+    /**
+     * Returns the sequence number of the last appended entry
+     */
+    public long lastSequence() {
+        synchronized (lock) {
+            return lastSequence;
+        }
+    }
+
+    /**
+     * Blocks until every appended entry is written and forced to disk
+     */
+    public void sync() throws IOException {
+        synchronized (lock) {
+            while (writtenSequence < lastSequence && failure == null) {
+                awaitWriter();
+            }
+            checkFailure();
+            if (durableSequence < writtenSequence) {
+                channel.force(false);
+                durableSequence = writtenSequence;
+                lastForceMillis = System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * Closes the current file as a segment and starts a new one
+     *
+     * Waits until every appended entry is written, forces the file and
+     * renames it after the last sequence it holds. Appending waits while the
+     * file is switched. Nothing is renamed if the file is empty.
+     *
+     * @return The last sequence number in the closed segment
+     */
+    public long rotate() throws IOException {
+        synchronized (lock) {
+            while ((writtenSequence < lastSequence || flushing) && failure == null) {
+                awaitWriter();
+            }
+            checkFailure();
+            if (channel.size() == 0) {
+                return lastSequence;
+            }
+            channel.force(true);
+            durableSequence = writtenSequence;
+            lastForceMillis = System.currentTimeMillis();
+            channel.close();
+            try {
+                Files.move(file, segment(lastSequence), StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                // Carries on appending to the same file if it could not be renamed
+                channel = open(file);
+                channel.position(channel.size());
+            }
+            return lastSequence;
+        }
+    }
+
+    /**
+     * Deletes the segments a snapshot has made obsolete
+     *
+     * @param snapshotSequence The journal sequence stored in the snapshot
+     */
+    public void dropSegments(long snapshotSequence) throws IOException {
+        for (Path segment : segments()) {
+            if (segmentSequence(segment) <= snapshotSequence) {
+                Files.deleteIfExists(segment);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            synchronized (lock) {
+                closed = true;
+                lock.notifyAll();
+            }
+            try {
+                writer.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            channel.close();
+        }
+    }
+
+    private void append(byte type, String id, String text, double amount) {
+        append(type, id, text, amount, System.currentTimeMillis());
+    }
+
+    private void append(byte type, String id, String text, double amount, long timeMillis) {
+        synchronized (lock) {
+            if (failure != null) {
+                throw new UncheckedIOException("Journal write failed", failure);
+            }
+            if (closed) {
+                throw new IllegalStateException("Journal is closed");
+            }
+            long sequence = ++lastSequence;
+
+            byte[] idBytes = id.getBytes(StandardCharsets.UTF_8);
+            byte[] textBytes = text != null ? text.getBytes(StandardCharsets.UTF_8) : null;
+            int length = 8 + 8 + 1 + 2 + idBytes.length
+                    + (textBytes != null ? 4 + textBytes.length : 0)
+                    + (type == PAYMENT ? 8 : 0);
+            ensureCapacity(HEADER_BYTES + length);
+
+            int start = pending.position();
+            pending.putInt(length);
+            pending.putInt(0);
+            pending.putLong(sequence);
+            pending.putLong(timeMillis);
+            pending.put(type);
+            pending.putShort((short) idBytes.length);
+            pending.put(idBytes);
+            if (textBytes != null) {
+                pending.putInt(textBytes.length);
+                pending.put(textBytes);
+            }
+            if (type == PAYMENT) {
+                pending.putDouble(amount);
+            }
+            crc.reset();
+            crc.update(pending.array(), start + HEADER_BYTES, length);
+            pending.putInt(start + 4, (int) crc.getValue());
+
+            lock.notifyAll();
+
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                while (durableSequence < sequence && failure == null) {
+                    awaitWriter();
+                }
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            long groupSequence;
+            boolean force;
+            FileChannel target;
+            synchronized (lock) {
+                try {
+                    while (pending.position() == 0 && !closed) {
+                        if (fsyncPolicy == FsyncPolicy.INTERVAL && durableSequence < writtenSequence) {
+                            long wait = lastForceMillis + fsyncIntervalMillis - System.currentTimeMillis();
+                            if (wait <= 0) {
+                                break;
+                            }
+                            lock.wait(wait);
+                        } else {
+                            lock.wait();
+                        }
+                    }
+                    if (closed && pending.position() == 0) {
+                        return;
+                    }
+                    // Appenders waiting for an fsync are not held back any further; entries
+                    // arriving while the previous group is forced form the next group
+                    long gather = fsyncPolicy == FsyncPolicy.ALWAYS ? 0 : commitIntervalMillis;
+                    long deadline = System.currentTimeMillis() + gather;
+                    while (!closed && pending.position() > 0 && pending.position() < GROUP_COMMIT_BYTES) {
+                        long wait = deadline - System.currentTimeMillis();
+                        if (wait <= 0) {
+                            break;
+                        }
+                        lock.wait(wait);
+                    }
+                } catch (InterruptedException e) {
+                    // Fail waiting appenders, sync() and rotate() rather than leave them hanging
+                    failure = new InterruptedIOException("Journal writer was interrupted");
+                    lock.notifyAll();
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                ByteBuffer swap = writing;
+                writing = pending;
+                pending = swap;
+                groupSequence = lastSequence;
+                target = channel;
+                flushing = true;
+                force = fsyncPolicy == FsyncPolicy.ALWAYS
+                        || (fsyncPolicy == FsyncPolicy.INTERVAL
+                            && System.currentTimeMillis() - lastForceMillis >= fsyncIntervalMillis);
+            }
+
+            try {
+                writing.flip();
+                while (writing.hasRemaining()) {
+                    target.write(writing);
+                }
+                writing.clear();
+                if (force) {
+                    target.force(false);
+                }
+            } catch (IOException e) {
+                synchronized (lock) {
+                    flushing = false;
+                    failure = e;
+                    lock.notifyAll();
+                }
+                return;
+            }
+
+            synchronized (lock) {
+                flushing = false;
+                writtenSequence = groupSequence;
+                if (force) {
+                    durableSequence = groupSequence;
+                    lastForceMillis = System.currentTimeMillis();
+                }
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void apply(MemberRegistry registry, ByteBuffer body, boolean recordVisit, boolean recordPayment) {
+        long timeMillis = body.getLong();
+        byte type = body.get();
+        byte[] idBytes = new byte[body.getShort() & 0xFFFF];
+        body.get(idBytes);
+        String id = new String(idBytes, StandardCharsets.UTF_8);
+
+        if (type == NEW_MEMBER) {
+            GymMember member = MemberFileFormat.parseLine(readText(body));
+            if (member != null) {
+                registry.add(member);
+            }
+            return;
+        }
+
+        GymMember member = registry.findById(id);
+        if (member == null) {
+            return;
+        }
+        switch (type) {
+            case ATTENDANCE:
+                member.markAttendance();
+                if (recordVisit) {
+                    registry.recordVisit(id, timeMillis);
+                }
+                break;
+            case ACTIVATE:
+                member.activateMembership();
+                break;
+            case DEACTIVATE:
+                member.deactivateMembership();
+                break;
+            case UPGRADE:
+                if (member instanceof RegularMember) {
+                    ((RegularMember) member).upgradePlan(readText(body));
+                }
+                break;
+            case REVERT_REGULAR:
+                if (member instanceof RegularMember) {
+                    ((RegularMember) member).revertRegularMember(readText(body));
+                }
+                break;
+            case REVERT_PREMIUM:
+                if (member instanceof PremiumMember) {
+                    registry.applyRevert((PremiumMember) member, timeMillis, recordPayment);
+                }
+                break;
+            case PAYMENT:
+                if (member instanceof PremiumMember) {
+                    registry.applyPayment((PremiumMember) member, PremiumMember.toCents(body.getDouble()),
+                        timeMillis, recordPayment);
+                }
+                break;
+            case DISCOUNT:
+                if (member instanceof PremiumMember) {
+                    registry.applyDiscount((PremiumMember) member, timeMillis, recordPayment);
+                }
+                break;
+            case REMOVE:
+                registry.remove(id);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String readText(ByteBuffer body) {
+        byte[] bytes = new byte[body.getInt()];
+        body.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer, position + buffer.position()) < 0) {
+                break;
+            }
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private Path segment(long sequence) {
+        return file.resolveSibling(file.getFileName() + "." + sequence);
+    }
+
+    /**
+     * Returns the segments left by rotate(), in sequence order
+     */
+    private List<Path> segments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        Path directory = file.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, file.getFileName() + ".*")) {
+            for (Path candidate : files) {
+                if (segmentSequence(candidate) >= 0) {
+                    segments.add(candidate);
+                }
+            }
+        }
+        segments.sort(Comparator.comparingLong(MemberJournal::segmentSequence));
+        return segments;
+    }
+
+    /**
+     * Returns the sequence number a segment is named after, or -1 if the name has none
+     */
+    private static long segmentSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        String suffix = name.substring(name.lastIndexOf('.') + 1);
+        if (suffix.isEmpty() || suffix.length() > 18) {
+            return -1;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (suffix.charAt(i) < '0' || suffix.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        return Long.parseLong(suffix);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (pending.remaining() < extra) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + extra));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+    }
+
+    private void awaitWriter() {
+        try {
+            lock.wait();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the journal", e);
+        }
+    }
+
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+import javax.swing.DefaultListCellRenderer;
+import javax.swing.JList;
+import java.awt.Component;
+
+/**
+ * Renders members as "id - name (type)" in the member selection combo box
+ *
+ * Labels are built only for the cells being painted. A null value is the
+ * "-- Select Member --" placeholder.
+ */
+public class MemberListCellRenderer extends DefaultListCellRenderer {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String PLACEHOLDER = "-- Select Member --";
+
+    private final StringBuilder label = new StringBuilder(64);
+
+    @Override
+    public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                  boolean isSelected, boolean cellHasFocus) {
+        String text = PLACEHOLDER;
+        if (value instanceof GymMember) {
+            GymMember member = (GymMember) value;
+            label.setLength(0);
+            label.append(member.getId())
+                 .append(" - ")
+                 .append(member.getName())
+                 .append(member instanceof RegularMember ? " (Regular)" : " (Premium)");
+            text = label.toString();
+        }
+        return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+    }
+}
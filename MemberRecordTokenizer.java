@@ -0,0 +1,385 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * Reusable tokenizer for member lines held in a byte buffer
+ *
+ * reset() records where each field of one line starts and ends, without
+ * copying anything. Numeric, boolean and date fields are then decoded in
+ * place from the bytes, so a line costs no String[] and no per-field String
+ * except for the text fields a member actually keeps. The member type is
+ * matched against its constants, and the low-cardinality fields (gender,
+ * plan, referral source, trainer) against the values this tokenizer has
+ * already seen, returning the MemberDictionary's shared String, so a
+ * repeated value costs no String at all.
+ *
+ * One tokenizer is used by one thread at a time; the loader creates one per
+ * chunk it parses.
+ */
+public class MemberRecordTokenizer {
+
+    private static final int MAX_FIELDS = 32;
+
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private static final byte[] REGULAR = ascii("REGULAR");
+    private static final byte[] PREMIUM = ascii("PREMIUM");
+
+
+    private final int[] starts = new int[MAX_FIELDS];
+
+    private final int[] ends = new int[MAX_FIELDS];
+
+    private final boolean[] quoted = new boolean[MAX_FIELDS];
+
+    private final SeenValues genders = new SeenValues(MemberDictionary.GENDERS);
+
+    private final SeenValues plans = new SeenValues(MemberDictionary.PLANS);
+
+    private final SeenValues referralSources = new SeenValues(MemberDictionary.REFERRAL_SOURCES);
+
+    private final SeenValues trainers = new SeenValues(MemberDictionary.TRAINERS);
+
+    private ByteBuffer buffer;
+
+    private int fieldCount;
+
+    /**
+     * Splits one line into fields
+     *
+     * @param buffer The buffer holding the line, read with absolute gets
+     * @param lineStart Index of the first byte of the line
+     * @param lineEnd Index just past the last byte, excluding the line break
+     * @return The number of fields in the line
+     */
+    public int reset(ByteBuffer buffer, int lineStart, int lineEnd) {
+        this.buffer = buffer;
+        fieldCount = 0;
+        int pos = lineStart;
+        while (fieldCount < MAX_FIELDS) {
+            int field = fieldCount++;
+            if (pos < lineEnd && buffer.get(pos) == '"') {
+                quoted[field] = true;
+                starts[field] = ++pos;
+                while (pos < lineEnd) {
+                    if (buffer.get(pos) == '"') {
+                        if (pos + 1 < lineEnd && buffer.get(pos + 1) == '"') {
+                            pos += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    pos++;
+                }
+                ends[field] = pos;
+                while (pos < lineEnd && buffer.get(pos) != ',') {
+                    pos++;
+                }
+            } else {
+                quoted[field] = false;
+                starts[field] = pos;
+                while (pos < lineEnd && buffer.get(pos) != ',') {
+                    pos++;
+                }
+                ends[field] = pos;
+            }
+            if (pos >= lineEnd) {
+                break;
+            }
+            pos++;
+        }
+        return fieldCount;
+    }
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public boolean fieldEquals(int field, byte[] expected) {
+        int start = starts[field];
+        int length = ends[field] - start;
+        if (length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a field as an int
+     *
+     * @throws NumberFormatException if the field is not a decimal int
+     */
+    public int decodeInt(int field) {
+        long value = decodeLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of range for int: \"" + decodeString(field) + "\"");
+        }
+        return (int) value;
+    }
+
+    /**
+     * Decodes a field as a long
+     *
+     * @throws NumberFormatException if the field is not a decimal long
+     */
+    public long decodeLong(int field) {
+        int pos = starts[field];
+        int end = ends[field];
+        boolean negative = pos < end && buffer.get(pos) == '-';
+        if (negative || (pos < end && buffer.get(pos) == '+')) {
+            pos++;
+        }
+        if (pos == end || end - pos > 18) {
+            throw invalid("number", field);
+        }
+        long value = 0;
+        for (; pos < end; pos++) {
+            int digit = buffer.get(pos) - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalid("number", field);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Decodes a field as a boolean, following Boolean.parseBoolean
+     *
+     * @return true only if the field is "true", ignoring case
+     */
+    public boolean decodeBoolean(int field) {
+        int start = starts[field];
+        if (ends[field] - start != 4) {
+            return false;
+        }
+        return (buffer.get(start) | 0x20) == 't'
+            && (buffer.get(start + 1) | 0x20) == 'r'
+            && (buffer.get(start + 2) | 0x20) == 'u'
+            && (buffer.get(start + 3) | 0x20) == 'e';
+    }
+
+    /**
+     * Decodes a field as a double
+     *
+     * Plain decimals with up to 15 significant digits, which covers every
+     * amount the application writes, are converted exactly from a long
+     * mantissa. Anything else, such as exponent notation, falls back to
+     * Double.parseDouble.
+     *
+     * @throws NumberFormatException if the field is not a number
+     */
+    public double decodeDouble(int field) {
+        int pos = starts[field];
+        int end = ends[field];
+        boolean negative = pos < end && buffer.get(pos) == '-';
+        if (negative) {
+            pos++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        boolean seenDigit = false;
+        boolean plain = pos < end;
+        for (; pos < end && plain; pos++) {
+            byte b = buffer.get(pos);
+            if (b >= '0' && b <= '9') {
+                mantissa = mantissa * 10 + (b - '0');
+                seenDigit = true;
+                if (mantissa != 0) {
+                    digits++;
+                }
+                if (seenPoint) {
+                    fractionDigits++;
+                }
+            } else if (b == '.' && !seenPoint) {
+                seenPoint = true;
+            } else {
+                plain = false;
+            }
+        }
+        if (plain && seenDigit && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        return Double.parseDouble(decodeString(field));
+    }
+
+    /**
+     * Decodes a yyyy-MM-dd field as an epoch day
+     *
+     * @throws NumberFormatException if the field is not a yyyy-MM-dd date
+     */
+    public long decodeEpochDay(int field) {
+        return decodeDate(field).toEpochDay();
+    }
+
+    /**
+     * Decodes a yyyy-MM-dd field as a date
+     *
+     * Resolved like the yyyy-MM-dd formatter MemberFileFormat parses with: a
+     * day past the end of its month, such as February 30, is the month's
+     * last day.
+     *
+     * @throws NumberFormatException if the field is not a yyyy-MM-dd date
+     */
+    public LocalDate decodeDate(int field) {
+        int start = starts[field];
+        if (ends[field] - start != 10 || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-') {
+            throw invalid("date", field);
+        }
+        int year = digits(field, start, 4);
+        int month = digits(field, start + 5, 2);
+        int day = digits(field, start + 8, 2);
+        if (year == 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            throw invalid("date", field);
+        }
+        return LocalDate.of(year, month, Math.min(day, Month.of(month).length(Year.isLeap(year))));
+    }
+
+    private int digits(int field, int pos, int count) {
+        int value = 0;
+        for (int i = 0; i < count; i++) {
+            int digit = buffer.get(pos + i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw invalid("date", field);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Decodes a text field, removing quoting
+     */
+    public String decodeString(int field) {
+        int start = starts[field];
+        int length = ends[field] - start;
+        if (length == 0) {
+            return "";
+        }
+        byte[] bytes = new byte[length];
+        int count = 0;
+        for (int pos = start; pos < start + length; pos++) {
+            byte b = buffer.get(pos);
+            bytes[count++] = b;
+            if (b == '"' && quoted[field]) {
+                pos++;
+            }
+        }
+        return new String(bytes, 0, count, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes a low-cardinality text field to its dictionary value
+     *
+     * Unquoted fields are first matched by their bytes against the values
+     * already seen, so only the first occurrence of a value is decoded.
+     *
+     * @param seen The values seen in this field
+     * @return The shared value from the field's MemberDictionary
+     */
+    private String decodeShared(int field, SeenValues seen) {
+        if (!quoted[field]) {
+            for (int i = 0; i < seen.count; i++) {
+                if (fieldEquals(field, seen.bytes[i])) {
+                    return seen.values[i];
+                }
+            }
+        }
+        MemberDictionary dictionary = seen.dictionary;
+        String value = dictionary.decode(dictionary.encode(decodeString(field)));
+        if (!quoted[field] && seen.count < SeenValues.CAPACITY) {
+            seen.bytes[seen.count] = value.getBytes(StandardCharsets.UTF_8);
+            seen.values[seen.count++] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Builds a member from the current line
+     *
+     * @return The member, or null if the line is not a REGULAR or PREMIUM record
+     * @throws NumberFormatException if a numeric or date field is malformed
+     */
+    public GymMember parseMember() {
+        boolean regular = fieldEquals(0, REGULAR);
+        if ((!regular && !fieldEquals(0, PREMIUM)) || fieldCount < 15) {
+            return null;
+        }
+        String id = decodeString(1);
+        String name = decodeString(2);
+        String phone = decodeString(3);
+        String email = decodeString(4);
+        String gender = decodeShared(5, genders);
+        LocalDate dob = decodeDate(6);
+        LocalDate startDate = decodeDate(7);
+        int attendance = decodeInt(8);
+        int loyalty = decodeInt(9);
+        boolean active = decodeBoolean(10);
+
+        if (regular) {
+            RegularMember member = new RegularMember(id, name, phone, email, gender, dob, startDate,
+                decodeShared(11, plans), decodeShared(13, referralSources));
+            member.setAttendanceCount(attendance);
+            member.setLoyaltyPoints(loyalty);
+            member.setActiveStatus(active);
+            member.setEligibleForUpgrade(decodeBoolean(14));
+            if (fieldCount > 15) {
+                member.setRemovalReason(decodeString(15));
+            }
+            return member;
+        }
+
+        PremiumMember member = new PremiumMember(id, name, phone, email, gender, dob, startDate,
+            decodeShared(11, trainers));
+        member.setAttendanceCount(attendance);
+        member.setLoyaltyPoints(loyalty);
+        member.setActiveStatus(active);
+        member.setPaymentComplete(decodeBoolean(12));
+        member.setPaidAmount(decodeDouble(13));
+        member.setDiscountAmount(decodeDouble(14));
+        return member;
+    }
+
+    private NumberFormatException invalid(String kind, int field) {
+        return new NumberFormatException("Invalid " + kind + ": \"" + decodeString(field) + "\"");
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * The values of one shared field seen by a tokenizer, with their bytes
+     */
+    private static final class SeenValues {
+
+        // Beyond this many distinct values, further ones are decoded each time
+        static final int CAPACITY = 32;
+
+        final MemberDictionary dictionary;
+
+        final byte[][] bytes = new byte[CAPACITY][];
+
+        final String[] values = new String[CAPACITY];
+
+        int count;
+
+        SeenValues(MemberDictionary dictionary) {
+            this.dictionary = dictionary;
+        }
+    }
+}
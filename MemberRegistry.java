@@ -0,0 +1,1057 @@
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Registry holding every gym member known to the application
+ *
+ * Members are kept in insertion order in a list, and an open-addressing hash
+ * index keyed by the primitive int value of the member ID maps each ID to its
+ * position in that list. Lookup, insertion and removal are therefore O(1)
+ * instead of a linear scan over all members. Removal moves the last member
+ * into the freed position, so the list stays in insertion order only until
+ * a member is removed.
+ *
+ * IDs entered through the GUI are validated as numeric, but files may contain
+ * IDs such as "007" that do not round-trip through Integer.parseInt. Those are
+ * kept in a small fallback map so that lookups stay exact on the ID string.
+ *
+ * The registry is safe for use by several threads, such as check-in terminals
+ * and background jobs alongside the Event Dispatch Thread:
+ *
+ *   - the member list and index are guarded by a read-write lock, so lookups
+ *     run in parallel and only adding or removing members is exclusive
+ *   - state changes to one member (markAttendance, payDueAmount and the other
+ *     member operations below) run under one of STRIPES locks chosen by the
+ *     member ID, so each is atomic per member while changes to members on
+ *     other stripes proceed in parallel
+ *   - snapshot() takes every lock at once and copies the members, giving a
+ *     point-in-time view for reports and saves
+ *
+ * When a journal is attached, each change is appended to it while the
+ * member's lock is still held, so the journal order matches the order in
+ * which changes were applied. Members should only be changed through the
+ * registry's operations once it is shared between threads.
+ *
+ * The registry attaches itself to each member it holds as its change
+ * listener, keeps MemberIndexes and NameIndex up to date from the reported
+ * changes, and passes them on to any listeners added with addChangeListener.
+ *
+ * Every attendance marked through the registry is also recorded with its
+ * time in the registry's AttendanceHistory. Premium members are attached to
+ * the registry's PaymentLedger when added, and their paid and discount
+ * amounts are their balances there, so every payment, discount and revert
+ * is an entry in the ledger.
+ *
+ * The time each operation on one member takes, including waiting for its
+ * lock, is recorded in MetricsRegistry.DEFAULT under member.* and as a
+ * FlightEvents.MemberOperation event.
+ */
+public class MemberRegistry implements Iterable<GymMember> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int FREE = -1;
+
+    private static final int STRIPES = 64;
+
+    // Latency of each operation on one member, in MetricsRegistry.DEFAULT
+    private static final MetricsRegistry.Timer MARK_ATTENDANCE = MetricsRegistry.DEFAULT.timer("member.markAttendance");
+
+    private static final MetricsRegistry.Timer ACTIVATE = MetricsRegistry.DEFAULT.timer("member.activateMembership");
+
+    private static final MetricsRegistry.Timer DEACTIVATE = MetricsRegistry.DEFAULT.timer("member.deactivateMembership");
+
+    private static final MetricsRegistry.Timer PAY_DUE = MetricsRegistry.DEFAULT.timer("member.payDueAmount");
+
+    private static final MetricsRegistry.Timer DISCOUNT = MetricsRegistry.DEFAULT.timer("member.calculateDiscount");
+
+    private static final MetricsRegistry.Timer UPGRADE = MetricsRegistry.DEFAULT.timer("member.upgradePlan");
+
+    private static final MetricsRegistry.Timer REVERT_REGULAR = MetricsRegistry.DEFAULT.timer("member.revertRegularMember");
+
+    private static final MetricsRegistry.Timer REVERT_PREMIUM = MetricsRegistry.DEFAULT.timer("member.revertPremiumMember");
+
+    private final ArrayList<GymMember> members = new ArrayList<>();
+
+    private int[] keys;
+
+    private int[] slots;
+
+    private int indexedCount;
+
+    private final Map<String, Integer> nonNumericIds = new HashMap<>();
+
+    private final ReentrantReadWriteLock structureLock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock[] stripes = new ReentrantLock[STRIPES];
+
+    private volatile MemberJournal journal;
+
+    private volatile Consumer<RuntimeException> journalErrorHandler;
+
+    private final AttendanceHistory attendanceHistory = new AttendanceHistory();
+
+    private final PaymentLedger paymentLedger = new PaymentLedger();
+
+    private final MemberIndexes indexes = new MemberIndexes();
+
+    private final NameIndex nameIndex = new NameIndex();
+
+    // Built on first use by getColumns()
+    private volatile MemberColumns columns;
+
+    // Built on first use by getAggregates()
+    private volatile MemberAggregates aggregates;
+
+    private final List<MemberChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    // Snapshot copies attach to their members only when indexes or listeners are asked for
+    private volatile boolean listening = true;
+
+    private final MemberChangeListener changeDispatcher = new MemberChangeListener() {
+        @Override
+        public void memberChanged(GymMember member, MemberField field, Object oldValue) {
+            for (MemberChangeListener listener : changeListeners) {
+                listener.memberChanged(member, field, oldValue);
+            }
+        }
+
+        @Override
+        public void memberAdded(GymMember member) {
+            for (MemberChangeListener listener : changeListeners) {
+                listener.memberAdded(member);
+            }
+        }
+
+        @Override
+        public void memberRemoved(GymMember member) {
+            for (MemberChangeListener listener : changeListeners) {
+                listener.memberRemoved(member);
+            }
+        }
+    };
+
+    private final List<GymMember> readOnlyView = new AbstractList<GymMember>() {
+        @Override
+        public GymMember get(int index) {
+            return MemberRegistry.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return MemberRegistry.this.size();
+        }
+    };
+
+    public MemberRegistry() {
+        allocate(INITIAL_CAPACITY);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        changeListeners.add(indexes);
+        changeListeners.add(nameIndex);
+    }
+
+    /**
+     * Attaches the journal that records every change made through the registry
+     *
+     * A change that cannot be journaled is still applied in memory; the
+     * failure is passed to the error handler instead of failing the change.
+     *
+     * @param journal The journal, or null to stop recording
+     * @param errorHandler Receives journal write failures, on the changing thread
+     */
+    public void setJournal(MemberJournal journal, Consumer<RuntimeException> errorHandler) {
+        this.journalErrorHandler = errorHandler;
+        this.journal = journal;
+    }
+
+    /**
+     * Returns the time of every visit recorded through markAttendance
+     */
+    public AttendanceHistory getAttendanceHistory() {
+        return attendanceHistory;
+    }
+
+    /**
+     * Returns the ledger of every payment, discount and revert of premium members
+     */
+    public PaymentLedger getPaymentLedger() {
+        return paymentLedger;
+    }
+
+    /**
+     * Returns the secondary indexes over phone, email, trainer, plan and status
+     */
+    public MemberIndexes getIndexes() {
+        startListening();
+        return indexes;
+    }
+
+    /**
+     * Returns the typeahead index over member names
+     */
+    public NameIndex getNameIndex() {
+        startListening();
+        return nameIndex;
+    }
+
+    /**
+     * Returns the columnar mirror of the members, building it on first use
+     *
+     * The columns are registered as a change listener before the current
+     * members are copied in, so a change made while they are being built is
+     * not lost: a member changed before it is copied is copied with the
+     * change, and one changed after has the change applied.
+     */
+    public MemberColumns getColumns() {
+        MemberColumns current = columns;
+        if (current != null) {
+            return current;
+        }
+        synchronized (changeListeners) {
+            if (columns == null) {
+                MemberColumns built = new MemberColumns();
+                addChangeListener(built);
+                structureLock.readLock().lock();
+                try {
+                    for (GymMember member : members) {
+                        built.memberAdded(member);
+                    }
+                } finally {
+                    structureLock.readLock().unlock();
+                }
+                columns = built;
+            }
+            return columns;
+        }
+    }
+
+    /**
+     * Returns the running totals shown on the dashboard, building them on first use
+     *
+     * Unlike the columns, the totals are kept by adding differences, so they
+     * are built while every member lock is held: no change can be both
+     * counted in a member as it is added and reported to them afterwards.
+     */
+    public MemberAggregates getAggregates() {
+        MemberAggregates current = aggregates;
+        if (current != null) {
+            return current;
+        }
+        startListening();
+        synchronized (changeListeners) {
+            if (aggregates == null) {
+                MemberAggregates built = new MemberAggregates();
+                structureLock.readLock().lock();
+                for (ReentrantLock stripe : stripes) {
+                    stripe.lock();
+                }
+                try {
+                    for (GymMember member : members) {
+                        built.memberAdded(member);
+                    }
+                    built.seedCheckIns(attendanceHistory);
+                    changeListeners.add(built);
+                    // Published before the locks are released, so no visit recorded after the seed is missed
+                    aggregates = built;
+                } finally {
+                    for (int i = STRIPES - 1; i >= 0; i--) {
+                        stripes[i].unlock();
+                    }
+                    structureLock.readLock().unlock();
+                }
+            }
+            return aggregates;
+        }
+    }
+
+    /**
+     * Adds a listener told about every member added, removed or changed from now on
+     *
+     * Members already in the registry are not reported as added.
+     */
+    public void addChangeListener(MemberChangeListener listener) {
+        startListening();
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(MemberChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void startListening() {
+        if (listening) {
+            return;
+        }
+        structureLock.writeLock().lock();
+        try {
+            if (!listening) {
+                for (GymMember member : members) {
+                    member.setChangeListener(changeDispatcher);
+                    changeDispatcher.memberAdded(member);
+                }
+                listening = true;
+            }
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a member to the registry
+     *
+     * @param member The member to add
+     * @return true if the member was added, false if its ID is already registered
+     */
+    public boolean add(GymMember member) {
+        String id = member.getId();
+        structureLock.writeLock().lock();
+        try {
+            if (find(id) >= 0) {
+                return false;
+            }
+            members.add(member);
+            indexPosition(id, members.size() - 1);
+            if (member instanceof PremiumMember) {
+                paymentLedger.attach((PremiumMember) member, System.currentTimeMillis());
+            }
+            if (listening) {
+                member.setChangeListener(changeDispatcher);
+                changeDispatcher.memberAdded(member);
+            }
+            log(current -> current.logNewMember(member));
+            return true;
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds a member by their ID
+     *
+     * @param id The member ID to search for
+     * @return The GymMember object if found, null otherwise
+     */
+    public GymMember findById(String id) {
+        structureLock.readLock().lock();
+        try {
+            int index = find(id);
+            return index >= 0 ? members.get(index) : null;
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(String id) {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Returns the list position of the member with the given ID
+     *
+     * @param id The member ID to search for
+     * @return The position in insertion order, or -1 if the ID is not registered
+     */
+    public int indexOf(String id) {
+        structureLock.readLock().lock();
+        try {
+            return find(id);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    private int find(String id) {
+        if (id == null) {
+            return -1;
+        }
+        long key = numericKey(id);
+        if (key == Long.MIN_VALUE) {
+            Integer index = nonNumericIds.get(id);
+            return index != null ? index : -1;
+        }
+        int mask = keys.length - 1;
+        int pos = mix((int) key) & mask;
+        while (slots[pos] != FREE) {
+            if (keys[pos] == (int) key) {
+                return slots[pos];
+            }
+            pos = (pos + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the member with the given ID
+     *
+     * The last member in the list is moved into the freed position so that
+     * removal does not shift the rest of the list. Views that show members
+     * by position, such as MemberTableModel, must be told about the move.
+     *
+     * @param id The member ID to remove
+     * @return The removed member, or null if the ID is not registered
+     */
+    public GymMember remove(String id) {
+        structureLock.writeLock().lock();
+        try {
+            int index = find(id);
+            if (index < 0) {
+                return null;
+            }
+            GymMember removed = members.get(index);
+            unindex(id);
+
+            int last = members.size() - 1;
+            if (index != last) {
+                GymMember moved = members.get(last);
+                members.set(index, moved);
+                unindex(moved.getId());
+                indexPosition(moved.getId(), index);
+            }
+            members.remove(last);
+            if (listening) {
+                removed.setChangeListener(null);
+                changeDispatcher.memberRemoved(removed);
+            }
+            log(current -> current.logRemove(id));
+            return removed;
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    public GymMember get(int index) {
+        structureLock.readLock().lock();
+        try {
+            return members.get(index);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the member at a position, or null if there is none
+     *
+     * For readers that may be a step behind a change made on another
+     * thread, such as a table model painting rows while a load replaces
+     * the members.
+     */
+    public GymMember getOrNull(int index) {
+        structureLock.readLock().lock();
+        try {
+            return index >= 0 && index < members.size() ? members.get(index) : null;
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        structureLock.readLock().lock();
+        try {
+            return members.size();
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public void clear() {
+        structureLock.writeLock().lock();
+        try {
+            detachAll();
+            members.clear();
+            nonNumericIds.clear();
+            allocate(INITIAL_CAPACITY);
+        } finally {
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces all members with those of another registry
+     *
+     * The other registry's index is adopted as is, so loading a file into a
+     * separate registry and then swapping it in does not rebuild the index.
+     * Premium members are attached to this registry's ledger; use
+     * PaymentLedger.adjustTo() first to keep their amounts. The other
+     * registry is left empty.
+     *
+     * @param other The registry whose members take the place of this one's
+     */
+    public void replaceContents(MemberRegistry other) {
+        structureLock.writeLock().lock();
+        other.structureLock.writeLock().lock();
+        try {
+            detachAll();
+            other.detachAll();
+            members.clear();
+            members.addAll(other.members);
+            long now = System.currentTimeMillis();
+            for (GymMember member : members) {
+                if (member instanceof PremiumMember) {
+                    paymentLedger.attach((PremiumMember) member, now);
+                }
+            }
+            if (listening) {
+                for (GymMember member : members) {
+                    member.setChangeListener(changeDispatcher);
+                    changeDispatcher.memberAdded(member);
+                }
+            }
+            nonNumericIds.clear();
+            nonNumericIds.putAll(other.nonNumericIds);
+            keys = other.keys;
+            slots = other.slots;
+            indexedCount = other.indexedCount;
+            other.members.clear();
+            other.nonNumericIds.clear();
+            other.allocate(INITIAL_CAPACITY);
+        } finally {
+            other.structureLock.writeLock().unlock();
+            structureLock.writeLock().unlock();
+        }
+    }
+
+    private void detachAll() {
+        if (!listening) {
+            return;
+        }
+        for (GymMember member : members) {
+            member.setChangeListener(null);
+            changeDispatcher.memberRemoved(member);
+        }
+    }
+
+    /**
+     * Returns a read-only view of the members in insertion order
+     *
+     * Each call on the view reads the live registry. Use snapshot() for a
+     * view that does not change while it is being read.
+     */
+    public List<GymMember> asList() {
+        return readOnlyView;
+    }
+
+    /**
+     * Iterates over the members registered when the iterator was created
+     *
+     * The member references are copied up front, so members added or removed
+     * while iterating do not affect the iteration.
+     */
+    @Override
+    public Iterator<GymMember> iterator() {
+        GymMember[] current;
+        structureLock.readLock().lock();
+        try {
+            current = members.toArray(new GymMember[0]);
+        } finally {
+            structureLock.readLock().unlock();
+        }
+        return Arrays.asList(current).iterator();
+    }
+
+    /**
+     * Applies an action to one member while holding that member's lock
+     *
+     * No other registry operation can change the member while the action
+     * runs, and the member cannot be removed.
+     *
+     * @param id The member ID
+     * @param action The action to apply
+     * @return The action's result, or null if the ID is not registered
+     */
+    public <R> R update(String id, Function<GymMember, R> action) {
+        return apply(id, action);
+    }
+
+    // As update(), recording the time taken, including waiting for the locks, and a flight recorder event
+    private <R> R update(String id, MetricsRegistry.Timer timer, Function<GymMember, R> action) {
+        FlightEvents.MemberOperation event = new FlightEvents.MemberOperation();
+        event.begin();
+        long started = System.nanoTime();
+        R result = null;
+        try {
+            result = apply(id, action);
+            return result;
+        } finally {
+            timer.recordSince(started);
+            if (event.shouldCommit()) {
+                event.operation = timer.getName();
+                event.memberId = id;
+                event.found = result != null;
+                event.commit();
+            }
+        }
+    }
+
+    private <R> R apply(String id, Function<GymMember, R> action) {
+        structureLock.readLock().lock();
+        try {
+            int index = find(id);
+            if (index < 0) {
+                return null;
+            }
+            ReentrantLock stripe = stripeFor(id);
+            stripe.lock();
+            try {
+                return action.apply(members.get(index));
+            } finally {
+                stripe.unlock();
+            }
+        } finally {
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Marks attendance for an active member
+     *
+     * @return true if attendance was marked, false if the member is not
+     *         registered or not active
+     */
+    public boolean markAttendance(String id) {
+        return applied(update(id, MARK_ATTENDANCE, member -> {
+            if (!member.isActiveStatus()) {
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            member.markAttendance();
+            recordVisit(id, now);
+            log(current -> current.logAttendance(id, now));
+            return true;
+        }));
+    }
+
+    /**
+     * Records a visit in the attendance history and counts it as a check-in
+     *
+     * Called with the member's lock held, or by journal replay before the
+     * registry is shared.
+     */
+    void recordVisit(String id, long timeMillis) {
+        attendanceHistory.record(id, timeMillis);
+        MemberAggregates current = aggregates;
+        if (current != null) {
+            current.checkInRecorded(timeMillis);
+        }
+    }
+
+    /**
+     * Activates a member's membership
+     *
+     * @return true if the member is registered
+     */
+    public boolean activateMembership(String id) {
+        return applied(update(id, ACTIVATE, member -> {
+            member.activateMembership();
+            log(current -> current.logActivate(id));
+            return true;
+        }));
+    }
+
+    /**
+     * Deactivates a member's membership
+     *
+     * @return true if the member is registered
+     */
+    public boolean deactivateMembership(String id) {
+        return applied(update(id, DEACTIVATE, member -> {
+            member.deactivateMembership();
+            log(current -> current.logDeactivate(id));
+            return true;
+        }));
+    }
+
+    /**
+     * Records a payment from a premium member
+     *
+     * @return true if the payment was accepted
+     */
+    public boolean payDueAmount(String id, double amount) {
+        return applied(update(id, PAY_DUE, member -> {
+            if (!(member instanceof PremiumMember)) {
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            if (applyPayment((PremiumMember) member, PremiumMember.toCents(amount), now, true) == 0) {
+                return false;
+            }
+            log(current -> current.logPayment(id, amount, now));
+            return true;
+        }));
+    }
+
+    /**
+     * Calculates and stores the discount of a premium member
+     *
+     * @return The discount, or 0 if the member is not a premium member with
+     *         a completed payment
+     */
+    public double calculateDiscount(String id) {
+        Double discount = update(id, DISCOUNT, member -> {
+            if (!(member instanceof PremiumMember)) {
+                return 0.0;
+            }
+            long now = System.currentTimeMillis();
+            long before = ((PremiumMember) member).getDiscountCents();
+            long cents = applyDiscount((PremiumMember) member, now, true);
+            if (cents > 0 && cents != before) {
+                log(current -> current.logDiscount(id, now));
+            }
+            return PremiumMember.toAmount(cents);
+        });
+        return discount != null ? discount : 0;
+    }
+
+    /**
+     * Upgrades a regular member's plan
+     *
+     * @return true if the plan was upgraded
+     */
+    public boolean upgradePlan(String id, String newPlan) {
+        return applied(update(id, UPGRADE, member -> {
+            if (!(member instanceof RegularMember) || !((RegularMember) member).upgradePlan(newPlan)) {
+                return false;
+            }
+            log(current -> current.logUpgrade(id, newPlan));
+            return true;
+        }));
+    }
+
+    /**
+     * Reverts a regular member, recording the reason
+     *
+     * @return true if the member is a registered regular member
+     */
+    public boolean revertRegularMember(String id, String reason) {
+        return applied(update(id, REVERT_REGULAR, member -> {
+            if (!(member instanceof RegularMember)) {
+                return false;
+            }
+            ((RegularMember) member).revertRegularMember(reason);
+            log(current -> current.logRevertRegular(id, reason));
+            return true;
+        }));
+    }
+
+    /**
+     * Reverts a premium member
+     *
+     * @return true if the member is a registered premium member
+     */
+    public boolean revertPremiumMember(String id) {
+        return applied(update(id, REVERT_PREMIUM, member -> {
+            if (!(member instanceof PremiumMember)) {
+                return false;
+            }
+            long now = System.currentTimeMillis();
+            applyRevert((PremiumMember) member, now, true);
+            log(current -> current.logRevertPremium(id, now));
+            return true;
+        }));
+    }
+
+    /**
+     * Applies a payment to a premium member and records it in the ledger
+     *
+     * Shared by payDueAmount and journal replay; the caller holds the
+     * member's lock or has the registry to itself. The member's amounts are
+     * its ledger balances, so a payment the ledger already contains is
+     * already part of them.
+     *
+     * @param record false when the ledger already contains this payment
+     * @return The cents accepted, or 0 if the payment was rejected or already recorded
+     */
+    long applyPayment(PremiumMember member, long cents, long timeMillis, boolean record) {
+        return record ? member.payDueCents(cents, timeMillis) : 0;
+    }
+
+    /**
+     * Applies the discount of a premium member and records it in the ledger
+     *
+     * @return The discount in cents, or 0 if the payment is not complete or
+     *         the discount is already recorded
+     */
+    long applyDiscount(PremiumMember member, long timeMillis, boolean record) {
+        return record ? member.calculateDiscountCents(timeMillis) : 0;
+    }
+
+    /**
+     * Reverts a premium member and records the cleared balance in the ledger
+     */
+    void applyRevert(PremiumMember member, long timeMillis, boolean record) {
+        member.revertPremiumMember(timeMillis, record);
+    }
+
+    private static boolean applied(Boolean result) {
+        return result != null && result;
+    }
+
+    private void log(Consumer<MemberJournal> entry) {
+        MemberJournal current = journal;
+        if (current == null) {
+            return;
+        }
+        try {
+            entry.accept(current);
+        } catch (UncheckedIOException | IllegalStateException e) {
+            journalErrorHandler.accept(e);
+        }
+    }
+
+    /**
+     * A point-in-time copy of the registry
+     */
+    public static class Snapshot {
+        private final MemberRegistry members;
+        private final long journalSequence;
+
+        Snapshot(MemberRegistry members, long journalSequence) {
+            this.members = members;
+            this.journalSequence = journalSequence;
+        }
+
+        /** Copies of the members, in registry order */
+        public MemberRegistry getMembers() {
+            return members;
+        }
+
+        /**
+         * The last journal sequence reflected in the copies, or 0 if no
+         * journal is attached
+         */
+        public long getJournalSequence() {
+            return journalSequence;
+        }
+    }
+
+    /**
+     * Copies every member at a single point in time
+     *
+     * All member locks are held while copying, so no change is half-applied
+     * in the copy and the journal sequence matches it exactly. Changes wait
+     * until the copy is complete. The copy builds its indexes only when
+     * getIndexes() is first called on it.
+     *
+     * @return The copied members and the journal sequence they reflect
+     */
+    public Snapshot snapshot() {
+        structureLock.readLock().lock();
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            MemberRegistry copy = new MemberRegistry();
+            copy.listening = false;
+            copy.members.ensureCapacity(members.size());
+            for (GymMember member : members) {
+                copy.members.add(member.copy());
+            }
+            copy.nonNumericIds.putAll(nonNumericIds);
+            copy.keys = keys.clone();
+            copy.slots = slots.clone();
+            copy.indexedCount = indexedCount;
+            MemberJournal current = journal;
+            return new Snapshot(copy, current != null ? current.lastSequence() : 0);
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the attendance history and counts the ledger entries at a single point in time
+     *
+     * Like snapshot(), every member lock is held, so the copy and the count
+     * contain exactly the visits and payments journaled up to the returned
+     * sequence.
+     *
+     * @return The copied history, ledger entry count and the journal sequence they reflect
+     */
+    public HistorySnapshot snapshotHistory() {
+        structureLock.readLock().lock();
+        for (ReentrantLock stripe : stripes) {
+            stripe.lock();
+        }
+        try {
+            MemberJournal current = journal;
+            return new HistorySnapshot(attendanceHistory.copy(), paymentLedger.size(),
+                current != null ? current.lastSequence() : 0);
+        } finally {
+            for (int i = STRIPES - 1; i >= 0; i--) {
+                stripes[i].unlock();
+            }
+            structureLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A point-in-time view of the attendance history and payment ledger
+     */
+    public static class HistorySnapshot {
+        private final AttendanceHistory attendance;
+        private final int ledgerEntries;
+        private final long journalSequence;
+
+        HistorySnapshot(AttendanceHistory attendance, int ledgerEntries, long journalSequence) {
+            this.attendance = attendance;
+            this.ledgerEntries = ledgerEntries;
+            this.journalSequence = journalSequence;
+        }
+
+        /** A copy of the attendance history */
+        public AttendanceHistory getAttendance() {
+            return attendance;
+        }
+
+        /** The number of ledger entries; the ledger is append-only, so no copy is needed */
+        public int getLedgerEntries() {
+            return ledgerEntries;
+        }
+
+        /**
+         * The last journal sequence reflected in the view, or 0 if no
+         * journal is attached
+         */
+        public long getJournalSequence() {
+            return journalSequence;
+        }
+    }
+
+    private ReentrantLock stripeFor(String id) {
+        return stripes[mix(id.hashCode()) & (STRIPES - 1)];
+    }
+
+    private void indexPosition(String id, int index) {
+        long key = numericKey(id);
+        if (key == Long.MIN_VALUE) {
+            nonNumericIds.put(id, index);
+            return;
+        }
+        if ((indexedCount + 1) * 4 > keys.length * 3) {
+            rehash(keys.length * 2);
+        }
+        insert((int) key, index);
+        indexedCount++;
+    }
+
+    private void insert(int key, int index) {
+        int mask = keys.length - 1;
+        int pos = mix(key) & mask;
+        while (slots[pos] != FREE && keys[pos] != key) {
+            pos = (pos + 1) & mask;
+        }
+        keys[pos] = key;
+        slots[pos] = index;
+    }
+
+    private void unindex(String id) {
+        long key = numericKey(id);
+        if (key == Long.MIN_VALUE) {
+            nonNumericIds.remove(id);
+            return;
+        }
+        int mask = keys.length - 1;
+        int pos = mix((int) key) & mask;
+        while (slots[pos] != FREE) {
+            if (keys[pos] == (int) key) {
+                deleteAt(pos);
+                indexedCount--;
+                return;
+            }
+            pos = (pos + 1) & mask;
+        }
+    }
+
+    // Backward-shift deletion keeps linear probe chains intact without tombstones
+    private void deleteAt(int pos) {
+        int mask = keys.length - 1;
+        int gap = pos;
+        int next = (gap + 1) & mask;
+        while (slots[next] != FREE) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                slots[gap] = slots[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[gap] = FREE;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldSlots = slots;
+        int count = indexedCount;
+        allocate(capacity);
+        indexedCount = count;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSlots[i] != FREE) {
+                insert(oldKeys[i], oldSlots[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        slots = new int[capacity];
+        Arrays.fill(slots, FREE);
+        indexedCount = 0;
+    }
+
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Returns the int value of an ID written in canonical decimal form
+     *
+     * @param id The member ID
+     * @return The numeric key, or Long.MIN_VALUE if the ID is not a canonical int
+     */
+    static long numericKey(String id) {
+        int length = id.length();
+        if (length == 0 || length > 11) {
+            return Long.MIN_VALUE;
+        }
+        int start = id.charAt(0) == '-' ? 1 : 0;
+        if (start == length || (id.charAt(start) == '0' && length - start > 1)
+                || (start == 1 && id.charAt(1) == '0')) {
+            return Long.MIN_VALUE;
+        }
+        long value = 0;
+        for (int i = start; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return Long.MIN_VALUE;
+            }
+            value = value * 10 + (c - '0');
+        }
+        if (start == 1) {
+            value = -value;
+        }
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return Long.MIN_VALUE;
+        }
+        return value;
+    }
+}
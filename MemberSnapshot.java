@@ -0,0 +1,408 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Fixed-layout binary snapshot of the member registry
+ *
+ * The file has three sections:
+ *
+ *   header   64 bytes: magic, version, record size, member count,
+ *            journal sequence, heap offset and heap length
+ *   records  one RECORD_BYTES record per member, in registry order
+ *   heap     length-prefixed UTF-8 strings referenced from the records
+ *
+ * Each record holds the numeric fields at fixed offsets (id, epoch-day
+ * dates, attendance, loyalty points, flags, price, paid and discount
+ * amounts) and int offsets into the heap for the text fields. IDs that are
+ * canonical ints are stored inline; any other ID is stored in the heap.
+ * Gender, plan/trainer and referral values are written to the heap once
+ * and shared between records.
+ *
+ * A snapshot is written sequentially through a FileChannel and opened with
+ * MappedByteBuffers, so opening costs no parsing. Numeric fields can be read
+ * straight from the mapped records, and GymMember objects are built only
+ * when materialize() or loadInto() is called.
+ */
+public class MemberSnapshot {
+
+    private static final long MAGIC = 0x47594D534E415031L; // "GYMSNAP1"
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_BYTES = 64;
+
+    static final int RECORD_BYTES = 80;
+
+    private static final int ID = 0;
+    private static final int FLAGS = 4;
+    private static final int DOB = 8;
+    private static final int START_DATE = 12;
+    private static final int ATTENDANCE = 16;
+    private static final int LOYALTY = 20;
+    private static final int PRICE = 24;
+    private static final int PAID = 32;
+    private static final int DISCOUNT = 40;
+    private static final int ID_REF = 48;
+    private static final int NAME_REF = 52;
+    private static final int PHONE_REF = 56;
+    private static final int EMAIL_REF = 60;
+    private static final int GENDER_REF = 64;
+    private static final int PLAN_OR_TRAINER_REF = 68;
+    private static final int REFERRAL_REF = 72;
+    private static final int REMOVAL_REASON_REF = 76;
+
+    private static final int PREMIUM = 1;
+    private static final int ACTIVE = 1 << 1;
+    private static final int ELIGIBLE_FOR_UPGRADE = 1 << 2;
+    private static final int PAYMENT_COMPLETE = 1 << 3;
+    private static final int ID_IN_HEAP = 1 << 4;
+
+    private static final int NO_STRING = -1;
+
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    private final ByteBuffer records;
+
+    private final ByteBuffer heap;
+
+    private final int count;
+
+    private final long journalSequence;
+
+    // Shared values (gender, plan, trainer, referral) decode to one String each
+    private final Map<Integer, String> sharedStrings = new HashMap<>();
+
+    private MemberSnapshot(ByteBuffer records, ByteBuffer heap, int count, long journalSequence) {
+        this.records = records;
+        this.heap = heap;
+        this.count = count;
+        this.journalSequence = journalSequence;
+    }
+
+    /**
+     * Writes a snapshot of all members
+     *
+     * The snapshot is written to a temporary sibling and moved over the target,
+     * so a crash while saving never leaves a half-written snapshot behind.
+     *
+     * @param file The snapshot file
+     * @param members The members to write
+     * @param journalSequence The last journal sequence reflected in the members
+     */
+    public static void write(Path file, MemberRegistry members, long journalSequence) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        int count = members.size();
+        long heapOffset = HEADER_BYTES + (long) count * RECORD_BYTES;
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            HeapWriter heapWriter = new HeapWriter(channel, heapOffset);
+            ByteBuffer record = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            long recordPosition = HEADER_BYTES;
+
+            for (GymMember member : members) {
+                if (record.remaining() < RECORD_BYTES) {
+                    recordPosition = flush(channel, record, recordPosition);
+                }
+                int base = record.position();
+                long numericId = MemberRegistry.numericKey(member.getId());
+                int flags = numericId == Long.MIN_VALUE ? ID_IN_HEAP : 0;
+                if (member.isActiveStatus()) {
+                    flags |= ACTIVE;
+                }
+
+                record.putInt(base + ID, numericId == Long.MIN_VALUE ? 0 : (int) numericId);
+                record.putInt(base + DOB, (int) member.getDateOfBirth().toEpochDay());
+                record.putInt(base + START_DATE, (int) member.getMembershipStartDate().toEpochDay());
+                record.putInt(base + ATTENDANCE, member.getAttendanceCount());
+                record.putInt(base + LOYALTY, member.getLoyaltyPoints());
+                record.putInt(base + ID_REF, numericId == Long.MIN_VALUE ? heapWriter.add(member.getId()) : NO_STRING);
+                record.putInt(base + NAME_REF, heapWriter.add(member.getName()));
+                record.putInt(base + PHONE_REF, heapWriter.add(member.getPhoneNumber()));
+                record.putInt(base + EMAIL_REF, heapWriter.add(member.getEmail()));
+                record.putInt(base + GENDER_REF, heapWriter.addShared(member.getGender()));
+
+                if (member instanceof PremiumMember) {
+                    PremiumMember premium = (PremiumMember) member;
+                    flags |= PREMIUM;
+                    if (premium.isPaymentComplete()) {
+                        flags |= PAYMENT_COMPLETE;
+                    }
+                    record.putDouble(base + PRICE, PremiumMember.getPremiumCharge());
+                    record.putDouble(base + PAID, premium.getPaidAmount());
+                    record.putDouble(base + DISCOUNT, premium.getDiscountAmount());
+                    record.putInt(base + PLAN_OR_TRAINER_REF, heapWriter.addShared(premium.getPersonalTrainer()));
+                    record.putInt(base + REFERRAL_REF, NO_STRING);
+                    record.putInt(base + REMOVAL_REASON_REF, NO_STRING);
+                } else {
+                    RegularMember regular = (RegularMember) member;
+                    if (regular.isEligibleForUpgrade()) {
+                        flags |= ELIGIBLE_FOR_UPGRADE;
+                    }
+                    record.putDouble(base + PRICE, regular.getPrice());
+                    record.putDouble(base + PAID, 0);
+                    record.putDouble(base + DISCOUNT, 0);
+                    record.putInt(base + PLAN_OR_TRAINER_REF, heapWriter.addShared(regular.getMembershipPlan()));
+                    record.putInt(base + REFERRAL_REF, heapWriter.addShared(regular.getReferralSource()));
+                    record.putInt(base + REMOVAL_REASON_REF, heapWriter.add(regular.getRemovalReason()));
+                }
+                record.putInt(base + FLAGS, flags);
+                record.position(base + RECORD_BYTES);
+            }
+            flush(channel, record, recordPosition);
+            long heapLength = heapWriter.finish();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putLong(MAGIC)
+                  .putInt(VERSION)
+                  .putInt(RECORD_BYTES)
+                  .putLong(count)
+                  .putLong(journalSequence)
+                  .putLong(heapOffset)
+                  .putLong(heapLength);
+            header.clear();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long flush(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+        return position;
+    }
+
+    /**
+     * Appends strings to the heap section, handing out their offsets
+     */
+    private static class HeapWriter {
+        private final FileChannel channel;
+        private final long heapStart;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        private final Map<String, Integer> shared = new HashMap<>();
+        private long filePosition;
+        private long length;
+
+        HeapWriter(FileChannel channel, long heapStart) {
+            this.channel = channel;
+            this.heapStart = heapStart;
+            this.filePosition = heapStart;
+        }
+
+        int add(String value) throws IOException {
+            if (value == null) {
+                return NO_STRING;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (length + 4 + bytes.length > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot string heap exceeds 2 GB");
+            }
+            if (buffer.remaining() < 4 + bytes.length) {
+                filePosition = flush(channel, buffer, filePosition);
+            }
+            int offset = (int) length;
+            if (bytes.length + 4 > buffer.capacity()) {
+                ByteBuffer large = ByteBuffer.allocate(4 + bytes.length).order(ByteOrder.LITTLE_ENDIAN);
+                large.putInt(bytes.length).put(bytes);
+                filePosition = flush(channel, large, filePosition);
+            } else {
+                buffer.putInt(bytes.length).put(bytes);
+            }
+            length += 4 + bytes.length;
+            return offset;
+        }
+
+        int addShared(String value) throws IOException {
+            if (value == null) {
+                return NO_STRING;
+            }
+            Integer offset = shared.get(value);
+            if (offset == null) {
+                offset = add(value);
+                shared.put(value, offset);
+            }
+            return offset;
+        }
+
+        long finish() throws IOException {
+            filePosition = flush(channel, buffer, filePosition);
+            return filePosition - heapStart;
+        }
+    }
+
+    /**
+     * Opens a snapshot by mapping it into memory
+     *
+     * @param file The snapshot file
+     * @return The mapped snapshot
+     * @throws IOException if the file cannot be read or is not a valid snapshot
+     */
+    public static MemberSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                throw new IOException("Snapshot is truncated: " + file);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getLong() != MAGIC) {
+                throw new IOException("Not a member snapshot: " + file);
+            }
+            int version = header.getInt();
+            int recordBytes = header.getInt();
+            if (version != VERSION || recordBytes != RECORD_BYTES) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + file);
+            }
+            long count = header.getLong();
+            long journalSequence = header.getLong();
+            long heapOffset = header.getLong();
+            long heapLength = header.getLong();
+            if (count > Integer.MAX_VALUE / RECORD_BYTES || heapOffset != HEADER_BYTES + count * RECORD_BYTES
+                    || heapLength > Integer.MAX_VALUE || heapOffset + heapLength > size) {
+                throw new IOException("Snapshot is truncated or corrupt: " + file);
+            }
+
+            ByteBuffer records = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES, count * RECORD_BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer heap = channel.map(FileChannel.MapMode.READ_ONLY, heapOffset, heapLength)
+                .order(ByteOrder.LITTLE_ENDIAN);
+            return new MemberSnapshot(records, heap, (int) count, journalSequence);
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long getJournalSequence() {
+        return journalSequence;
+    }
+
+    public boolean isPremium(int index) {
+        return (flags(index) & PREMIUM) != 0;
+    }
+
+    public boolean isActive(int index) {
+        return (flags(index) & ACTIVE) != 0;
+    }
+
+    public int getAttendanceCount(int index) {
+        return records.getInt(index * RECORD_BYTES + ATTENDANCE);
+    }
+
+    public int getLoyaltyPoints(int index) {
+        return records.getInt(index * RECORD_BYTES + LOYALTY);
+    }
+
+    public double getPaidAmount(int index) {
+        return records.getDouble(index * RECORD_BYTES + PAID);
+    }
+
+    public String getId(int index) {
+        int base = index * RECORD_BYTES;
+        if ((records.getInt(base + FLAGS) & ID_IN_HEAP) != 0) {
+            return string(records.getInt(base + ID_REF));
+        }
+        return Integer.toString(records.getInt(base + ID));
+    }
+
+    private int flags(int index) {
+        return records.getInt(index * RECORD_BYTES + FLAGS);
+    }
+
+    /**
+     * Builds the member stored at a position
+     *
+     * @param index The record position, in registry order
+     * @return A new RegularMember or PremiumMember with the stored state
+     */
+    public GymMember materialize(int index) {
+        int base = index * RECORD_BYTES;
+        int flags = records.getInt(base + FLAGS);
+        String id = getId(index);
+        String name = string(records.getInt(base + NAME_REF));
+        String phone = string(records.getInt(base + PHONE_REF));
+        String email = string(records.getInt(base + EMAIL_REF));
+        String gender = sharedString(records.getInt(base + GENDER_REF));
+        LocalDate dob = LocalDate.ofEpochDay(records.getInt(base + DOB));
+        LocalDate startDate = LocalDate.ofEpochDay(records.getInt(base + START_DATE));
+        String planOrTrainer = sharedString(records.getInt(base + PLAN_OR_TRAINER_REF));
+
+        GymMember member;
+        if ((flags & PREMIUM) != 0) {
+            PremiumMember premium = new PremiumMember(id, name, phone, email, gender, dob, startDate, planOrTrainer);
+            premium.setPaidAmount(records.getDouble(base + PAID));
+            premium.setPaymentComplete((flags & PAYMENT_COMPLETE) != 0);
+            premium.setDiscountAmount(records.getDouble(base + DISCOUNT));
+            member = premium;
+        } else {
+            RegularMember regular = new RegularMember(id, name, phone, email, gender, dob, startDate,
+                planOrTrainer, sharedString(records.getInt(base + REFERRAL_REF)));
+            regular.setEligibleForUpgrade((flags & ELIGIBLE_FOR_UPGRADE) != 0);
+            String removalReason = string(records.getInt(base + REMOVAL_REASON_REF));
+            if (removalReason != null) {
+                regular.setRemovalReason(removalReason);
+            }
+            member = regular;
+        }
+        member.setAttendanceCount(records.getInt(base + ATTENDANCE));
+        member.setLoyaltyPoints(records.getInt(base + LOYALTY));
+        member.setActiveStatus((flags & ACTIVE) != 0);
+        return member;
+    }
+
+    /**
+     * Materializes every member into a registry, in snapshot order
+     *
+     * @param registry The registry to add the members to
+     * @return The number of members added
+     */
+    public int loadInto(MemberRegistry registry) {
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            if (registry.add(materialize(i))) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private String string(int offset) {
+        if (offset == NO_STRING) {
+            return null;
+        }
+        int length = heap.getInt(offset);
+        byte[] bytes = new byte[length];
+        heap.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private String sharedString(int offset) {
+        if (offset == NO_STRING) {
+            return null;
+        }
+        String value = sharedStrings.get(offset);
+        if (value == null) {
+            value = string(offset);
+            sharedStrings.put(offset, value);
+        }
+        return value;
+    }
+}
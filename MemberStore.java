@@ -0,0 +1,173 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+
+/**
+ * Durable storage of the member registry: snapshot plus journal
+ *
+ * recover() maps the binary snapshot written by the last checkpoint, replays
+ * every journal entry recorded after it, and attaches the journal to the
+ * registry so that later changes are recorded. checkpoint() writes a new
+ * snapshot and drops the journal segments it covers. Checkpoints are
+ * serialized on the store, so one started from a background thread waits
+ * for another to finish instead of writing the same files at once.
+ *
+ * The registry's attendance history is kept in its own file next to the
+ * snapshot, written by each checkpoint together with the journal sequence it
+ * reflects. The payment ledger is a sequential log file that each checkpoint
+ * appends the new entries to. It is loaded before the members, whose
+ * premium amounts are their ledger balances.
+ *
+ * The fsync policy and group commit interval can be set with the
+ * gym.journal.fsync (always, interval, never), gym.journal.commitMillis and
+ * gym.journal.fsyncMillis system properties.
+ *
+ * Used by both the GUI and the headless check-in server, which must not run
+ * against the same files at the same time.
+ */
+public class MemberStore implements Closeable {
+
+    public static final Path SNAPSHOT_FILE = Paths.get("members.snap");
+
+    // Text snapshot written by earlier versions, read only when no binary snapshot exists
+    public static final Path LEGACY_SNAPSHOT_FILE = Paths.get("members.dat");
+
+    public static final Path JOURNAL_FILE = Paths.get("members.journal");
+
+    public static final Path HISTORY_FILE = Paths.get("members.visits");
+
+    public static final Path LEDGER_FILE = Paths.get("members.ledger");
+
+    private final MemberRegistry members;
+
+    private MemberJournal journal;
+
+    private boolean closed;
+
+    public MemberStore(MemberRegistry members) {
+        this.members = members;
+    }
+
+    /**
+     * Restores members from the last snapshot and the journal tail
+     *
+     * If this fails, no journal is attached and checkpoints write the
+     * snapshot alone.
+     *
+     * @param journalErrorHandler Receives journal write failures of later changes
+     * @return The number of journal entries replayed
+     */
+    public int recover(Consumer<RuntimeException> journalErrorHandler) throws IOException {
+        // The ledger first, so that premium members adopt their balances as they are added
+        long ledgerSequence = members.getPaymentLedger().load(LEDGER_FILE);
+        long snapshotSequence = loadSnapshot();
+        long historySequence = members.getAttendanceHistory().read(HISTORY_FILE);
+
+        MemberJournal.FsyncPolicy policy = MemberJournal.FsyncPolicy.valueOf(
+            System.getProperty("gym.journal.fsync", "interval").trim().toUpperCase());
+        long commitMillis = Long.getLong("gym.journal.commitMillis", 5);
+        long fsyncMillis = Long.getLong("gym.journal.fsyncMillis", 1000);
+
+        MemberJournal opened = new MemberJournal(JOURNAL_FILE, policy, commitMillis, fsyncMillis);
+        int replayed;
+        try {
+            replayed = opened.replay(members, snapshotSequence, historySequence, ledgerSequence);
+        } catch (IOException | RuntimeException e) {
+            opened.close();
+            throw e;
+        }
+        journal = opened;
+        members.setJournal(journal, journalErrorHandler);
+        return replayed;
+    }
+
+    /**
+     * Loads the members of the last snapshot into the registry
+     *
+     * @return The journal sequence the snapshot reflects, or 0 if there is none
+     */
+    private long loadSnapshot() throws IOException {
+        if (Files.exists(SNAPSHOT_FILE)) {
+            MemberSnapshot snapshot = MemberSnapshot.open(SNAPSHOT_FILE);
+            snapshot.loadInto(members);
+            return snapshot.getJournalSequence();
+        }
+        return MemberFileFormat.readSnapshot(LEGACY_SNAPSHOT_FILE, members);
+    }
+
+    public boolean isJournaling() {
+        return journal != null;
+    }
+
+    /**
+     * Writes a snapshot of all members and drops the journal segments it covers
+     *
+     * The journal is rotated first, so the members copied afterwards reflect
+     * every entry in the closed segments and recovery only has to read the
+     * entries appended since. Changes made by other threads while the
+     * snapshot is written go to the new segment and are kept.
+     */
+    public synchronized void checkpoint() throws IOException {
+        if (journal != null) {
+            journal.rotate();
+        }
+        MemberRegistry.Snapshot snapshot = members.snapshot();
+        write(snapshot.getMembers(), snapshot.getJournalSequence());
+    }
+
+    /**
+     * Replaces all members with a freshly loaded registry and checkpoints them
+     *
+     * Changes made to the previous members up to the swap are kept in the
+     * attendance history and payment ledger; the snapshot written after the
+     * swap covers them, and changes made after it are journaled on top of
+     * it. Premium member amounts in the new members that differ from the
+     * ledger are recorded in it as adjustments.
+     *
+     * No member may be changed while it runs: a change journaled between
+     * the swap and the snapshot would be replayed onto the previous members
+     * after a crash. The GUI disables its member actions until it returns.
+     *
+     * @param loaded The new members; left empty
+     */
+    public synchronized void replaceContents(MemberRegistry loaded) throws IOException {
+        members.getPaymentLedger().adjustTo(loaded, System.currentTimeMillis());
+        members.replaceContents(loaded);
+        checkpoint();
+    }
+
+    private void write(MemberRegistry snapshot, long journalSequence) throws IOException {
+        // Written first and taken after the members, so the history and ledger always
+        // reflect at least the snapshot's sequence even if the snapshot write fails
+        MemberRegistry.HistorySnapshot history = members.snapshotHistory();
+        if (journal != null) {
+            // The entries behind the history and ledger must survive a crash before the snapshot
+            journal.sync();
+        }
+        history.getAttendance().write(HISTORY_FILE, history.getJournalSequence());
+        members.getPaymentLedger().sync(LEDGER_FILE, history.getLedgerEntries(), history.getJournalSequence());
+
+        MemberSnapshot.write(SNAPSHOT_FILE, snapshot, journalSequence);
+        if (journal != null) {
+            journal.dropSegments(journalSequence);
+        }
+        Files.deleteIfExists(LEGACY_SNAPSHOT_FILE);
+    }
+
+    /**
+     * Flushes and closes the journal
+     *
+     * Waits for a checkpoint in progress. Closing again does nothing.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (journal != null && !closed) {
+            closed = true;
+            members.setJournal(null, null);
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model for the Member List tab, backed directly by the member registry
+ *
+ * Rows are not copied: getValueAt reads the member at that registry position
+ * when the table paints a cell, so only visible rows are ever read. After a
+ * change the caller reports which member changed, and only that row is
+ * repainted, so updating one member costs the same however many members
+ * are loaded.
+ *
+ * All methods are called on the Event Dispatch Thread. Read from File
+ * replaces the members on a background thread before the table is told, so
+ * a row the registry no longer has is shown empty until then.
+ */
+public class MemberTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMN_NAMES = {
+        "ID", "Name", "Type", "Plan/Trainer", "Status", "Attendance", "Loyalty Points"
+    };
+
+    private final MemberRegistry members;
+
+    public MemberTableModel(MemberRegistry members) {
+        this.members = members;
+    }
+
+    @Override
+    public int getRowCount() {
+        return members.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        GymMember member = members.getOrNull(row);
+        if (member == null) {
+            return null;
+        }
+        switch (column) {
+            case 0:
+                return member.getId();
+            case 1:
+                return member.getName();
+            case 2:
+                return member instanceof RegularMember ? "Regular" : "Premium";
+            case 3:
+                if (member instanceof RegularMember) {
+                    return ((RegularMember) member).getMembershipPlan();
+                }
+                return ((PremiumMember) member).getPersonalTrainer();
+            case 4:
+                return member.isActiveStatus() ? "Active" : "Inactive";
+            case 5:
+                return member.getAttendanceCount();
+            case 6:
+                return member.getLoyaltyPoints();
+            default:
+                throw new IndexOutOfBoundsException("Column " + column);
+        }
+    }
+
+    /**
+     * Repaints the row of a member whose fields changed
+     *
+     * @param member The changed member
+     */
+    public void memberUpdated(GymMember member) {
+        int row = members.indexOf(member.getId());
+        if (row >= 0) {
+            fireTableRowsUpdated(row, row);
+        }
+    }
+
+    /**
+     * Shows a member that was just added to the end of the registry
+     *
+     * @param member The added member
+     */
+    public void memberAdded(GymMember member) {
+        int row = members.indexOf(member.getId());
+        if (row >= 0) {
+            fireTableRowsInserted(row, row);
+        }
+    }
+
+    /**
+     * Updates the rows after a member was removed from the registry
+     *
+     * The registry moves its last member into the removed member's position,
+     * so that row is repainted and the last row goes away.
+     *
+     * @param position The registry position the removed member held
+     */
+    public void memberRemoved(int position) {
+        int last = members.size();
+        fireTableRowsDeleted(last, last);
+        if (position < last) {
+            fireTableRowsUpdated(position, position);
+        }
+    }
+
+    /**
+     * Reloads every row after the registry contents were replaced
+     */
+    public void contentsChanged() {
+        fireTableDataChanged();
+    }
+}
@@ -0,0 +1,30 @@
+import java.time.LocalDate;
+
+/**
+ * Read access to the fields every member has
+ *
+ * Implemented by GymMember and by the flyweight views of
+ * OffHeapMemberStore, so code that only reads members can work with either.
+ */
+public interface MemberView {
+
+    String getId();
+
+    String getName();
+
+    String getPhoneNumber();
+
+    String getEmail();
+
+    String getGender();
+
+    LocalDate getDateOfBirth();
+
+    LocalDate getMembershipStartDate();
+
+    int getAttendanceCount();
+
+    int getLoyaltyPoints();
+
+    boolean isActiveStatus();
+}
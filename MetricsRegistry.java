@@ -0,0 +1,214 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Named latency timers and counters for the GUI actions and member changes
+ *
+ * A Timer is a LatencyHistogram, so recording is a few atomic increments
+ * and percentiles come from its log-linear buckets; a Counter is a
+ * LongAdder. Both are created on first use and then looked up once and
+ * kept, so recording never touches the registry's map, and metrics can
+ * stay on all the time: a timed action costs two System.nanoTime() calls
+ * on top of the recording.
+ *
+ * Names are dotted, grouped by their first part: gui.* for GUI actions,
+ * member.* for registry operations on one member, change.* for member
+ * field changes. DEFAULT is the registry the application records into.
+ */
+public final class MetricsRegistry {
+
+    public static final MetricsRegistry DEFAULT = new MetricsRegistry();
+
+    private static final DateTimeFormatter DUMP_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final ConcurrentHashMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private volatile long startNanos = System.nanoTime();
+
+    /**
+     * Latency histogram of one kind of operation
+     */
+    public static final class Timer {
+
+        private final String name;
+
+        private final LatencyHistogram histogram = new LatencyHistogram();
+
+        private Timer(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Records one operation that started at the given System.nanoTime()
+         */
+        public void recordSince(long startNanos) {
+            histogram.record(System.nanoTime() - startNanos);
+        }
+
+        public void record(long nanos) {
+            histogram.record(nanos);
+        }
+
+        public LatencyHistogram getHistogram() {
+            return histogram;
+        }
+    }
+
+    /**
+     * Count of one kind of event
+     */
+    public static final class Counter {
+
+        private final LongAdder count = new LongAdder();
+
+        public void increment() {
+            count.increment();
+        }
+
+        public long get() {
+            return count.sum();
+        }
+    }
+
+    /**
+     * Point-in-time values of one metric; counters have no latencies
+     */
+    public static final class Sample {
+
+        private final String name;
+
+        private final boolean timer;
+
+        private final long count;
+
+        private final long p50Nanos;
+
+        private final long p99Nanos;
+
+        private final long maxNanos;
+
+        private Sample(String name, boolean timer, long count, long p50Nanos, long p99Nanos, long maxNanos) {
+            this.name = name;
+            this.timer = timer;
+            this.count = count;
+            this.p50Nanos = p50Nanos;
+            this.p99Nanos = p99Nanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isTimer() {
+            return timer;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getP50Nanos() {
+            return p50Nanos;
+        }
+
+        public long getP99Nanos() {
+            return p99Nanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+    }
+
+    /**
+     * Returns the timer with the given name, creating it on first use
+     */
+    public Timer timer(String name) {
+        return timers.computeIfAbsent(name, Timer::new);
+    }
+
+    /**
+     * Returns the counter with the given name, creating it on first use
+     */
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, key -> new Counter());
+    }
+
+    /**
+     * Returns the current values of every metric that has recorded anything, sorted by name
+     */
+    public List<Sample> sample() {
+        List<Sample> samples = new ArrayList<>(timers.size() + counters.size());
+        timers.forEach((name, timer) -> {
+            LatencyHistogram histogram = timer.histogram;
+            if (histogram.getCount() > 0) {
+                samples.add(new Sample(name, true, histogram.getCount(), histogram.getPercentileNanos(50),
+                    histogram.getPercentileNanos(99), histogram.getMaxNanos()));
+            }
+        });
+        counters.forEach((name, counter) -> {
+            long count = counter.get();
+            if (count > 0) {
+                samples.add(new Sample(name, false, count, 0, 0, 0));
+            }
+        });
+        samples.sort((a, b) -> a.name.compareTo(b.name));
+        return samples;
+    }
+
+    /**
+     * Returns the nanoseconds since the registry was created or last reset
+     */
+    public long getUptimeNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Clears every metric; timers and counters already handed out stay valid
+     *
+     * Values recorded while the reset is in progress may be partly lost.
+     */
+    public void reset() {
+        timers.values().forEach(timer -> timer.histogram.reset());
+        counters.values().forEach(counter -> counter.count.reset());
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Writes every metric as a text table, with the average rate since the last reset
+     *
+     * @param file The file to write
+     */
+    public void dump(Path file) throws IOException {
+        double seconds = Math.max(1e-9, getUptimeNanos() / 1e9);
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            out.printf("# Metrics at %s, %.0f s since reset%n", LocalDateTime.now().format(DUMP_FORMATTER), seconds);
+            out.printf("%-40s %12s %10s %12s %12s %12s%n", "Metric", "Count", "Rate/s", "p50 ms", "p99 ms", "Max ms");
+            for (Sample sample : sample()) {
+                if (sample.timer) {
+                    out.printf("%-40s %12d %10.2f %12.3f %12.3f %12.3f%n", sample.name, sample.count,
+                        sample.count / seconds, sample.p50Nanos / 1e6, sample.p99Nanos / 1e6, sample.maxNanos / 1e6);
+                } else {
+                    out.printf("%-40s %12d %10.2f %12s %12s %12s%n", sample.name, sample.count,
+                        sample.count / seconds, "-", "-", "-");
+                }
+            }
+        }
+    }
+}
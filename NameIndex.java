@@ -0,0 +1,293 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Typeahead index over member names
+ *
+ * Answers "which members' names match what has been typed so far" without
+ * looking at every member. Names are compared ignoring case and repeated
+ * spaces. Two structures are kept:
+ *
+ *   - a sorted map from each word start of a name to the rest of the name
+ *     ("john smith" is filed under "john smith" and "smith"), so that every
+ *     name with a word starting with the typed text is found by one range
+ *     lookup, already in alphabetical order
+ *   - a trigram index from every three-character run of a name to the
+ *     members containing it, so that a fragment from the middle of a word
+ *     ("mit" in "Smith") is found by checking only the members holding the
+ *     fragment's rarest trigram
+ *
+ * search() ranks names starting with the text first, then names with a
+ * later word starting with it, both alphabetically, then names merely
+ * containing it, in the order they were indexed, and stops after the
+ * requested number of matches, so a search costs about the same whatever
+ * the number of members.
+ *
+ * The registry keeps the index up to date as a MemberChangeListener when
+ * members are added, renamed or removed. All methods are synchronized, so
+ * the index may be updated from the check-in server while the GUI searches.
+ */
+public class NameIndex implements MemberChangeListener {
+
+    // Whole names, so that names starting with the text can be listed first
+    private final TreeMap<String, List<GymMember>> names = new TreeMap<>();
+
+    // Names from the start of each later word
+    private final TreeMap<String, List<GymMember>> words = new TreeMap<>();
+
+    // Trigram packed into a long, to the members whose names contain it
+    private final Map<Long, Posting> trigrams = new HashMap<>();
+
+    // Each member's name as indexed, so it need not be normalized again
+    private final Map<GymMember, String> indexedNames = new IdentityHashMap<>();
+
+    // The order in which each member was indexed, which sorts the postings
+    private final Map<GymMember, Long> indexedOrder = new IdentityHashMap<>();
+
+    private long nextOrder;
+
+    @Override
+    public synchronized void memberAdded(GymMember member) {
+        add(member, normalize(member.getName()));
+    }
+
+    @Override
+    public synchronized void memberRemoved(GymMember member) {
+        String name = indexedNames.remove(member);
+        if (name != null) {
+            remove(member, name, indexedOrder.remove(member));
+        }
+    }
+
+    @Override
+    public synchronized void memberChanged(GymMember member, MemberField field, Object oldValue) {
+        if (field != MemberField.NAME) {
+            return;
+        }
+        String oldName = indexedNames.remove(member);
+        if (oldName != null) {
+            remove(member, oldName, indexedOrder.remove(member));
+        }
+        add(member, normalize(member.getName()));
+    }
+
+    /**
+     * Finds the best matches for typed text
+     *
+     * @param text The start of a name or word, or any fragment of at least three characters
+     * @param limit The most matches to return
+     * @return The matches, best first; empty for empty text
+     */
+    public synchronized List<GymMember> search(String text, int limit) {
+        String query = normalize(text);
+        if (query.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        Set<GymMember> found = new LinkedHashSet<>();
+        collectPrefixed(names, query, found, limit);
+        collectPrefixed(words, query, found, limit);
+        if (found.size() < limit && query.length() >= 3) {
+            collectContaining(query, found, limit);
+        }
+        return new ArrayList<>(found);
+    }
+
+    /**
+     * Returns the number of members indexed
+     */
+    public synchronized int size() {
+        return indexedNames.size();
+    }
+
+    /**
+     * Removes every member from the index
+     */
+    public synchronized void clear() {
+        names.clear();
+        words.clear();
+        trigrams.clear();
+        indexedNames.clear();
+        indexedOrder.clear();
+        nextOrder = 0;
+    }
+
+    private void add(GymMember member, String name) {
+        long order = nextOrder++;
+        indexedNames.put(member, name);
+        indexedOrder.put(member, order);
+        if (name.isEmpty()) {
+            return;
+        }
+        names.computeIfAbsent(name, k -> new ArrayList<>(1)).add(member);
+        for (int start = name.indexOf(' ') + 1; start > 0; start = name.indexOf(' ', start) + 1) {
+            words.computeIfAbsent(name.substring(start), k -> new ArrayList<>(1)).add(member);
+        }
+        for (int i = 0; i + 3 <= name.length(); i++) {
+            trigrams.computeIfAbsent(trigram(name, i), k -> new Posting()).add(member, order);
+        }
+    }
+
+    private void remove(GymMember member, String name, long order) {
+        if (name.isEmpty()) {
+            return;
+        }
+        removeFrom(names, name, member);
+        for (int start = name.indexOf(' ') + 1; start > 0; start = name.indexOf(' ', start) + 1) {
+            removeFrom(words, name.substring(start), member);
+        }
+        for (int i = 0; i + 3 <= name.length(); i++) {
+            Long key = trigram(name, i);
+            Posting members = trigrams.get(key);
+            if (members != null && members.remove(order) && members.live == 0) {
+                trigrams.remove(key);
+            }
+        }
+    }
+
+    private static void removeFrom(TreeMap<String, List<GymMember>> map, String key, GymMember member) {
+        List<GymMember> members = map.get(key);
+        if (members != null && members.remove(member) && members.isEmpty()) {
+            map.remove(key);
+        }
+    }
+
+    private static void collectPrefixed(TreeMap<String, List<GymMember>> map, String prefix,
+                                        Set<GymMember> found, int limit) {
+        for (Map.Entry<String, List<GymMember>> entry : map.tailMap(prefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                return;
+            }
+            for (GymMember member : entry.getValue()) {
+                found.add(member);
+                if (found.size() >= limit) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void collectContaining(String fragment, Set<GymMember> found, int limit) {
+        // Check the members of the rarest trigram against the whole fragment
+        Posting rarest = null;
+        for (int i = 0; i + 3 <= fragment.length(); i++) {
+            Posting members = trigrams.get(trigram(fragment, i));
+            if (members == null) {
+                return;
+            }
+            if (rarest == null || members.live < rarest.live) {
+                rarest = members;
+            }
+        }
+        // A three-character fragment is a trigram, so all of its members match
+        boolean whole = fragment.length() == 3;
+        for (int i = 0; i < rarest.size; i++) {
+            if (found.size() >= limit) {
+                return;
+            }
+            GymMember member = rarest.members[i];
+            if (member != null && (whole || indexedNames.get(member).contains(fragment))) {
+                found.add(member);
+            }
+        }
+    }
+
+    private static long trigram(String name, int start) {
+        return ((long) name.charAt(start) << 32) | ((long) name.charAt(start + 1) << 16) | name.charAt(start + 2);
+    }
+
+    /**
+     * Lower-cases a name and collapses runs of spaces, so "  John  SMITH" is "john smith"
+     */
+    static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(name.length());
+        boolean space = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = normalized.length() > 0;
+            } else {
+                if (space) {
+                    normalized.append(' ');
+                    space = false;
+                }
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Members holding one trigram, in the order they were indexed
+     *
+     * Plain arrays rather than a set: most trigrams are held by a few
+     * members, and a set per trigram would cost more than the names. Each
+     * member is stored with the order in which it was indexed, which only
+     * grows, so appending keeps the posting sorted and a member is found by
+     * binary search. A removed member leaves a null behind; the posting is
+     * compacted once half of it is removed, so a removal costs O(log n)
+     * plus an occasional pass over the posting rather than a shift per
+     * member.
+     */
+    private static final class Posting {
+
+        GymMember[] members = new GymMember[2];
+
+        long[] orders = new long[2];
+
+        // Slots used, including removed members
+        int size;
+
+        // Members not removed
+        int live;
+
+        void add(GymMember member, long order) {
+            // A name repeating a trigram ("ana" in "anana") is added once
+            if (size > 0 && orders[size - 1] == order) {
+                return;
+            }
+            if (size == members.length) {
+                members = Arrays.copyOf(members, size * 2);
+                orders = Arrays.copyOf(orders, size * 2);
+            }
+            members[size] = member;
+            orders[size++] = order;
+            live++;
+        }
+
+        boolean remove(long order) {
+            int i = Arrays.binarySearch(orders, 0, size, order);
+            if (i < 0 || members[i] == null) {
+                return false;
+            }
+            members[i] = null;
+            live--;
+            if (live < size / 2) {
+                compact();
+            }
+            return true;
+        }
+
+        private void compact() {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (members[i] != null) {
+                    members[kept] = members[i];
+                    orders[kept++] = orders[i];
+                }
+            }
+            Arrays.fill(members, kept, size, null);
+            size = kept;
+        }
+    }
+}
@@ -0,0 +1,600 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Member storage outside the Java heap, for very large member counts
+ *
+ * Each member is one fixed-size record of RECORD_SIZE bytes in direct
+ * ByteBuffers: numbers, flags and epoch-day dates in place, gender, plan,
+ * referral source and trainer as MemberDictionary codes, and the id, name,
+ * phone number, email and removal reason as references into a StringArena.
+ * A million members are a few dozen buffers rather than tens of millions of
+ * objects, so the garbage collector has almost nothing to trace or copy for
+ * them and heap usage stays flat as members are added.
+ *
+ * Members are read through View, a flyweight that holds only a record
+ * number and decodes fields on each call. A view is valid until a member is
+ * removed: removal moves the last record into the freed one, as in
+ * MemberRegistry, so keep ids rather than views. forEach() reuses a single
+ * view for the whole scan.
+ *
+ * Lookups by id use an open-addressing table of record numbers, comparing
+ * the stored UTF-8 bytes of the id, so no id String is kept on the heap.
+ *
+ * Reads take a shared lock and changes an exclusive one, so the store may be
+ * used from several threads. It keeps the member operations of the check-in
+ * path (add, find, attendance, activation, renaming and removal); members
+ * can be copied to and from GymMember objects with add() and View.toMember().
+ */
+public class OffHeapMemberStore {
+
+    public static final int RECORD_SIZE = 72;
+
+    private static final int RECORD_BITS = 14;
+
+    private static final int RECORDS_PER_SEGMENT = 1 << RECORD_BITS;
+
+    // Record layout
+    private static final int FLAGS = 0;
+    private static final int ATTENDANCE = 4;
+    private static final int LOYALTY_POINTS = 8;
+    private static final int DATE_OF_BIRTH = 12;
+    private static final int START_DATE = 16;
+    private static final int GENDER = 20;
+    private static final int PLAN_OR_TRAINER = 24;
+    private static final int REFERRAL = 28;
+    // Plan price for regular members, amount paid for premium members, in cents
+    private static final int PRICE_OR_PAID = 32;
+    private static final int DISCOUNT = 40;
+    private static final int ID = 48;
+    private static final int NAME = 52;
+    private static final int PHONE = 56;
+    private static final int EMAIL = 60;
+    private static final int REMOVAL_REASON = 64;
+    private static final int ID_HASH = 68;
+
+    private static final byte PREMIUM = 1;
+    private static final byte ACTIVE = 2;
+    private static final byte ELIGIBLE_FOR_UPGRADE = 4;
+    private static final byte PAYMENT_COMPLETE = 8;
+
+    private static final int NO_DATE = Integer.MIN_VALUE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final StringArena strings = new StringArena();
+
+    private ByteBuffer[] records = new ByteBuffer[4];
+
+    private int segmentCount;
+
+    private int size;
+
+    // Record number + 1 for each id, 0 for an empty slot; linear probing
+    private int[] table = new int[1024];
+
+    /**
+     * Copies a member into the store
+     *
+     * @return False if a member with the same ID is already stored
+     */
+    public boolean add(GymMember member) {
+        byte[] id = member.getId().getBytes(StandardCharsets.UTF_8);
+        int hash = hash(member.getId());
+        lock.writeLock().lock();
+        try {
+            if (find(id, hash) >= 0) {
+                return false;
+            }
+            if (size == segmentCount * RECORDS_PER_SEGMENT) {
+                addSegment();
+            }
+            if ((size + 1) * 2 > table.length) {
+                resize(table.length * 2);
+            }
+            int record = size++;
+            ByteBuffer segment = segment(record);
+            int base = offset(record);
+            byte flags = member.isActiveStatus() ? ACTIVE : 0;
+            segment.putInt(base + ATTENDANCE, member.getAttendanceCount());
+            segment.putInt(base + LOYALTY_POINTS, member.getLoyaltyPoints());
+            segment.putInt(base + DATE_OF_BIRTH, epochDay(member.getDateOfBirth()));
+            segment.putInt(base + START_DATE, epochDay(member.getMembershipStartDate()));
+            segment.putInt(base + GENDER, member.getGenderCode());
+            if (member instanceof PremiumMember) {
+                PremiumMember premium = (PremiumMember) member;
+                flags |= PREMIUM;
+                if (premium.isPaymentComplete()) {
+                    flags |= PAYMENT_COMPLETE;
+                }
+                segment.putInt(base + PLAN_OR_TRAINER, premium.getPersonalTrainerCode());
+                segment.putInt(base + REFERRAL, MemberDictionary.NONE);
+                segment.putLong(base + PRICE_OR_PAID, premium.getPaidCents());
+                segment.putLong(base + DISCOUNT, premium.getDiscountCents());
+                segment.putInt(base + REMOVAL_REASON, StringArena.NULL);
+            } else {
+                RegularMember regular = (RegularMember) member;
+                if (regular.isEligibleForUpgrade()) {
+                    flags |= ELIGIBLE_FOR_UPGRADE;
+                }
+                segment.putInt(base + PLAN_OR_TRAINER, regular.getMembershipPlanCode());
+                segment.putInt(base + REFERRAL, regular.getReferralSourceCode());
+                segment.putLong(base + PRICE_OR_PAID, PremiumMember.toCents(regular.getPrice()));
+                segment.putLong(base + DISCOUNT, 0);
+                segment.putInt(base + REMOVAL_REASON, strings.add(regular.getRemovalReason()));
+            }
+            segment.put(base + FLAGS, flags);
+            segment.putInt(base + ID, strings.add(member.getId()));
+            segment.putInt(base + NAME, strings.add(member.getName()));
+            segment.putInt(base + PHONE, strings.add(member.getPhoneNumber()));
+            segment.putInt(base + EMAIL, strings.add(member.getEmail()));
+            segment.putInt(base + ID_HASH, hash);
+            insert(record, hash);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds a member by ID
+     *
+     * @return A view of the member, or null if the ID is not stored
+     */
+    public View find(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(id);
+        lock.readLock().lock();
+        try {
+            int record = find(bytes, hash);
+            return record >= 0 ? new View(record) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns a view of the member at a position, from 0 to size() - 1
+     */
+    public View get(int index) {
+        lock.readLock().lock();
+        try {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+            }
+            return new View(index);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Visits every member with one reused view, holding the read lock throughout
+     *
+     * The view must not be kept or used after the action returns.
+     */
+    public void forEach(Consumer<? super View> action) {
+        lock.readLock().lock();
+        try {
+            View view = new View(0);
+            for (int record = 0; record < size; record++) {
+                view.record = record;
+                action.accept(view);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Marks attendance with the same rules as RegularMember and PremiumMember
+     *
+     * @return False if the ID is not stored or the membership is inactive
+     */
+    public boolean markAttendance(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(id);
+        lock.writeLock().lock();
+        try {
+            int record = find(bytes, hash);
+            if (record < 0) {
+                return false;
+            }
+            ByteBuffer segment = segment(record);
+            int base = offset(record);
+            byte flags = segment.get(base + FLAGS);
+            if ((flags & ACTIVE) == 0) {
+                return false;
+            }
+            int attendance = segment.getInt(base + ATTENDANCE) + 1;
+            segment.putInt(base + ATTENDANCE, attendance);
+            // Premium members get 10 loyalty points per visit, regular members 5
+            int points = (flags & PREMIUM) != 0 ? 10 : 5;
+            segment.putInt(base + LOYALTY_POINTS, segment.getInt(base + LOYALTY_POINTS) + points);
+            if ((flags & PREMIUM) == 0 && attendance >= RegularMember.ATTENDANCE_LIMIT) {
+                segment.put(base + FLAGS, (byte) (flags | ELIGIBLE_FOR_UPGRADE));
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Activates or deactivates a membership
+     *
+     * @return False if the ID is not stored
+     */
+    public boolean setActiveStatus(String id, boolean active) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(id);
+        lock.writeLock().lock();
+        try {
+            int record = find(bytes, hash);
+            if (record < 0) {
+                return false;
+            }
+            ByteBuffer segment = segment(record);
+            int base = offset(record);
+            byte flags = segment.get(base + FLAGS);
+            segment.put(base + FLAGS, (byte) (active ? flags | ACTIVE : flags & ~ACTIVE));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Renames a member; the old name stays in the string arena
+     *
+     * @return False if the ID is not stored
+     */
+    public boolean setName(String id, String name) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(id);
+        lock.writeLock().lock();
+        try {
+            int record = find(bytes, hash);
+            if (record < 0) {
+                return false;
+            }
+            segment(record).putInt(offset(record) + NAME, strings.add(name));
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes a member, moving the last record into its place
+     *
+     * @return False if the ID is not stored
+     */
+    public boolean remove(String id) {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(id);
+        lock.writeLock().lock();
+        try {
+            int record = find(bytes, hash);
+            if (record < 0) {
+                return false;
+            }
+            delete(record, hash);
+            int last = --size;
+            if (record != last) {
+                ByteBuffer from = segment(last);
+                ByteBuffer to = segment(record);
+                to.put(offset(record), from, offset(last), RECORD_SIZE);
+                int lastHash = from.getInt(offset(last) + ID_HASH);
+                table[slotOf(last, lastHash)] = record + 1;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the off-heap memory reserved for records and strings
+     */
+    public long getOffHeapBytes() {
+        lock.readLock().lock();
+        try {
+            return (long) segmentCount * RECORDS_PER_SEGMENT * RECORD_SIZE + strings.getCapacityBytes();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Flyweight view of one stored member
+     *
+     * Holds only a record number; every accessor reads the record under the
+     * store's read lock and decodes the field, creating a new String or
+     * LocalDate for text and date fields.
+     */
+    public final class View implements MemberView {
+
+        private int record;
+
+        private View(int record) {
+            this.record = record;
+        }
+
+        @Override
+        public String getId() {
+            return stringField(record, ID);
+        }
+
+        @Override
+        public String getName() {
+            return stringField(record, NAME);
+        }
+
+        @Override
+        public String getPhoneNumber() {
+            return stringField(record, PHONE);
+        }
+
+        @Override
+        public String getEmail() {
+            return stringField(record, EMAIL);
+        }
+
+        @Override
+        public String getGender() {
+            return MemberDictionary.GENDERS.decode(intField(record, GENDER));
+        }
+
+        @Override
+        public LocalDate getDateOfBirth() {
+            return date(intField(record, DATE_OF_BIRTH));
+        }
+
+        @Override
+        public LocalDate getMembershipStartDate() {
+            return date(intField(record, START_DATE));
+        }
+
+        @Override
+        public int getAttendanceCount() {
+            return intField(record, ATTENDANCE);
+        }
+
+        @Override
+        public int getLoyaltyPoints() {
+            return intField(record, LOYALTY_POINTS);
+        }
+
+        @Override
+        public boolean isActiveStatus() {
+            return flag(record, ACTIVE);
+        }
+
+        public boolean isPremium() {
+            return flag(record, PREMIUM);
+        }
+
+        /**
+         * Returns the membership plan of a regular member, or null for a premium member
+         */
+        public String getMembershipPlan() {
+            return isPremium() ? null : MemberDictionary.PLANS.decode(intField(record, PLAN_OR_TRAINER));
+        }
+
+        /**
+         * Returns the plan price of a regular member, or 0 for a premium member
+         */
+        public double getPrice() {
+            return isPremium() ? 0 : PremiumMember.toAmount(longField(record, PRICE_OR_PAID));
+        }
+
+        public String getReferralSource() {
+            return MemberDictionary.REFERRAL_SOURCES.decode(intField(record, REFERRAL));
+        }
+
+        public boolean isEligibleForUpgrade() {
+            return flag(record, ELIGIBLE_FOR_UPGRADE);
+        }
+
+        public String getRemovalReason() {
+            return stringField(record, REMOVAL_REASON);
+        }
+
+        /**
+         * Returns the personal trainer of a premium member, or null for a regular member
+         */
+        public String getPersonalTrainer() {
+            return isPremium() ? MemberDictionary.TRAINERS.decode(intField(record, PLAN_OR_TRAINER)) : null;
+        }
+
+        public boolean isPaymentComplete() {
+            return flag(record, PAYMENT_COMPLETE);
+        }
+
+        public long getPaidCents() {
+            return isPremium() ? longField(record, PRICE_OR_PAID) : 0;
+        }
+
+        public long getDiscountCents() {
+            return longField(record, DISCOUNT);
+        }
+
+        /**
+         * Copies the member into a new GymMember object
+         */
+        public GymMember toMember() {
+            GymMember member;
+            if (isPremium()) {
+                PremiumMember premium = new PremiumMember(getId(), getName(), getPhoneNumber(), getEmail(),
+                    getGender(), getDateOfBirth(), getMembershipStartDate(), getPersonalTrainer());
+                premium.setPaidCents(getPaidCents());
+                premium.setDiscountCents(getDiscountCents());
+                premium.setPaymentComplete(isPaymentComplete());
+                member = premium;
+            } else {
+                RegularMember regular = new RegularMember(getId(), getName(), getPhoneNumber(), getEmail(),
+                    getGender(), getDateOfBirth(), getMembershipStartDate(), getMembershipPlan(),
+                    getReferralSource());
+                regular.setEligibleForUpgrade(isEligibleForUpgrade());
+                regular.setRemovalReason(getRemovalReason());
+                member = regular;
+            }
+            member.setAttendanceCount(getAttendanceCount());
+            member.setLoyaltyPoints(getLoyaltyPoints());
+            member.setActiveStatus(isActiveStatus());
+            return member;
+        }
+    }
+
+    private int intField(int record, int field) {
+        lock.readLock().lock();
+        try {
+            checkRecord(record);
+            return segment(record).getInt(offset(record) + field);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long longField(int record, int field) {
+        lock.readLock().lock();
+        try {
+            checkRecord(record);
+            return segment(record).getLong(offset(record) + field);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean flag(int record, byte mask) {
+        lock.readLock().lock();
+        try {
+            checkRecord(record);
+            return (segment(record).get(offset(record) + FLAGS) & mask) != 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String stringField(int record, int field) {
+        lock.readLock().lock();
+        try {
+            checkRecord(record);
+            return strings.get(segment(record).getInt(offset(record) + field));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void checkRecord(int record) {
+        if (record >= size) {
+            throw new IllegalStateException("Member view is no longer valid; a member was removed");
+        }
+    }
+
+    private ByteBuffer segment(int record) {
+        return records[record >>> RECORD_BITS];
+    }
+
+    private static int offset(int record) {
+        return (record & (RECORDS_PER_SEGMENT - 1)) * RECORD_SIZE;
+    }
+
+    private void addSegment() {
+        if (segmentCount == records.length) {
+            ByteBuffer[] grown = new ByteBuffer[records.length * 2];
+            System.arraycopy(records, 0, grown, 0, segmentCount);
+            records = grown;
+        }
+        records[segmentCount++] = ByteBuffer.allocateDirect(RECORDS_PER_SEGMENT * RECORD_SIZE);
+    }
+
+    private int find(byte[] id, int hash) {
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            }
+            int record = entry - 1;
+            ByteBuffer segment = segment(record);
+            int base = offset(record);
+            if (segment.getInt(base + ID_HASH) == hash && strings.matches(segment.getInt(base + ID), id)) {
+                return record;
+            }
+        }
+    }
+
+    // The table slot holding a record, found by probing from its hash
+    private int slotOf(int record, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != record + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(int record, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = record + 1;
+    }
+
+    // Backward-shift deletion keeps every probe sequence unbroken without tombstones
+    private void delete(int record, int hash) {
+        int mask = table.length - 1;
+        int hole = slotOf(record, hash);
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int entry = table[slot];
+            if (entry == 0) {
+                break;
+            }
+            int home = segment(entry - 1).getInt(offset(entry - 1) + ID_HASH) & mask;
+            // Move the entry back if the hole lies between its home slot and its current slot
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                table[hole] = entry;
+                hole = slot;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    private void resize(int capacity) {
+        table = new int[capacity];
+        for (int record = 0; record < size; record++) {
+            insert(record, segment(record).getInt(offset(record) + ID_HASH));
+        }
+    }
+
+    private static int hash(String id) {
+        int h = id.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private static int epochDay(LocalDate date) {
+        return date != null ? (int) date.toEpochDay() : NO_DATE;
+    }
+
+    private static LocalDate date(int epochDay) {
+        return epochDay != NO_DATE ? LocalDate.ofEpochDay(epochDay) : null;
+    }
+}
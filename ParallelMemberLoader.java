@@ -0,0 +1,326 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+
+/**
+ * Loads a member file by parsing newline-aligned chunks in parallel
+ *
+ * The file is split into byte ranges of roughly CHUNK_BYTES, each extended to
+ * the end of its last line, which is safe because MemberFileFormat never lets
+ * a record span lines. Each range is memory-mapped and parsed on a
+ * ForkJoinPool with a MemberRecordTokenizer working directly on the mapped
+ * bytes. The parsed chunks are then merged into a new registry in file
+ * order, so the result is the same as reading the file line by line.
+ *
+ * A malformed line does not abort the load. It is reported with its line
+ * number in the result, and the remaining lines are still loaded.
+ *
+ * The load and each chunk are reported as FlightEvents for flight recordings.
+ */
+public class ParallelMemberLoader {
+
+    private static final int CHUNK_BYTES = 4 * 1024 * 1024;
+
+    // Only the first errors are kept with their messages; the rest are counted
+    private static final int MAX_REPORTED_ERRORS = 200;
+
+    private static final String HEADER_PREFIX = "#gym-members v";
+
+    private static final String SEQUENCE_PREFIX = "#journal-sequence=";
+
+    private final ForkJoinPool pool;
+
+    public ParallelMemberLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelMemberLoader(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * A line that could not be loaded
+     */
+    public static class LineError {
+        private final long lineNumber;
+        private final String message;
+
+        LineError(long lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return "Line " + lineNumber + ": " + message;
+        }
+    }
+
+    /**
+     * The outcome of a load
+     */
+    public static class Result {
+        private final MemberRegistry registry;
+        private final List<LineError> errors;
+        private final long errorCount;
+        private final long journalSequence;
+
+        Result(MemberRegistry registry, List<LineError> errors, long errorCount, long journalSequence) {
+            this.registry = registry;
+            this.errors = errors;
+            this.errorCount = errorCount;
+            this.journalSequence = journalSequence;
+        }
+
+        /** The loaded members, in file order */
+        public MemberRegistry getRegistry() {
+            return registry;
+        }
+
+        /** The first reported errors, in file order */
+        public List<LineError> getErrors() {
+            return errors;
+        }
+
+        /** The total number of lines that could not be loaded */
+        public long getErrorCount() {
+            return errorCount;
+        }
+
+        public long getJournalSequence() {
+            return journalSequence;
+        }
+    }
+
+    /**
+     * Loads all members of a file
+     *
+     * @param file The member file
+     * @param progress Receives the percentage of bytes parsed, from any thread
+     * @return The loaded members and any line errors
+     * @throws IOException if the file cannot be read or has an unsupported version
+     */
+    public Result load(Path file, LongConsumer progress) throws IOException {
+        FlightEvents.FileRead event = new FlightEvents.FileRead();
+        event.begin();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            List<long[]> ranges = splitOnLines(channel, size);
+            AtomicLong parsedBytes = new AtomicLong();
+
+            List<ForkJoinTask<Chunk>> tasks = new ArrayList<>(ranges.size());
+            for (long[] range : ranges) {
+                tasks.add(pool.submit(() -> {
+                    Chunk chunk = parseChunk(channel, range[0], range[1]);
+                    long done = parsedBytes.addAndGet(range[1] - range[0]);
+                    progress.accept(size == 0 ? 100 : done * 100 / size);
+                    return chunk;
+                }));
+            }
+
+            MemberRegistry registry = new MemberRegistry();
+            List<LineError> errors = new ArrayList<>();
+            long errorCount = 0;
+            long journalSequence = 0;
+            long firstLine = 1;
+
+            for (ForkJoinTask<Chunk> task : tasks) {
+                Chunk chunk = joinChunk(task);
+                if (chunk.failure != null) {
+                    throw chunk.failure;
+                }
+                if (chunk.journalSequence > 0) {
+                    journalSequence = chunk.journalSequence;
+                }
+                int nextError = 0;
+                for (int i = 0; i < chunk.members.size(); i++) {
+                    while (nextError < chunk.errors.size() && chunk.errorLines.get(nextError) < chunk.memberLines.get(i)) {
+                        errorCount = report(errors, errorCount, firstLine + chunk.errorLines.get(nextError), chunk.errors.get(nextError));
+                        nextError++;
+                    }
+                    GymMember member = chunk.members.get(i);
+                    if (!registry.add(member)) {
+                        errorCount = report(errors, errorCount, firstLine + chunk.memberLines.get(i),
+                            "Duplicate member ID " + member.getId());
+                    }
+                }
+                for (; nextError < chunk.errors.size(); nextError++) {
+                    errorCount = report(errors, errorCount, firstLine + chunk.errorLines.get(nextError), chunk.errors.get(nextError));
+                }
+                firstLine += chunk.lineCount;
+            }
+            if (event.shouldCommit()) {
+                event.path = file.toString();
+                event.members = registry.size();
+                event.errors = errorCount;
+                event.bytes = size;
+                event.commit();
+            }
+            return new Result(registry, Collections.unmodifiableList(errors), errorCount, journalSequence);
+        }
+    }
+
+    private static long report(List<LineError> errors, long errorCount, long lineNumber, String message) {
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new LineError(lineNumber, message));
+        }
+        return errorCount + 1;
+    }
+
+    private static Chunk joinChunk(ForkJoinTask<Chunk> task) throws IOException {
+        try {
+            return task.join();
+        } catch (RuntimeException e) {
+            throw new IOException("Error loading member file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Splits the file into ranges that each end just after a newline
+     */
+    private static List<long[]> splitOnLines(FileChannel channel, long size) throws IOException {
+        List<long[]> ranges = new ArrayList<>();
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + CHUNK_BYTES);
+            while (end < size) {
+                probe.clear();
+                int read = channel.read(probe, end);
+                if (read <= 0) {
+                    end = size;
+                    break;
+                }
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (probe.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end += read;
+            }
+            ranges.add(new long[] {start, Math.min(end, size)});
+            start = end;
+        }
+        return ranges;
+    }
+
+    /**
+     * The members and errors of one chunk, with chunk-relative line numbers
+     */
+    private static class Chunk {
+        final List<GymMember> members = new ArrayList<>();
+        final List<Integer> memberLines = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        final List<Integer> errorLines = new ArrayList<>();
+        int lineCount;
+        long journalSequence;
+        IOException failure;
+    }
+
+    private static Chunk parseChunk(FileChannel channel, long start, long end) throws IOException {
+        FlightEvents.FileReadChunk event = new FlightEvents.FileReadChunk();
+        event.begin();
+        MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        MemberRecordTokenizer tokenizer = new MemberRecordTokenizer();
+        Chunk chunk = new Chunk();
+
+        int length = bytes.limit();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && bytes.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int contentEnd = lineEnd;
+            if (contentEnd > lineStart && bytes.get(contentEnd - 1) == '\r') {
+                contentEnd--;
+            }
+            int lineIndex = chunk.lineCount++;
+            if (contentEnd > lineStart) {
+                if (bytes.get(lineStart) == '#') {
+                    parseComment(chunk, decode(bytes, lineStart, contentEnd), lineIndex);
+                } else {
+                    parseMember(chunk, tokenizer, bytes, lineStart, contentEnd, lineIndex);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (event.shouldCommit()) {
+            event.offset = start;
+            event.bytes = end - start;
+            event.members = chunk.members.size();
+            event.errors = chunk.errors.size();
+            event.commit();
+        }
+        return chunk;
+    }
+
+    private static void parseMember(Chunk chunk, MemberRecordTokenizer tokenizer, ByteBuffer bytes,
+                                    int lineStart, int lineEnd, int lineIndex) {
+        try {
+            tokenizer.reset(bytes, lineStart, lineEnd);
+            GymMember member = tokenizer.parseMember();
+            if (member != null) {
+                chunk.members.add(member);
+                chunk.memberLines.add(lineIndex);
+            } else {
+                addError(chunk, lineIndex, "Not a member record");
+            }
+        } catch (NumberFormatException | DateTimeException e) {
+            addError(chunk, lineIndex, e.getMessage());
+        }
+    }
+
+    private static void parseComment(Chunk chunk, String line, int lineIndex) {
+        if (line.startsWith(HEADER_PREFIX)) {
+            try {
+                MemberFileFormat.checkVersion(line);
+            } catch (IOException e) {
+                chunk.failure = e;
+            }
+        } else if (line.startsWith(SEQUENCE_PREFIX)) {
+            try {
+                chunk.journalSequence = Long.parseLong(line.substring(SEQUENCE_PREFIX.length()).trim());
+            } catch (NumberFormatException e) {
+                addError(chunk, lineIndex, "Invalid journal sequence");
+            }
+        }
+    }
+
+    private static String decode(ByteBuffer bytes, int start, int end) {
+        byte[] line = new byte[end - start];
+        bytes.get(start, line);
+        return new String(line, StandardCharsets.UTF_8);
+    }
+
+    private static void addError(Chunk chunk, int lineIndex, String message) {
+        chunk.errors.add(message);
+        chunk.errorLines.add(lineIndex);
+    }
+}
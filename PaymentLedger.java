@@ -0,0 +1,596 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Append-only ledger of premium member payments
+ *
+ * Every payment, discount and revert made through the registry is appended
+ * as an entry of whole cents, so amounts never drift and each member's
+ * balance can be traced back to the entries that produced it. Entries are
+ * held in primitive arrays, with each entry linked to the previous entry of
+ * the same member, and are never changed once appended.
+ *
+ * Each member's paid and discount balance is kept in its Account and
+ * updated as entries are appended, and so are the totals collected per day
+ * and per month, held in arrays indexed by epoch day and by month, so
+ * getPaidCents and getCollectedCents are O(1). "Collected" counts payments
+ * received; a revert clears a member's balance but does not reduce what
+ * was collected.
+ *
+ * A premium member reads its paid and discount amounts from its account,
+ * and every change to them goes through post(), which appends the entry.
+ * The registry attaches each premium member it holds with attach(): a
+ * member with an account adopts its balances, and any other member gets a
+ * new account, opened with an ADJUSTMENT (and DISCOUNT) entry carrying the
+ * amounts it already had, such as those read from a file. A member in no
+ * registry keeps its amounts in an account that belongs to no ledger.
+ *
+ * The ledger is kept in a sequential log file. sync() appends the entries
+ * written since the last sync followed by a commit record holding the
+ * journal sequence they reflect; entries after the last commit record are
+ * ignored and cut off when the file is loaded.
+ */
+public class PaymentLedger {
+
+    public enum EntryType {
+        /** A payment received; adds to the paid balance and the collected totals */
+        PAYMENT,
+        /** A discount applied; sets the discount balance */
+        DISCOUNT,
+        /** The member was reverted; clears both balances (cents hold the paid balance cleared) */
+        REVERT,
+        /** A correction of the paid balance, such as an opening balance; not counted as collected */
+        ADJUSTMENT
+    }
+
+    private static final EntryType[] TYPES = EntryType.values();
+
+    private static final long FILE_MAGIC = 0x47594d4c45444752L; // "GYMLEDGR"
+
+    private static final int FILE_VERSION = 1;
+
+    private static final int FILE_HEADER_BYTES = 12;
+
+    private static final byte ENTRY_RECORD = 1;
+
+    private static final byte COMMIT_RECORD = 2;
+
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    // Totals of more days or months than this are refused, to catch nonsense times
+    private static final int MAX_TOTALS = 1 << 20;
+
+    private final ZoneId zone;
+
+    private final ZoneRules zoneRules;
+
+    private long[] times = new long[64];
+
+    private long[] cents = new long[64];
+
+    private byte[] types = new byte[64];
+
+    private int[] accounts = new int[64];
+
+    // Index of the previous entry of the same account, or -1
+    private int[] previous = new int[64];
+
+    private int size;
+
+    private final Map<String, Account> accountsById = new HashMap<>();
+
+    private final List<Account> accountList = new ArrayList<>();
+
+    private final Totals collectedByDay = new Totals();
+
+    private final Totals collectedByMonth = new Totals();
+
+    // Entries already in the ledger file
+    private int syncedCount;
+
+    // Held for the whole of sync(), so two syncs never write the file at once
+    private final Object syncLock = new Object();
+
+    public PaymentLedger() {
+        this(ZoneId.systemDefault());
+    }
+
+    public PaymentLedger(ZoneId zone) {
+        this.zone = zone;
+        this.zoneRules = zone.getRules();
+    }
+
+    /**
+     * The running balances of one member
+     *
+     * Balances are changed only by entries appended to the ledger, under the
+     * ledger's lock, and can be read without it.
+     */
+    public static final class Account {
+        // null for an account that belongs to no ledger
+        private final PaymentLedger ledger;
+        private final String id;
+        private final int index;
+        private volatile long paidCents;
+        private volatile long discountCents;
+        private int lastEntry = -1;
+
+        private Account(PaymentLedger ledger, String id, int index) {
+            this.ledger = ledger;
+            this.id = id;
+            this.index = index;
+        }
+
+        /**
+         * Creates an account that belongs to no ledger
+         */
+        static Account detached(long paidCents, long discountCents) {
+            Account account = new Account(null, null, -1);
+            account.paidCents = paidCents;
+            account.discountCents = discountCents;
+            return account;
+        }
+
+        public long getPaidCents() {
+            return paidCents;
+        }
+
+        public long getDiscountCents() {
+            return discountCents;
+        }
+
+        /**
+         * Appends an entry to the ledger, or only updates the balances if the
+         * account belongs to no ledger
+         */
+        void post(EntryType type, long cents, long timeMillis) {
+            if (ledger != null) {
+                ledger.append(this, type, cents, timeMillis);
+            } else {
+                synchronized (this) {
+                    apply(type, cents);
+                }
+            }
+        }
+
+        private void apply(EntryType type, long cents) {
+            switch (type) {
+                case PAYMENT:
+                case ADJUSTMENT:
+                    paidCents += cents;
+                    break;
+                case DISCOUNT:
+                    discountCents = cents;
+                    break;
+                case REVERT:
+                    paidCents = 0;
+                    discountCents = 0;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Totals keyed by epoch day or month, in an array that grows to cover the keys added
+     */
+    private static final class Totals {
+        private long first;
+        private long[] cents = new long[0];
+
+        void add(long key, long amount) {
+            if (cents.length == 0) {
+                first = key;
+                cents = new long[16];
+            } else if (key < first || key >= first + cents.length) {
+                grow(key);
+            }
+            cents[(int) (key - first)] += amount;
+        }
+
+        long get(long key) {
+            long offset = key - first;
+            return offset >= 0 && offset < cents.length ? cents[(int) offset] : 0;
+        }
+
+        private void grow(long key) {
+            long low = Math.min(first, key);
+            long high = Math.max(first + cents.length, key + 1);
+            long capacity = Math.max(cents.length * 2L, high - low);
+            if (capacity > MAX_TOTALS) {
+                throw new IllegalArgumentException("Ledger entry time out of range");
+            }
+            // Spare room goes on the side that grew
+            long grownFirst = key < first ? high - capacity : low;
+            long[] grown = new long[(int) capacity];
+            System.arraycopy(cents, 0, grown, (int) (first - grownFirst), cents.length);
+            cents = grown;
+            first = grownFirst;
+        }
+    }
+
+    /**
+     * One entry of the ledger
+     */
+    public static class Entry {
+        private final EntryType type;
+        private final String memberId;
+        private final long cents;
+        private final long timeMillis;
+        private final ZoneId zone;
+
+        Entry(EntryType type, String memberId, long cents, long timeMillis, ZoneId zone) {
+            this.type = type;
+            this.memberId = memberId;
+            this.cents = cents;
+            this.timeMillis = timeMillis;
+            this.zone = zone;
+        }
+
+        public EntryType getType() {
+            return type;
+        }
+
+        public String getMemberId() {
+            return memberId;
+        }
+
+        public long getCents() {
+            return cents;
+        }
+
+        public long getTimeMillis() {
+            return timeMillis;
+        }
+
+        @Override
+        public String toString() {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(timeMillis), zone)
+                + " " + type + " " + memberId + " " + PremiumMember.toAmount(cents);
+        }
+    }
+
+    /**
+     * Attaches a premium member to its account, opening one if it has none
+     *
+     * A member whose account already exists adopts its balances; the ledger
+     * is the record of what was paid. Otherwise the amounts the member
+     * already has are carried over as opening entries.
+     */
+    public synchronized void attach(PremiumMember member, long timeMillis) {
+        Account account = accountsById.get(member.getId());
+        if (account == null) {
+            account = open(member.getId(), member.getPaidCents(), member.getDiscountCents(), timeMillis);
+        }
+        member.setAccount(account);
+    }
+
+    private Account open(String id, long paidCents, long discountCents, long timeMillis) {
+        Account account = account(id);
+        if (paidCents != 0) {
+            append(account, EntryType.ADJUSTMENT, paidCents, timeMillis);
+        }
+        if (discountCents != 0) {
+            append(account, EntryType.DISCOUNT, discountCents, timeMillis);
+        }
+        return account;
+    }
+
+    /**
+     * Records the amounts of members loaded from a file as adjustments
+     *
+     * Premium members whose amounts differ from their balance get entries
+     * that bring the balance in line, so that the loaded amounts are kept
+     * when the members are attached.
+     *
+     * @return The number of members adjusted
+     */
+    public synchronized int adjustTo(Iterable<GymMember> members, long timeMillis) {
+        int adjusted = 0;
+        for (GymMember member : members) {
+            if (!(member instanceof PremiumMember)) {
+                continue;
+            }
+            PremiumMember premium = (PremiumMember) member;
+            Account account = accountsById.get(premium.getId());
+            if (account == null) {
+                if (premium.getPaidCents() != 0 || premium.getDiscountCents() != 0) {
+                    open(premium.getId(), premium.getPaidCents(), premium.getDiscountCents(), timeMillis);
+                    adjusted++;
+                }
+                continue;
+            }
+            boolean changed = false;
+            if (account.paidCents != premium.getPaidCents()) {
+                append(account, EntryType.ADJUSTMENT, premium.getPaidCents() - account.paidCents, timeMillis);
+                changed = true;
+            }
+            if (account.discountCents != premium.getDiscountCents()) {
+                append(account, EntryType.DISCOUNT, premium.getDiscountCents(), timeMillis);
+                changed = true;
+            }
+            if (changed) {
+                adjusted++;
+            }
+        }
+        return adjusted;
+    }
+
+    public synchronized boolean hasAccount(String id) {
+        return accountsById.containsKey(id);
+    }
+
+    /**
+     * Returns the amount a member has paid, in cents
+     */
+    public synchronized long getPaidCents(String id) {
+        Account account = accountsById.get(id);
+        return account != null ? account.paidCents : 0;
+    }
+
+    /**
+     * Returns the discount applied to a member, in cents
+     */
+    public synchronized long getDiscountCents(String id) {
+        Account account = accountsById.get(id);
+        return account != null ? account.discountCents : 0;
+    }
+
+    /**
+     * Returns the entries of one member, oldest first
+     */
+    public synchronized List<Entry> getEntries(String id) {
+        Account account = accountsById.get(id);
+        if (account == null) {
+            return Collections.emptyList();
+        }
+        List<Entry> entries = new ArrayList<>();
+        for (int entry = account.lastEntry; entry >= 0; entry = previous[entry]) {
+            entries.add(entry(entry));
+        }
+        Collections.reverse(entries);
+        return entries;
+    }
+
+    /**
+     * Returns the total of payments received on a day, in cents
+     */
+    public synchronized long getCollectedCents(LocalDate day) {
+        return collectedByDay.get(day.toEpochDay());
+    }
+
+    /**
+     * Returns the total of payments received in a month, in cents
+     */
+    public synchronized long getCollectedCents(YearMonth month) {
+        return collectedByMonth.get(monthKey(month.getYear(), month.getMonthValue()));
+    }
+
+    /**
+     * Returns the number of entries
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private Account account(String id) {
+        Account account = accountsById.get(id);
+        if (account == null) {
+            account = new Account(this, id, accountList.size());
+            accountsById.put(id, account);
+            accountList.add(account);
+        }
+        return account;
+    }
+
+    private synchronized void append(Account account, EntryType type, long amount, long timeMillis) {
+        if (type == EntryType.PAYMENT) {
+            // First, so an entry whose time is out of range is not appended
+            collect(timeMillis, amount);
+        }
+        if (size == times.length) {
+            int capacity = size * 2;
+            times = Arrays.copyOf(times, capacity);
+            cents = Arrays.copyOf(cents, capacity);
+            types = Arrays.copyOf(types, capacity);
+            accounts = Arrays.copyOf(accounts, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+        }
+        times[size] = timeMillis;
+        cents[size] = amount;
+        types[size] = (byte) type.ordinal();
+        accounts[size] = account.index;
+        previous[size] = account.lastEntry;
+        account.lastEntry = size;
+        size++;
+        account.apply(type, amount);
+    }
+
+    private void collect(long timeMillis, long amount) {
+        long epochSeconds = Math.floorDiv(timeMillis, 1000L);
+        long local = epochSeconds + zoneRules.getOffset(Instant.ofEpochSecond(epochSeconds)).getTotalSeconds();
+        long day = Math.floorDiv(local, SECONDS_PER_DAY);
+        LocalDate date = LocalDate.ofEpochDay(day);
+        long month = monthKey(date.getYear(), date.getMonthValue());
+        // Grown before either is added to, so a refused time leaves both unchanged
+        collectedByDay.add(day, 0);
+        collectedByMonth.add(month, 0);
+        collectedByDay.add(day, amount);
+        collectedByMonth.add(month, amount);
+    }
+
+    private static long monthKey(int year, int month) {
+        return year * 12L + month - 1;
+    }
+
+    private Entry entry(int index) {
+        return new Entry(TYPES[types[index]], accountList.get(accounts[index]).id, cents[index], times[index], zone);
+    }
+
+    /**
+     * Writes the entries up to a count to the ledger file
+     *
+     * Entries already in the file are not written again; the first sync
+     * after the ledger was created rather than loaded writes a new file.
+     * Syncs run one at a time, and one asked to write fewer entries than
+     * the file already holds does nothing.
+     *
+     * @param file The ledger file
+     * @param entryCount The number of entries the file should hold, as taken
+     *        together with the journal sequence
+     * @param journalSequence The last journal sequence reflected in those entries
+     */
+    public void sync(Path file, int entryCount, long journalSequence) throws IOException {
+        synchronized (syncLock) {
+            ByteBuffer records;
+            boolean rewrite;
+            synchronized (this) {
+                if (entryCount < syncedCount) {
+                    // A later sync already wrote these entries
+                    return;
+                }
+                rewrite = syncedCount == 0;
+                int from = rewrite ? 0 : syncedCount;
+                records = encode(from, entryCount, journalSequence, rewrite);
+            }
+
+            if (rewrite) {
+                Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+                try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                    writeFully(channel, records);
+                    channel.force(false);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    writeFully(channel, records);
+                    channel.force(false);
+                }
+            }
+            synchronized (this) {
+                syncedCount = entryCount;
+            }
+        }
+    }
+
+    private ByteBuffer encode(int from, int to, long journalSequence, boolean header) {
+        byte[][] ids = new byte[to - from][];
+        int length = (header ? FILE_HEADER_BYTES : 0) + 1 + 8 + 4;
+        for (int i = from; i < to; i++) {
+            ids[i - from] = accountList.get(accounts[i]).id.getBytes(StandardCharsets.UTF_8);
+            length += 1 + 8 + 1 + 8 + 2 + ids[i - from].length;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        if (header) {
+            buffer.putLong(FILE_MAGIC).putInt(FILE_VERSION);
+        }
+        for (int i = from; i < to; i++) {
+            byte[] id = ids[i - from];
+            buffer.put(ENTRY_RECORD).putLong(times[i]).put(types[i]).putLong(cents[i])
+                .putShort((short) id.length).put(id);
+        }
+        buffer.put(COMMIT_RECORD).putLong(journalSequence).putInt(to);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Loads the ledger file into this empty ledger
+     *
+     * Entries after the last commit record, left behind by an interrupted
+     * sync, are cut off.
+     *
+     * @param file The ledger file, which need not exist
+     * @return The journal sequence of the last commit, or 0 if there is no file
+     * @throws IOException if the file cannot be read or is not a ledger file
+     */
+    public long load(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (data.remaining() < FILE_HEADER_BYTES || data.getLong() != FILE_MAGIC) {
+            throw new IOException("Not a payment ledger file: " + file);
+        }
+        int version = data.getInt();
+        if (version != FILE_VERSION) {
+            throw new IOException("Unsupported payment ledger version " + version);
+        }
+
+        // Parse first, then apply only what was committed
+        List<Entry> pending = new ArrayList<>();
+        int committed = 0;
+        long journalSequence = 0;
+        int committedEnd = data.position();
+        try {
+            while (data.hasRemaining()) {
+                byte kind = data.get();
+                if (kind == ENTRY_RECORD) {
+                    long time = data.getLong();
+                    byte type = data.get();
+                    long amount = data.getLong();
+                    byte[] id = new byte[data.getShort() & 0xFFFF];
+                    data.get(id);
+                    if (type < 0 || type >= TYPES.length) {
+                        break;
+                    }
+                    pending.add(new Entry(TYPES[type], new String(id, StandardCharsets.UTF_8), amount, time, zone));
+                } else if (kind == COMMIT_RECORD) {
+                    long sequence = data.getLong();
+                    int count = data.getInt();
+                    if (count != pending.size()) {
+                        break;
+                    }
+                    committed = count;
+                    journalSequence = sequence;
+                    committedEnd = data.position();
+                } else {
+                    break;
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            // Torn record at the end of the file
+        }
+
+        synchronized (this) {
+            for (int i = 0; i < committed; i++) {
+                Entry entry = pending.get(i);
+                append(account(entry.memberId), entry.type, entry.cents, entry.timeMillis);
+            }
+            syncedCount = committed;
+        }
+        if (committedEnd < data.limit()) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(committedEnd);
+            }
+        }
+        return journalSequence;
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Table model for the Performance tab, showing the metrics of a MetricsRegistry
+ *
+ * refresh() takes a new sample of every metric. The rate column is the
+ * number of calls per second since the previous refresh, so it shows the
+ * current load rather than the average since startup.
+ *
+ * All methods are called on the Event Dispatch Thread.
+ */
+public class PerformanceTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String[] COLUMN_NAMES = {
+        "Metric", "Count", "Rate/s", "p50 ms", "p99 ms", "Max ms"
+    };
+
+    private final MetricsRegistry metrics;
+
+    private List<MetricsRegistry.Sample> samples = new ArrayList<>();
+
+    private Map<String, Double> rates = new HashMap<>();
+
+    private Map<String, Long> previousCounts = new HashMap<>();
+
+    private long previousNanos = System.nanoTime();
+
+    public PerformanceTableModel(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Samples the metrics again and repaints the table
+     */
+    public void refresh() {
+        long now = System.nanoTime();
+        double seconds = Math.max(1e-3, (now - previousNanos) / 1e9);
+        List<MetricsRegistry.Sample> current = metrics.sample();
+        Map<String, Double> currentRates = new HashMap<>();
+        Map<String, Long> counts = new HashMap<>();
+        for (MetricsRegistry.Sample sample : current) {
+            long previous = previousCounts.getOrDefault(sample.getName(), 0L);
+            // A reset in between makes the count smaller; count from zero then
+            long calls = sample.getCount() >= previous ? sample.getCount() - previous : sample.getCount();
+            currentRates.put(sample.getName(), calls / seconds);
+            counts.put(sample.getName(), sample.getCount());
+        }
+        samples = current;
+        rates = currentRates;
+        previousCounts = counts;
+        previousNanos = now;
+        fireTableDataChanged();
+    }
+
+    @Override
+    public int getRowCount() {
+        return samples.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 0 ? String.class : Object.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        MetricsRegistry.Sample sample = samples.get(row);
+        switch (column) {
+            case 0:
+                return sample.getName();
+            case 1:
+                return sample.getCount();
+            case 2:
+                return String.format("%.1f", rates.getOrDefault(sample.getName(), 0.0));
+            case 3:
+                return sample.isTimer() ? millis(sample.getP50Nanos()) : "";
+            case 4:
+                return sample.isTimer() ? millis(sample.getP99Nanos()) : "";
+            case 5:
+                return sample.isTimer() ? millis(sample.getMaxNanos()) : "";
+            default:
+                throw new IndexOutOfBoundsException("Column " + column);
+        }
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / 1e6);
+    }
+}
@@ -4,85 +4,164 @@ public class PremiumMember extends GymMember {
     private static final double PREMIUM_CHARGE = 50000.0;
     private static final double DISCOUNT_PERCENTAGE = 0.10; // 10% discount
     
-    private String personalTrainer;
-    private boolean paymentComplete;
-    private double paidAmount;
-    private double discountAmount;
+    // Amounts are kept in whole cents so that instalments add up exactly
+    private static final long PREMIUM_CHARGE_CENTS = toCents(PREMIUM_CHARGE);
+    private static final long DISCOUNT_CENTS = Math.round(PREMIUM_CHARGE_CENTS * DISCOUNT_PERCENTAGE);
+    
+    private int trainerCode; // MemberDictionary.TRAINERS
+    private volatile boolean paymentComplete;
+    
+    // Paid and discount amounts come from the member's ledger account; one of
+    // its own until a registry attaches the member to the registry's ledger
+    private volatile PaymentLedger.Account account;
     
     // Constructor
     public PremiumMember(String id, String name, String phoneNumber, String email, 
                          String gender, LocalDate dateOfBirth, LocalDate membershipStartDate,
                          String personalTrainer) {
         super(id, name, phoneNumber, email, gender, dateOfBirth, membershipStartDate);
-        this.personalTrainer = personalTrainer;
+        this.trainerCode = MemberDictionary.TRAINERS.encode(personalTrainer);
         this.paymentComplete = false;
-        this.paidAmount = 0.0;
-        this.discountAmount = 0.0;
+        this.account = PaymentLedger.Account.detached(0, 0);
+    }
+    
+    // Copy constructor
+    private PremiumMember(PremiumMember other) {
+        super(other);
+        this.trainerCode = other.trainerCode;
+        this.paymentComplete = other.paymentComplete;
+        this.account = PaymentLedger.Account.detached(other.getPaidCents(), other.getDiscountCents());
+    }
+    
+    @Override
+    public PremiumMember copy() {
+        return new PremiumMember(this);
     }
     
     // Mark attendance for premium member
     @Override
     public void markAttendance() {
         if (activeStatus) {
+            int oldAttendance = attendanceCount;
+            int oldLoyaltyPoints = loyaltyPoints;
             attendanceCount++;
             loyaltyPoints += 10; // Premium members get 10 loyalty points per visit
-            System.out.println("Attendance marked for " + name + ". Total attendance: " + attendanceCount);
+            fireAttendanceChange(oldAttendance, oldLoyaltyPoints);
+            AuditLog.DEFAULT.record(AuditLog.Event.ATTENDANCE_MARKED, this, attendanceCount, 0, null);
         } else {
-            System.out.println("Cannot mark attendance. Membership is not active for " + name);
+            AuditLog.DEFAULT.record(AuditLog.Event.ATTENDANCE_REJECTED, this);
         }
     }
     
     // Pay due amount
     public boolean payDueAmount(double amount) {
-        if (amount <= 0) {
-            System.out.println("Invalid payment amount. Amount must be greater than 0.");
-            return false;
+        return payDueCents(toCents(amount)) > 0;
+    }
+    
+    // Pay due amount in cents, returning the cents accepted (0 if the payment was rejected)
+    public long payDueCents(long cents) {
+        return payDueCents(cents, System.currentTimeMillis());
+    }
+    
+    // Pay due amount in cents, posting the payment to the ledger at the given time
+    long payDueCents(long cents, long timeMillis) {
+        if (cents <= 0) {
+            AuditLog.DEFAULT.record(AuditLog.Event.PAYMENT_REJECTED, this, cents, 0, "invalid amount");
+            return 0;
         }
         
         if (paymentComplete) {
-            System.out.println("Payment is already complete for " + name);
-            return false;
+            AuditLog.DEFAULT.record(AuditLog.Event.PAYMENT_REJECTED, this, cents, 0, "already complete");
+            return 0;
         }
         
-        double remainingAmount = PREMIUM_CHARGE - paidAmount;
+        long oldPaidCents = getPaidCents();
+        long remainingCents = PREMIUM_CHARGE_CENTS - oldPaidCents;
         
-        if (amount > remainingAmount) {
-            System.out.println("Payment amount exceeds the remaining due. Adjusting to " + remainingAmount);
-            amount = remainingAmount;
+        if (cents > remainingCents) {
+            AuditLog.DEFAULT.record(AuditLog.Event.PAYMENT_ADJUSTED, this, cents, remainingCents, null);
+            cents = remainingCents;
         }
         
-        paidAmount += amount;
+        account.post(PaymentLedger.EntryType.PAYMENT, cents, timeMillis);
+        fireChange(MemberField.PAID_AMOUNT, oldPaidCents);
         
         // Check if payment is complete
-        if (paidAmount >= PREMIUM_CHARGE) {
-            paymentComplete = true;
-            System.out.println("Payment completed for " + name);
+        long paidCents = getPaidCents();
+        if (paidCents >= PREMIUM_CHARGE_CENTS) {
+            setPaymentComplete(true);
+            AuditLog.DEFAULT.record(AuditLog.Event.PAYMENT_COMPLETED, this, cents, 0, null);
         } else {
-            System.out.println("Payment of " + amount + " received. Remaining due: " + (PREMIUM_CHARGE - paidAmount));
+            AuditLog.DEFAULT.record(AuditLog.Event.PAYMENT_RECEIVED, this, cents, PREMIUM_CHARGE_CENTS - paidCents, null);
         }
         
-        return true;
+        return cents;
     }
     
     // Calculate discount
     public double calculateDiscount() {
+        return toAmount(calculateDiscountCents());
+    }
+    
+    // Calculate discount in cents
+    public long calculateDiscountCents() {
+        return calculateDiscountCents(System.currentTimeMillis());
+    }
+    
+    // Calculate discount in cents, posting it to the ledger at the given time
+    long calculateDiscountCents(long timeMillis) {
         if (paymentComplete) {
-            discountAmount = PREMIUM_CHARGE * DISCOUNT_PERCENTAGE;
-            System.out.println("Discount of " + discountAmount + " applied for " + name);
-            return discountAmount;
+            long old = getDiscountCents();
+            // A discount already in the ledger is not posted again on every click
+            if (old != DISCOUNT_CENTS) {
+                account.post(PaymentLedger.EntryType.DISCOUNT, DISCOUNT_CENTS, timeMillis);
+                fireChange(MemberField.DISCOUNT_AMOUNT, old);
+            }
+            AuditLog.DEFAULT.record(AuditLog.Event.DISCOUNT_APPLIED, this, DISCOUNT_CENTS, 0, null);
+            return DISCOUNT_CENTS;
         } else {
-            System.out.println("Cannot apply discount. Payment is not complete for " + name);
-            return 0.0;
+            AuditLog.DEFAULT.record(AuditLog.Event.DISCOUNT_REJECTED, this);
+            return 0;
         }
     }
     
     // Revert premium member
     public void revertPremiumMember() {
+        revertPremiumMember(System.currentTimeMillis(), true);
+    }
+    
+    // Revert premium member; post is false when the ledger already holds the revert
+    void revertPremiumMember(long timeMillis, boolean post) {
         resetMember();
-        this.paymentComplete = false;
-        this.paidAmount = 0.0;
-        this.discountAmount = 0.0;
-        System.out.println("Premium member reverted for " + name);
+        setPaymentComplete(false);
+        if (post) {
+            long oldPaidCents = getPaidCents();
+            long oldDiscountCents = getDiscountCents();
+            account.post(PaymentLedger.EntryType.REVERT, oldPaidCents, timeMillis);
+            if (oldPaidCents != 0) {
+                fireChange(MemberField.PAID_AMOUNT, oldPaidCents);
+            }
+            if (oldDiscountCents != 0) {
+                fireChange(MemberField.DISCOUNT_AMOUNT, oldDiscountCents);
+            }
+        }
+        AuditLog.DEFAULT.record(AuditLog.Event.PREMIUM_REVERTED, this);
+    }
+    
+    // Switch to a ledger account, adopting its balances
+    void setAccount(PaymentLedger.Account account) {
+        long oldPaidCents = getPaidCents();
+        long oldDiscountCents = getDiscountCents();
+        this.account = account;
+        if (account.getPaidCents() != oldPaidCents || account.getDiscountCents() != oldDiscountCents) {
+            setPaymentComplete(account.getPaidCents() >= PREMIUM_CHARGE_CENTS);
+        }
+        if (account.getPaidCents() != oldPaidCents) {
+            fireChange(MemberField.PAID_AMOUNT, oldPaidCents);
+        }
+        if (account.getDiscountCents() != oldDiscountCents) {
+            fireChange(MemberField.DISCOUNT_AMOUNT, oldDiscountCents);
+        }
     }
     
     // Display premium member details
@@ -91,19 +170,23 @@ public class PremiumMember extends GymMember {
         super.display();
         System.out.println("Member Type: Premium");
         System.out.println("Premium Charge: " + PREMIUM_CHARGE);
-        System.out.println("Personal Trainer: " + personalTrainer);
+        System.out.println("Personal Trainer: " + getPersonalTrainer());
         System.out.println("Payment Status: " + (paymentComplete ? "Complete" : "Incomplete"));
-        System.out.println("Paid Amount: " + paidAmount);
-        System.out.println("Remaining Amount: " + (PREMIUM_CHARGE - paidAmount));
-        if (discountAmount > 0) {
-            System.out.println("Discount Amount: " + discountAmount);
-            System.out.println("Final Amount After Discount: " + (PREMIUM_CHARGE - discountAmount));
+        System.out.println("Paid Amount: " + toAmount(getPaidCents()));
+        System.out.println("Remaining Amount: " + toAmount(PREMIUM_CHARGE_CENTS - getPaidCents()));
+        if (getDiscountCents() > 0) {
+            System.out.println("Discount Amount: " + toAmount(getDiscountCents()));
+            System.out.println("Final Amount After Discount: " + toAmount(PREMIUM_CHARGE_CENTS - getDiscountCents()));
         }
     }
     
     // Getters and Setters
     public String getPersonalTrainer() {
-        return personalTrainer;
+        return MemberDictionary.TRAINERS.decode(trainerCode);
+    }
+
+    int getPersonalTrainerCode() {
+        return trainerCode;
     }
     
     public boolean isPaymentComplete() {
@@ -111,41 +194,91 @@ public class PremiumMember extends GymMember {
     }
     
     public double getPaidAmount() {
-        return paidAmount;
+        return toAmount(getPaidCents());
+    }
+    
+    public long getPaidCents() {
+        return account.getPaidCents();
     }
     
     public double getDiscountAmount() {
-        return discountAmount;
+        return toAmount(getDiscountCents());
+    }
+    
+    public long getDiscountCents() {
+        return account.getDiscountCents();
     }
     
     public static double getPremiumCharge() {
         return PREMIUM_CHARGE;
     }
     
+    public static long getPremiumChargeCents() {
+        return PREMIUM_CHARGE_CENTS;
+    }
+    
+    // Convert between amounts and whole cents
+    public static long toCents(double amount) {
+        return Math.round(amount * 100);
+    }
+    
+    public static double toAmount(long cents) {
+        return cents / 100.0;
+    }
+    
     public void setPersonalTrainer(String personalTrainer) {
-        this.personalTrainer = personalTrainer;
+        int old = this.trainerCode;
+        this.trainerCode = MemberDictionary.TRAINERS.encode(personalTrainer);
+        if (old != trainerCode) {
+            fireChange(MemberField.PERSONAL_TRAINER, MemberDictionary.TRAINERS.decode(old));
+        }
     }
     
     public void setPaymentComplete(boolean paymentComplete) {
+        boolean old = this.paymentComplete;
         this.paymentComplete = paymentComplete;
+        if (old != paymentComplete) {
+            fireChange(MemberField.PAYMENT_COMPLETE, old);
+        }
     }
     
     public void setPaidAmount(double paidAmount) {
-        this.paidAmount = paidAmount;
-        if (this.paidAmount >= PREMIUM_CHARGE) {
-            this.paymentComplete = true;
+        setPaidCents(toCents(paidAmount));
+    }
+    
+    // Posts the difference to the ledger as an adjustment
+    public void setPaidCents(long paidCents) {
+        long old = getPaidCents();
+        if (old != paidCents) {
+            account.post(PaymentLedger.EntryType.ADJUSTMENT, paidCents - old, System.currentTimeMillis());
+            fireChange(MemberField.PAID_AMOUNT, old);
+        }
+        if (paidCents >= PREMIUM_CHARGE_CENTS) {
+            setPaymentComplete(true);
         }
     }
     
     public void setDiscountAmount(double discountAmount) {
-        this.discountAmount = discountAmount;
+        setDiscountCents(toCents(discountAmount));
     }
     
-    // Method to convert to string for file storage
-    public String toFileString() {
-        return "PREMIUM," + id + "," + name + "," + phoneNumber + "," + email + "," + gender + "," +
-               dateOfBirth.format(DATE_FORMATTER) + "," + membershipStartDate.format(DATE_FORMATTER) + "," +
-               attendanceCount + "," + loyaltyPoints + "," + activeStatus + "," +
-               personalTrainer + "," + paymentComplete + "," + paidAmount + "," + discountAmount;
+    public void setDiscountCents(long discountCents) {
+        long old = getDiscountCents();
+        if (old != discountCents) {
+            account.post(PaymentLedger.EntryType.DISCOUNT, discountCents, System.currentTimeMillis());
+            fireChange(MemberField.DISCOUNT_AMOUNT, old);
+        }
+    }
+    
+    // Append the file storage line for this member
+    @Override
+    public void appendFileString(StringBuilder line) {
+        line.append("PREMIUM,");
+        appendCommonFields(line);
+        line.append(',');
+        MemberFileFormat.appendField(line, getPersonalTrainer());
+        line.append(',').append(paymentComplete)
+            .append(',').append(toAmount(getPaidCents()))
+            .append(',').append(toAmount(getDiscountCents()));
     }
 }
\ No newline at end of file
@@ -1,12 +1,13 @@
 import java.time.LocalDate;
+import java.util.Objects;
 
 public class RegularMember extends GymMember {
-    private static final int ATTENDANCE_LIMIT = 30;
-    private boolean eligibleForUpgrade;
-    private String membershipPlan; // Basic, Standard, Deluxe
-    private double price;
-    private String referralSource;
-    private String removalReason;
+    static final int ATTENDANCE_LIMIT = 30;
+    private volatile boolean eligibleForUpgrade;
+    private volatile int planCode; // Basic, Standard, Deluxe in MemberDictionary.PLANS
+    private volatile double price;
+    private int referralCode; // MemberDictionary.REFERRAL_SOURCES
+    private volatile String removalReason;
     
     // Plan prices
     private static final double BASIC_PRICE = 6500.0;
@@ -18,8 +19,8 @@ public class RegularMember extends GymMember {
                          String gender, LocalDate dateOfBirth, LocalDate membershipStartDate,
                          String membershipPlan, String referralSource) {
         super(id, name, phoneNumber, email, gender, dateOfBirth, membershipStartDate);
-        this.membershipPlan = membershipPlan;
-        this.referralSource = referralSource;
+        this.planCode = MemberDictionary.PLANS.encode(membershipPlan);
+        this.referralCode = MemberDictionary.REFERRAL_SOURCES.encode(referralSource);
         this.eligibleForUpgrade = false;
         this.removalReason = "";
         
@@ -27,22 +28,51 @@ public class RegularMember extends GymMember {
         setPriceBasedOnPlan();
     }
     
+    // Copy constructor
+    private RegularMember(RegularMember other) {
+        super(other);
+        this.eligibleForUpgrade = other.eligibleForUpgrade;
+        this.planCode = other.planCode;
+        this.price = other.price;
+        this.referralCode = other.referralCode;
+        this.removalReason = other.removalReason;
+    }
+    
+    @Override
+    public RegularMember copy() {
+        return new RegularMember(this);
+    }
+    
+    // Set the plan and its price, reporting both changes
+    private void changePlan(String newPlan) {
+        int oldPlan = this.planCode;
+        double oldPrice = this.price;
+        this.planCode = MemberDictionary.PLANS.encode(newPlan);
+        setPriceBasedOnPlan();
+        if (planCode != oldPlan) {
+            fireChange(MemberField.MEMBERSHIP_PLAN, MemberDictionary.PLANS.decode(oldPlan));
+        }
+        if (price != oldPrice) {
+            fireChange(MemberField.PRICE, PremiumMember.toCents(oldPrice));
+        }
+    }
+    
     // Set price based on membership plan
     private void setPriceBasedOnPlan() {
-        switch (membershipPlan.toLowerCase()) {
-            case "basic":
-                this.price = BASIC_PRICE;
-                break;
-            case "standard":
-                this.price = STANDARD_PRICE;
-                break;
-            case "deluxe":
-                this.price = DELUXE_PRICE;
-                break;
-            default:
-                this.price = BASIC_PRICE; // Default to basic if invalid plan
-                this.membershipPlan = "Basic";
-                break;
+        // equalsIgnoreCase avoids a lower-cased copy of the plan for every member loaded
+        String membershipPlan = getMembershipPlan();
+        if (membershipPlan == null) {
+            this.price = BASIC_PRICE;
+            this.planCode = MemberDictionary.PLANS.encode("Basic");
+        } else if (membershipPlan.equalsIgnoreCase("basic")) {
+            this.price = BASIC_PRICE;
+        } else if (membershipPlan.equalsIgnoreCase("standard")) {
+            this.price = STANDARD_PRICE;
+        } else if (membershipPlan.equalsIgnoreCase("deluxe")) {
+            this.price = DELUXE_PRICE;
+        } else {
+            this.price = BASIC_PRICE; // Default to basic if invalid plan
+            this.planCode = MemberDictionary.PLANS.encode("Basic");
         }
     }
     
@@ -50,45 +80,47 @@ public class RegularMember extends GymMember {
     @Override
     public void markAttendance() {
         if (activeStatus) {
+            int oldAttendance = attendanceCount;
+            int oldLoyaltyPoints = loyaltyPoints;
             attendanceCount++;
             loyaltyPoints += 5; // 5 loyalty points per visit
+            fireAttendanceChange(oldAttendance, oldLoyaltyPoints);
             
             // Check if attendance limit reached
             if (attendanceCount >= ATTENDANCE_LIMIT) {
-                eligibleForUpgrade = true;
-                System.out.println(name + " has reached the attendance limit and is eligible for an upgrade.");
+                setEligibleForUpgrade(true);
+                AuditLog.DEFAULT.record(AuditLog.Event.UPGRADE_ELIGIBLE, this, attendanceCount, 0, null);
             }
             
-            System.out.println("Attendance marked for " + name + ". Total attendance: " + attendanceCount);
+            AuditLog.DEFAULT.record(AuditLog.Event.ATTENDANCE_MARKED, this, attendanceCount, 0, null);
         } else {
-            System.out.println("Cannot mark attendance. Membership is not active for " + name);
+            AuditLog.DEFAULT.record(AuditLog.Event.ATTENDANCE_REJECTED, this);
         }
     }
     
     // Upgrade plan
     public boolean upgradePlan(String newPlan) {
-        String currentPlan = membershipPlan.toLowerCase();
+        String currentPlan = getMembershipPlan().toLowerCase();
         String upgradePlan = newPlan.toLowerCase();
         
         // Validate upgrade path (cannot downgrade)
         if ((currentPlan.equals("basic") && (upgradePlan.equals("standard") || upgradePlan.equals("deluxe"))) ||
             (currentPlan.equals("standard") && upgradePlan.equals("deluxe"))) {
             
-            this.membershipPlan = newPlan;
-            setPriceBasedOnPlan();
-            System.out.println(name + "'s plan upgraded to " + newPlan);
+            changePlan(newPlan);
+            AuditLog.DEFAULT.record(AuditLog.Event.PLAN_UPGRADED, this, newPlan);
             return true;
         } else {
-            System.out.println("Invalid upgrade path. Cannot downgrade or upgrade to the same plan.");
+            AuditLog.DEFAULT.record(AuditLog.Event.UPGRADE_REJECTED, this, newPlan);
             return false;
         }
     }
     
     // Revert regular member
     public void revertRegularMember(String reason) {
-        this.removalReason = reason;
+        setRemovalReason(reason);
         resetMember();
-        System.out.println("Regular member reverted. Reason: " + reason);
+        AuditLog.DEFAULT.record(AuditLog.Event.REGULAR_REVERTED, this, reason);
     }
     
     // Display regular member details
@@ -96,9 +128,9 @@ public class RegularMember extends GymMember {
     public void display() {
         super.display();
         System.out.println("Member Type: Regular");
-        System.out.println("Membership Plan: " + membershipPlan);
+        System.out.println("Membership Plan: " + getMembershipPlan());
         System.out.println("Price: " + price);
-        System.out.println("Referral Source: " + referralSource);
+        System.out.println("Referral Source: " + getReferralSource());
         System.out.println("Eligible for Upgrade: " + (eligibleForUpgrade ? "Yes" : "No"));
         if (!removalReason.isEmpty()) {
             System.out.println("Removal Reason: " + removalReason);
@@ -107,7 +139,11 @@ public class RegularMember extends GymMember {
     
     // Getters and Setters
     public String getMembershipPlan() {
-        return membershipPlan;
+        return MemberDictionary.PLANS.decode(planCode);
+    }
+
+    int getMembershipPlanCode() {
+        return planCode;
     }
     
     public double getPrice() {
@@ -115,7 +151,11 @@ public class RegularMember extends GymMember {
     }
     
     public String getReferralSource() {
-        return referralSource;
+        return MemberDictionary.REFERRAL_SOURCES.decode(referralCode);
+    }
+
+    int getReferralSourceCode() {
+        return referralCode;
     }
     
     public boolean isEligibleForUpgrade() {
@@ -127,27 +167,43 @@ public class RegularMember extends GymMember {
     }
     
     public void setMembershipPlan(String membershipPlan) {
-        this.membershipPlan = membershipPlan;
-        setPriceBasedOnPlan();
+        changePlan(membershipPlan);
     }
     
     public void setReferralSource(String referralSource) {
-        this.referralSource = referralSource;
+        int old = this.referralCode;
+        this.referralCode = MemberDictionary.REFERRAL_SOURCES.encode(referralSource);
+        if (old != referralCode) {
+            fireChange(MemberField.REFERRAL_SOURCE, MemberDictionary.REFERRAL_SOURCES.decode(old));
+        }
     }
     
     public void setEligibleForUpgrade(boolean eligibleForUpgrade) {
+        boolean old = this.eligibleForUpgrade;
         this.eligibleForUpgrade = eligibleForUpgrade;
+        if (old != eligibleForUpgrade) {
+            fireChange(MemberField.ELIGIBLE_FOR_UPGRADE, old);
+        }
     }
     
     public void setRemovalReason(String removalReason) {
+        String old = this.removalReason;
         this.removalReason = removalReason;
+        if (!Objects.equals(old, removalReason)) {
+            fireChange(MemberField.REMOVAL_REASON, old);
+        }
     }
     
-    // Method to convert to string for file storage
-    public String toFileString() {
-        return "REGULAR," + id + "," + name + "," + phoneNumber + "," + email + "," + gender + "," +
-               dateOfBirth.format(DATE_FORMATTER) + "," + membershipStartDate.format(DATE_FORMATTER) + "," +
-               attendanceCount + "," + loyaltyPoints + "," + activeStatus + "," +
-               membershipPlan + "," + price + "," + referralSource + "," + eligibleForUpgrade + "," + removalReason;
+    // Append the file storage line for this member
+    @Override
+    public void appendFileString(StringBuilder line) {
+        line.append("REGULAR,");
+        appendCommonFields(line);
+        line.append(',');
+        MemberFileFormat.appendField(line, getMembershipPlan());
+        line.append(',').append(price).append(',');
+        MemberFileFormat.appendField(line, getReferralSource());
+        line.append(',').append(eligibleForUpgrade).append(',');
+        MemberFileFormat.appendField(line, removalReason);
     }
 }
\ No newline at end of file
@@ -0,0 +1,140 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Append-only off-heap storage for variable-length strings
+ *
+ * Strings are stored as UTF-8 with an int length prefix in direct
+ * ByteBuffers of SEGMENT_SIZE bytes, outside the Java heap, and referred to
+ * by an int reference (segment number and offset) instead of a String
+ * object. The garbage collector sees one buffer per megabyte of text rather
+ * than several objects per string.
+ *
+ * Strings are never moved or freed: replacing a value means adding the new
+ * one, and the old bytes stay until the arena is discarded. This suits
+ * member fields, which rarely change. The arena holds at most 2 GB.
+ *
+ * add() is synchronized. get() and matches() take no lock; the caller must
+ * have received the reference through a lock or other safe publication, as
+ * OffHeapMemberStore does.
+ */
+public class StringArena {
+
+    /**
+     * Reference stored for a null string
+     */
+    public static final int NULL = -1;
+
+    private static final int SEGMENT_BITS = 20;
+
+    public static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+
+    private static final int OFFSET_MASK = SEGMENT_SIZE - 1;
+
+    private static final int MAX_SEGMENTS = (1 << (31 - SEGMENT_BITS)) - 1;
+
+    private volatile ByteBuffer[] segments = new ByteBuffer[4];
+
+    private int segmentCount;
+
+    // Next free byte in the last segment
+    private int position = SEGMENT_SIZE;
+
+    private long usedBytes;
+
+    /**
+     * Stores a string
+     *
+     * @param value The string, or null
+     * @return Its reference, or NULL for null
+     * @throws IllegalArgumentException if the string does not fit in one segment
+     * @throws IllegalStateException if the arena is full
+     */
+    public synchronized int add(String value) {
+        if (value == null) {
+            return NULL;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int needed = Integer.BYTES + bytes.length;
+        if (needed > SEGMENT_SIZE) {
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long for the arena");
+        }
+        if (position + needed > SEGMENT_SIZE) {
+            addSegment();
+        }
+        ByteBuffer segment = segments[segmentCount - 1];
+        int offset = position;
+        segment.putInt(offset, bytes.length);
+        segment.put(offset + Integer.BYTES, bytes);
+        position += needed;
+        usedBytes += needed;
+        return ((segmentCount - 1) << SEGMENT_BITS) | offset;
+    }
+
+    /**
+     * Reads a string back
+     *
+     * @param ref A reference returned by add(), or NULL
+     * @return A new String with the stored value, or null for NULL
+     */
+    public String get(int ref) {
+        if (ref == NULL) {
+            return null;
+        }
+        ByteBuffer segment = segments[ref >>> SEGMENT_BITS];
+        int offset = ref & OFFSET_MASK;
+        byte[] bytes = new byte[segment.getInt(offset)];
+        segment.get(offset + Integer.BYTES, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether a stored string has exactly the given UTF-8 bytes, without decoding it
+     */
+    public boolean matches(int ref, byte[] utf8) {
+        if (ref == NULL) {
+            return false;
+        }
+        ByteBuffer segment = segments[ref >>> SEGMENT_BITS];
+        int offset = ref & OFFSET_MASK;
+        if (segment.getInt(offset) != utf8.length) {
+            return false;
+        }
+        int start = offset + Integer.BYTES;
+        for (int i = 0; i < utf8.length; i++) {
+            if (segment.get(start + i) != utf8[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the bytes held by stored strings, including replaced ones
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Returns the off-heap memory reserved by the arena
+     */
+    public synchronized long getCapacityBytes() {
+        return (long) segmentCount * SEGMENT_SIZE;
+    }
+
+    private void addSegment() {
+        if (segmentCount == MAX_SEGMENTS) {
+            throw new IllegalStateException("String arena is full");
+        }
+        ByteBuffer[] current = segments;
+        if (segmentCount == current.length) {
+            ByteBuffer[] grown = new ByteBuffer[current.length * 2];
+            System.arraycopy(current, 0, grown, 0, segmentCount);
+            current = grown;
+        }
+        current[segmentCount++] = ByteBuffer.allocateDirect(SEGMENT_SIZE);
+        segments = current;
+        position = 0;
+    }
+}
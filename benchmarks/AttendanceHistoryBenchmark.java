@@ -0,0 +1,154 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures the size and query speed of AttendanceHistory
+ *
+ * Records several years of visits (about three a week, at random times of
+ * day) for every member, then reports bytes per visit and the time of the
+ * history queries. Query results for a sample of members are checked against
+ * the recorded times, and the history is written and read back; the run
+ * exits with status 1 if anything differs.
+ *
+ * Run from the project directory:
+ *   javac -d out *.java benchmarks/*.java
+ *   java -cp out AttendanceHistoryBenchmark [members] [years]
+ */
+public class AttendanceHistoryBenchmark {
+
+    private static final int SAMPLE = 200;
+
+    public static void main(String[] args) throws Exception {
+        int memberCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int years = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        AttendanceHistory history = new AttendanceHistory(ZoneOffset.UTC);
+        LocalDate firstDay = LocalDate.of(2023, 1, 1);
+        int days = years * 365;
+        long[][] sample = new long[SAMPLE][];
+
+        Random random = new Random(42);
+        long started = System.nanoTime();
+        long visits = 0;
+        for (int m = 0; m < memberCount; m++) {
+            String id = Integer.toString(m + 1);
+            long[] times = new long[days];
+            int count = 0;
+            for (int day = 0; day < days; day++) {
+                if (random.nextInt(7) < 3) {
+                    long seconds = (firstDay.toEpochDay() + day) * 86_400L + 6 * 3600 + random.nextInt(15 * 3600);
+                    history.record(id, seconds * 1000);
+                    times[count++] = seconds;
+                }
+            }
+            visits += count;
+            if (m < SAMPLE) {
+                sample[m] = Arrays.copyOf(times, count);
+            }
+        }
+        long recordNanos = System.nanoTime() - started;
+
+        long footprint = history.getFootprintBytes();
+        System.out.printf("%,d members, %d years, %,d visits recorded in %.0f ms (%.0f ns/visit)%n",
+            memberCount, years, visits, recordNanos / 1e6, (double) recordNanos / visits);
+        System.out.printf("Footprint %.1f MB, %.2f bytes/visit (vs %d for a long[] and ~%d for a List<LocalDateTime>)%n",
+            footprint / 1e6, (double) footprint / visits, 8, 72);
+
+        int failures = 0;
+        LocalDate rangeStart = firstDay.plusDays(days / 2);
+        LocalDate rangeEnd = rangeStart.plusDays(30);
+        for (int m = 0; m < SAMPLE; m++) {
+            String id = Integer.toString(m + 1);
+            long[] times = sample[m];
+            long from = rangeStart.toEpochDay() * 86_400L;
+            long to = (rangeEnd.toEpochDay() + 1) * 86_400L;
+            int expected = 0;
+            int[] expectedWeekdays = new int[7];
+            for (long time : times) {
+                if (time >= from && time < to) {
+                    expected++;
+                }
+                expectedWeekdays[LocalDateTime.ofEpochSecond(time, 0, ZoneOffset.UTC).getDayOfWeek().getValue() - 1]++;
+            }
+            LocalDateTime expectedLast = LocalDateTime.ofEpochSecond(times[times.length - 1], 0, ZoneOffset.UTC);
+            if (history.countVisits(id, rangeStart, rangeEnd) != expected
+                    || history.getVisits(id, rangeStart, rangeEnd).length != expected
+                    || !expectedLast.equals(history.getLastVisit(id))
+                    || !Arrays.equals(expectedWeekdays, history.getVisitsByWeekday(id))) {
+                failures++;
+            }
+        }
+
+        Random queries = new Random(7);
+        int iterations = 200_000;
+        long sink = 0;
+        started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            String id = Integer.toString(queries.nextInt(memberCount) + 1);
+            LocalDate from = firstDay.plusDays(queries.nextInt(days - 31));
+            sink += history.countVisits(id, from, from.plusDays(30));
+        }
+        report("countVisits (30 days)", System.nanoTime() - started, iterations);
+
+        started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += history.getLastVisit(Integer.toString(queries.nextInt(memberCount) + 1)).getHour();
+        }
+        report("getLastVisit", System.nanoTime() - started, iterations);
+
+        int weekdayIterations = iterations / 10;
+        started = System.nanoTime();
+        for (int i = 0; i < weekdayIterations; i++) {
+            sink += history.getVisitsByWeekday(Integer.toString(queries.nextInt(memberCount) + 1))[0];
+        }
+        report("getVisitsByWeekday", System.nanoTime() - started, weekdayIterations);
+
+        started = System.nanoTime();
+        int[] hours = history.getVisitsByHour(firstDay, firstDay.plusDays(days));
+        long hourNanos = System.nanoTime() - started;
+        int peak = 0;
+        for (int h = 1; h < 24; h++) {
+            if (hours[h] > hours[peak]) {
+                peak = h;
+            }
+        }
+        System.out.printf("getVisitsByHour over all visits: %.0f ms, peak hour %02d:00%n", hourNanos / 1e6, peak);
+
+        Path file = Files.createTempFile("members", ".visits");
+        try {
+            started = System.nanoTime();
+            history.write(file, 1);
+            long writeNanos = System.nanoTime() - started;
+            AttendanceHistory loaded = new AttendanceHistory(ZoneOffset.UTC);
+            started = System.nanoTime();
+            loaded.read(file);
+            long readNanos = System.nanoTime() - started;
+            System.out.printf("File %.1f MB, written in %.0f ms, read in %.0f ms%n",
+                Files.size(file) / 1e6, writeNanos / 1e6, readNanos / 1e6);
+            if (loaded.getTotalVisits() != visits
+                    || !Arrays.equals(loaded.getVisitsByHour(firstDay, firstDay.plusDays(days)), hours)) {
+                failures++;
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+
+        if (sink == 42) {
+            System.out.println();
+        }
+        if (failures > 0) {
+            System.out.println("FAIL: " + failures + " queries differ from the recorded visits");
+            System.exit(1);
+        }
+        System.out.println("OK: sampled queries and file round trip match the recorded visits");
+    }
+
+    private static void report(String query, long nanos, int iterations) {
+        System.out.printf("%-24s %8.0f ns/query%n", query, (double) nanos / iterations);
+    }
+}
@@ -0,0 +1,106 @@
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures check-in throughput and latency of CheckInServer over HTTP
+ *
+ * Starts the server in-process on an ephemeral loopback port with a number
+ * of active members, then runs client threads that each send check-ins for
+ * random members over keep-alive connections. Reports throughput and the
+ * client-side latency percentiles (including HTTP overhead) next to the
+ * server-side percentiles the server records itself.
+ *
+ * Run from the project directory:
+ *   javac -d out *.java benchmarks/*.java
+ *   java -cp out CheckInServerBenchmark [clients] [requestsPerClient] [members]
+ */
+public class CheckInServerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int requests = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+        int memberCount = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+
+        // Every member active, so each check-in is accepted
+        MemberRegistry registry = new MemberRegistry();
+        for (GymMember member : new MemberDataGenerator(memberCount, 42).members()) {
+            member.setActiveStatus(true);
+            registry.add(member);
+        }
+
+        CheckInServer server = new CheckInServer(registry, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        String base = "http://127.0.0.1:" + server.getAddress().getPort();
+
+        // Warm up the server and the client connection pool
+        runClients(base, clients, Math.min(requests, 500), memberCount, new LatencyHistogram(), new AtomicLong());
+        server.getLatency().reset();
+
+        LatencyHistogram clientLatency = new LatencyHistogram();
+        AtomicLong failures = new AtomicLong();
+        long started = System.nanoTime();
+        runClients(base, clients, requests, memberCount, clientLatency, failures);
+        long elapsed = System.nanoTime() - started;
+
+        server.stop();
+
+        long total = (long) clients * requests;
+        System.out.printf("%d clients, %,d check-ins on %,d members in %.0f ms (%,.0f check-ins/s), %s%n",
+            clients, total, memberCount, elapsed / 1e6, total / (elapsed / 1e9),
+            server.usesVirtualThreads() ? "virtual threads" : "thread pool");
+        System.out.println("Client latency: " + clientLatency.summary());
+        System.out.println("Server latency: " + server.getLatency().summary());
+        if (failures.get() > 0) {
+            System.out.println("FAIL: " + failures.get() + " requests did not return 200");
+            System.exit(1);
+        }
+    }
+
+    private static void runClients(String base, int clients, int requests, int memberCount,
+                                   LatencyHistogram latency, AtomicLong failures) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < clients; c++) {
+            Thread client = new Thread(() -> {
+                byte[] buffer = new byte[1024];
+                try {
+                    start.await();
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < requests; i++) {
+                        URL url = new URL(base + "/checkin?id=" + (random.nextInt(memberCount) + 1));
+                        long sent = System.nanoTime();
+                        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                        connection.setRequestMethod("POST");
+                        int status = connection.getResponseCode();
+                        // Drain the body so the connection is reused
+                        try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+                            while (body != null && body.read(buffer) >= 0) {
+                                // discard
+                            }
+                        }
+                        latency.record(System.nanoTime() - sent);
+                        if (status != 200) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                }
+            }, "client-" + c);
+            threads.add(client);
+            client.start();
+        }
+        start.countDown();
+        for (Thread client : threads) {
+            client.join();
+        }
+    }
+}
@@ -0,0 +1,221 @@
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Microbenchmarks of the member domain and persistence hot paths
+ *
+ * Runs each benchmark under Microbench and writes the results as
+ * gym-microbench JSON, so runs can be kept and compared over time. Scores are average
+ * nanoseconds per operation:
+ *   - RegularMember.markAttendance, PremiumMember.markAttendance
+ *   - PremiumMember.payDueAmount, one instalment (the member is reset
+ *     whenever the charge is paid off)
+ *   - RegularMember.setMembershipPlan, which reprices the member through
+ *     setPriceBasedOnPlan, cycling through the three plans
+ *   - RegularMember.toFileString, PremiumMember.toFileString
+ *   - ParallelMemberLoader.load, the parse loop behind Read from File, for a
+ *     whole file of the given number of rows
+ *   - MemberRegistry.findById at 1,000, 100,000 and 1,000,000 members
+ *   - MemberTableModel.getValueAt, every column of one row, as the Member
+ *     List builds the rows it paints after refreshMemberTable
+ *
+ * Members come from MemberDataGenerator with a fixed seed. The audit log
+ * is not started, so member operations measure without it; LoadDriver runs
+ * them with the log writing.
+ *
+ * The run exits with status 1 if a benchmark produced no finite score.
+ * 1M registry members need roughly 2.5 GB of heap; the optional filter is a
+ * regular expression matched against the benchmark names.
+ *
+ * Run from the project directory:
+ *   javac -d out *.java benchmarks/*.java
+ *   java -Xms3g -Xmx3g -cp out HotPathBenchmark [results.json] [filter]
+ */
+public class HotPathBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+
+    private static final int MEASUREMENT_ITERATIONS = 10;
+
+    private static final long ITERATION_MILLIS = 500;
+
+    private static final int[] REGISTRY_SIZES = {1_000, 100_000, 1_000_000};
+
+    private static final int TABLE_MEMBERS = 100_000;
+
+    private static final int LOAD_ROWS = 10_000;
+
+    private static final String[] PLANS = {"Basic", "Standard", "Deluxe"};
+
+    private static final long SEED = 42;
+
+    // Lookups cycle through this many random IDs, so the IDs are not all cache-resident
+    private static final int LOOKUP_IDS = 1 << 16;
+
+    private static Pattern filter;
+
+    public static void main(String[] args) throws Exception {
+        Path output = Paths.get(args.length > 0 ? args[0] : "hotpath-results.json");
+        filter = Pattern.compile(args.length > 1 ? args[1] : ".*");
+
+        PrintStream console = System.out;
+        Microbench bench = new Microbench(WARMUP_ITERATIONS, MEASUREMENT_ITERATIONS, ITERATION_MILLIS);
+        memberBenchmarks(bench, console);
+        loadBenchmark(bench, console);
+        registryBenchmarks(bench, console);
+
+        bench.writeJson(output);
+        int failures = 0;
+        for (Microbench.Result result : bench.getResults()) {
+            if (!Double.isFinite(result.getScore())) {
+                failures++;
+            }
+        }
+        if (failures > 0) {
+            console.println("FAIL: " + failures + " benchmarks produced no score");
+            System.exit(1);
+        }
+        console.println("OK: " + bench.getResults().size() + " results written to " + output);
+    }
+
+    private static void memberBenchmarks(Microbench bench, PrintStream console) throws Exception {
+        MemberDataGenerator generator = new MemberDataGenerator(2, SEED);
+        RegularMember regular = (RegularMember) generator.member(1, false);
+        PremiumMember premium = (PremiumMember) generator.member(2, true);
+        regular.setActiveStatus(true);
+        premium.setActiveStatus(true);
+
+        run(bench, console, "RegularMember.markAttendance", params(), ops -> {
+            regular.setAttendanceCount(0);
+            regular.setLoyaltyPoints(0);
+            for (long i = 0; i < ops; i++) {
+                regular.markAttendance();
+            }
+            return regular.getLoyaltyPoints();
+        });
+        run(bench, console, "PremiumMember.markAttendance", params(), ops -> {
+            premium.setAttendanceCount(0);
+            premium.setLoyaltyPoints(0);
+            for (long i = 0; i < ops; i++) {
+                premium.markAttendance();
+            }
+            return premium.getLoyaltyPoints();
+        });
+        run(bench, console, "PremiumMember.payDueAmount", params(), ops -> {
+            long accepted = 0;
+            for (long i = 0; i < ops; i++) {
+                if (premium.isPaymentComplete()) {
+                    premium.setPaymentComplete(false);
+                    premium.setPaidCents(0);
+                }
+                accepted += premium.payDueAmount(125.50) ? 1 : 0;
+            }
+            return accepted;
+        });
+        run(bench, console, "RegularMember.setMembershipPlan", params(), ops -> {
+            long prices = 0;
+            for (long i = 0; i < ops; i++) {
+                regular.setMembershipPlan(PLANS[(int) (i % PLANS.length)]);
+                prices += (long) regular.getPrice();
+            }
+            return prices;
+        });
+        run(bench, console, "RegularMember.toFileString", params(), ops -> {
+            long length = 0;
+            for (long i = 0; i < ops; i++) {
+                length += regular.toFileString().length();
+            }
+            return length;
+        });
+        run(bench, console, "PremiumMember.toFileString", params(), ops -> {
+            long length = 0;
+            for (long i = 0; i < ops; i++) {
+                length += premium.toFileString().length();
+            }
+            return length;
+        });
+    }
+
+    private static void loadBenchmark(Microbench bench, PrintStream console) throws Exception {
+        if (!filter.matcher("ParallelMemberLoader.load").find()) {
+            return;
+        }
+        Path file = Files.createTempFile("members", ".txt");
+        try {
+            MemberFileFormat.write(file, new MemberDataGenerator(LOAD_ROWS, SEED).members(), 0);
+            ParallelMemberLoader loader = new ParallelMemberLoader();
+            run(bench, console, "ParallelMemberLoader.load", params("rows", LOAD_ROWS), ops -> {
+                long loaded = 0;
+                for (long i = 0; i < ops; i++) {
+                    ParallelMemberLoader.Result result = loader.load(file, percent -> { });
+                    loaded += result.getRegistry().size() + result.getErrorCount();
+                }
+                return loaded;
+            });
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void registryBenchmarks(Microbench bench, PrintStream console) throws Exception {
+        boolean lookups = filter.matcher("MemberRegistry.findById").find();
+        boolean table = filter.matcher("MemberTableModel.getValueAt").find();
+        for (int size : REGISTRY_SIZES) {
+            if (!lookups && !(table && size == TABLE_MEMBERS)) {
+                continue;
+            }
+            MemberRegistry registry = new MemberDataGenerator(size, SEED).registry();
+            Random random = new Random(size);
+            String[] ids = new String[LOOKUP_IDS];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = Integer.toString(random.nextInt(size) + 1);
+            }
+            run(bench, console, "MemberRegistry.findById", params("members", size), ops -> {
+                long found = 0;
+                for (long i = 0; i < ops; i++) {
+                    GymMember member = registry.findById(ids[(int) (i & (LOOKUP_IDS - 1))]);
+                    found += member != null ? member.getAttendanceCount() + 1 : 0;
+                }
+                return found;
+            });
+            if (size == TABLE_MEMBERS) {
+                MemberTableModel model = new MemberTableModel(registry);
+                int columns = model.getColumnCount();
+                run(bench, console, "MemberTableModel.getValueAt", params("members", size), ops -> {
+                    long cells = 0;
+                    for (long i = 0; i < ops; i++) {
+                        int row = (int) (i % size);
+                        for (int column = 0; column < columns; column++) {
+                            cells += model.getValueAt(row, column).hashCode();
+                        }
+                    }
+                    return cells;
+                });
+            }
+        }
+    }
+
+    private static void run(Microbench bench, PrintStream console, String name, Map<String, String> params,
+                            Microbench.Loop loop) throws Exception {
+        if (!filter.matcher(name).find()) {
+            return;
+        }
+        Microbench.Result result = bench.run(name, params, loop);
+        console.printf("%-34s %-18s %12.1f +- %.1f ns/op%n", name,
+            params.isEmpty() ? "" : params.toString(), result.getScore(), result.getScoreError());
+    }
+
+    private static Map<String, String> params(Object... keysAndValues) {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            params.put(keysAndValues[i].toString(), keysAndValues[i + 1].toString());
+        }
+        return params;
+    }
+}
@@ -0,0 +1,274 @@
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a check-in, payment and activation mix against the member registry
+ *
+ * Loads a member file (or generates members with MemberDataGenerator) into a
+ * MemberRegistry, then issues operations at a fixed target rate for a fixed
+ * duration from a pool of worker threads:
+ *   - checkin: markAttendance for a member, 80% of check-ins going to a
+ *     regular crowd of 20% of the members
+ *   - payment: payDueAmount of a round instalment for a premium member
+ *   - activation: deactivates an active member or reactivates an inactive one
+ *
+ * The load is open-loop: operation n is due at start + n / rate whatever
+ * happened to earlier ones, and its latency is measured from when it was
+ * due, so stalls show up in the percentiles instead of silently lowering the
+ * offered load. Rejected operations (a check-in for an inactive member, a
+ * payment on a paid-off account) are counted separately; they are normal
+ * outcomes, not errors.
+ *
+ * Member operations are written to an audit log in a temporary file, which
+ * is deleted afterwards; the report gives the events written and dropped.
+ *
+ * A warmup of up to five seconds at the same rate runs first and is not
+ * reported. Reports throughput and a LatencyHistogram per operation type.
+ * The run exits with status 1 if it sustained less than 90% of the target
+ * rate or an operation threw.
+ *
+ * The mix is given as weights, e.g. checkin=90,payment=5,activation=5.
+ * The source is a members file, or gen:N for N generated members.
+ *
+ * Run from the project directory:
+ *   javac -d out *.java benchmarks/*.java
+ *   java -cp out LoadDriver [source] [opsPerSecond] [seconds] [mix] [threads]
+ */
+public class LoadDriver {
+
+    private static final int CHECKIN = 0;
+
+    private static final int PAYMENT = 1;
+
+    private static final int ACTIVATION = 2;
+
+    private static final String[] OPERATIONS = {"checkin", "payment", "activation"};
+
+    private static final double MIN_SUSTAINED = 0.9;
+
+    private static final int WARMUP_SECONDS = 5;
+
+    private final MemberRegistry registry;
+
+    private final String[] ids;
+
+    private final String[] premiumIds;
+
+    private final int[] mix = new int[OPERATIONS.length];
+
+    private int mixTotal;
+
+    private final LatencyHistogram[] latency = new LatencyHistogram[OPERATIONS.length];
+
+    private final AtomicLong[] rejected = new AtomicLong[OPERATIONS.length];
+
+    private final AtomicLong errors = new AtomicLong();
+
+    private long elapsedNanos;
+
+    public LoadDriver(MemberRegistry registry, String mix) {
+        this.registry = registry;
+        List<String> all = new ArrayList<>(registry.size());
+        List<String> premium = new ArrayList<>();
+        for (GymMember member : registry) {
+            all.add(member.getId());
+            if (member instanceof PremiumMember) {
+                premium.add(member.getId());
+            }
+        }
+        this.ids = all.toArray(new String[0]);
+        this.premiumIds = premium.toArray(new String[0]);
+        for (String part : mix.split(",")) {
+            String[] weight = part.trim().split("=");
+            int operation = indexOf(weight[0].trim());
+            if (operation < 0 || weight.length != 2) {
+                throw new IllegalArgumentException("Unknown mix entry '" + part + "', expected e.g. checkin=90");
+            }
+            this.mix[operation] = Integer.parseInt(weight[1].trim());
+            mixTotal += this.mix[operation];
+        }
+        if (mixTotal <= 0 || ids.length == 0) {
+            throw new IllegalArgumentException("The mix needs a positive weight and the registry at least one member");
+        }
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            latency[i] = new LatencyHistogram();
+            rejected[i] = new AtomicLong();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String source = args.length > 0 ? args[0] : "gen:100000";
+        double rate = args.length > 1 ? Double.parseDouble(args[1]) : 5_000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        String mix = args.length > 3 ? args[3] : "checkin=90,payment=5,activation=5";
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Math.max(4, Runtime.getRuntime().availableProcessors());
+
+        long loadStarted = System.nanoTime();
+        MemberRegistry registry = load(source);
+        System.out.printf("%,d members from %s in %.0f ms%n", registry.size(), source, (System.nanoTime() - loadStarted) / 1e6);
+
+        // Member operations write to the audit log as they do in the GUI
+        Path auditFile = Files.createTempFile("load-driver-audit", ".log");
+        AuditLog.DEFAULT.start(auditFile, AuditLog.DEFAULT_MAX_FILE_BYTES, 1,
+            e -> System.err.println("Error writing audit log: " + e.getMessage()));
+
+        LoadDriver driver = new LoadDriver(registry, mix);
+        // A short warmup at the same rate, so JIT compilation does not land in the percentiles
+        driver.run(rate, Math.max(1, Math.min(WARMUP_SECONDS, seconds / 5)), threads);
+        driver.reset();
+        long auditWritten = AuditLog.DEFAULT.getWritten();
+        long auditDropped = AuditLog.DEFAULT.getDropped();
+        System.out.printf("Offering %,.0f ops/s for %d s from %d threads, mix %s%n", rate, seconds, threads, mix);
+        long completed = driver.run(rate, seconds, threads);
+        AuditLog.DEFAULT.close();
+
+        double achieved = driver.report(System.out, completed);
+        System.out.printf("Audit log: %,d events written, %,d dropped%n",
+            AuditLog.DEFAULT.getWritten() - auditWritten, AuditLog.DEFAULT.getDropped() - auditDropped);
+        Files.deleteIfExists(auditFile);
+        Files.deleteIfExists(auditFile.resolveSibling(auditFile.getFileName() + ".1"));
+        if (achieved < rate * MIN_SUSTAINED || driver.errors.get() > 0) {
+            System.out.printf("FAIL: sustained %,.0f of %,.0f ops/s with %d errors%n", achieved, rate, driver.errors.get());
+            System.exit(1);
+        }
+        System.out.printf("OK: sustained %,.0f ops/s%n", achieved);
+    }
+
+    private static MemberRegistry load(String source) throws Exception {
+        if (source.startsWith("gen:")) {
+            MemberRegistry registry = new MemberRegistry();
+            for (GymMember member : new MemberDataGenerator(Integer.parseInt(source.substring(4)), 42).members()) {
+                registry.add(member);
+            }
+            return registry;
+        }
+        Path file = Paths.get(source);
+        ParallelMemberLoader.Result result = new ParallelMemberLoader().load(file, percent -> { });
+        if (result.getErrorCount() > 0) {
+            throw new IllegalArgumentException(result.getErrorCount() + " lines of " + file + " could not be loaded");
+        }
+        return result.getRegistry();
+    }
+
+    /**
+     * Offers the mix at the target rate for the given time
+     *
+     * @return The number of operations completed
+     */
+    public long run(double opsPerSecond, int seconds, int threads) throws InterruptedException {
+        long intervalNanos = Math.max(1, (long) (1e9 / opsPerSecond));
+        long total = (long) (opsPerSecond * seconds);
+        AtomicLong sequence = new AtomicLong();
+        AtomicLong completed = new AtomicLong();
+        long start = System.nanoTime();
+
+        List<Thread> workers = new ArrayList<>(threads);
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long n;
+                while ((n = sequence.getAndIncrement()) < total) {
+                    long due = start + n * intervalNanos;
+                    long wait;
+                    while ((wait = due - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                    }
+                    int operation = pick(random);
+                    try {
+                        if (!execute(operation, random)) {
+                            rejected[operation].incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        errors.incrementAndGet();
+                    }
+                    latency[operation].record(System.nanoTime() - due);
+                    completed.incrementAndGet();
+                }
+            }, "load-driver-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        elapsedNanos = System.nanoTime() - start;
+        return completed.get();
+    }
+
+    /**
+     * Clears the latencies and counts recorded so far
+     */
+    public void reset() {
+        for (int operation = 0; operation < OPERATIONS.length; operation++) {
+            latency[operation].reset();
+            rejected[operation].set(0);
+        }
+        errors.set(0);
+    }
+
+    private int pick(ThreadLocalRandom random) {
+        int value = random.nextInt(mixTotal);
+        for (int operation = 0; operation < mix.length; operation++) {
+            value -= mix[operation];
+            if (value < 0) {
+                return operation;
+            }
+        }
+        return CHECKIN;
+    }
+
+    private boolean execute(int operation, ThreadLocalRandom random) {
+        switch (operation) {
+            case CHECKIN:
+                return registry.markAttendance(regularVisitor(random));
+            case PAYMENT:
+                if (premiumIds.length == 0) {
+                    return false;
+                }
+                return registry.payDueAmount(premiumIds[random.nextInt(premiumIds.length)], 500.0 * (1 + random.nextInt(10)));
+            case ACTIVATION:
+                String id = ids[random.nextInt(ids.length)];
+                GymMember member = registry.findById(id);
+                if (member == null) {
+                    return false;
+                }
+                return member.isActiveStatus() ? registry.deactivateMembership(id) : registry.activateMembership(id);
+            default:
+                throw new IllegalStateException("Operation " + operation);
+        }
+    }
+
+    // 80% of check-ins come from the first 20% of members, the regular crowd
+    private String regularVisitor(ThreadLocalRandom random) {
+        int crowd = Math.max(1, ids.length / 5);
+        return random.nextInt(100) < 80 ? ids[random.nextInt(crowd)] : ids[random.nextInt(ids.length)];
+    }
+
+    private double report(PrintStream out, long completed) {
+        double achieved = completed / (elapsedNanos / 1e9);
+        out.printf("%,d operations in %.1f s: %,.0f ops/s, %d errors%n", completed, elapsedNanos / 1e9, achieved, errors.get());
+        for (int operation = 0; operation < OPERATIONS.length; operation++) {
+            if (latency[operation].getCount() > 0) {
+                out.printf("  %-10s rejected=%-8d %s%n", OPERATIONS[operation], rejected[operation].get(),
+                    latency[operation].summary());
+            }
+        }
+        return achieved;
+    }
+
+    private static int indexOf(String operation) {
+        for (int i = 0; i < OPERATIONS.length; i++) {
+            if (OPERATIONS[i].equals(operation)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
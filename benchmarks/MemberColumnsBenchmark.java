@@ -0,0 +1,175 @@
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares aggregate scans over MemberColumns with the same scans over member objects
+ *
+ * Builds a registry of MemberDataGenerator members, with their mix of
+ * types, statuses, attendance and dates, then times "total loyalty points of active premium
+ * members", "members who started this year" and a count of active members,
+ * first over the list of GymMember objects and then over the columns. The
+ * columns are checked against the objects after building, after a round of
+ * check-ins, payments, deactivations and removals through the registry, and
+ * after a rebuild from scratch; the run exits with status 1 if they differ.
+ *
+ * Run from the project directory (1M members need roughly 1 GB of heap):
+ *   javac -d out *.java benchmarks/*.java
+ *   java -Xmx1g -cp out MemberColumnsBenchmark [members]
+ */
+public class MemberColumnsBenchmark {
+
+    private static final int ITERATIONS = 20;
+
+    private static final long SEED = 42;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        MemberRegistry registry = new MemberDataGenerator(count, SEED).registry();
+
+        long started = System.nanoTime();
+        MemberColumns columns = registry.getColumns();
+        System.out.printf("%,d members, columns built in %.0f ms%n", count, (System.nanoTime() - started) / 1e6);
+
+        int failures = verify(registry, columns);
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 12, 31);
+        List<GymMember> objects = registry.asList();
+        long sink = 0;
+
+        started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += objectLoyalty(objects);
+        }
+        long objectLoyaltyNanos = System.nanoTime() - started;
+        started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += columns.sumLoyaltyPoints(Boolean.TRUE, Boolean.TRUE);
+        }
+        long columnLoyaltyNanos = System.nanoTime() - started;
+        report("loyalty of active premium", objectLoyaltyNanos, columnLoyaltyNanos);
+
+        started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += objectStarted(objects, from, to);
+        }
+        long objectStartedNanos = System.nanoTime() - started;
+        started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += columns.countStartedBetween(from, to);
+        }
+        long columnStartedNanos = System.nanoTime() - started;
+        report("started in 2024", objectStartedNanos, columnStartedNanos);
+
+        started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += objectActive(objects);
+        }
+        long objectActiveNanos = System.nanoTime() - started;
+        started = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += columns.count(null, Boolean.TRUE);
+        }
+        long columnActiveNanos = System.nanoTime() - started;
+        report("active members", objectActiveNanos, columnActiveNanos);
+
+        Random random = new Random(7);
+        for (int i = 0; i < count / 10; i++) {
+            String id = Integer.toString(random.nextInt(count) + 1);
+            switch (random.nextInt(4)) {
+                case 0:
+                    registry.markAttendance(id);
+                    break;
+                case 1:
+                    registry.payDueAmount(id, 1_000 + random.nextInt(10_000));
+                    break;
+                case 2:
+                    registry.deactivateMembership(id);
+                    break;
+                default:
+                    registry.remove(id);
+                    break;
+            }
+        }
+        failures += verify(registry, columns);
+        failures += verify(registry, buildRegistryColumns(registry));
+
+        if (sink == 42) {
+            System.out.println();
+        }
+        if (failures > 0) {
+            System.out.println("FAIL: " + failures + " aggregates differ from the member objects");
+            System.exit(1);
+        }
+        System.out.println("OK: column aggregates match the member objects after updates");
+    }
+
+    private static MemberColumns buildRegistryColumns(MemberRegistry registry) {
+        MemberColumns columns = new MemberColumns();
+        for (GymMember member : registry.asList()) {
+            columns.memberAdded(member);
+        }
+        return columns;
+    }
+
+    private static int verify(MemberRegistry registry, MemberColumns columns) {
+        List<GymMember> objects = registry.asList();
+        long paid = 0;
+        int eligible = 0;
+        int premiumActive = 0;
+        for (GymMember member : objects) {
+            if (member instanceof PremiumMember) {
+                paid += ((PremiumMember) member).getPaidCents();
+                premiumActive += member.isActiveStatus() ? 1 : 0;
+            } else if (((RegularMember) member).isEligibleForUpgrade()) {
+                eligible++;
+            }
+        }
+        LocalDate from = LocalDate.of(2024, 1, 1);
+        LocalDate to = LocalDate.of(2024, 12, 31);
+        boolean same = columns.size() == objects.size()
+            && columns.sumLoyaltyPoints(Boolean.TRUE, Boolean.TRUE) == objectLoyalty(objects)
+            && columns.countStartedBetween(from, to) == objectStarted(objects, from, to)
+            && columns.count(null, Boolean.TRUE) == objectActive(objects)
+            && columns.count(Boolean.TRUE, Boolean.TRUE) == premiumActive
+            && columns.sumPaidCents(null) == paid
+            && columns.countEligibleForUpgrade() == eligible;
+        return same ? 0 : 1;
+    }
+
+    private static long objectLoyalty(List<GymMember> objects) {
+        long total = 0;
+        for (GymMember member : objects) {
+            if (member instanceof PremiumMember && member.isActiveStatus()) {
+                total += member.getLoyaltyPoints();
+            }
+        }
+        return total;
+    }
+
+    private static int objectStarted(List<GymMember> objects, LocalDate from, LocalDate to) {
+        int count = 0;
+        for (GymMember member : objects) {
+            LocalDate start = member.getMembershipStartDate();
+            if (!start.isBefore(from) && !start.isAfter(to)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int objectActive(List<GymMember> objects) {
+        int count = 0;
+        for (GymMember member : objects) {
+            if (member.isActiveStatus()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void report(String scan, long objectNanos, long columnNanos) {
+        System.out.printf("%-28s objects %7.2f ms   columns %7.2f ms   (%.1fx)%n", scan,
+            objectNanos / 1e6 / ITERATIONS, columnNanos / 1e6 / ITERATIONS, (double) objectNanos / columnNanos);
+    }
+}
@@ -0,0 +1,283 @@
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+/**
+ * Generates realistic synthetic member files for load and scale testing
+ *
+ * Writes N members in the members file format, streamed so a file of
+ * millions of members needs no more heap than one member at a time. The
+ * same count and seed always produce the same file. Distributions:
+ *   - 20% premium members; regular plans 55% Basic, 30% Standard, 15% Deluxe
+ *   - referral sources and personal trainers weighted, a few trainers
+ *     taking most of the premium members
+ *   - ages 16 to 75 around a peak in the late twenties; start dates over the
+ *     last five years, more of them recent and with a January rush
+ *   - 80% active; attendance follows each member's tenure and a personal
+ *     visit rate, with loyalty points and upgrade eligibility to match, and
+ *     inactive regular members often carry a removal reason
+ *   - premium payments: 35% paid in full (half of them with the discount
+ *     applied), 45% part-paid in round instalments, 20% nothing yet
+ *
+ * IDs run from 1 to N. Phone numbers and emails are unique.
+ *
+ * The benchmarks build their members through the same generator: member(n)
+ * returns the n-th member directly, so a benchmark can rebuild the member it
+ * stored to check it, and member(n, premium) fixes the type where a
+ * benchmark needs one. registry() adds all N members to a new registry.
+ *
+ * Run from the project directory:
+ *   javac -d out *.java benchmarks/*.java
+ *   java -cp out MemberDataGenerator [members] [file] [seed]
+ */
+public class MemberDataGenerator {
+
+    private static final String[] FIRST_NAMES = {
+        "Aarav", "Aayush", "Anisha", "Anjali", "Bibek", "Bikash", "Deepa", "Dipesh", "Gita", "Hari",
+        "Kiran", "Krishna", "Laxmi", "Manisha", "Nabin", "Nisha", "Pooja", "Prakash", "Pratik", "Priya",
+        "Rajesh", "Ram", "Rita", "Rohan", "Sabina", "Sagar", "Sandeep", "Sanjana", "Sita", "Sunil",
+        "Suraj", "Sushma", "Ujjwal", "Asha", "Binod", "Sarita", "Roshan", "Kabita", "Nirmal", "Srijana",
+        "James", "Emma", "Liam", "Olivia", "Noah", "Ava", "Ethan", "Mia", "Lucas", "Sophia"
+    };
+
+    private static final String[] LAST_NAMES = {
+        "Adhikari", "Bhandari", "Basnet", "Chaudhary", "Dahal", "Gurung", "Karki", "Khadka", "Lama", "Magar",
+        "Maharjan", "Pandey", "Poudel", "Rai", "Rana", "Regmi", "Sapkota", "Shah", "Sharma", "Shrestha",
+        "Tamang", "Thapa", "Tiwari", "Yadav", "Bhattarai", "Ghimire", "Koirala", "Joshi", "Acharya", "Subedi",
+        "Smith", "Brown", "Wilson", "Taylor", "Clark"
+    };
+
+    private static final String[] EMAIL_DOMAINS = {"gmail.com", "gmail.com", "gmail.com", "yahoo.com", "outlook.com", "hotmail.com"};
+
+    private static final String[] PLANS = {"Basic", "Standard", "Deluxe"};
+
+    private static final int[] PLAN_WEIGHTS = {55, 30, 15};
+
+    private static final String[] REFERRALS = {"Friend", "Instagram", "Facebook", "Walk-in", "Website", "Flyer"};
+
+    private static final int[] REFERRAL_WEIGHTS = {35, 22, 15, 15, 9, 4};
+
+    private static final String[] TRAINERS = {
+        "Ramesh Thapa", "Sita Gurung", "Bikram Rai", "Anita Shrestha", "Suresh Lama", "Mina Karki",
+        "Prabin Magar", "Kamala Tamang", "Dinesh Poudel", "Sarita Rana", "Nirajan Khadka", "Bina Sharma"
+    };
+
+    // Roughly Zipfian: the first trainers are the busiest
+    private static final int[] TRAINER_WEIGHTS = {24, 16, 12, 10, 8, 7, 6, 5, 4, 3, 3, 2};
+
+    private static final String[] REMOVAL_REASONS = {"Relocated", "Too expensive", "Injury", "Joined another gym", "No time"};
+
+    private static final int PREMIUM_PERCENT = 20;
+
+    private static final int ACTIVE_PERCENT = 80;
+
+    private static final int HISTORY_DAYS = 5 * 365;
+
+    private final int count;
+
+    private final long seed;
+
+    private final LocalDate today;
+
+    /**
+     * @param count The number of members to generate
+     * @param seed The random seed; the same seed gives the same members
+     */
+    public MemberDataGenerator(int count, long seed) {
+        this(count, seed, LocalDate.now());
+    }
+
+    /**
+     * @param today The date dates are generated relative to
+     */
+    public MemberDataGenerator(int count, long seed, LocalDate today) {
+        this.count = count;
+        this.seed = seed;
+        this.today = today;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path file = Paths.get(args.length > 1 ? args[1] : "generated-members.txt");
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        long started = System.nanoTime();
+        int written = MemberFileFormat.write(file, new MemberDataGenerator(count, seed).members(), 0);
+        long elapsed = System.nanoTime() - started;
+
+        if (written != count) {
+            System.out.println("FAIL: wrote " + written + " of " + count + " members");
+            System.exit(1);
+        }
+        System.out.printf("%,d members written to %s in %.0f ms (%.1f MB)%n",
+            written, file, elapsed / 1e6, Files.size(file) / 1e6);
+        System.out.println("OK: " + file + " is ready to load with Read from File or LoadDriver");
+    }
+
+    /**
+     * Returns the generated members, created one at a time as they are iterated
+     *
+     * Each iteration yields the same members, those of member(1) to member(N).
+     */
+    public Iterable<GymMember> members() {
+        return () -> new Iterator<GymMember>() {
+            private int next = 1;
+
+            @Override
+            public boolean hasNext() {
+                return next <= count;
+            }
+
+            @Override
+            public GymMember next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return member(next++);
+            }
+        };
+    }
+
+    /**
+     * Returns a new registry holding all generated members
+     */
+    public MemberRegistry registry() {
+        MemberRegistry registry = new MemberRegistry();
+        for (GymMember member : members()) {
+            registry.add(member);
+        }
+        return registry;
+    }
+
+    /**
+     * Generates one member
+     *
+     * @param number The member's ID; the same number and seed give the same member
+     */
+    public GymMember member(int number) {
+        SplittableRandom random = random(number);
+        return member(number, random, random.nextInt(100) < PREMIUM_PERCENT);
+    }
+
+    /**
+     * Generates one member of a given type
+     *
+     * @param number The member's ID; the same number and seed give the same member
+     * @param premium true for a premium member, false for a regular one
+     */
+    public GymMember member(int number, boolean premium) {
+        SplittableRandom random = random(number);
+        random.nextInt(100);
+        return member(number, random, premium);
+    }
+
+    // Each member's own sequence, so members can be generated in any order
+    private SplittableRandom random(int number) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + number);
+    }
+
+    private GymMember member(int number, SplittableRandom random, boolean premium) {
+        String id = Integer.toString(number);
+        String first = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String last = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        String name = first + " " + last;
+        // Unique per member: the ID makes both the number and the address distinct
+        String phone = (random.nextInt(10) < 7 ? "98" : "97") + String.format("%08d", number % 100_000_000);
+        String email = first.toLowerCase() + "." + last.toLowerCase() + number + "@"
+            + EMAIL_DOMAINS[random.nextInt(EMAIL_DOMAINS.length)];
+        String gender = random.nextInt(100) < 55 ? "Male" : "Female";
+        LocalDate dateOfBirth = today.minusDays(ageDays(random));
+        LocalDate startDate = startDate(random);
+
+        GymMember member;
+        if (premium) {
+            member = new PremiumMember(id, name, phone, email, gender, dateOfBirth, startDate,
+                weighted(random, TRAINERS, TRAINER_WEIGHTS));
+        } else {
+            member = new RegularMember(id, name, phone, email, gender, dateOfBirth, startDate,
+                weighted(random, PLANS, PLAN_WEIGHTS), weighted(random, REFERRALS, REFERRAL_WEIGHTS));
+        }
+
+        boolean active = random.nextInt(100) < ACTIVE_PERCENT;
+        int attendance = attendance(random, startDate, active);
+        member.setActiveStatus(active);
+        member.setAttendanceCount(attendance);
+        if (member instanceof RegularMember) {
+            RegularMember regular = (RegularMember) member;
+            member.setLoyaltyPoints(attendance * 5);
+            regular.setEligibleForUpgrade(attendance >= RegularMember.ATTENDANCE_LIMIT);
+            if (!active && random.nextInt(100) < 60) {
+                regular.setRemovalReason(REMOVAL_REASONS[random.nextInt(REMOVAL_REASONS.length)]);
+            }
+        } else {
+            member.setLoyaltyPoints(attendance * 10);
+            payments((PremiumMember) member, random);
+        }
+        return member;
+    }
+
+    // Ages 16 to 75, peaking in the late twenties (a sum of uniforms approximates a bell curve)
+    private static long ageDays(SplittableRandom random) {
+        double age = 16 + (random.nextDouble() + random.nextDouble() + random.nextDouble()) / 3 * 30
+            + (random.nextInt(100) < 20 ? random.nextDouble() * 30 : 0);
+        return (long) (Math.min(age, 75) * 365.25);
+    }
+
+    // More recent starts than old ones, as a growing gym has; January gets extra sign-ups
+    private LocalDate startDate(SplittableRandom random) {
+        double skew = random.nextDouble() * random.nextDouble();
+        LocalDate start = today.minusDays((long) (skew * HISTORY_DAYS));
+        if (random.nextInt(100) < 8) {
+            start = start.withMonth(1);
+            if (start.isAfter(today)) {
+                start = start.minusYears(1);
+            }
+        }
+        return start;
+    }
+
+    // Visits over the member's tenure at a personal weekly rate; inactive members stopped coming
+    private int attendance(SplittableRandom random, LocalDate startDate, boolean active) {
+        long weeks = Math.max(1, (today.toEpochDay() - startDate.toEpochDay()) / 7);
+        double perWeek = Math.exp(random.nextDouble() * 2.2) - 0.8;
+        double share = active ? 1.0 : random.nextDouble() * 0.6;
+        return (int) Math.max(0, Math.round(weeks * share * Math.max(0, perWeek)));
+    }
+
+    private static void payments(PremiumMember member, SplittableRandom random) {
+        int kind = random.nextInt(100);
+        if (kind < 35) {
+            member.setPaidCents(PremiumMember.getPremiumChargeCents());
+            if (random.nextBoolean()) {
+                member.calculateDiscountCents();
+            }
+        } else if (kind < 80) {
+            long instalment = 500_000L * (1 + random.nextInt(4));
+            int instalments = 1 + random.nextInt(8);
+            member.setPaidCents(Math.min(instalment * instalments, PremiumMember.getPremiumChargeCents() - 100_000));
+        }
+    }
+
+    private static String weighted(SplittableRandom random, String[] values, int[] weights) {
+        int total = 0;
+        for (int weight : weights) {
+            total += weight;
+        }
+        int pick = random.nextInt(total);
+        for (int i = 0; i < values.length; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return values[i];
+            }
+        }
+        return values[values.length - 1];
+    }
+}
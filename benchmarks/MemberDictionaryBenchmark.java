@@ -0,0 +1,115 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the heap saved by storing shared member fields as MemberDictionary codes
+ *
+ * Writes a member file of MemberDataGenerator members, loads it back with
+ * MemberFileFormat (which splits every line into separate Strings) and
+ * measures the heap the loaded members retain. It then gives every member
+ * its own copy of its gender, plan or trainer, and referral source, as the
+ * members held before these fields were encoded, and measures the heap
+ * again. The difference is what the dictionary saves. The run checks that
+ * every member decodes to the values it was written with and exits with
+ * status 1 if not.
+ *
+ * Heap figures come from Runtime after repeated System.gc() calls, so they
+ * are approximate; run with a fixed heap for steadier numbers.
+ *
+ * Run from the project directory (1M members need roughly 1.5 GB of heap):
+ *   javac -d out *.java benchmarks/*.java
+ *   java -Xms1500m -Xmx1500m -cp out MemberDictionaryBenchmark [members]
+ */
+public class MemberDictionaryBenchmark {
+
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path file = Files.createTempFile("members", ".txt");
+        try {
+            // Deterministic, so verify() can rebuild what each member was written with
+            MemberDataGenerator generator = new MemberDataGenerator(count, SEED);
+            MemberFileFormat.write(file, generator.members(), 0);
+
+            List<GymMember> loaded = new ArrayList<>(count);
+            long before = usedHeap();
+            long started = System.nanoTime();
+            MemberFileFormat.read(file, loaded::add);
+            long loadNanos = System.nanoTime() - started;
+            long encoded = usedHeap() - before;
+
+            // What each member held before: its own String per shared field, as split from its line
+            String[][] ownCopies = new String[loaded.size()][];
+            long copiesBefore = usedHeap();
+            for (int i = 0; i < ownCopies.length; i++) {
+                GymMember member = loaded.get(i);
+                String planOrTrainer = member instanceof RegularMember
+                    ? ((RegularMember) member).getMembershipPlan()
+                    : ((PremiumMember) member).getPersonalTrainer();
+                String referral = member instanceof RegularMember ? ((RegularMember) member).getReferralSource() : null;
+                ownCopies[i] = new String[] {copy(member.getGender()), copy(planOrTrainer), copy(referral)};
+            }
+            long copies = usedHeap() - copiesBefore;
+
+            System.out.printf("%,d members loaded in %.0f ms%n", loaded.size(), loadNanos / 1e6);
+            System.out.printf("Dictionaries: %d genders, %d plans, %d referral sources, %d trainers%n",
+                MemberDictionary.GENDERS.size(), MemberDictionary.PLANS.size(),
+                MemberDictionary.REFERRAL_SOURCES.size(), MemberDictionary.TRAINERS.size());
+            System.out.printf("Heap with per-member Strings  %7.1f MB  (%.0f bytes/member)%n",
+                (encoded + copies) / 1e6, (double) (encoded + copies) / loaded.size());
+            System.out.printf("Heap with dictionary codes    %7.1f MB  (%.0f bytes/member)%n",
+                encoded / 1e6, (double) encoded / loaded.size());
+            System.out.printf("Saved                         %7.1f MB  (%.0f%%)%n",
+                copies / 1e6, 100.0 * copies / (encoded + copies));
+
+            int failures = verify(loaded, generator);
+            if (ownCopies.length != loaded.size()) {
+                failures++;
+            }
+            if (failures > 0) {
+                System.out.println("FAIL: " + failures + " members decode to different values");
+                System.exit(1);
+            }
+            System.out.println("OK: every member decodes to the values it was written with");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static int verify(List<GymMember> loaded, MemberDataGenerator generator) {
+        int failures = 0;
+        for (int i = 0; i < loaded.size(); i++) {
+            GymMember member = loaded.get(i);
+            GymMember expected = generator.member(i + 1);
+            boolean same = member.getGender().equals(expected.getGender());
+            if (expected instanceof RegularMember) {
+                same &= member instanceof RegularMember
+                    && ((RegularMember) member).getMembershipPlan().equals(((RegularMember) expected).getMembershipPlan())
+                    && ((RegularMember) member).getReferralSource().equals(((RegularMember) expected).getReferralSource());
+            } else {
+                same &= member instanceof PremiumMember
+                    && ((PremiumMember) member).getPersonalTrainer().equals(((PremiumMember) expected).getPersonalTrainer());
+            }
+            if (!same) {
+                failures++;
+            }
+        }
+        return failures;
+    }
+
+    private static String copy(String value) {
+        return value != null ? new String(value.toCharArray()) : null;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,263 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Minimal microbenchmark harness with JSON results
+ *
+ * A benchmark is a Loop that performs an operation a given number of times.
+ * The harness first doubles the operation count until one run takes the
+ * target iteration time, then runs the warmup iterations, so the JIT has
+ * compiled the loop, rescaling the count after each one as the code gets
+ * faster. The measured iterations all use the count the warmup ended with.
+ * The score is the average time per operation, in ns/op, with the 99.9%
+ * confidence interval across the measured iterations as its error.
+ *
+ * Every Loop returns a value derived from its work; the harness keeps it so
+ * the JIT cannot remove the work as dead code. Benchmarks run one at a time
+ * on the calling thread and in the same JVM, so results are steadier with a
+ * fixed heap size (-Xms equal to -Xmx).
+ *
+ * writeJson() writes the results in this project's own format, marked
+ * "gym-microbench" version 1, so they can be kept and compared from run to
+ * run:
+ *   {
+ *     "format" : "gym-microbench", "version" : 1,
+ *     "jdkVersion" : ..., "vmName" : ..., "warmupIterations" : ...,
+ *     "measurementIterations" : ..., "iterationMillis" : ...,
+ *     "results" : [ { "benchmark" : ..., "params" : { ... }, "unit" : "ns/op",
+ *                     "score" : ..., "scoreError" : ..., "scoreConfidence" : [ low, high ],
+ *                     "rawData" : [ one score per measured iteration ] }, ... ]
+ *   }
+ */
+public class Microbench {
+
+    /**
+     * One benchmark: performs its operation ops times
+     */
+    @FunctionalInterface
+    public interface Loop {
+        long run(long ops) throws Exception;
+    }
+
+    /**
+     * Average-time result of one benchmark with one set of parameters
+     */
+    public static class Result {
+
+        private final String benchmark;
+
+        private final Map<String, String> params;
+
+        private final double[] nanosPerOp;
+
+        private Result(String benchmark, Map<String, String> params, double[] nanosPerOp) {
+            this.benchmark = benchmark;
+            this.params = params;
+            this.nanosPerOp = nanosPerOp;
+        }
+
+        public String getBenchmark() {
+            return benchmark;
+        }
+
+        public Map<String, String> getParams() {
+            return params;
+        }
+
+        /**
+         * Returns the mean time per operation across the measured iterations
+         */
+        public double getScore() {
+            double sum = 0;
+            for (double value : nanosPerOp) {
+                sum += value;
+            }
+            return sum / nanosPerOp.length;
+        }
+
+        /**
+         * Returns the half-width of the 99.9% confidence interval of the score
+         */
+        public double getScoreError() {
+            int n = nanosPerOp.length;
+            if (n < 2) {
+                return Double.NaN;
+            }
+            double mean = getScore();
+            double squares = 0;
+            for (double value : nanosPerOp) {
+                squares += (value - mean) * (value - mean);
+            }
+            return studentT999(n - 1) * Math.sqrt(squares / (n - 1)) / Math.sqrt(n);
+        }
+    }
+
+    // Two-sided 99.9% Student's t quantiles for 1 to 20 degrees of freedom
+    private static final double[] T_999 = {
+        636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+        4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850
+    };
+
+    private static final double NORMAL_999 = 3.291;
+
+    private final int warmupIterations;
+
+    private final int measurementIterations;
+
+    private final long iterationNanos;
+
+    private final List<Result> results = new ArrayList<>();
+
+    private long blackhole;
+
+    /**
+     * @param warmupIterations Iterations run before measuring
+     * @param measurementIterations Iterations measured
+     * @param iterationMillis Target duration of one iteration
+     */
+    public Microbench(int warmupIterations, int measurementIterations, long iterationMillis) {
+        if (measurementIterations < 1 || iterationMillis < 1) {
+            throw new IllegalArgumentException("At least one measured iteration of at least 1 ms is needed");
+        }
+        this.warmupIterations = warmupIterations;
+        this.measurementIterations = measurementIterations;
+        this.iterationNanos = iterationMillis * 1_000_000L;
+    }
+
+    /**
+     * Runs a benchmark without parameters
+     */
+    public Result run(String benchmark, Loop loop) throws Exception {
+        return run(benchmark, new LinkedHashMap<>(), loop);
+    }
+
+    /**
+     * Runs a benchmark and records its result
+     *
+     * @param benchmark The benchmark name, as Class.method
+     * @param params Parameter values this run uses, reported with the result
+     * @param loop The benchmark loop
+     * @return The result
+     */
+    public Result run(String benchmark, Map<String, String> params, Loop loop) throws Exception {
+        long ops = calibrate(loop);
+        for (int i = 0; i < warmupIterations; i++) {
+            ops = rescale(ops, time(loop, ops));
+        }
+        double[] nanosPerOp = new double[measurementIterations];
+        for (int i = 0; i < measurementIterations; i++) {
+            nanosPerOp[i] = (double) time(loop, ops) / ops;
+        }
+        Result result = new Result(benchmark, new LinkedHashMap<>(params), nanosPerOp);
+        results.add(result);
+        return result;
+    }
+
+    public List<Result> getResults() {
+        return results;
+    }
+
+    /**
+     * Writes every result recorded so far as a gym-microbench JSON document
+     *
+     * @param file The file to write
+     */
+    public void writeJson(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("{\n");
+            out.write("    \"format\" : \"gym-microbench\",\n");
+            out.write("    \"version\" : 1,\n");
+            out.write("    \"jdkVersion\" : " + quote(System.getProperty("java.version")) + ",\n");
+            out.write("    \"vmName\" : " + quote(System.getProperty("java.vm.name")) + ",\n");
+            out.write("    \"warmupIterations\" : " + warmupIterations + ",\n");
+            out.write("    \"measurementIterations\" : " + measurementIterations + ",\n");
+            out.write("    \"iterationMillis\" : " + iterationNanos / 1_000_000 + ",\n");
+            out.write("    \"results\" : [\n");
+            for (int i = 0; i < results.size(); i++) {
+                Result result = results.get(i);
+                out.write("        {\n");
+                out.write("            \"benchmark\" : " + quote(result.benchmark) + ",\n");
+                out.write("            \"params\" : {");
+                int p = 0;
+                for (Map.Entry<String, String> param : result.params.entrySet()) {
+                    out.write((p++ > 0 ? ", " : " ") + quote(param.getKey()) + " : " + quote(param.getValue()));
+                }
+                out.write(p > 0 ? " },\n" : "},\n");
+                double score = result.getScore();
+                double error = result.getScoreError();
+                out.write("            \"unit\" : \"ns/op\",\n");
+                out.write("            \"score\" : " + number(score) + ",\n");
+                out.write("            \"scoreError\" : " + number(error) + ",\n");
+                out.write("            \"scoreConfidence\" : [ " + number(score - error) + ", " + number(score + error) + " ],\n");
+                out.write("            \"rawData\" : [ ");
+                for (int r = 0; r < result.nanosPerOp.length; r++) {
+                    out.write((r > 0 ? ", " : "") + number(result.nanosPerOp[r]));
+                }
+                out.write(" ]\n");
+                out.write(i + 1 < results.size() ? "        },\n" : "        }\n");
+            }
+            out.write("    ]\n");
+            out.write("}\n");
+        }
+    }
+
+    // Doubles the operation count until one run takes at least the iteration time
+    private long calibrate(Loop loop) throws Exception {
+        long ops = 1;
+        while (time(loop, ops) < iterationNanos && ops < Long.MAX_VALUE / 4) {
+            ops *= 2;
+        }
+        return ops;
+    }
+
+    // Scales the operation count so the next iteration takes about the iteration time
+    private long rescale(long ops, long nanos) {
+        return Math.max(1, (long) ((double) ops * iterationNanos / Math.max(1, nanos)));
+    }
+
+    private long time(Loop loop, long ops) throws Exception {
+        long started = System.nanoTime();
+        long value = loop.run(ops);
+        long nanos = System.nanoTime() - started;
+        blackhole ^= value;
+        return nanos;
+    }
+
+    /**
+     * Returns the value the loops produced, combined; print it or ignore it
+     */
+    public long getBlackhole() {
+        return blackhole;
+    }
+
+    private static double studentT999(int degreesOfFreedom) {
+        return degreesOfFreedom <= T_999.length ? T_999[degreesOfFreedom - 1] : NORMAL_999;
+    }
+
+    private static String number(double value) {
+        return Double.isFinite(value) ? String.format(Locale.ROOT, "%.3f", value) : "\"NaN\"";
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
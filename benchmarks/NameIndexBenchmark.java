@@ -0,0 +1,123 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Measures typeahead name search with NameIndex against a contains() scan
+ *
+ * Registers MemberDataGenerator members, then times searches for the kind
+ * of text typed into the member search box, taken from their names: the
+ * first letters of a first name, the first letters of a last name, and a
+ * fragment from the middle of a name. Each search is checked against a scan of every member:
+ * every member returned must match, and if fewer than the limit are
+ * returned, no matching member may be missing. Renames and removals are
+ * checked the same way. The run exits with status 1 if anything differs.
+ *
+ * Run from the project directory:
+ *   javac -d out *.java benchmarks/*.java
+ *   java -cp out NameIndexBenchmark [members]
+ */
+public class NameIndexBenchmark {
+
+    private static final long SEED = 42;
+
+    private static final int LIMIT = MemberComboBoxModel.NAME_MATCH_LIMIT;
+
+    public static void main(String[] args) {
+        int memberCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        long started = System.nanoTime();
+        MemberRegistry members = new MemberDataGenerator(memberCount, SEED).registry();
+        System.out.printf("%,d members generated, registered and indexed in %.0f ms%n",
+            memberCount, (System.nanoTime() - started) / 1e6);
+
+        // Typed text taken from the names of random members
+        NameIndex index = members.getNameIndex();
+        Random random = new Random(SEED);
+        List<String> queries = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            String[] words = members.get(random.nextInt(memberCount)).getName().split(" ");
+            String first = words[0];
+            String last = words[words.length - 1];
+            queries.add(first.substring(0, Math.min(first.length(), 1 + random.nextInt(3))));
+            queries.add(last.substring(0, Math.min(last.length(), 2 + random.nextInt(3))));
+            int start = random.nextInt(last.length() - 2);
+            queries.add(last.substring(start, start + 3));
+        }
+
+        int failures = 0;
+        for (int i = 0; i < 300; i++) {
+            failures += check(members, index, queries.get(i));
+        }
+
+        int iterations = 30_000;
+        long sink = 0;
+        started = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += index.search(queries.get(i % queries.size()), LIMIT).size();
+        }
+        report("NameIndex.search", System.nanoTime() - started, iterations);
+
+        int scanIterations = 300;
+        started = System.nanoTime();
+        for (int i = 0; i < scanIterations; i++) {
+            sink += scan(members, queries.get(i % queries.size())).size();
+        }
+        report("contains() scan", System.nanoTime() - started, scanIterations);
+
+        for (int i = 1; i <= 1_000; i++) {
+            members.findById(Integer.toString(i)).setName("Zed Renamed" + i);
+        }
+        for (int i = 1_001; i <= 2_000; i++) {
+            members.remove(Integer.toString(i));
+        }
+        failures += check(members, index, "zed");
+        failures += check(members, index, "renamed99");
+        failures += check(members, index, "amed1");
+        for (int i = 0; i < 100; i++) {
+            failures += check(members, index, queries.get(i));
+        }
+
+        if (sink == 42) {
+            System.out.println();
+        }
+        if (failures > 0) {
+            System.out.println("FAIL: " + failures + " searches differ from a scan");
+            System.exit(1);
+        }
+        System.out.println("OK: searches match a scan, including after renames and removals");
+    }
+
+    private static int check(MemberRegistry members, NameIndex index, String query) {
+        List<GymMember> found = index.search(query, LIMIT);
+        List<GymMember> expected = scan(members, query);
+        if (!expected.containsAll(found)) {
+            return 1;
+        }
+        if (found.size() < LIMIT && found.size() != expected.size()) {
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Finds the members whose name starts with, has a word starting with, or contains the query
+     */
+    private static List<GymMember> scan(MemberRegistry members, String query) {
+        String text = query.toLowerCase(Locale.ROOT);
+        List<GymMember> found = new ArrayList<>();
+        for (int i = 0; i < members.size(); i++) {
+            GymMember member = members.get(i);
+            String name = member.getName().toLowerCase(Locale.ROOT);
+            if (name.startsWith(text) || name.contains(" " + text) || (text.length() >= 3 && name.contains(text))) {
+                found.add(member);
+            }
+        }
+        return found;
+    }
+
+    private static void report(String query, long nanos, int iterations) {
+        System.out.printf("%-20s %10.1f us/search%n", query, nanos / 1e3 / iterations);
+    }
+}
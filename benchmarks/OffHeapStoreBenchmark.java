@@ -0,0 +1,236 @@
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares heap usage and GC pauses of heap member objects and OffHeapMemberStore
+ *
+ * For each backend, stores the same MemberDataGenerator members, then measures:
+ *   - the heap they retain, from Runtime after repeated System.gc() calls
+ *   - the pause of a full collection (System.gc()), which traces every live
+ *     object and so grows with the number of member objects
+ *   - the collections during a check-in workload that looks members up by ID,
+ *     marks attendance and formats a short response for each, as the
+ *     check-in server does
+ *
+ * The heap backend is what MemberRegistry keeps at its core: the GymMember
+ * objects in an ArrayList plus a map from ID to member. After the workload
+ * both backends must hold the same attendance and loyalty totals, and a
+ * sample of off-heap views must match the members they were stored from;
+ * the run exits with status 1 if not.
+ *
+ * Run from the project directory, one backend per JVM for steadier figures:
+ *   javac -d out *.java benchmarks/*.java
+ *   java -Xms2g -Xmx2g -cp out OffHeapStoreBenchmark [members] [heap|offheap|both]
+ */
+public class OffHeapStoreBenchmark {
+
+    private static final int FULL_GCS = 5;
+
+    private static final int CHECK_INS_PER_MEMBER = 5;
+
+    private static final long SEED = 42;
+
+    private static long checksum = -1;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String mode = args.length > 1 ? args[1] : "both";
+        int checkIns = count * CHECK_INS_PER_MEMBER;
+        MemberDataGenerator generator = new MemberDataGenerator(count, SEED);
+
+        PrintStream console = System.out;
+        int failures = 0;
+        if (!mode.equals("offheap")) {
+            failures += runHeap(console, generator, checkIns);
+        }
+        if (!mode.equals("heap")) {
+            failures += runOffHeap(console, generator, checkIns);
+        }
+        if (failures > 0) {
+            console.println("FAIL: the backends hold different attendance totals");
+            System.exit(1);
+        }
+        console.println("OK: off-heap views match their members and the attendance totals agree");
+    }
+
+    private static int runHeap(PrintStream console, MemberDataGenerator generator, int checkIns) {
+        int count = generator.getCount();
+        long baseline = usedHeap();
+        List<GymMember> members = new ArrayList<>(count);
+        Map<String, GymMember> byId = new HashMap<>(count * 2);
+        long started = System.nanoTime();
+        for (GymMember member : generator.members()) {
+            members.add(member);
+            byId.put(member.getId(), member);
+        }
+        long buildNanos = System.nanoTime() - started;
+        long heap = usedHeap() - baseline;
+        double[] fullGc = fullGcMillis();
+
+        GcCounter gc = new GcCounter();
+        Random random = new Random(7);
+        long sink = 0;
+        started = System.nanoTime();
+        for (int i = 0; i < checkIns; i++) {
+            GymMember member = byId.get(Integer.toString(random.nextInt(count) + 1));
+            member.markAttendance();
+            sink += respond(member).length();
+        }
+        long workNanos = System.nanoTime() - started;
+        gc.stop();
+
+        long total = 0;
+        for (GymMember member : members) {
+            total += member.getAttendanceCount() * 31L + member.getLoyaltyPoints();
+        }
+        report(console, "Heap objects", count, buildNanos, heap, 0, fullGc, checkIns, workNanos, gc, sink);
+        return check(total);
+    }
+
+    private static int runOffHeap(PrintStream console, MemberDataGenerator generator, int checkIns) {
+        int count = generator.getCount();
+        long baseline = usedHeap();
+        OffHeapMemberStore store = new OffHeapMemberStore();
+        long started = System.nanoTime();
+        for (GymMember member : generator.members()) {
+            store.add(member);
+        }
+        long buildNanos = System.nanoTime() - started;
+        long heap = usedHeap() - baseline;
+        double[] fullGc = fullGcMillis();
+        int mismatches = verify(store, generator);
+
+        GcCounter gc = new GcCounter();
+        Random random = new Random(7);
+        long sink = 0;
+        started = System.nanoTime();
+        for (int i = 0; i < checkIns; i++) {
+            String id = Integer.toString(random.nextInt(count) + 1);
+            store.markAttendance(id);
+            sink += respond(store.find(id)).length();
+        }
+        long workNanos = System.nanoTime() - started;
+        gc.stop();
+
+        long[] total = new long[1];
+        store.forEach(view -> total[0] += view.getAttendanceCount() * 31L + view.getLoyaltyPoints());
+        report(console, "Off-heap store", count, buildNanos, heap, store.getOffHeapBytes(), fullGc,
+            checkIns, workNanos, gc, sink);
+        if (mismatches > 0) {
+            console.println("FAIL: " + mismatches + " views differ from the members they were stored from");
+            System.exit(1);
+        }
+        return check(total[0]);
+    }
+
+    // Every 97th view against the member it was stored from, field by field and through toMember()
+    private static int verify(OffHeapMemberStore store, MemberDataGenerator generator) {
+        int mismatches = 0;
+        for (int i = 1; i <= generator.getCount(); i += 97) {
+            GymMember expected = generator.member(i);
+            OffHeapMemberStore.View view = store.find(expected.getId());
+            GymMember copy = view != null ? view.toMember() : null;
+            if (copy == null || !respond(view).equals(respond(expected))
+                    || !view.getPhoneNumber().equals(expected.getPhoneNumber())
+                    || !view.getEmail().equals(expected.getEmail())
+                    || !view.getDateOfBirth().equals(expected.getDateOfBirth())
+                    || view.isActiveStatus() != expected.isActiveStatus()
+                    || !copy.toFileString().equals(expected.toFileString())) {
+                mismatches++;
+            }
+        }
+        return mismatches;
+    }
+
+    // A short response like the check-in server's, so the workload allocates as a real one does
+    private static String respond(MemberView member) {
+        return "{\"id\":\"" + member.getId() + "\",\"name\":\"" + member.getName()
+            + "\",\"attendance\":" + member.getAttendanceCount() + ",\"loyaltyPoints\":" + member.getLoyaltyPoints() + "}";
+    }
+
+    private static int check(long total) {
+        if (checksum < 0) {
+            checksum = total;
+            return 0;
+        }
+        return checksum == total ? 0 : 1;
+    }
+
+    private static double[] fullGcMillis() {
+        double total = 0;
+        double max = 0;
+        for (int i = 0; i < FULL_GCS; i++) {
+            long started = System.nanoTime();
+            System.gc();
+            double millis = (System.nanoTime() - started) / 1e6;
+            total += millis;
+            max = Math.max(max, millis);
+        }
+        return new double[] {total / FULL_GCS, max};
+    }
+
+    private static void report(PrintStream out, String backend, int count, long buildNanos, long heap, long offHeap,
+                               double[] fullGc, int checkIns, long workNanos, GcCounter gc, long sink) {
+        out.printf("%s: %,d members stored in %.0f ms%n", backend, count, buildNanos / 1e6);
+        out.printf("  heap retained    %7.1f MB  (%.0f bytes/member)%n", heap / 1e6, (double) heap / count);
+        if (offHeap > 0) {
+            out.printf("  off-heap         %7.1f MB  (%.0f bytes/member)%n", offHeap / 1e6, (double) offHeap / count);
+        }
+        out.printf("  full GC pause    %7.1f ms avg, %.1f ms max%n", fullGc[0], fullGc[1]);
+        out.printf("  %,d check-ins in %.0f ms: %d collections, %.1f ms total GC, %.2f ms avg pause%n",
+            checkIns, workNanos / 1e6, gc.count, gc.millis, gc.count == 0 ? 0 : gc.millis / gc.count);
+        if (sink == 42) {
+            out.println();
+        }
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Collections and collection time from the GC MXBeans between creation and stop()
+     */
+    private static final class GcCounter {
+
+        private final long startCount;
+
+        private final long startMillis;
+
+        long count;
+
+        double millis;
+
+        GcCounter() {
+            long[] totals = totals();
+            startCount = totals[0];
+            startMillis = totals[1];
+        }
+
+        void stop() {
+            long[] totals = totals();
+            count = totals[0] - startCount;
+            millis = totals[1] - startMillis;
+        }
+
+        private static long[] totals() {
+            long count = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, bean.getCollectionCount());
+                millis += Math.max(0, bean.getCollectionTime());
+            }
+            return new long[] {count, millis};
+        }
+    }
+}
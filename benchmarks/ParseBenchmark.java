@@ -0,0 +1,106 @@
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Compares member line parsing with String.split against MemberRecordTokenizer
+ *
+ * Both variants parse the same in-memory member file and build the same
+ * RegularMember/PremiumMember objects; the split variant is the loop that
+ * readFromFile used before the tokenizer. Reports rows per second and the
+ * bytes allocated per row by the parsing thread.
+ *
+ * Run from the project directory:
+ *   javac -d out *.java benchmarks/*.java
+ *   java -cp out ParseBenchmark [rows]
+ */
+public class ParseBenchmark {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private static final int ITERATIONS = 5;
+
+    private static long blackhole;
+
+    public static void main(String[] args) {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        byte[] file = buildFile(rows);
+        String[] lines = new String(file, StandardCharsets.UTF_8).split("\n");
+
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        System.out.printf("%d rows, %d bytes%n", rows, file.length);
+        for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+            boolean warmup = iteration < ITERATIONS - 2;
+
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            parseWithSplit(lines);
+            report("split", warmup, rows, System.nanoTime() - start, threads.getCurrentThreadAllocatedBytes() - allocated);
+
+            allocated = threads.getCurrentThreadAllocatedBytes();
+            start = System.nanoTime();
+            parseWithTokenizer(ByteBuffer.wrap(file));
+            report("tokenizer", warmup, rows, System.nanoTime() - start, threads.getCurrentThreadAllocatedBytes() - allocated);
+        }
+        if (blackhole == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void report(String name, boolean warmup, int rows, long nanos, long allocatedBytes) {
+        System.out.printf("%-10s %s %,12.0f rows/s %8.1f bytes/row%n", name, warmup ? "(warmup)" : "        ",
+            rows / (nanos / 1e9), (double) allocatedBytes / rows);
+    }
+
+    private static void parseWithSplit(String[] lines) {
+        for (String line : lines) {
+            String[] parts = line.split(",");
+            GymMember member;
+            if (parts[0].equals("REGULAR")) {
+                RegularMember regular = new RegularMember(parts[1], parts[2], parts[3], parts[4], parts[5],
+                    LocalDate.parse(parts[6], DATE_FORMATTER), LocalDate.parse(parts[7], DATE_FORMATTER),
+                    parts[11], parts[13]);
+                regular.setEligibleForUpgrade(Boolean.parseBoolean(parts[14]));
+                member = regular;
+            } else {
+                PremiumMember premium = new PremiumMember(parts[1], parts[2], parts[3], parts[4], parts[5],
+                    LocalDate.parse(parts[6], DATE_FORMATTER), LocalDate.parse(parts[7], DATE_FORMATTER),
+                    parts[11]);
+                premium.setPaymentComplete(Boolean.parseBoolean(parts[12]));
+                premium.setPaidAmount(Double.parseDouble(parts[13]));
+                premium.setDiscountAmount(Double.parseDouble(parts[14]));
+                member = premium;
+            }
+            member.setAttendanceCount(Integer.parseInt(parts[8]));
+            member.setLoyaltyPoints(Integer.parseInt(parts[9]));
+            member.setActiveStatus(Boolean.parseBoolean(parts[10]));
+            blackhole += member.getAttendanceCount();
+        }
+    }
+
+    private static void parseWithTokenizer(ByteBuffer file) {
+        MemberRecordTokenizer tokenizer = new MemberRecordTokenizer();
+        int length = file.limit();
+        int lineStart = 0;
+        for (int pos = 0; pos < length; pos++) {
+            if (file.get(pos) == '\n') {
+                tokenizer.reset(file, lineStart, pos);
+                blackhole += tokenizer.parseMember().getAttendanceCount();
+                lineStart = pos + 1;
+            }
+        }
+    }
+
+    private static byte[] buildFile(int rows) {
+        StringBuilder out = new StringBuilder(rows * 120);
+        for (GymMember member : new MemberDataGenerator(rows, 42).members()) {
+            member.appendFileString(out);
+            out.append('\n');
+        }
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,140 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress test for concurrent check-ins and payments on MemberRegistry
+ *
+ * Several terminal threads mark attendance and pay fixed instalments on a
+ * small set of premium members, so every member is contended. A reader
+ * thread takes snapshots throughout. At the end the test checks that:
+ *
+ *   - each member's attendance equals the number of accepted check-ins
+ *     (no lost increments), and loyalty points are 10 per visit
+ *   - each member's paid amount equals the accepted instalments and never
+ *     exceeds the premium charge (no overpayment)
+ *   - every snapshot was consistent: loyalty points were exactly 10 times
+ *     attendance and the paid amount a whole number of instalments
+ *
+ * Exits with status 1 if any check fails.
+ *
+ * Run from the project directory:
+ *   javac -d out *.java benchmarks/*.java
+ *   java -cp out RegistryStressTest [threads] [operationsPerThread] [members]
+ */
+public class RegistryStressTest {
+
+    private static final double INSTALMENT = 1000.0;
+
+    public static void main(String[] args) throws InterruptedException {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int memberCount = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+
+        // Active premium members with no visits or payments, so every one can be counted
+        MemberDataGenerator generator = new MemberDataGenerator(memberCount, 42);
+        MemberRegistry registry = new MemberRegistry();
+        for (int i = 0; i < memberCount; i++) {
+            PremiumMember member = (PremiumMember) generator.member(i + 1, true);
+            member.setPaidCents(0);
+            member.setDiscountCents(0);
+            member.setAttendanceCount(0);
+            member.setLoyaltyPoints(0);
+            member.setPaymentComplete(false);
+            member.setActiveStatus(true);
+            registry.add(member);
+        }
+
+        AtomicIntegerArray checkIns = new AtomicIntegerArray(memberCount);
+        AtomicIntegerArray payments = new AtomicIntegerArray(memberCount);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicLong snapshots = new AtomicLong();
+        List<String> snapshotErrors = new ArrayList<>();
+
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                for (GymMember member : registry.snapshot().getMembers()) {
+                    PremiumMember premium = (PremiumMember) member;
+                    double instalments = premium.getPaidAmount() / INSTALMENT;
+                    if (premium.getLoyaltyPoints() != premium.getAttendanceCount() * 10
+                            || instalments != Math.floor(instalments)) {
+                        synchronized (snapshotErrors) {
+                            snapshotErrors.add("Inconsistent snapshot of member " + premium.getId());
+                        }
+                    }
+                }
+                snapshots.incrementAndGet();
+            }
+        }, "snapshot-reader");
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> terminals = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread terminal = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int op = 0; op < operations; op++) {
+                    int index = random.nextInt(memberCount);
+                    String id = Integer.toString(index + 1);
+                    if (random.nextInt(4) == 0) {
+                        if (registry.payDueAmount(id, INSTALMENT)) {
+                            payments.incrementAndGet(index);
+                        }
+                    } else if (registry.markAttendance(id)) {
+                        checkIns.incrementAndGet(index);
+                    }
+                }
+            }, "terminal-" + t);
+            terminals.add(terminal);
+            terminal.start();
+        }
+
+        long started = System.nanoTime();
+        reader.start();
+        start.countDown();
+        for (Thread terminal : terminals) {
+            terminal.join();
+        }
+        long elapsed = System.nanoTime() - started;
+        running.set(false);
+        reader.join();
+
+        List<String> failures = new ArrayList<>(snapshotErrors);
+        int maxInstalments = (int) (PremiumMember.getPremiumCharge() / INSTALMENT);
+        for (int i = 0; i < memberCount; i++) {
+            PremiumMember member = (PremiumMember) registry.findById(Integer.toString(i + 1));
+            if (member.getAttendanceCount() != checkIns.get(i)) {
+                failures.add("Member " + member.getId() + ": attendance " + member.getAttendanceCount()
+                    + ", accepted check-ins " + checkIns.get(i));
+            }
+            if (member.getLoyaltyPoints() != checkIns.get(i) * 10) {
+                failures.add("Member " + member.getId() + ": loyalty points " + member.getLoyaltyPoints());
+            }
+            if (payments.get(i) > maxInstalments || member.getPaidAmount() != payments.get(i) * INSTALMENT
+                    || member.getPaidAmount() > PremiumMember.getPremiumCharge()) {
+                failures.add("Member " + member.getId() + ": paid " + member.getPaidAmount()
+                    + ", accepted instalments " + payments.get(i));
+            }
+        }
+
+        long totalOperations = (long) threads * operations;
+        System.out.printf("%d threads, %,d operations on %d members in %.0f ms (%,.0f ops/s), %,d snapshots%n",
+            threads, totalOperations, memberCount, elapsed / 1e6, totalOperations / (elapsed / 1e9), snapshots.get());
+        if (failures.isEmpty()) {
+            System.out.println("OK: no lost check-ins, no overpayments, all snapshots consistent");
+        } else {
+            for (int i = 0; i < failures.size() && i < 20; i++) {
+                System.out.println("FAIL: " + failures.get(i));
+            }
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Compares startup recovery from the text snapshot and the binary MemberSnapshot
+ *
+ * Builds a registry of MemberDataGenerator members, writes it in both
+ * formats, then times how long each format takes to load back into a new
+ * registry. For the binary format the time to open (map) the snapshot is
+ * reported separately from materializing the members.
+ *
+ * Run from the project directory (1M members need roughly 1 GB of heap):
+ *   javac -d out *.java benchmarks/*.java
+ *   java -Xmx1g -cp out SnapshotBenchmark [members]
+ */
+public class SnapshotBenchmark {
+
+    private static final int ITERATIONS = 5;
+
+    private static final long SEED = 42;
+
+    public static void main(String[] args) throws IOException {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        MemberRegistry registry = new MemberDataGenerator(count, SEED).registry();
+
+        Path dir = Files.createTempDirectory("snapshot-benchmark");
+        Path text = dir.resolve("members.dat");
+        Path binary = dir.resolve("members.snap");
+        try {
+            long start = System.nanoTime();
+            MemberFileFormat.writeSnapshot(text, registry, 1);
+            long textWrite = System.nanoTime() - start;
+            start = System.nanoTime();
+            MemberSnapshot.write(binary, registry, 1);
+            long binaryWrite = System.nanoTime() - start;
+            System.out.printf("%,d members%n", count);
+            System.out.printf("text   write %8.1f ms %,14d bytes%n", textWrite / 1e6, Files.size(text));
+            System.out.printf("binary write %8.1f ms %,14d bytes%n", binaryWrite / 1e6, Files.size(binary));
+            registry = null;
+
+            for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                String label = iteration < ITERATIONS - 2 ? "(warmup)" : "        ";
+
+                MemberRegistry loaded = new MemberRegistry();
+                start = System.nanoTime();
+                MemberFileFormat.readSnapshot(text, loaded);
+                long textLoad = System.nanoTime() - start;
+                check(loaded, count);
+
+                loaded = new MemberRegistry();
+                start = System.nanoTime();
+                MemberSnapshot snapshot = MemberSnapshot.open(binary);
+                long open = System.nanoTime() - start;
+                snapshot.loadInto(loaded);
+                long binaryLoad = System.nanoTime() - start;
+                check(loaded, count);
+
+                System.out.printf("%s text load %8.1f ms | binary open %6.2f ms, load %8.1f ms%n",
+                    label, textLoad / 1e6, open / 1e6, binaryLoad / 1e6);
+            }
+        } finally {
+            Files.deleteIfExists(text);
+            Files.deleteIfExists(binary);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    private static void check(MemberRegistry loaded, int count) {
+        if (loaded.size() != count) {
+            throw new IllegalStateException("Loaded " + loaded.size() + " of " + count + " members");
+        }
+    }
+}